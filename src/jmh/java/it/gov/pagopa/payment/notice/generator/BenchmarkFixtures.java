@@ -0,0 +1,69 @@
+package it.gov.pagopa.payment.notice.generator;
+
+import it.gov.pagopa.payment.notice.generator.model.NoticeGenerationRequestItem;
+import it.gov.pagopa.payment.notice.generator.model.NoticeRequestEH;
+import it.gov.pagopa.payment.notice.generator.model.notice.CreditorInstitution;
+import it.gov.pagopa.payment.notice.generator.model.notice.Debtor;
+import it.gov.pagopa.payment.notice.generator.model.notice.InstallmentData;
+import it.gov.pagopa.payment.notice.generator.model.notice.Notice;
+import it.gov.pagopa.payment.notice.generator.model.notice.NoticeRequestData;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sample data shared by the benchmarks
+ */
+public final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Builds a generation message for a notice with the given number of installments
+     */
+    public static NoticeRequestEH noticeRequestEH(int installments) {
+        List<InstallmentData> installmentData = new ArrayList<>(installments);
+        for (int i = 0; i < installments; i++) {
+            installmentData.add(InstallmentData.builder()
+                    .code(String.format("30200000000000%04d", i))
+                    .amount(1500L + i)
+                    .dueDate("24/10/2024")
+                    .build());
+        }
+        return NoticeRequestEH.builder()
+                .folderId("folderId")
+                .noticeData(NoticeGenerationRequestItem.builder()
+                        .templateId("TemplateSingleInstalment")
+                        .data(NoticeRequestData.builder()
+                                .notice(Notice.builder()
+                                        .code("302000000000000001")
+                                        .dueDate("24/10/2024")
+                                        .subject("Tassa sui rifiuti 2024")
+                                        .paymentAmount(18000L)
+                                        .installments(installmentData)
+                                        .build())
+                                .creditorInstitution(CreditorInstitution.builder()
+                                        .taxCode("99999000013")
+                                        .fullName("Comune di Roma")
+                                        .webChannel(true)
+                                        .appChannel(true)
+                                        .cbill("AAAAA")
+                                        .posteAuth("AUT/123456/2024")
+                                        .posteAccountNumber("123456789012")
+                                        .build())
+                                .debtor(Debtor.builder()
+                                        .taxCode("RSSMRA80A01H501U")
+                                        .fullName("Mario Rossi")
+                                        .address("Via Roma")
+                                        .buildingNumber("1")
+                                        .postalCode("00100")
+                                        .city("Roma")
+                                        .province("RM")
+                                        .build())
+                                .build())
+                        .build())
+                .build();
+    }
+
+}
@@ -0,0 +1,70 @@
+package it.gov.pagopa.payment.notice.generator.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.gov.pagopa.payment.notice.generator.BenchmarkFixtures;
+import it.gov.pagopa.payment.notice.generator.mapper.TemplateDataWriter;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction of the multipart request to the PDF engine, alone and followed by the write of its
+ * body as done by the HTTP client, for templates of different sizes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PdfEngineRequestBenchmark {
+
+    @Param({"65536", "1048576"})
+    public int templateSize;
+
+    private PdfEngineClientImpl pdfEngineClient;
+
+    private byte[] template;
+
+    private String data;
+
+    @Setup
+    public void setup() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        pdfEngineClient = new PdfEngineClientImpl(objectMapper, HttpClientBuilder.create(),
+                "http://localhost/generate-pdf", "subkey");
+        // compressed templates are close to random bytes
+        template = new byte[templateSize];
+        new Random(42).nextBytes(template);
+        data = TemplateDataWriter.writeTemplateAsString(
+                BenchmarkFixtures.noticeRequestEH(12).getNoticeData().getData(), objectMapper.getFactory());
+    }
+
+    @Benchmark
+    public HttpPost buildRequest() {
+        return pdfEngineClient.buildRequest(template, data);
+    }
+
+    @Benchmark
+    public HttpPost buildAndWriteRequest() throws IOException {
+        HttpPost request = pdfEngineClient.buildRequest(template, data);
+        request.getEntity().writeTo(OutputStream.nullOutputStream());
+        return request;
+    }
+
+}
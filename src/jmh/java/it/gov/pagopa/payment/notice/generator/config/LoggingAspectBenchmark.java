@@ -0,0 +1,194 @@
+package it.gov.pagopa.payment.notice.generator.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import it.gov.pagopa.payment.notice.generator.BenchmarkFixtures;
+import it.gov.pagopa.payment.notice.generator.model.NoticeGenerationRequestItem;
+import it.gov.pagopa.payment.notice.generator.util.PayloadLogFormatter;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.aspectj.lang.reflect.CodeSignature;
+import org.aspectj.lang.reflect.SourceLocation;
+import org.aspectj.runtime.internal.AroundClosure;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of the trace advice on a service call with a notice argument, with debug logging off,
+ * against the former advice capturing the arguments on every call
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggingAspectBenchmark {
+
+    private static final org.slf4j.Logger log = LoggerFactory.getLogger(LoggingAspectBenchmark.class);
+
+    private LoggingAspect loggingAspect;
+
+    private ProceedingJoinPoint joinPoint;
+
+    @Setup
+    public void setup() {
+        ((Logger) LoggerFactory.getLogger(LoggingAspect.class)).setLevel(Level.INFO);
+        ((Logger) LoggerFactory.getLogger(LoggingAspectBenchmark.class)).setLevel(Level.INFO);
+        loggingAspect = new LoggingAspect(null, null, new PayloadLogFormatter(500, 1));
+        joinPoint = new ServiceJoinPoint(BenchmarkFixtures.noticeRequestEH(12).getNoticeData());
+    }
+
+    @Benchmark
+    public Object logTrace() throws Throwable {
+        return loggingAspect.logTrace(joinPoint);
+    }
+
+    @Benchmark
+    public Object logTraceCapturingArguments() throws Throwable {
+        CodeSignature codeSignature = (CodeSignature) joinPoint.getSignature();
+        Map<String, String> params = new HashMap<>();
+        int i = 0;
+        for (var paramName : codeSignature.getParameterNames()) {
+            params.put(paramName, Optional.ofNullable(joinPoint.getArgs()[i++]).orElse("").toString());
+        }
+        log.debug("Call method {} - args: {}", joinPoint.getSignature().toShortString(), params);
+        Object result = joinPoint.proceed();
+        log.debug("Return method {} - result: {}", joinPoint.getSignature().toShortString(), result);
+        return result;
+    }
+
+    /**
+     * Join point of generateNotice(noticeGenerationRequestItem, folderId, errorId), proceeding with a no-op
+     */
+    private static final class ServiceJoinPoint implements ProceedingJoinPoint {
+
+        private final Object[] args;
+
+        private final CodeSignature signature = new CodeSignature() {
+            @Override
+            public Class[] getParameterTypes() {
+                return new Class[]{NoticeGenerationRequestItem.class, String.class, String.class};
+            }
+
+            @Override
+            public String[] getParameterNames() {
+                return new String[]{"noticeGenerationRequestItem", "folderId", "errorId"};
+            }
+
+            @Override
+            public Class[] getExceptionTypes() {
+                return new Class[0];
+            }
+
+            @Override
+            public String toShortString() {
+                return "NoticeGenerationServiceImpl.generateNotice(..)";
+            }
+
+            @Override
+            public String toLongString() {
+                return toShortString();
+            }
+
+            @Override
+            public String getName() {
+                return "generateNotice";
+            }
+
+            @Override
+            public int getModifiers() {
+                return 1;
+            }
+
+            @Override
+            public Class getDeclaringType() {
+                return Object.class;
+            }
+
+            @Override
+            public String getDeclaringTypeName() {
+                return "NoticeGenerationServiceImpl";
+            }
+        };
+
+        private ServiceJoinPoint(NoticeGenerationRequestItem item) {
+            this.args = new Object[]{item, "folderId", null};
+        }
+
+        @Override
+        public void set$AroundClosure(AroundClosure arc) {
+            // not used
+        }
+
+        @Override
+        public Object proceed() {
+            return args[1];
+        }
+
+        @Override
+        public Object proceed(Object[] args) {
+            return proceed();
+        }
+
+        @Override
+        public String toShortString() {
+            return signature.toShortString();
+        }
+
+        @Override
+        public String toLongString() {
+            return signature.toLongString();
+        }
+
+        @Override
+        public Object getThis() {
+            return null;
+        }
+
+        @Override
+        public Object getTarget() {
+            return null;
+        }
+
+        @Override
+        public Object[] getArgs() {
+            return args.clone();
+        }
+
+        @Override
+        public Signature getSignature() {
+            return signature;
+        }
+
+        @Override
+        public SourceLocation getSourceLocation() {
+            return null;
+        }
+
+        @Override
+        public String getKind() {
+            return METHOD_EXECUTION;
+        }
+
+        @Override
+        public StaticPart getStaticPart() {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,92 @@
+package it.gov.pagopa.payment.notice.generator.events.codec;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.gov.pagopa.payment.notice.generator.BenchmarkFixtures;
+import it.gov.pagopa.payment.notice.generator.model.NoticeRequestEH;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the generation message codecs: the size on the wire is reported as the messageBytes
+ * secondary result, decode and encode times are measured against the JSON baseline
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NoticeEventCodecBenchmark {
+
+    @Param({"application/json", "application/x-jackson-smile", "application/cbor", "application/avro"})
+    private String contentType;
+
+    @Param({"1", "12", "120"})
+    private int installments;
+
+    private NoticeEventCodec noticeEventCodec;
+    private NoticeRequestEH noticeRequestEH;
+    private byte[] message;
+
+    @Setup
+    public void setup() throws IOException {
+        // same settings as the application ObjectMapper
+        ObjectMapper objectMapper = new ObjectMapper()
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        NoticeEventCodecConfig noticeEventCodecConfig = new NoticeEventCodecConfig();
+        noticeEventCodec = new NoticeEventCodecRegistry(List.of(
+                noticeEventCodecConfig.jsonNoticeEventCodec(objectMapper),
+                noticeEventCodecConfig.smileNoticeEventCodec(objectMapper),
+                noticeEventCodecConfig.cborNoticeEventCodec(objectMapper),
+                noticeEventCodecConfig.avroNoticeEventCodec()))
+                .getCodec(contentType)
+                .orElseThrow();
+        noticeRequestEH = BenchmarkFixtures.noticeRequestEH(installments);
+        message = noticeEventCodec.encode(noticeRequestEH);
+    }
+
+    @Benchmark
+    public NoticeRequestEH decode(MessageSize messageSize) throws IOException {
+        return noticeEventCodec.decode(message, NoticeRequestEH.class);
+    }
+
+    @Benchmark
+    public byte[] encode(MessageSize messageSize) throws IOException {
+        return noticeEventCodec.encode(noticeRequestEH);
+    }
+
+    /**
+     * Size of the encoded message, reported next to the timings
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class MessageSize {
+
+        public long messageBytes;
+
+        @Setup(Level.Iteration)
+        public void setup(NoticeEventCodecBenchmark benchmark) {
+            messageBytes = benchmark.message.length;
+        }
+
+    }
+
+}
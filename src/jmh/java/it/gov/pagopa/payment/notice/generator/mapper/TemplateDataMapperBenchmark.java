@@ -0,0 +1,67 @@
+package it.gov.pagopa.payment.notice.generator.mapper;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import it.gov.pagopa.payment.notice.generator.BenchmarkFixtures;
+import it.gov.pagopa.payment.notice.generator.model.notice.NoticeRequestData;
+import it.gov.pagopa.payment.notice.generator.model.pdf.notice.PaymentNotice;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping of the request data to the template data, with the Poste data matrix enabled, and its
+ * serialization through the PaymentNotice tree or the streaming writer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemplateDataMapperBenchmark {
+
+    @Param({"1", "12", "120"})
+    public int installments;
+
+    private NoticeRequestData noticeRequestData;
+
+    private ObjectMapper objectMapper;
+
+    private ObjectWriter paymentNoticeWriter;
+
+    @Setup
+    public void setup() {
+        noticeRequestData = BenchmarkFixtures.noticeRequestEH(installments).getNoticeData().getData();
+        objectMapper = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        paymentNoticeWriter = objectMapper.writerFor(PaymentNotice.class);
+    }
+
+    @Benchmark
+    public PaymentNotice mapTemplate() {
+        return TemplateDataMapper.mapTemplate(noticeRequestData);
+    }
+
+    @Benchmark
+    public String mapAndSerializeTemplate() throws IOException {
+        return paymentNoticeWriter.writeValueAsString(TemplateDataMapper.mapTemplate(noticeRequestData));
+    }
+
+    @Benchmark
+    public String writeTemplate() throws IOException {
+        return TemplateDataWriter.writeTemplateAsString(noticeRequestData, objectMapper.getFactory());
+    }
+
+}
@@ -0,0 +1,80 @@
+package it.gov.pagopa.payment.notice.generator.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.gov.pagopa.payment.notice.generator.BenchmarkFixtures;
+import it.gov.pagopa.payment.notice.generator.model.NoticeGenerationRequestItem;
+import it.gov.pagopa.payment.notice.generator.model.TemplateResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-notice work of the generation service that does not involve the storage or the PDF engine:
+ * the validation of the request against the rules of its template, with a schema of the size of the
+ * real ones, and the computation of the notice code and of the item id
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NoticeGenerationServiceBenchmark {
+
+    @Param({"1", "12", "120"})
+    public int installments;
+
+    private NoticeGenerationServiceImpl noticeGenerationService;
+
+    private NoticeGenerationRequestItem noticeGenerationRequestItem;
+
+    private TemplateResource templateResource;
+
+    @Setup
+    public void setup() throws IOException {
+        // only the ObjectMapper is used by the benchmarked methods
+        noticeGenerationService = new NoticeGenerationServiceImpl(null, null, null, null, null, null, null, null, null,
+                null, null, null, null, null, null, null,
+                new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL), null, true, false);
+        noticeGenerationRequestItem = BenchmarkFixtures.noticeRequestEH(installments).getNoticeData();
+        try (InputStream schema = getClass().getResourceAsStream("/schemas/notice-validation-rules.json")) {
+            templateResource = TemplateResource.builder()
+                    .templateId(noticeGenerationRequestItem.getTemplateId())
+                    .templateValidationRules(new String(schema.readAllBytes(), StandardCharsets.UTF_8))
+                    .build();
+        }
+        // fails the trial if the fixture does not satisfy the schema
+        noticeGenerationService.validateTemplate(noticeGenerationRequestItem, templateResource);
+    }
+
+    @Benchmark
+    public NoticeGenerationRequestItem validateTemplate() throws IOException {
+        noticeGenerationService.validateTemplate(noticeGenerationRequestItem, templateResource);
+        return noticeGenerationRequestItem;
+    }
+
+    @Benchmark
+    public String getNoticeCode() {
+        return NoticeGenerationServiceImpl.getNoticeCode(noticeGenerationRequestItem);
+    }
+
+    @Benchmark
+    public String buildItemId() {
+        return NoticeGenerationServiceImpl.buildItemId(noticeGenerationRequestItem);
+    }
+
+}
@@ -0,0 +1,77 @@
+package it.gov.pagopa.payment.notice.generator.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import it.gov.pagopa.payment.notice.generator.BenchmarkFixtures;
+import it.gov.pagopa.payment.notice.generator.model.NoticeRequestEH;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the former String based decoding of the generation message with the byte[] path
+ * through a cached {@link ObjectReader}, with and without the Blackbird module, and measures the
+ * encoding of the message through a cached {@link ObjectWriter}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NoticeRequestEHDeserializationBenchmark {
+
+    @Param({"false", "true"})
+    private boolean blackbird;
+
+    @Param({"1", "12"})
+    private int installments;
+
+    private ObjectMapper objectMapper;
+    private ObjectReader noticeRequestEHReader;
+    private ObjectWriter noticeRequestEHWriter;
+    private NoticeRequestEH noticeRequestEH;
+    private byte[] message;
+
+    @Setup
+    public void setup() throws IOException {
+        objectMapper = new ObjectMapper();
+        if (blackbird) {
+            objectMapper.registerModule(new BlackbirdModule());
+        }
+        noticeRequestEHReader = objectMapper.readerFor(NoticeRequestEH.class);
+        noticeRequestEHWriter = objectMapper.writerFor(NoticeRequestEH.class);
+        noticeRequestEH = BenchmarkFixtures.noticeRequestEH(installments);
+        message = noticeRequestEHWriter.writeValueAsBytes(noticeRequestEH);
+    }
+
+    @Benchmark
+    public NoticeRequestEH readFromString() throws IOException {
+        return objectMapper.readValue(new String(message, StandardCharsets.UTF_8), NoticeRequestEH.class);
+    }
+
+    @Benchmark
+    public NoticeRequestEH readFromBytes() throws IOException {
+        return noticeRequestEHReader.readValue(message);
+    }
+
+    @Benchmark
+    public byte[] writeToBytes() throws IOException {
+        return noticeRequestEHWriter.writeValueAsBytes(noticeRequestEH);
+    }
+
+}
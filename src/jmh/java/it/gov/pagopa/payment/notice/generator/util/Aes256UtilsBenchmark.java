@@ -0,0 +1,84 @@
+package it.gov.pagopa.payment.notice.generator.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.gov.pagopa.payment.notice.generator.BenchmarkFixtures;
+import it.gov.pagopa.payment.notice.generator.exception.Aes256Exception;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encrypt throughput of the error data, against the former implementation deriving the key
+ * and creating the cipher on each call
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class Aes256UtilsBenchmark {
+
+    private Aes256Utils aes256Utils;
+    private String data;
+    private String encrypted;
+
+    @Setup
+    public void setup() throws IOException, Aes256Exception {
+        aes256Utils = new Aes256Utils("benchmark-key", "benchmark-salt");
+        data = new ObjectMapper().writeValueAsString(BenchmarkFixtures.noticeRequestEH(12).getNoticeData());
+        encrypted = aes256Utils.encrypt(data);
+    }
+
+    @Benchmark
+    public String encrypt() throws Aes256Exception {
+        return aes256Utils.encrypt(data);
+    }
+
+    @Benchmark
+    public String decrypt() throws Aes256Exception {
+        return aes256Utils.decrypt(encrypted);
+    }
+
+    @Benchmark
+    public String encryptDerivingKeyPerCall() throws GeneralSecurityException {
+        SecureRandom secureRandom = new SecureRandom();
+        byte[] iv = new byte[16];
+        secureRandom.nextBytes(iv);
+
+        SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
+        SecretKey tmp = factory.generateSecret(
+                new PBEKeySpec("benchmark-key".toCharArray(), "benchmark-salt".getBytes(), 65536, 256));
+        Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(tmp.getEncoded(), "AES"), new IvParameterSpec(iv));
+
+        byte[] cipherText = cipher.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        byte[] encryptedData = new byte[iv.length + cipherText.length];
+        System.arraycopy(iv, 0, encryptedData, 0, iv.length);
+        System.arraycopy(cipherText, 0, encryptedData, iv.length, cipherText.length);
+        return Base64.getEncoder().encodeToString(encryptedData);
+    }
+
+}
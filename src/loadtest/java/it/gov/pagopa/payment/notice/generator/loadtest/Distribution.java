@@ -0,0 +1,57 @@
+package it.gov.pagopa.payment.notice.generator.loadtest;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Random distribution of a non-negative quantity, such as a latency in milliseconds or a size in bytes,
+ * given as {@code <type>:<parameters>}:
+ * <ul>
+ *     <li>{@code fixed:<value>}</li>
+ *     <li>{@code uniform:<min>:<max>}</li>
+ *     <li>{@code exponential:<mean>}</li>
+ *     <li>{@code lognormal:<median>:<sigma>}, a long tail typical of service latencies</li>
+ * </ul>
+ * A bare number is read as a fixed value.
+ */
+@FunctionalInterface
+public interface Distribution {
+
+    double sample();
+
+    default long sampleLong() {
+        return Math.max(0, Math.round(sample()));
+    }
+
+    static Distribution parse(String spec) {
+        String[] parts = spec.trim().split(":");
+        try {
+            return switch (parts[0].toLowerCase(Locale.ROOT)) {
+                case "fixed" -> fixed(Double.parseDouble(parts[1]));
+                case "uniform" -> uniform(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+                case "exponential" -> exponential(Double.parseDouble(parts[1]));
+                case "lognormal" -> logNormal(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+                default -> fixed(Double.parseDouble(parts[0]));
+            };
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException(String.format("Invalid distribution %s", spec), e);
+        }
+    }
+
+    static Distribution fixed(double value) {
+        return () -> value;
+    }
+
+    static Distribution uniform(double min, double max) {
+        return () -> min + ThreadLocalRandom.current().nextDouble() * (max - min);
+    }
+
+    static Distribution exponential(double mean) {
+        return () -> -mean * Math.log(1 - ThreadLocalRandom.current().nextDouble());
+    }
+
+    static Distribution logNormal(double median, double sigma) {
+        return () -> median * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian());
+    }
+
+}
@@ -0,0 +1,91 @@
+package it.gov.pagopa.payment.notice.generator.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Behaviour of the simulated PDF engine during a phase, given as comma separated {@code <key>=<value>}
+ * entries, the missing ones being taken from the base behaviour:
+ * <ul>
+ *     <li>{@code latency=<distribution>} time before answering, in milliseconds</li>
+ *     <li>{@code size=<distribution>} size of the returned PDF, in bytes</li>
+ *     <li>{@code errors=<status>:<probability>/...} error responses, e.g. {@code errors=429:0.1/503:0.05}</li>
+ *     <li>{@code slow-body=<probability>@<bytes per second>} PDFs streamed at a limited rate</li>
+ *     <li>{@code reset=<probability>} connections closed without a response</li>
+ *     <li>{@code truncate=<probability>} connections closed halfway through the PDF</li>
+ * </ul>
+ *
+ * @param latencyMillis          latency distribution
+ * @param sizeBytes              size distribution of the PDFs
+ * @param errorRates             probability of each error status
+ * @param slowBodyProbability    probability of streaming the PDF slowly
+ * @param slowBodyBytesPerSecond rate of the slow PDFs
+ * @param resetProbability       probability of closing the connection without a response
+ * @param truncateProbability    probability of closing the connection halfway through the PDF
+ */
+public record EngineBehaviour(
+        Distribution latencyMillis,
+        Distribution sizeBytes,
+        Map<Integer, Double> errorRates,
+        double slowBodyProbability,
+        long slowBodyBytesPerSecond,
+        double resetProbability,
+        double truncateProbability) {
+
+    /**
+     * @return a behaviour with the given latency and size, without faults
+     */
+    public static EngineBehaviour of(Distribution latencyMillis, Distribution sizeBytes) {
+        return new EngineBehaviour(latencyMillis, sizeBytes, Map.of(), 0, 0, 0, 0);
+    }
+
+    public EngineBehaviour with(String spec) {
+        EngineBehaviour behaviour = this;
+        for (String entry : spec.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] keyValue = entry.split("=", 2);
+            if (keyValue.length != 2) {
+                throw new IllegalArgumentException(String.format("Invalid engine behaviour %s", entry));
+            }
+            String value = keyValue[1].trim();
+            behaviour = switch (keyValue[0].trim().toLowerCase(Locale.ROOT)) {
+                case "latency" -> new EngineBehaviour(Distribution.parse(value), behaviour.sizeBytes,
+                        behaviour.errorRates, behaviour.slowBodyProbability, behaviour.slowBodyBytesPerSecond,
+                        behaviour.resetProbability, behaviour.truncateProbability);
+                case "size" -> new EngineBehaviour(behaviour.latencyMillis, Distribution.parse(value),
+                        behaviour.errorRates, behaviour.slowBodyProbability, behaviour.slowBodyBytesPerSecond,
+                        behaviour.resetProbability, behaviour.truncateProbability);
+                case "errors" -> new EngineBehaviour(behaviour.latencyMillis, behaviour.sizeBytes,
+                        parseErrorRates(value), behaviour.slowBodyProbability, behaviour.slowBodyBytesPerSecond,
+                        behaviour.resetProbability, behaviour.truncateProbability);
+                case "slow-body" -> {
+                    String[] slowBody = value.split("@");
+                    yield new EngineBehaviour(behaviour.latencyMillis, behaviour.sizeBytes, behaviour.errorRates,
+                            Double.parseDouble(slowBody[0]), Long.parseLong(slowBody[1]),
+                            behaviour.resetProbability, behaviour.truncateProbability);
+                }
+                case "reset" -> new EngineBehaviour(behaviour.latencyMillis, behaviour.sizeBytes,
+                        behaviour.errorRates, behaviour.slowBodyProbability, behaviour.slowBodyBytesPerSecond,
+                        Double.parseDouble(value), behaviour.truncateProbability);
+                case "truncate" -> new EngineBehaviour(behaviour.latencyMillis, behaviour.sizeBytes,
+                        behaviour.errorRates, behaviour.slowBodyProbability, behaviour.slowBodyBytesPerSecond,
+                        behaviour.resetProbability, Double.parseDouble(value));
+                default -> throw new IllegalArgumentException(String.format("Unknown engine behaviour %s", entry));
+            };
+        }
+        return behaviour;
+    }
+
+    private static Map<Integer, Double> parseErrorRates(String value) {
+        Map<Integer, Double> errorRates = new LinkedHashMap<>();
+        for (String error : value.split("/")) {
+            String[] statusRate = error.split(":");
+            errorRates.put(Integer.parseInt(statusRate[0].trim()), Double.parseDouble(statusRate[1].trim()));
+        }
+        return errorRates;
+    }
+
+}
@@ -0,0 +1,66 @@
+package it.gov.pagopa.payment.notice.generator.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sequence of behaviours of the simulated PDF engine, repeated for the whole run, given as
+ * {@code <duration>{<behaviour>};<duration>{<behaviour>}...}: e.g.
+ * {@code PT25S{};PT5S{errors=429:0.8/503:0.2}} answers normally for 25 seconds and then with a burst of
+ * errors for 5 seconds, every 30 seconds. Each behaviour starts from the base one, see {@link EngineBehaviour}.
+ */
+public class EngineScript {
+
+    private final List<Phase> phases;
+
+    private final long cycleNanos;
+
+    private EngineScript(List<Phase> phases) {
+        this.phases = phases;
+        this.cycleNanos = phases.stream().mapToLong(Phase::durationNanos).sum();
+    }
+
+    /**
+     * @return a script keeping the given behaviour for the whole run
+     */
+    public static EngineScript constant(EngineBehaviour behaviour) {
+        return new EngineScript(List.of(new Phase(Long.MAX_VALUE, behaviour)));
+    }
+
+    public static EngineScript parse(String script, EngineBehaviour base) {
+        if (script == null || script.isBlank()) {
+            return constant(base);
+        }
+        List<Phase> phases = new ArrayList<>();
+        for (String phase : script.split(";")) {
+            int open = phase.indexOf('{');
+            if (open < 0 || !phase.trim().endsWith("}")) {
+                throw new IllegalArgumentException(String.format("Invalid engine script phase %s", phase));
+            }
+            Duration duration = Duration.parse(phase.substring(0, open).trim());
+            String behaviour = phase.substring(open + 1, phase.lastIndexOf('}'));
+            phases.add(new Phase(duration.toNanos(), base.with(behaviour)));
+        }
+        return new EngineScript(phases);
+    }
+
+    /**
+     * @param elapsedNanos time since the start of the engine
+     * @return the behaviour of the phase running at the given time
+     */
+    public EngineBehaviour behaviourAt(long elapsedNanos) {
+        long offset = elapsedNanos % cycleNanos;
+        for (Phase phase : phases) {
+            if (offset < phase.durationNanos()) {
+                return phase.behaviour();
+            }
+            offset -= phase.durationNanos();
+        }
+        return phases.get(phases.size() - 1).behaviour();
+    }
+
+    private record Phase(long durationNanos, EngineBehaviour behaviour) {
+    }
+
+}
@@ -0,0 +1,58 @@
+package it.gov.pagopa.payment.notice.generator.loadtest;
+
+import org.springframework.core.env.PropertyResolver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bounds of a load test run, checked for each driver
+ *
+ * @param minThroughputRatio completed requests per second over the offered rate
+ * @param maxErrorRate       failed, dropped and not completed requests over the ones scheduled
+ * @param maxPeakHeapMb      peak heap usage of the run
+ */
+public record Expectations(double minThroughputRatio, double maxErrorRate, long maxPeakHeapMb) {
+
+    /**
+     * @return these expectations, overridden by the {@code loadtest.expect.*} options
+     */
+    public Expectations overriddenBy(PropertyResolver options) {
+        return new Expectations(
+                options.getProperty("loadtest.expect.min-throughput-ratio", Double.class, minThroughputRatio),
+                options.getProperty("loadtest.expect.max-error-rate", Double.class, maxErrorRate),
+                options.getProperty("loadtest.expect.max-peak-heap-mb", Long.class, maxPeakHeapMb));
+    }
+
+    /**
+     * @param offeredRate  requests per second scheduled by the driver
+     * @param summary      outcomes of the requests scheduled in the measurement window
+     * @param unfinished   requests scheduled in the window that never completed or were dropped
+     * @return the violated bounds, empty if the driver stayed within them
+     */
+    public List<String> check(double offeredRate, LatencyRecorder.Summary summary, long unfinished) {
+        List<String> violations = new ArrayList<>();
+        double throughputRatio = summary.throughput() / offeredRate;
+        if (throughputRatio < minThroughputRatio) {
+            violations.add(String.format("throughput %.1f/s is %.2f of the offered rate, expected at least %.2f",
+                    summary.throughput(), throughputRatio, minThroughputRatio));
+        }
+        long scheduled = summary.succeeded() + summary.failed() + unfinished;
+        double errorRate = scheduled == 0 ? 0 : (double) (summary.failed() + unfinished) / scheduled;
+        if (errorRate > maxErrorRate) {
+            violations.add(String.format("error rate %.4f, expected at most %.4f", errorRate, maxErrorRate));
+        }
+        return violations;
+    }
+
+    /**
+     * @return the violated heap bound, if any
+     */
+    public List<String> checkHeap(long peakHeapBytes) {
+        long peakHeapMb = peakHeapBytes >> 20;
+        return peakHeapMb > maxPeakHeapMb ?
+                List.of(String.format("peak heap %d MB, expected at most %d MB", peakHeapMb, maxPeakHeapMb)) :
+                List.of();
+    }
+
+}
@@ -0,0 +1,140 @@
+package it.gov.pagopa.payment.notice.generator.loadtest;
+
+import it.gov.pagopa.payment.notice.generator.model.TemplateResource;
+import it.gov.pagopa.payment.notice.generator.model.notice.CreditorInstitution;
+import it.gov.pagopa.payment.notice.generator.storage.InstitutionsStorageClient;
+import it.gov.pagopa.payment.notice.generator.storage.NoticeStorageClient;
+import it.gov.pagopa.payment.notice.generator.storage.NoticeTemplateStorageClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * In-memory stand-ins of the storage clients, replacing the application beans of the same name: the
+ * template and the creditor institution are served from memory and the stored PDFs are only counted.
+ * It is registered explicitly by {@link LoadTest}, not through the component scan.
+ */
+public class InMemoryStorageConfig {
+
+    private static final String VALIDATION_RULES = "/schemas/notice-validation-rules.json";
+
+    @Bean
+    public InMemoryNoticeStorageClient noticeStorageClient() {
+        return new InMemoryNoticeStorageClient();
+    }
+
+    @Bean
+    public NoticeTemplateStorageClient noticeTemplateStorageClient(
+            @Value("${loadtest.template.size-bytes:200000}") int templateSize) throws IOException {
+        return new InMemoryNoticeTemplateStorageClient(templateSize);
+    }
+
+    @Bean
+    public InstitutionsStorageClient institutionsStorageClient() {
+        return new InstitutionsStorageClient(false, null, null) {
+            @Override
+            public CreditorInstitution getInstitutionData(String institutionCode) {
+                return NoticeRequests.creditorInstitution(institutionCode);
+            }
+        };
+    }
+
+    /**
+     * Notice storage discarding the PDFs, after reading them, and notifying the stored item ids
+     */
+    public static class InMemoryNoticeStorageClient extends NoticeStorageClient {
+
+        private final AtomicLong storedBytes = new AtomicLong();
+
+        private volatile Consumer<String> listener = itemId -> {
+        };
+
+        InMemoryNoticeStorageClient() {
+            super(false, null);
+        }
+
+        public void setListener(Consumer<String> listener) {
+            this.listener = listener;
+        }
+
+        public long getStoredBytes() {
+            return storedBytes.get();
+        }
+
+        @Override
+        public boolean savePdfToBlobStorage(InputStream pdf, String folderId, String fileName) {
+            try {
+                storedBytes.addAndGet(pdf.transferTo(OutputStream.nullOutputStream()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            listener.accept(fileName);
+            return true;
+        }
+
+    }
+
+    /**
+     * Template storage serving a single template, zipped once in a temporary file, with the validation
+     * rules shared with the benchmarks
+     */
+    static class InMemoryNoticeTemplateStorageClient extends NoticeTemplateStorageClient {
+
+        private final File template;
+
+        private final List<TemplateResource> templates;
+
+        InMemoryNoticeTemplateStorageClient(int templateSize) throws IOException {
+            super(false, null, null);
+            Path zip = Files.createTempFile("loadtest-template", ".zip");
+            zip.toFile().deleteOnExit();
+            try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(zip))) {
+                // stored as is, so that the template sent to the PDF engine has the requested size
+                output.setLevel(Deflater.NO_COMPRESSION);
+                output.putNextEntry(new ZipEntry("template.html"));
+                output.write(("<html><body>" + " ".repeat(templateSize) + "</body></html>")
+                        .getBytes(StandardCharsets.UTF_8));
+                output.closeEntry();
+            }
+            this.template = zip.toFile();
+
+            String validationRules = null;
+            try (InputStream rules = getClass().getResourceAsStream(VALIDATION_RULES)) {
+                if (rules != null) {
+                    validationRules = new String(rules.readAllBytes(), StandardCharsets.UTF_8);
+                }
+            }
+            this.templates = List.of(TemplateResource.builder()
+                    .templateId(NoticeRequests.TEMPLATE_ID)
+                    .description("Load test template")
+                    .templateValidationRules(validationRules)
+                    .build());
+        }
+
+        @Override
+        public File getTemplate(String templateId) {
+            return template;
+        }
+
+        @Override
+        public List<TemplateResource> getTemplates() {
+            return templates;
+        }
+
+    }
+
+}
@@ -0,0 +1,62 @@
+package it.gov.pagopa.payment.notice.generator.loadtest;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Garbage collections and heap usage of the JVM, shared by the application and the drivers, over the
+ * measurement window
+ */
+public class JvmStats {
+
+    private final Map<String, long[]> collectionsAtStart = new LinkedHashMap<>();
+
+    /**
+     * Marks the start of the measurement, resetting the peak heap usage
+     */
+    public void start() {
+        collectionsAtStart.clear();
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            collectionsAtStart.put(collector.getName(),
+                    new long[]{collector.getCollectionCount(), collector.getCollectionTime()});
+        }
+        ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    /**
+     * @return the sum of the peak usages of the heap pools since the start
+     */
+    public long getPeakHeapBytes() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                .sum();
+    }
+
+    /**
+     * @return a line for each collector, with the collections and their time since the start, followed
+     * by the heap usage
+     */
+    public String report(double seconds) {
+        StringBuilder report = new StringBuilder();
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            long[] start = collectionsAtStart.getOrDefault(collector.getName(), new long[2]);
+            long count = collector.getCollectionCount() - start[0];
+            long time = collector.getCollectionTime() - start[1];
+            report.append(String.format("  %-28s %8d collections %8d ms (%.2f%% of the time)%n",
+                    collector.getName(), count, time, time / (seconds * 10)));
+        }
+        long peak = getPeakHeapBytes();
+        var heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        report.append(String.format("  heap: peak %d MB (sum of the pool peaks), used %d MB, committed %d MB, max %d MB%n",
+                peak >> 20, heap.getUsed() >> 20, heap.getCommitted() >> 20, heap.getMax() >> 20));
+        return report.toString();
+    }
+
+}
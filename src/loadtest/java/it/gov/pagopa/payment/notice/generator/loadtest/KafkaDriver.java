@@ -0,0 +1,140 @@
+package it.gov.pagopa.payment.notice.generator.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeGenerationRequest;
+import it.gov.pagopa.payment.notice.generator.model.NoticeGenerationRequestItem;
+import it.gov.pagopa.payment.notice.generator.model.NoticeRequestEH;
+import it.gov.pagopa.payment.notice.generator.model.enums.PaymentGenerationRequestStatus;
+import it.gov.pagopa.payment.notice.generator.repository.PaymentGenerationRequestRepository;
+import it.gov.pagopa.payment.notice.generator.service.NoticeGenerationServiceImpl;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongFunction;
+
+/**
+ * Drives the generation topic: the messages are grouped into folders of the given size, created on Mongo
+ * as a massive request would do, and a notice is complete once its PDF is stored on the blob storage
+ */
+public class KafkaDriver extends RateDriver {
+
+    private static final byte[] CONTENT_TYPE = MimeTypeUtils.APPLICATION_JSON_VALUE.getBytes(StandardCharsets.UTF_8);
+
+    private final String topic;
+
+    private final int folderSize;
+
+    private final PaymentGenerationRequestRepository paymentGenerationRequestRepository;
+
+    private final ObjectWriter messageWriter;
+
+    private final LongFunction<NoticeGenerationRequestItem> requests;
+
+    private final KafkaProducer<String, byte[]> producer;
+
+    /**
+     * Start of the notices sent and not yet stored, by item id
+     */
+    private final Map<String, Long> pending = new ConcurrentHashMap<>();
+
+    private long sequence;
+
+    private String folderId;
+
+    public KafkaDriver(String brokers, String topic, double rate, int maxInFlight, int folderSize,
+                       PaymentGenerationRequestRepository paymentGenerationRequestRepository,
+                       ObjectMapper objectMapper,
+                       LongFunction<NoticeGenerationRequestItem> requests) {
+        super("kafka", rate, maxInFlight);
+        this.topic = topic;
+        this.folderSize = folderSize;
+        this.paymentGenerationRequestRepository = paymentGenerationRequestRepository;
+        this.messageWriter = objectMapper.writerFor(NoticeRequestEH.class);
+        this.requests = requests;
+        this.producer = new KafkaProducer<>(Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, brokers,
+                ProducerConfig.LINGER_MS_CONFIG, 5,
+                ProducerConfig.ACKS_CONFIG, "all"),
+                new StringSerializer(), new ByteArraySerializer());
+    }
+
+    @Override
+    protected void send(long startNanos) {
+        if (sequence % folderSize == 0) {
+            folderId = createFolder();
+        }
+        NoticeGenerationRequestItem noticeData = requests.apply(sequence++);
+        String itemId = NoticeGenerationServiceImpl.buildItemId(noticeData);
+        byte[] message;
+        try {
+            message = messageWriter.writeValueAsBytes(NoticeRequestEH.builder()
+                    .folderId(folderId)
+                    .noticeData(noticeData)
+                    .build());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ProducerRecord<String, byte[]> producerRecord = new ProducerRecord<>(topic, itemId, message);
+        producerRecord.headers().add(MessageHeaders.CONTENT_TYPE, CONTENT_TYPE);
+        pending.put(itemId, startNanos);
+        producer.send(producerRecord, (metadata, e) -> {
+            if (e != null && pending.remove(itemId) != null) {
+                complete(startNanos, false);
+            }
+        });
+    }
+
+    /**
+     * Completes a notice, called when its PDF is stored
+     */
+    public void onNoticeStored(String itemId) {
+        Long startNanos = pending.remove(itemId);
+        if (startNanos != null) {
+            complete(startNanos, true);
+        }
+    }
+
+    /**
+     * @return the notices sent in the given window and not stored yet
+     */
+    public long getPending(long fromNanos, long toNanos) {
+        return pending.values().stream()
+                .filter(start -> start >= fromNanos && start < toNanos)
+                .count();
+    }
+
+    private String createFolder() {
+        String id = UUID.randomUUID().toString();
+        paymentGenerationRequestRepository.save(PaymentNoticeGenerationRequest.builder()
+                .id(id)
+                .userId("loadtest")
+                .requestDate(Instant.now())
+                .status(PaymentGenerationRequestStatus.PROCESSING)
+                .items(new ArrayList<>())
+                .numberOfElementsFailed(0)
+                .numberOfElementsTotal(folderSize)
+                .build());
+        return id;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        producer.close();
+    }
+
+}
@@ -0,0 +1,79 @@
+package it.gov.pagopa.payment.notice.generator.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Outcomes of the requests sent by a driver, kept in full so that the percentiles are exact and the
+ * warm-up can be cut out afterwards
+ */
+public class LatencyRecorder {
+
+    private long[] starts = new long[8192];
+
+    private long[] latencies = new long[8192];
+
+    private boolean[] successes = new boolean[8192];
+
+    private int size;
+
+    /**
+     * Records the outcome of a request
+     *
+     * @param startNanos   time the request was scheduled at, so that queueing in the driver is measured
+     * @param latencyNanos time from the schedule to the outcome
+     * @param success      if the request succeeded
+     */
+    public synchronized void record(long startNanos, long latencyNanos, boolean success) {
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size * 2);
+            latencies = Arrays.copyOf(latencies, size * 2);
+            successes = Arrays.copyOf(successes, size * 2);
+        }
+        starts[size] = startNanos;
+        latencies[size] = latencyNanos;
+        successes[size] = success;
+        size++;
+    }
+
+    /**
+     * Summarizes the requests scheduled in the given window
+     */
+    public synchronized Summary summarize(long fromNanos, long toNanos) {
+        long[] window = new long[size];
+        int succeeded = 0;
+        int failed = 0;
+        for (int i = 0; i < size; i++) {
+            if (starts[i] >= fromNanos && starts[i] < toNanos) {
+                if (successes[i]) {
+                    window[succeeded++] = latencies[i];
+                } else {
+                    failed++;
+                }
+            }
+        }
+        long[] sorted = Arrays.copyOf(window, succeeded);
+        Arrays.sort(sorted);
+        return new Summary(succeeded, failed, (toNanos - fromNanos) / 1e9, sorted);
+    }
+
+    public record Summary(int succeeded, int failed, double seconds, long[] sortedLatencies) {
+
+        public double throughput() {
+            return succeeded / seconds;
+        }
+
+        /**
+         * @param percentile between 0 and 100
+         * @return the latency at the given percentile in milliseconds, 0 if nothing succeeded
+         */
+        public double percentileMillis(double percentile) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, Math.min(index, sortedLatencies.length - 1))] / 1e6;
+        }
+
+    }
+
+}
@@ -0,0 +1,131 @@
+package it.gov.pagopa.payment.notice.generator.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.gov.pagopa.payment.notice.generator.Application;
+import it.gov.pagopa.payment.notice.generator.repository.PaymentGenerationRequestRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end load test: boots the application against the {@link LocalDependencies}, drives the REST
+ * endpoint and the generation topic at the configured rates and reports throughput, latency percentiles,
+ * garbage collections and heap usage of the measurement window. With a {@link Scenario}, the PDF engine
+ * follows its script and the run fails if it does not stay within the expectations of the scenario.
+ * <p>
+ * The arguments are the {@link LoadTestOptions}; any other argument is passed to the application, e.g.
+ * {@code --template.data.streaming.enabled=false}.
+ */
+@Slf4j
+public class LoadTest {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 100};
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.from(args);
+        boolean passed;
+
+        try (LocalDependencies dependencies = LocalDependencies.start(options)) {
+            List<String> applicationArguments = new ArrayList<>(dependencies.getApplicationArguments(options));
+            applicationArguments.addAll(Arrays.asList(args));
+
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                    Application.class, InMemoryStorageConfig.class)
+                    .run(applicationArguments.toArray(String[]::new))) {
+                passed = run(options, dependencies, context);
+            }
+        }
+        // the embedded broker and the application may leave non-daemon threads behind
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * @return false if the run violated the expectations of its scenario
+     */
+    private static boolean run(LoadTestOptions options, LocalDependencies dependencies,
+                               ConfigurableApplicationContext context) throws InterruptedException {
+        ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+        List<RateDriver> drivers = new ArrayList<>();
+        KafkaDriver kafkaDriver = null;
+        if (options.restRate() > 0) {
+            drivers.add(new RestDriver(((WebServerApplicationContext) context).getWebServer().getPort(),
+                    options.restRate(), options.maxInFlight(), objectMapper,
+                    NoticeRequests.withInstallments(options.installments())));
+        }
+        if (options.kafkaRate() > 0) {
+            kafkaDriver = new KafkaDriver(dependencies.getBrokers(), LocalDependencies.GENERATION_TOPIC,
+                    options.kafkaRate(), options.maxInFlight(), options.folderSize(),
+                    context.getBean(PaymentGenerationRequestRepository.class), objectMapper,
+                    NoticeRequests.withInstallments(options.installments()));
+            context.getBean(InMemoryStorageConfig.InMemoryNoticeStorageClient.class)
+                    .setListener(kafkaDriver::onNoticeStored);
+            drivers.add(kafkaDriver);
+        }
+
+        JvmStats jvmStats = new JvmStats();
+        drivers.forEach(RateDriver::start);
+        log.info("Warming up for {}", options.warmup());
+        TimeUnit.MILLISECONDS.sleep(options.warmup().toMillis());
+
+        long from = System.nanoTime();
+        jvmStats.start();
+        log.info("Measuring for {}", options.duration());
+        TimeUnit.MILLISECONDS.sleep(options.duration().toMillis());
+        long to = System.nanoTime();
+        String jvmReport = jvmStats.report((to - from) / 1e9);
+        long peakHeapBytes = jvmStats.getPeakHeapBytes();
+        drivers.forEach(RateDriver::stop);
+
+        long drainDeadline = System.nanoTime() + options.drain().toNanos();
+        while (drivers.stream().anyMatch(driver -> driver.getInFlight() > 0) && System.nanoTime() < drainDeadline) {
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+
+        List<String> violations = new ArrayList<>();
+        StringBuilder report = new StringBuilder(String.format("%nLoad test results over %s%s%n", options.duration(),
+                options.scenario() != null ? ", scenario " + options.scenario() : ""));
+        for (RateDriver driver : drivers) {
+            LatencyRecorder.Summary summary = driver.getRecorder().summarize(from, to);
+            long notCompleted = driver == kafkaDriver ? kafkaDriver.getPending(from, to) : 0;
+            report.append(String.format("%s: %.1f/s completed of %.1f/s offered, %d failed (%d dropped in total)",
+                    driver.getName(), summary.throughput(), driver.getRate(), summary.failed(), driver.getDropped()));
+            if (driver == kafkaDriver) {
+                report.append(String.format(", %d not completed", notCompleted));
+            }
+            if (options.expectations() != null) {
+                options.expectations().check(driver.getRate(), summary, notCompleted).stream()
+                        .map(violation -> driver.getName() + ": " + violation)
+                        .forEach(violations::add);
+            }
+            report.append(String.format("%n  latency ms:"));
+            for (double percentile : PERCENTILES) {
+                report.append(String.format(" p%s=%.1f", percentile == 100 ? "max" : percentileLabel(percentile),
+                        summary.percentileMillis(percentile)));
+            }
+            report.append(String.format("%n"));
+        }
+        report.append(String.format("PDF engine: %d requests %s%n", dependencies.getPdfEngine().getRequests(),
+                dependencies.getPdfEngine().getOutcomes()));
+        report.append(String.format("JVM:%n")).append(jvmReport);
+        if (options.expectations() != null) {
+            violations.addAll(options.expectations().checkHeap(peakHeapBytes));
+            report.append(violations.isEmpty() ? String.format("PASSED %s%n", options.expectations()) :
+                    String.format("FAILED %s:%n  %s%n", options.expectations(), String.join("\n  ", violations)));
+        }
+        log.info(report.toString());
+
+        drivers.forEach(RateDriver::close);
+        return violations.isEmpty();
+    }
+
+    private static String percentileLabel(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((int) percentile) : String.valueOf(percentile);
+    }
+
+}
@@ -0,0 +1,67 @@
+package it.gov.pagopa.payment.notice.generator.loadtest;
+
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.PropertyResolver;
+import org.springframework.core.env.PropertySourcesPropertyResolver;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Options of a load test run, given as {@code --loadtest.<name>=<value>} arguments
+ *
+ * @param warmup           time the load is applied before measuring
+ * @param duration         measurement window
+ * @param drain            maximum wait for the notices still in flight at the end of the window
+ * @param restRate         requests per second on the REST endpoint, 0 to disable
+ * @param kafkaRate        messages per second on the generation topic, 0 to disable
+ * @param maxInFlight      requests in flight of each driver beyond which new ones are dropped
+ * @param partitions       partitions of the generation topic, also used as consumer concurrency
+ * @param folderSize       notices of each folder sent on the topic
+ * @param installments     installments of each notice
+ * @param pdfEngineScript  behaviour of the simulated PDF engine, from the scenario unless given
+ * @param scenario         capacity scenario to check the run against, null to only report
+ * @param expectations     bounds of the scenario, null without scenario
+ */
+public record LoadTestOptions(
+        Duration warmup,
+        Duration duration,
+        Duration drain,
+        double restRate,
+        double kafkaRate,
+        int maxInFlight,
+        int partitions,
+        int folderSize,
+        int installments,
+        EngineScript pdfEngineScript,
+        Scenario scenario,
+        Expectations expectations) {
+
+    public static LoadTestOptions from(String... args) {
+        MutablePropertySources sources = new MutablePropertySources();
+        sources.addFirst(new SimpleCommandLinePropertySource(args));
+        PropertyResolver options = new PropertySourcesPropertyResolver(sources);
+        String scenarioName = options.getProperty("loadtest.scenario");
+        Scenario scenario = scenarioName == null ? null :
+                Scenario.valueOf(scenarioName.toUpperCase(Locale.ROOT).replace('-', '_'));
+        EngineBehaviour pdfEngineBehaviour = EngineBehaviour.of(
+                Distribution.parse(options.getProperty("loadtest.pdf.latency-ms", "lognormal:250:0.4")),
+                Distribution.parse(options.getProperty("loadtest.pdf.size-bytes", "uniform:40000:120000")));
+        String script = options.getProperty("loadtest.pdf.script", scenario != null ? scenario.getScript() : "");
+        return new LoadTestOptions(
+                Duration.parse(options.getProperty("loadtest.warmup", "PT30S")),
+                Duration.parse(options.getProperty("loadtest.duration", "PT2M")),
+                Duration.parse(options.getProperty("loadtest.drain", "PT30S")),
+                options.getProperty("loadtest.rest.rate", Double.class, 10d),
+                options.getProperty("loadtest.kafka.rate", Double.class, 50d),
+                options.getProperty("loadtest.max-in-flight", Integer.class, 10000),
+                options.getProperty("loadtest.kafka.partitions", Integer.class, 4),
+                options.getProperty("loadtest.kafka.folder-size", Integer.class, 1000),
+                options.getProperty("loadtest.installments", Integer.class, 1),
+                EngineScript.parse(script, pdfEngineBehaviour),
+                scenario,
+                scenario != null ? scenario.getExpectations().overriddenBy(options) : null);
+    }
+
+}
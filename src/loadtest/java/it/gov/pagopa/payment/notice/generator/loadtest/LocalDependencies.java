@@ -0,0 +1,102 @@
+package it.gov.pagopa.payment.notice.generator.loadtest;
+
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Local stand-ins of the external dependencies of the application: an embedded Mongo, an embedded
+ * Kafka broker with the generation, complete and error topics, and the simulated PDF engine. The storage
+ * accounts are replaced by the in-memory clients of {@link InMemoryStorageConfig}.
+ */
+@Slf4j
+public class LocalDependencies implements AutoCloseable {
+
+    public static final String GENERATION_TOPIC = "loadtest-generation";
+    public static final String COMPLETE_TOPIC = "loadtest-complete";
+    public static final String ERROR_TOPIC = "loadtest-error";
+
+    private static final String[] BINDERS = {"notice-generation", "notice-complete", "notice-error"};
+
+    private final TransitionWalker.ReachedState<RunningMongodProcess> mongod;
+
+    private final EmbeddedKafkaKraftBroker kafka;
+
+    @Getter
+    private final PdfEngineSimulator pdfEngine;
+
+    private LocalDependencies(TransitionWalker.ReachedState<RunningMongodProcess> mongod,
+                              EmbeddedKafkaKraftBroker kafka,
+                              PdfEngineSimulator pdfEngine) {
+        this.mongod = mongod;
+        this.kafka = kafka;
+        this.pdfEngine = pdfEngine;
+    }
+
+    public static LocalDependencies start(LoadTestOptions options) throws IOException {
+        TransitionWalker.ReachedState<RunningMongodProcess> mongod = Mongod.instance().start(Version.Main.V7_0);
+        log.info("Embedded Mongo started on {}", mongod.current().getServerAddress());
+
+        EmbeddedKafkaKraftBroker kafka = new EmbeddedKafkaKraftBroker(1, options.partitions(),
+                GENERATION_TOPIC, COMPLETE_TOPIC, ERROR_TOPIC);
+        kafka.afterPropertiesSet();
+        log.info("Embedded Kafka started on {}", kafka.getBrokersAsString());
+
+        PdfEngineSimulator pdfEngine = new PdfEngineSimulator(options.pdfEngineScript());
+        log.info("PDF engine simulator started on {}", pdfEngine.getEndpoint());
+
+        return new LocalDependencies(mongod, kafka, pdfEngine);
+    }
+
+    public String getBrokers() {
+        return kafka.getBrokersAsString();
+    }
+
+    /**
+     * @return the command line arguments pointing the application to the local dependencies, taking
+     * precedence over the application properties and the environment
+     */
+    public List<String> getApplicationArguments(LoadTestOptions options) {
+        ServerAddress mongoAddress = mongod.current().getServerAddress();
+        List<String> arguments = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.main.allow-bean-definition-overriding=true",
+                "--spring.data.mongodb.uri=mongodb://" + mongoAddress.getHost() + ":" + mongoAddress.getPort(),
+                "--spring.data.mongodb.database=loadtest",
+                "--spring.cloud.stream.bindings.noticeGeneration-in-0.destination=" + GENERATION_TOPIC,
+                "--spring.cloud.stream.bindings.noticeGeneration-in-0.consumer.concurrency=" + options.partitions(),
+                "--spring.cloud.stream.bindings.noticeComplete-out-0.destination=" + COMPLETE_TOPIC,
+                "--spring.cloud.stream.bindings.noticeError-out-0.destination=" + ERROR_TOPIC,
+                "--spring.cloud.stream.kafka.bindings.noticeGeneration-in-0.consumer.startOffset=earliest",
+                "--spring.cloud.stream.kafka.binder.configuration.security.protocol=PLAINTEXT",
+                "--pdf.engine.endpoint=" + pdfEngine.getEndpoint(),
+                "--pdf.engine.ocpaim.subkey=loadtest",
+                "--aes.secret.key=loadtest-secret-key",
+                "--aes.salt=loadtest-salt",
+                "--management.tracing.enabled=false",
+                "--spring.cloud.stream.kafka.binder.enable-observation=false"));
+        for (String binder : BINDERS) {
+            String environment = "--spring.cloud.stream.binders." + binder + ".environment.spring.cloud.stream.kafka.binder.";
+            arguments.add(environment + "brokers=" + getBrokers());
+            arguments.add(environment + "configuration.sasl.jaas.config=");
+        }
+        return arguments;
+    }
+
+    @Override
+    public void close() {
+        pdfEngine.close();
+        kafka.destroy();
+        mongod.close();
+    }
+
+}
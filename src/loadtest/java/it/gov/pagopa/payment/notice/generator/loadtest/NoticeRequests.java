@@ -0,0 +1,89 @@
+package it.gov.pagopa.payment.notice.generator.loadtest;
+
+import it.gov.pagopa.payment.notice.generator.model.NoticeGenerationRequestItem;
+import it.gov.pagopa.payment.notice.generator.model.notice.CreditorInstitution;
+import it.gov.pagopa.payment.notice.generator.model.notice.Debtor;
+import it.gov.pagopa.payment.notice.generator.model.notice.InstallmentData;
+import it.gov.pagopa.payment.notice.generator.model.notice.Notice;
+import it.gov.pagopa.payment.notice.generator.model.notice.NoticeRequestData;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongFunction;
+
+/**
+ * Generation requests sent by the drivers, each with its own notice codes so that every request
+ * yields a distinct item
+ */
+public final class NoticeRequests {
+
+    public static final String TEMPLATE_ID = "TemplateLoadTest";
+
+    public static final String CREDITOR_INSTITUTION_TAX_CODE = "99999000013";
+
+    private NoticeRequests() {
+    }
+
+    /**
+     * @param installments number of installments of each notice
+     * @return factory of the request with the given sequence number
+     */
+    public static LongFunction<NoticeGenerationRequestItem> withInstallments(int installments) {
+        return sequence -> noticeGenerationRequestItem(sequence, installments);
+    }
+
+    public static NoticeGenerationRequestItem noticeGenerationRequestItem(long sequence, int installments) {
+        List<InstallmentData> installmentData = new ArrayList<>(installments);
+        for (int i = 0; i < installments; i++) {
+            installmentData.add(InstallmentData.builder()
+                    .code(String.format("3%013d%04d", sequence, i))
+                    .amount(1500L + i)
+                    .dueDate("24/10/2024")
+                    .build());
+        }
+        return NoticeGenerationRequestItem.builder()
+                .templateId(TEMPLATE_ID)
+                .data(NoticeRequestData.builder()
+                        .notice(Notice.builder()
+                                .code(String.format("3%017d", sequence))
+                                .dueDate("24/10/2024")
+                                .subject("Tassa sui rifiuti 2024")
+                                .paymentAmount(1500L * installments)
+                                .installments(installmentData)
+                                .build())
+                        .creditorInstitution(CreditorInstitution.builder()
+                                .taxCode(CREDITOR_INSTITUTION_TAX_CODE)
+                                .build())
+                        .debtor(Debtor.builder()
+                                .taxCode("RSSMRA80A01H501U")
+                                .fullName("Mario Rossi")
+                                .address("Via Roma")
+                                .buildingNumber("1")
+                                .postalCode("00100")
+                                .city("Roma")
+                                .province("RM")
+                                .build())
+                        .build())
+                .build();
+    }
+
+    /**
+     * @return the data of the creditor institution, as stored on the institutions storage
+     */
+    public static CreditorInstitution creditorInstitution(String taxCode) {
+        return CreditorInstitution.builder()
+                .taxCode(taxCode)
+                .fullName("Comune di Roma")
+                .organization("Settore Tributi")
+                .info("Via del Campidoglio, 1 Roma")
+                .logo("https://example.org/logo.png")
+                .webChannel(true)
+                .appChannel(true)
+                .physicalChannel("Sportelli comunali")
+                .cbill("AAAAA")
+                .posteAuth("AUT/123456/2024")
+                .posteAccountNumber("123456789012")
+                .build();
+    }
+
+}
@@ -0,0 +1,221 @@
+package it.gov.pagopa.payment.notice.generator.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.PropertyResolver;
+import org.springframework.core.env.PropertySourcesPropertyResolver;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Simulated PDF engine, following an {@link EngineScript}: it reads the whole multipart request, waits
+ * for the latency of the current phase and then answers with a PDF, an error status, a slowly streamed
+ * or truncated PDF, or by closing the connection.
+ * <p>
+ * It runs in-process, as done by {@link LoadTest}, or on its own to be used by a deployed application:
+ * {@code PdfEngineSimulator --simulator.port=8090 --simulator.script=PT25S{};PT5S{errors=429:0.8}},
+ * the other options being {@code simulator.latency-ms} and {@code simulator.size-bytes}.
+ */
+@Slf4j
+public class PdfEngineSimulator implements AutoCloseable {
+
+    public static final String PATH = "/generate-pdf";
+
+    private static final byte[] PDF_HEADER = "%PDF-1.7\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PDF_TRAILER = "\n%%EOF\n".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_PDF_SIZE = 64 * 1024 * 1024;
+    private static final int SLOW_BODY_CHUNK = 8192;
+
+    private final EngineScript script;
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    private final long startNanos = System.nanoTime();
+
+    private final AtomicLong requests = new AtomicLong();
+
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+    private byte[] padding = new byte[0];
+
+    public PdfEngineSimulator(EngineScript script) throws IOException {
+        this(script, 0);
+    }
+
+    public PdfEngineSimulator(EngineScript script, int port) throws IOException {
+        this.script = script;
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "pdf-engine-simulator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        InetAddress address = port == 0 ? InetAddress.getLoopbackAddress() : null;
+        this.server = HttpServer.create(address == null ? new InetSocketAddress(port) :
+                new InetSocketAddress(address, port), 1024);
+        this.server.setExecutor(executor);
+        this.server.createContext(PATH, this::handle);
+        this.server.start();
+    }
+
+    public static void main(String[] args) throws Exception {
+        MutablePropertySources sources = new MutablePropertySources();
+        sources.addFirst(new SimpleCommandLinePropertySource(args));
+        PropertyResolver options = new PropertySourcesPropertyResolver(sources);
+        EngineBehaviour base = EngineBehaviour.of(
+                Distribution.parse(options.getProperty("simulator.latency-ms", "lognormal:250:0.4")),
+                Distribution.parse(options.getProperty("simulator.size-bytes", "uniform:40000:120000")));
+        PdfEngineSimulator simulator = new PdfEngineSimulator(
+                EngineScript.parse(options.getProperty("simulator.script"), base),
+                options.getProperty("simulator.port", Integer.class, 8090));
+        log.info("PDF engine simulator listening on {}", simulator.getEndpoint());
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            simulator.close();
+            stopped.countDown();
+        }));
+        stopped.await();
+    }
+
+    public String getEndpoint() {
+        return String.format("http://localhost:%d%s", server.getAddress().getPort(), PATH);
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return number of requests by outcome: ok, slow, truncated, reset or the error status
+     */
+    public Map<String, Long> getOutcomes() {
+        Map<String, Long> counts = new TreeMap<>();
+        outcomes.forEach((outcome, count) -> counts.put(outcome, count.sum()));
+        return counts;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            EngineBehaviour behaviour = script.behaviourAt(System.nanoTime() - startNanos);
+            try (InputStream request = exchange.getRequestBody()) {
+                request.transferTo(OutputStream.nullOutputStream());
+            }
+            sleep(behaviour.latencyMillis().sampleLong());
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (random.nextDouble() < behaviour.resetProbability()) {
+                count("reset");
+                // closing the exchange before the headers are sent drops the connection
+                return;
+            }
+            Integer errorStatus = pickError(behaviour.errorRates(), random.nextDouble());
+            if (errorStatus != null) {
+                count(String.valueOf(errorStatus));
+                byte[] error = String.format("{\"errors\":[{\"message\":\"Simulated error %d\"}]}", errorStatus)
+                        .getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(errorStatus, error.length);
+                exchange.getResponseBody().write(error);
+                return;
+            }
+
+            int size = (int) Math.min(MAX_PDF_SIZE,
+                    Math.max(PDF_HEADER.length + PDF_TRAILER.length, behaviour.sizeBytes().sampleLong()));
+            int paddingLength = size - PDF_HEADER.length - PDF_TRAILER.length;
+            boolean truncate = random.nextDouble() < behaviour.truncateProbability();
+            boolean slow = !truncate && random.nextDouble() < behaviour.slowBodyProbability();
+            count(truncate ? "truncated" : slow ? "slow" : "ok");
+
+            exchange.getResponseHeaders().set("Content-Type", "application/pdf");
+            exchange.sendResponseHeaders(200, size);
+            OutputStream response = exchange.getResponseBody();
+            response.write(PDF_HEADER);
+            if (truncate) {
+                response.write(getPadding(paddingLength), 0, paddingLength / 2);
+                response.flush();
+                // the missing bytes make the server drop the connection
+                return;
+            }
+            if (slow) {
+                writeSlowly(response, getPadding(paddingLength), paddingLength, behaviour.slowBodyBytesPerSecond());
+            } else {
+                response.write(getPadding(paddingLength), 0, paddingLength);
+            }
+            response.write(PDF_TRAILER);
+        }
+    }
+
+    private static Integer pickError(Map<Integer, Double> errorRates, double roll) {
+        double cumulative = 0;
+        for (Map.Entry<Integer, Double> errorRate : errorRates.entrySet()) {
+            cumulative += errorRate.getValue();
+            if (roll < cumulative) {
+                return errorRate.getKey();
+            }
+        }
+        return null;
+    }
+
+    private static void writeSlowly(OutputStream response, byte[] data, int length, long bytesPerSecond)
+            throws IOException {
+        long chunkNanos = TimeUnit.SECONDS.toNanos(1) * SLOW_BODY_CHUNK / Math.max(1, bytesPerSecond);
+        for (int offset = 0; offset < length; offset += SLOW_BODY_CHUNK) {
+            response.write(data, offset, Math.min(SLOW_BODY_CHUNK, length - offset));
+            response.flush();
+            sleep(TimeUnit.NANOSECONDS.toMillis(chunkNanos));
+        }
+    }
+
+    private void count(String outcome) {
+        outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Shared filler of the generated documents, grown to the largest size requested so far
+     */
+    private synchronized byte[] getPadding(int length) {
+        if (padding.length < length) {
+            padding = new byte[length];
+            Arrays.fill(padding, (byte) ' ');
+        }
+        return padding;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+        log.info("PDF engine simulator stopped after {} requests: {}", requests.get(), getOutcomes());
+    }
+
+}
@@ -0,0 +1,110 @@
+package it.gov.pagopa.payment.notice.generator.loadtest;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests at a fixed rate, whatever the response times of the application (open model): each
+ * latency is measured from the time the request was scheduled at, so that a slow application is not
+ * hidden by the driver waiting for it. Requests beyond the in-flight limit are dropped and recorded as
+ * failed.
+ */
+@Slf4j
+public abstract class RateDriver implements AutoCloseable {
+
+    @Getter
+    private final String name;
+
+    @Getter
+    private final double rate;
+
+    private final int maxInFlight;
+
+    @Getter
+    private final LatencyRecorder recorder = new LatencyRecorder();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final Thread scheduler;
+
+    private volatile boolean running;
+
+    protected RateDriver(String name, double rate, int maxInFlight) {
+        this.name = name;
+        this.rate = rate;
+        this.maxInFlight = maxInFlight;
+        this.scheduler = new Thread(this::schedule, name + "-driver");
+        this.scheduler.setDaemon(true);
+    }
+
+    public void start() {
+        running = true;
+        scheduler.start();
+        log.info("Driving {} at {} requests per second", name, rate);
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    private void schedule() {
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long next = System.nanoTime();
+        while (running) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+                continue;
+            }
+            if (inFlight.incrementAndGet() <= maxInFlight) {
+                try {
+                    send(next);
+                } catch (RuntimeException e) {
+                    log.debug("Unable to send a {} request", name, e);
+                    complete(next, false);
+                }
+            } else {
+                inFlight.decrementAndGet();
+                dropped.incrementAndGet();
+                recorder.record(next, 0, false);
+            }
+            next += interval;
+        }
+    }
+
+    /**
+     * Sends a request, calling {@link #complete(long, boolean)} with the given start once its outcome is known
+     *
+     * @param startNanos time the request was scheduled at
+     */
+    protected abstract void send(long startNanos);
+
+    protected void complete(long startNanos, boolean success) {
+        inFlight.decrementAndGet();
+        recorder.record(startNanos, System.nanoTime() - startNanos, success);
+    }
+
+    /**
+     * Stops sending new requests, the ones in flight can still complete
+     */
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+
+}
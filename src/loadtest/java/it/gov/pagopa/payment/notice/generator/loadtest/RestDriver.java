@@ -0,0 +1,71 @@
+package it.gov.pagopa.payment.notice.generator.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import it.gov.pagopa.payment.notice.generator.model.NoticeGenerationRequestItem;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.LongFunction;
+
+/**
+ * Drives {@code POST /notices/generate}, without folder, so that the PDF is returned in the response
+ */
+public class RestDriver extends RateDriver {
+
+    private final URI uri;
+
+    private final ObjectWriter requestWriter;
+
+    private final LongFunction<NoticeGenerationRequestItem> requests;
+
+    private final ExecutorService executor;
+
+    private final HttpClient httpClient;
+
+    private long sequence;
+
+    public RestDriver(int port, double rate, int maxInFlight, ObjectMapper objectMapper,
+                      LongFunction<NoticeGenerationRequestItem> requests) {
+        super("rest", rate, maxInFlight);
+        this.uri = URI.create(String.format("http://localhost:%d/notices/generate", port));
+        this.requestWriter = objectMapper.writerFor(NoticeGenerationRequestItem.class);
+        this.requests = requests;
+        this.executor = Executors.newCachedThreadPool();
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(executor)
+                .build();
+    }
+
+    @Override
+    protected void send(long startNanos) {
+        byte[] body;
+        try {
+            body = requestWriter.writeValueAsBytes(requests.apply(sequence++));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, e) -> complete(startNanos, e == null && response.statusCode() == 200));
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        executor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,52 @@
+package it.gov.pagopa.payment.notice.generator.loadtest;
+
+/**
+ * Capacity scenarios: a script of the simulated PDF engine together with the bounds the run is expected
+ * to stay within. The bounds are starting points for the default rates, each one can be overridden with
+ * the {@code loadtest.expect.*} options.
+ */
+public enum Scenario {
+
+    /**
+     * Engine answering within its usual latency
+     */
+    BASELINE("", new Expectations(0.95, 0.001, 1024)),
+
+    /**
+     * The engine p99 latency degrades from about 0.6 to about 4 seconds for 20 seconds every minute
+     */
+    P99_DEGRADATION("PT40S{};PT20S{latency=lognormal:250:1.2}", new Expectations(0.9, 0.01, 1024)),
+
+    /**
+     * The engine throttles or fails most requests for 5 seconds every 30 seconds
+     */
+    THROTTLING_BURSTS("PT25S{};PT5S{errors=429:0.6/500:0.1/503:0.2}", new Expectations(0.7, 0.2, 1024)),
+
+    /**
+     * One PDF out of five is streamed at 256 KB/s
+     */
+    SLOW_BODY("PT1M{slow-body=0.2@262144}", new Expectations(0.9, 0.01, 1024)),
+
+    /**
+     * Connections dropped before the response or halfway through the PDF
+     */
+    CONNECTION_RESETS("PT1M{reset=0.02,truncate=0.02}", new Expectations(0.9, 0.05, 1024));
+
+    private final String script;
+
+    private final Expectations expectations;
+
+    Scenario(String script, Expectations expectations) {
+        this.script = script;
+        this.expectations = expectations;
+    }
+
+    public String getScript() {
+        return script;
+    }
+
+    public Expectations getExpectations() {
+        return expectations;
+    }
+
+}
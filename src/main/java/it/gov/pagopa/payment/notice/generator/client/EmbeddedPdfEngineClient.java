@@ -0,0 +1,262 @@
+package it.gov.pagopa.payment.notice.generator.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.jknack.handlebars.Handlebars;
+import com.github.jknack.handlebars.Template;
+import com.github.jknack.handlebars.helper.ConditionalHelpers;
+import com.github.jknack.handlebars.helper.StringHelpers;
+import com.openhtmltopdf.extend.FSCacheEx;
+import com.openhtmltopdf.extend.FSCacheValue;
+import com.openhtmltopdf.extend.FSStream;
+import com.openhtmltopdf.extend.FSStreamFactory;
+import com.openhtmltopdf.outputdevice.helper.BaseRendererBuilder.CacheStore;
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import com.openhtmltopdf.swing.FSDefaultCacheStore;
+import it.gov.pagopa.payment.notice.generator.model.pdf.PdfEngineRequest;
+import it.gov.pagopa.payment.notice.generator.model.pdf.PdfEngineResponse;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HttpStatus;
+import org.jsoup.Jsoup;
+import org.jsoup.helper.W3CDom;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.w3c.dom.Document;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * In-process alternative to the PDF Engine: the Handlebars template of the zip is filled with the data and
+ * the resulting HTML is rendered to PDF with openhtmltopdf, on a bounded pool of workers.
+ * <p>
+ * Each template zip is unpacked once into memory, keyed by template id and reloaded when the zip changes:
+ * the compiled template and the assets (stylesheets, images, fonts) are served from the cache, while the
+ * font metrics are shared by all the renders.
+ */
+@Component
+@Slf4j
+public class EmbeddedPdfEngineClient implements PdfEngineClient {
+
+    private static final String TEMPLATE_ENTRY = "template.html";
+    private static final String BASE_URI = "file:/embedded-templates/%s/%d/";
+
+    private final ObjectReader dataReader;
+
+    private final Handlebars handlebars;
+
+    private final ExecutorService renderExecutor;
+
+    private final Duration renderTimeout;
+
+    private final Cache<String, CompiledTemplate> templateCache;
+
+    private final FSCacheEx<String, FSCacheValue> fontMetricsCache = new FSDefaultCacheStore();
+
+    @Autowired
+    public EmbeddedPdfEngineClient(
+            ObjectMapper objectMapper,
+            @Value("${pdf.engine.embedded.threads}") int threads,
+            @Value("${pdf.engine.embedded.queue-size}") int queueSize,
+            @Value("${pdf.engine.embedded.timeout}") Duration renderTimeout,
+            @Value("${pdf.engine.embedded.template-cache.max-size-bytes}") long templateCacheMaxSizeBytes) {
+        this(objectMapper, new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(queueSize), new CustomizableThreadFactory("pdf-render-")),
+                renderTimeout, templateCacheMaxSizeBytes);
+    }
+
+    EmbeddedPdfEngineClient(
+            ObjectMapper objectMapper,
+            ExecutorService renderExecutor,
+            Duration renderTimeout,
+            long templateCacheMaxSizeBytes) {
+        this.dataReader = objectMapper.readerFor(Map.class);
+        this.handlebars = new Handlebars();
+        this.handlebars.registerHelpers(ConditionalHelpers.class);
+        this.handlebars.registerHelpers(StringHelpers.class);
+        this.renderExecutor = renderExecutor;
+        this.renderTimeout = renderTimeout;
+        this.templateCache = Caffeine.newBuilder()
+                .maximumWeight(templateCacheMaxSizeBytes)
+                .<String, CompiledTemplate>weigher((templateId, template) -> template.size())
+                .build();
+    }
+
+    /**
+     * Renders the template with the request data on the worker pool, waiting at most the render timeout.
+     * When all the workers are busy and the queue is full the request is refused with a 503 status
+     *
+     * @param pdfEngineRequest Request to the client
+     * @return response with the PDF or error message and the status
+     */
+    @Override
+    public PdfEngineResponse generatePDF(PdfEngineRequest pdfEngineRequest, Path workingDirPath) {
+        PdfEngineResponse pdfEngineResponse = new PdfEngineResponse();
+
+        Future<String> rendering;
+        try {
+            rendering = renderExecutor.submit(() -> render(pdfEngineRequest, workingDirPath));
+        } catch (RejectedExecutionException e) {
+            pdfEngineResponse.setStatusCode(HttpStatus.SC_SERVICE_UNAVAILABLE);
+            pdfEngineResponse.setErrorMessage("Embedded PDF engine saturated, rendering refused");
+            return pdfEngineResponse;
+        }
+
+        try {
+            pdfEngineResponse.setTempPdfPath(rendering.get(renderTimeout.toMillis(), TimeUnit.MILLISECONDS));
+            pdfEngineResponse.setStatusCode(HttpStatus.SC_OK);
+        } catch (TimeoutException e) {
+            rendering.cancel(true);
+            pdfEngineResponse.setStatusCode(HttpStatus.SC_INTERNAL_SERVER_ERROR);
+            pdfEngineResponse.setErrorMessage(String.format("Embedded PDF rendering timed out after %s", renderTimeout));
+        } catch (ExecutionException e) {
+            handleExceptionErrorMessage(pdfEngineResponse, e.getCause());
+        } catch (InterruptedException e) {
+            rendering.cancel(true);
+            Thread.currentThread().interrupt();
+            handleExceptionErrorMessage(pdfEngineResponse, e);
+        }
+
+        return pdfEngineResponse;
+    }
+
+    private String render(PdfEngineRequest pdfEngineRequest, Path workingDirPath) throws IOException {
+        CompiledTemplate compiledTemplate = getCompiledTemplate(pdfEngineRequest);
+        Map<String, Object> data = dataReader.readValue(pdfEngineRequest.getData());
+        String html = compiledTemplate.template().apply(data);
+        Document document = new W3CDom().fromJsoup(Jsoup.parse(html, compiledTemplate.baseUri()));
+
+        File targetFile = File.createTempFile("tempFile", ".pdf", workingDirPath.toFile());
+        try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(targetFile.toPath()))) {
+            PdfRendererBuilder builder = new PdfRendererBuilder();
+            builder.useFastMode();
+            builder.useCacheStore(CacheStore.PDF_FONT_METRICS, fontMetricsCache);
+            builder.useProtocolsStreamImplementation(compiledTemplate, "file");
+            builder.withW3cDocument(document, compiledTemplate.baseUri());
+            builder.toStream(outputStream);
+            builder.run();
+        }
+        return targetFile.getAbsolutePath();
+    }
+
+    /**
+     * @return the cached template of the request, compiling it again if the zip has changed since
+     */
+    CompiledTemplate getCompiledTemplate(PdfEngineRequest pdfEngineRequest) throws IOException {
+        URL templateZip = pdfEngineRequest.getTemplate();
+        String templateId = pdfEngineRequest.getTemplateId() != null ?
+                pdfEngineRequest.getTemplateId() : templateZip.toString();
+        long lastModified = templateZip.openConnection().getLastModified();
+
+        CompiledTemplate compiledTemplate = templateCache.getIfPresent(templateId);
+        if (compiledTemplate != null && compiledTemplate.lastModified() == lastModified) {
+            return compiledTemplate;
+        }
+        try {
+            return templateCache.asMap().compute(templateId, (key, current) ->
+                    current != null && current.lastModified() == lastModified ?
+                            current : compileTemplate(key, templateZip, lastModified));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private CompiledTemplate compileTemplate(String templateId, URL templateZip, long lastModified) {
+        Map<String, byte[]> assets = new HashMap<>();
+        try (ZipInputStream zipInputStream = new ZipInputStream(templateZip.openStream())) {
+            ZipEntry entry;
+            while ((entry = zipInputStream.getNextEntry()) != null) {
+                if (!entry.isDirectory()) {
+                    assets.put(entry.getName(), zipInputStream.readAllBytes());
+                }
+            }
+            byte[] templateHtml = assets.remove(TEMPLATE_ENTRY);
+            if (templateHtml == null) {
+                throw new IOException(String.format("Missing %s in the zip of template %s", TEMPLATE_ENTRY, templateId));
+            }
+            Template template = handlebars.compileInline(new String(templateHtml, StandardCharsets.UTF_8));
+            log.info("Compiled template {} for the embedded PDF engine, {} assets", templateId, assets.size());
+            return new CompiledTemplate(template,
+                    String.format(BASE_URI, URLEncoder.encode(templateId, StandardCharsets.UTF_8), lastModified),
+                    assets, lastModified, templateHtml.length + assets.values().stream().mapToInt(a -> a.length).sum());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Handles error message in case of error thrown
+     *
+     * @param pdfEngineResponse Pdf engine response
+     * @param e                 Error thrown
+     */
+    private void handleExceptionErrorMessage(PdfEngineResponse pdfEngineResponse, Throwable e) {
+        pdfEngineResponse.setStatusCode(HttpStatus.SC_INTERNAL_SERVER_ERROR);
+        pdfEngineResponse.setErrorMessage(String.format("Exception thrown during pdf generation process: %s", e));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        renderExecutor.shutdown();
+    }
+
+    /**
+     * Template compiled from a zip, serving the assets of the zip to the renderer in place of the file system
+     *
+     * @param template     compiled Handlebars template
+     * @param baseUri      base of the URIs of the assets, unique to each version of the template
+     * @param assets       content of the zip entries, by name
+     * @param lastModified modification time of the zip the template was compiled from
+     * @param size         total size of the template and the assets, in bytes
+     */
+    record CompiledTemplate(Template template, String baseUri, Map<String, byte[]> assets, long lastModified,
+                            int size) implements FSStreamFactory {
+
+        @Override
+        public FSStream getUrl(String url) {
+            byte[] asset = url.startsWith(baseUri) ? assets.get(url.substring(baseUri.length())) : null;
+            return new FSStream() {
+                @Override
+                public InputStream getStream() {
+                    return asset != null ? new ByteArrayInputStream(asset) : null;
+                }
+
+                @Override
+                public Reader getReader() {
+                    return asset != null ? new InputStreamReader(getStream(), StandardCharsets.UTF_8) : null;
+                }
+            };
+        }
+    }
+
+}
@@ -0,0 +1,247 @@
+package it.gov.pagopa.payment.notice.generator.client;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import it.gov.pagopa.payment.notice.generator.model.enums.OverlayFieldType;
+import it.gov.pagopa.payment.notice.generator.model.pdf.PdfEngineRequest;
+import it.gov.pagopa.payment.notice.generator.model.pdf.PdfEngineResponse;
+import it.gov.pagopa.payment.notice.generator.model.pdf.overlay.OverlayField;
+import it.gov.pagopa.payment.notice.generator.model.pdf.overlay.OverlayLayout;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HttpStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Client used by the generation. For the templates enabled for the overlay mode and shipping an
+ * {@code overlay.json} layout, the notice is rendered by the engine once per background, i.e. with the
+ * variable fields of the layout blanked out, and the fields of each notice are stamped over the cached
+ * background in process. Any other request is passed to the {@link RoutingPdfEngineClient}.
+ * <p>
+ * The backgrounds are keyed by a hash of the blanked data, so that notices of the same creditor institution
+ * share one, while data not covered by the layout can never leak from a notice to another.
+ */
+@Component
+@Primary
+@Slf4j
+public class OverlayPdfEngineClient implements PdfEngineClient {
+
+    private static final String LAYOUT_ENTRY = "overlay.json";
+
+    private final PdfEngineClient pdfEngineClient;
+
+    private final PdfOverlayStamper pdfOverlayStamper;
+
+    private final ObjectMapper objectMapper;
+
+    private final Set<String> overlayTemplateIds;
+
+    private final Cache<String, TemplateOverlay> overlayCache;
+
+    private final Cache<String, byte[]> backgroundCache;
+
+    @Autowired
+    public OverlayPdfEngineClient(
+            RoutingPdfEngineClient pdfEngineClient,
+            PdfOverlayStamper pdfOverlayStamper,
+            ObjectMapper objectMapper,
+            @Value("${pdf.overlay.template-ids}") Set<String> overlayTemplateIds,
+            @Value("${pdf.overlay.background-cache.max-size-bytes}") long backgroundCacheMaxSizeBytes,
+            @Value("${pdf.overlay.background-cache.expire-after-write}") Duration backgroundCacheExpireAfterWrite) {
+        this((PdfEngineClient) pdfEngineClient, pdfOverlayStamper, objectMapper, overlayTemplateIds,
+                backgroundCacheMaxSizeBytes, backgroundCacheExpireAfterWrite);
+    }
+
+    OverlayPdfEngineClient(
+            PdfEngineClient pdfEngineClient,
+            PdfOverlayStamper pdfOverlayStamper,
+            ObjectMapper objectMapper,
+            Set<String> overlayTemplateIds,
+            long backgroundCacheMaxSizeBytes,
+            Duration backgroundCacheExpireAfterWrite) {
+        this.pdfEngineClient = pdfEngineClient;
+        this.pdfOverlayStamper = pdfOverlayStamper;
+        this.objectMapper = objectMapper;
+        this.overlayTemplateIds = Set.copyOf(overlayTemplateIds);
+        this.overlayCache = Caffeine.newBuilder()
+                .maximumSize(100)
+                .build();
+        this.backgroundCache = Caffeine.newBuilder()
+                .maximumWeight(backgroundCacheMaxSizeBytes)
+                .<String, byte[]>weigher((key, background) -> background.length)
+                .expireAfterWrite(backgroundCacheExpireAfterWrite)
+                .build();
+    }
+
+    @Override
+    public PdfEngineResponse generatePDF(PdfEngineRequest pdfEngineRequest, Path workingDirPath) {
+        if (pdfEngineRequest.getTemplateId() == null || !overlayTemplateIds.contains(pdfEngineRequest.getTemplateId())) {
+            return pdfEngineClient.generatePDF(pdfEngineRequest, workingDirPath);
+        }
+
+        PdfEngineResponse pdfEngineResponse = new PdfEngineResponse();
+        try {
+            TemplateOverlay templateOverlay = getTemplateOverlay(pdfEngineRequest);
+            if (templateOverlay.layout() == null) {
+                return pdfEngineClient.generatePDF(pdfEngineRequest, workingDirPath);
+            }
+            JsonNode data = objectMapper.readTree(pdfEngineRequest.getData());
+            String backgroundData = objectMapper.writeValueAsString(blankFields(data, templateOverlay.layout()));
+            String backgroundKey = String.format("%s:%d:%s", pdfEngineRequest.getTemplateId(),
+                    templateOverlay.lastModified(), sha256(backgroundData));
+
+            // concurrent notices of the same background wait for a single render
+            byte[] background = backgroundCache.get(backgroundKey, key ->
+                    renderBackground(pdfEngineRequest, backgroundData, workingDirPath));
+
+            File targetFile = File.createTempFile("tempFile", ".pdf", workingDirPath.toFile());
+            pdfOverlayStamper.stamp(background, templateOverlay.layout(), data, templateOverlay.fonts(), targetFile);
+            pdfEngineResponse.setTempPdfPath(targetFile.getAbsolutePath());
+            pdfEngineResponse.setStatusCode(HttpStatus.SC_OK);
+        } catch (BackgroundRenderException e) {
+            return e.getPdfEngineResponse();
+        } catch (IOException | RuntimeException e) {
+            pdfEngineResponse.setStatusCode(HttpStatus.SC_INTERNAL_SERVER_ERROR);
+            pdfEngineResponse.setErrorMessage(String.format("Exception thrown during pdf generation process: %s", e));
+        }
+        return pdfEngineResponse;
+    }
+
+    /**
+     * Blanks the values of the fields of the layout present in the data
+     *
+     * @param data   template data of a notice
+     * @param layout layout of the template
+     * @return a copy of the data with the variable fields set to an empty string
+     */
+    JsonNode blankFields(JsonNode data, OverlayLayout layout) {
+        JsonNode backgroundData = data.deepCopy();
+        for (OverlayField field : layout.getFields()) {
+            JsonPointer pointer = JsonPointer.compile(field.getValue());
+            JsonNode parent = backgroundData.at(pointer.head());
+            JsonPointer last = pointer.last();
+            if (parent instanceof ObjectNode object && object.has(last.getMatchingProperty())) {
+                object.put(last.getMatchingProperty(), "");
+            } else if (parent instanceof ArrayNode array && last.mayMatchElement()
+                    && last.getMatchingIndex() < array.size()) {
+                array.set(last.getMatchingIndex(), TextNode.valueOf(""));
+            }
+        }
+        return backgroundData;
+    }
+
+    private byte[] renderBackground(PdfEngineRequest pdfEngineRequest, String backgroundData, Path workingDirPath) {
+        PdfEngineRequest backgroundRequest = new PdfEngineRequest();
+        backgroundRequest.setTemplate(pdfEngineRequest.getTemplate());
+        backgroundRequest.setTemplateId(pdfEngineRequest.getTemplateId());
+        backgroundRequest.setApplySignature(pdfEngineRequest.isApplySignature());
+        backgroundRequest.setData(backgroundData);
+
+        PdfEngineResponse backgroundResponse = pdfEngineClient.generatePDF(backgroundRequest, workingDirPath);
+        if (backgroundResponse.getStatusCode() != HttpStatus.SC_OK) {
+            throw new BackgroundRenderException(backgroundResponse);
+        }
+        try {
+            Path backgroundPath = Path.of(backgroundResponse.getTempPdfPath());
+            byte[] background = Files.readAllBytes(backgroundPath);
+            Files.delete(backgroundPath);
+            log.info("Rendered background of template {}, {} bytes", pdfEngineRequest.getTemplateId(), background.length);
+            return background;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return the cached layout of the template of the request, reading it again if the zip has changed since
+     */
+    private TemplateOverlay getTemplateOverlay(PdfEngineRequest pdfEngineRequest) throws IOException {
+        URL templateZip = pdfEngineRequest.getTemplate();
+        long lastModified = templateZip.openConnection().getLastModified();
+        TemplateOverlay templateOverlay = overlayCache.getIfPresent(pdfEngineRequest.getTemplateId());
+        if (templateOverlay == null || templateOverlay.lastModified() != lastModified) {
+            templateOverlay = readTemplateOverlay(templateZip, lastModified);
+            overlayCache.put(pdfEngineRequest.getTemplateId(), templateOverlay);
+        }
+        return templateOverlay;
+    }
+
+    private TemplateOverlay readTemplateOverlay(URL templateZip, long lastModified) throws IOException {
+        Map<String, byte[]> entries = new HashMap<>();
+        try (ZipInputStream zipInputStream = new ZipInputStream(templateZip.openStream())) {
+            ZipEntry entry;
+            while ((entry = zipInputStream.getNextEntry()) != null) {
+                String name = entry.getName();
+                if (!entry.isDirectory() && (name.equals(LAYOUT_ENTRY) || name.endsWith(".ttf") || name.endsWith(".otf"))) {
+                    entries.put(name, zipInputStream.readAllBytes());
+                }
+            }
+        }
+        byte[] layoutEntry = entries.remove(LAYOUT_ENTRY);
+        if (layoutEntry == null) {
+            return new TemplateOverlay(null, Map.of(), lastModified);
+        }
+        OverlayLayout layout = objectMapper.readValue(layoutEntry, OverlayLayout.class);
+        Map<String, byte[]> fonts = new HashMap<>();
+        layout.getFields().stream()
+                .filter(field -> field.getType() == OverlayFieldType.TEXT && entries.containsKey(field.getFont()))
+                .forEach(field -> fonts.put(field.getFont(), entries.get(field.getFont())));
+        return new TemplateOverlay(layout, fonts, lastModified);
+    }
+
+    private static String sha256(String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Overlay layout of a template, null if its zip does not have one, with the font files it uses
+     */
+    private record TemplateOverlay(OverlayLayout layout, Map<String, byte[]> fonts, long lastModified) {
+    }
+
+    /**
+     * Failed render of a background, not cached and reported as the response of the notice
+     */
+    @Getter
+    private static class BackgroundRenderException extends RuntimeException {
+
+        private final transient PdfEngineResponse pdfEngineResponse;
+
+        BackgroundRenderException(PdfEngineResponse pdfEngineResponse) {
+            super(pdfEngineResponse.getErrorMessage());
+            this.pdfEngineResponse = pdfEngineResponse;
+        }
+    }
+
+}
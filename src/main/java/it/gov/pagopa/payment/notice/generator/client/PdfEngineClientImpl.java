@@ -1,6 +1,10 @@
 package it.gov.pagopa.payment.notice.generator.client;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.transport.Kind;
+import io.micrometer.observation.transport.RequestReplySenderContext;
 import it.gov.pagopa.payment.notice.generator.model.pdf.PdfEngineErrorResponse;
 import it.gov.pagopa.payment.notice.generator.model.pdf.PdfEngineRequest;
 import it.gov.pagopa.payment.notice.generator.model.pdf.PdfEngineResponse;
@@ -38,16 +42,20 @@ public class PdfEngineClientImpl implements PdfEngineClient {
     private static final String ZIP_FILE_NAME = "template.zip";
     private static final String TEMPLATE_KEY = "template";
     private static final String DATA_KEY = "data";
+    private static final String PDF_ENGINE_OBSERVATION = "pdf.engine.requests";
     private final String pdfEngineEndpoint;
     private final String ocpAimSubKey;
     private final HttpClientBuilder httpClientBuilder;
     private final ObjectMapper objectMapper;
+    private final ObservationRegistry observationRegistry;
 
     @Autowired
     private PdfEngineClientImpl(ObjectMapper objectMapper,
+                                ObservationRegistry observationRegistry,
                                 @Value("${pdf.engine.endpoint}") String pdfEngineEndpoint,
                                 @Value("${pdf.engine.ocpaim.subkey}") String ocpAimSubKey) {
         this.objectMapper = objectMapper;
+        this.observationRegistry = observationRegistry;
         this.httpClientBuilder = HttpClientBuilder.create();
         this.ocpAimSubKey = ocpAimSubKey;
         this.pdfEngineEndpoint = pdfEngineEndpoint;
@@ -55,7 +63,13 @@ public class PdfEngineClientImpl implements PdfEngineClient {
 
     PdfEngineClientImpl(ObjectMapper objectMapper, HttpClientBuilder clientBuilder,
                         String pdfEngineEndpoint, String ocpAimSubKey) {
+        this(objectMapper, ObservationRegistry.NOOP, clientBuilder, pdfEngineEndpoint, ocpAimSubKey);
+    }
+
+    PdfEngineClientImpl(ObjectMapper objectMapper, ObservationRegistry observationRegistry,
+                        HttpClientBuilder clientBuilder, String pdfEngineEndpoint, String ocpAimSubKey) {
         this.objectMapper = objectMapper;
+        this.observationRegistry = observationRegistry;
         this.httpClientBuilder = clientBuilder;
         this.pdfEngineEndpoint = pdfEngineEndpoint;
         this.ocpAimSubKey = ocpAimSubKey;
@@ -74,21 +88,7 @@ public class PdfEngineClientImpl implements PdfEngineClient {
 
         //Generate client
         try (CloseableHttpClient client = this.httpClientBuilder.build(); InputStream is = pdfEngineRequest.getTemplate().openStream()) {
-            //Encode template and data
-
-            StringBody dataBody = new StringBody(pdfEngineRequest.getData(), ContentType.APPLICATION_JSON);
-
-            //Build the multipart request
-            MultipartEntityBuilder builder = MultipartEntityBuilder.create();
-            builder.setMode(HttpMultipartMode.BROWSER_COMPATIBLE);
-            builder.addBinaryBody(TEMPLATE_KEY, is.readAllBytes(), ContentType.create("application/zip"), ZIP_FILE_NAME);
-            builder.addPart(DATA_KEY, dataBody);
-            HttpEntity entity = builder.build();
-
-            //Set endpoint and auth key
-            HttpPost request = new HttpPost(pdfEngineEndpoint);
-            request.setHeader(HEADER_AUTH_KEY, ocpAimSubKey);
-            request.setEntity(entity);
+            HttpPost request = buildRequest(is.readAllBytes(), pdfEngineRequest.getData());
             log.debug("endpoint POST {} headers {} body {}", pdfEngineEndpoint, request.getAllHeaders(), pdfEngineRequest.getData());
             pdfEngineResponse = handlePdfEngineResponse(client, request, workingDirPath);
         } catch (IOException e) {
@@ -99,13 +99,58 @@ public class PdfEngineClientImpl implements PdfEngineClient {
     }
 
     /**
-     * Calls the PDF Engine and handles its response, updating the PdfEngineResponse accordingly
+     * Builds the multipart request to the PDF Engine
+     *
+     * @param template content of the template zip
+     * @param data     template data, as JSON
+     * @return request with the endpoint and auth key set
+     */
+    HttpPost buildRequest(byte[] template, String data) {
+        //Encode template and data
+        StringBody dataBody = new StringBody(data, ContentType.APPLICATION_JSON);
+
+        //Build the multipart request
+        MultipartEntityBuilder builder = MultipartEntityBuilder.create();
+        builder.setMode(HttpMultipartMode.BROWSER_COMPATIBLE);
+        builder.addBinaryBody(TEMPLATE_KEY, template, ContentType.create("application/zip"), ZIP_FILE_NAME);
+        builder.addPart(DATA_KEY, dataBody);
+        HttpEntity entity = builder.build();
+
+        //Set endpoint and auth key
+        HttpPost request = new HttpPost(pdfEngineEndpoint);
+        request.setHeader(HEADER_AUTH_KEY, ocpAimSubKey);
+        request.setEntity(entity);
+        return request;
+    }
+
+    /**
+     * Calls the PDF Engine and handles its response, updating the PdfEngineResponse accordingly.
+     * The call is observed as a client span, whose trace context is propagated through the request headers
      *
      * @param client  The previously generated client
      * @param request The request to the PDF engine
      * @return pdf engine response
      */
     private PdfEngineResponse handlePdfEngineResponse(CloseableHttpClient client, HttpPost request, Path workingDirPath) {
+        RequestReplySenderContext<HttpPost, PdfEngineResponse> context =
+                new RequestReplySenderContext<>(HttpPost::setHeader, Kind.CLIENT);
+        context.setCarrier(request);
+        context.setRemoteServiceName("pdf-engine");
+        Observation observation = Observation.createNotStarted(PDF_ENGINE_OBSERVATION, () -> context, observationRegistry)
+                .contextualName("pdf engine generate")
+                .lowCardinalityKeyValue("method", request.getMethod())
+                .start();
+        try (Observation.Scope ignored = observation.openScope()) {
+            PdfEngineResponse pdfEngineResponse = executePdfEngineRequest(client, request, workingDirPath);
+            context.setResponse(pdfEngineResponse);
+            observation.lowCardinalityKeyValue("status", String.valueOf(pdfEngineResponse.getStatusCode()));
+            return pdfEngineResponse;
+        } finally {
+            observation.stop();
+        }
+    }
+
+    private PdfEngineResponse executePdfEngineRequest(CloseableHttpClient client, HttpPost request, Path workingDirPath) {
         PdfEngineResponse pdfEngineResponse = new PdfEngineResponse();
         //Execute call
         try (CloseableHttpResponse response = client.execute(request)) {
@@ -0,0 +1,153 @@
+package it.gov.pagopa.payment.notice.generator.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.zxing.common.BitMatrix;
+import it.gov.pagopa.payment.notice.generator.model.pdf.overlay.OverlayField;
+import it.gov.pagopa.payment.notice.generator.model.pdf.overlay.OverlayLayout;
+import it.gov.pagopa.payment.notice.generator.util.BarcodeRenderer;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.springframework.stereotype.Component;
+
+import java.awt.Color;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stamps the variable fields of a notice over its pre-rendered background: texts with the fonts of the
+ * template and barcodes, encoded by the {@link BarcodeRenderer}, drawn as vector modules
+ */
+@Component
+public class PdfOverlayStamper {
+
+    private static final Map<String, PDFont> STANDARD_FONTS = Map.of(
+            "Helvetica", PDType1Font.HELVETICA,
+            "Helvetica-Bold", PDType1Font.HELVETICA_BOLD,
+            "Times-Roman", PDType1Font.TIMES_ROMAN,
+            "Times-Bold", PDType1Font.TIMES_BOLD,
+            "Courier", PDType1Font.COURIER,
+            "Courier-Bold", PDType1Font.COURIER_BOLD);
+
+    private final BarcodeRenderer barcodeRenderer;
+
+    public PdfOverlayStamper(BarcodeRenderer barcodeRenderer) {
+        this.barcodeRenderer = barcodeRenderer;
+    }
+
+    /**
+     * Stamps the fields of the layout over the background, skipping the ones without a value in the data
+     *
+     * @param background background PDF of the notice
+     * @param layout     fields to stamp
+     * @param data       template data of the notice
+     * @param fonts      font files of the template zip, by name
+     * @param target     file the stamped PDF is written to
+     * @throws IOException if the background is not readable or a font is unknown
+     */
+    public void stamp(byte[] background, OverlayLayout layout, JsonNode data, Map<String, byte[]> fonts, File target)
+            throws IOException {
+        try (PDDocument document = PDDocument.load(background)) {
+            Map<String, PDFont> documentFonts = new HashMap<>();
+            Map<Integer, PDPageContentStream> pageContents = new HashMap<>();
+            try {
+                for (OverlayField field : layout.getFields()) {
+                    JsonNode value = data.at(field.getValue());
+                    if (value.isMissingNode() || value.isNull() || value.asText().isEmpty()) {
+                        continue;
+                    }
+                    PDPage page = document.getPage(field.getPage());
+                    PDPageContentStream content = pageContents.get(field.getPage());
+                    if (content == null) {
+                        content = new PDPageContentStream(document, page, PDPageContentStream.AppendMode.APPEND, true, true);
+                        content.setNonStrokingColor(Color.BLACK);
+                        pageContents.put(field.getPage(), content);
+                    }
+                    float top = page.getMediaBox().getUpperRightY();
+                    switch (field.getType()) {
+                        case TEXT -> drawText(content, field, value.asText(), top,
+                                getFont(document, field.getFont(), fonts, documentFonts));
+                        case QR_CODE -> drawMatrix(content, field, top, encode(value.asText(), true));
+                        case DATA_MATRIX -> drawMatrix(content, field, top, encode(value.asText(), false));
+                    }
+                }
+            } finally {
+                for (PDPageContentStream content : pageContents.values()) {
+                    content.close();
+                }
+            }
+            document.save(target);
+        }
+    }
+
+    private void drawText(PDPageContentStream content, OverlayField field, String text, float top, PDFont font)
+            throws IOException {
+        float textWidth = font.getStringWidth(text) / 1000 * field.getFontSize();
+        float x = switch (field.getAlign()) {
+            case "right" -> field.getX() + field.getWidth() - textWidth;
+            case "center" -> field.getX() + (field.getWidth() - textWidth) / 2;
+            default -> field.getX();
+        };
+        content.beginText();
+        content.setFont(font, field.getFontSize());
+        content.newLineAtOffset(x, top - field.getY());
+        content.showText(text);
+        content.endText();
+    }
+
+    /**
+     * Draws the matrix in the box of the field with square modules, merging the adjacent dark modules of
+     * each row into a single rectangle
+     */
+    private void drawMatrix(PDPageContentStream content, OverlayField field, float top, BitMatrix matrix)
+            throws IOException {
+        float module = Math.min(field.getWidth() / matrix.getWidth(), field.getHeight() / matrix.getHeight());
+        float bottom = top - field.getY() - matrix.getHeight() * module;
+        for (int row = 0; row < matrix.getHeight(); row++) {
+            float y = bottom + (matrix.getHeight() - 1 - row) * module;
+            int column = 0;
+            while (column < matrix.getWidth()) {
+                if (!matrix.get(column, row)) {
+                    column++;
+                    continue;
+                }
+                int start = column;
+                while (column < matrix.getWidth() && matrix.get(column, row)) {
+                    column++;
+                }
+                content.addRect(field.getX() + start * module, y, (column - start) * module, module);
+            }
+        }
+        content.fill();
+    }
+
+    private BitMatrix encode(String contents, boolean qrCode) throws IOException {
+        try {
+            return qrCode ? barcodeRenderer.encodeQrCode(contents) : barcodeRenderer.encodeDataMatrix(contents);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private PDFont getFont(PDDocument document, String name, Map<String, byte[]> fonts,
+                           Map<String, PDFont> documentFonts) throws IOException {
+        PDFont font = documentFonts.get(name);
+        if (font == null) {
+            byte[] fontFile = fonts.get(name);
+            font = fontFile != null ?
+                    PDType0Font.load(document, new ByteArrayInputStream(fontFile)) : STANDARD_FONTS.get(name);
+            if (font == null) {
+                throw new IOException(String.format("Unknown overlay font %s", name));
+            }
+            documentFonts.put(name, font);
+        }
+        return font;
+    }
+
+}
@@ -0,0 +1,68 @@
+package it.gov.pagopa.payment.notice.generator.client;
+
+import it.gov.pagopa.payment.notice.generator.model.pdf.PdfEngineRequest;
+import it.gov.pagopa.payment.notice.generator.model.pdf.PdfEngineResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.Set;
+
+/**
+ * Client choosing the PDF backend of each request: the embedded engine when it is
+ * the backend of the deployment or the template is among the ones enabled for it, the remote PDF Engine
+ * otherwise
+ */
+@Component
+@Slf4j
+public class RoutingPdfEngineClient implements PdfEngineClient {
+
+    static final String REMOTE_BACKEND = "remote";
+    static final String EMBEDDED_BACKEND = "embedded";
+
+    private final PdfEngineClient remotePdfEngineClient;
+
+    private final PdfEngineClient embeddedPdfEngineClient;
+
+    private final boolean embeddedBackend;
+
+    private final Set<String> embeddedTemplateIds;
+
+    @Autowired
+    public RoutingPdfEngineClient(
+            PdfEngineClientImpl remotePdfEngineClient,
+            EmbeddedPdfEngineClient embeddedPdfEngineClient,
+            @Value("${pdf.engine.backend}") String backend,
+            @Value("${pdf.engine.embedded.template-ids}") Set<String> embeddedTemplateIds) {
+        this((PdfEngineClient) remotePdfEngineClient, embeddedPdfEngineClient, backend, embeddedTemplateIds);
+    }
+
+    RoutingPdfEngineClient(
+            PdfEngineClient remotePdfEngineClient,
+            PdfEngineClient embeddedPdfEngineClient,
+            String backend,
+            Set<String> embeddedTemplateIds) {
+        if (!REMOTE_BACKEND.equals(backend) && !EMBEDDED_BACKEND.equals(backend)) {
+            throw new IllegalArgumentException(String.format("Unknown PDF engine backend %s", backend));
+        }
+        this.remotePdfEngineClient = remotePdfEngineClient;
+        this.embeddedPdfEngineClient = embeddedPdfEngineClient;
+        this.embeddedBackend = EMBEDDED_BACKEND.equals(backend);
+        this.embeddedTemplateIds = Set.copyOf(embeddedTemplateIds);
+        log.info("PDF engine backend {}, embedded engine also used for templates {}", backend, embeddedTemplateIds);
+    }
+
+    @Override
+    public PdfEngineResponse generatePDF(PdfEngineRequest pdfEngineRequest, Path workingDirPath) {
+        return isEmbedded(pdfEngineRequest.getTemplateId()) ?
+                embeddedPdfEngineClient.generatePDF(pdfEngineRequest, workingDirPath) :
+                remotePdfEngineClient.generatePDF(pdfEngineRequest, workingDirPath);
+    }
+
+    boolean isEmbedded(String templateId) {
+        return embeddedBackend || (templateId != null && embeddedTemplateIds.contains(templateId));
+    }
+
+}
@@ -0,0 +1,22 @@
+package it.gov.pagopa.payment.notice.generator.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Replaces reflection with generated lambdas for bean property access, registered by Spring Boot
+     * into the application ObjectMapper
+     */
+    @Bean
+    @ConditionalOnProperty(value = "jackson.blackbird.enabled", havingValue = "true")
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+}
@@ -2,6 +2,7 @@ package it.gov.pagopa.payment.notice.generator.config;
 
 import it.gov.pagopa.payment.notice.generator.exception.AppError;
 import it.gov.pagopa.payment.notice.generator.model.ProblemJson;
+import it.gov.pagopa.payment.notice.generator.util.PayloadLogFormatter;
 import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -22,8 +23,6 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
-import static it.gov.pagopa.payment.notice.generator.util.CommonUtility.deNull;
-
 
 @Aspect
 @Component
@@ -45,6 +44,8 @@ public class LoggingAspect {
 
     final HttpServletResponse httpResponse;
 
+    final PayloadLogFormatter payloadLogFormatter;
+
     @Value("${info.application.name}")
     private String name;
 
@@ -54,9 +55,11 @@ public class LoggingAspect {
     @Value("${info.properties.environment}")
     private String environment;
 
-    public LoggingAspect(HttpServletRequest httRequest, HttpServletResponse httpResponse) {
+    public LoggingAspect(HttpServletRequest httRequest, HttpServletResponse httpResponse,
+                         PayloadLogFormatter payloadLogFormatter) {
         this.httRequest = httRequest;
         this.httpResponse = httpResponse;
+        this.payloadLogFormatter = payloadLogFormatter;
     }
 
     private static String getDetail(ResponseEntity<ProblemJson> result) {
@@ -81,12 +84,13 @@ public class LoggingAspect {
         return "-";
     }
 
-    private static Map<String, String> getParams(ProceedingJoinPoint joinPoint) {
+    private Map<String, String> getParams(ProceedingJoinPoint joinPoint) {
         CodeSignature codeSignature = (CodeSignature) joinPoint.getSignature();
+        Object[] args = joinPoint.getArgs();
+        String[] paramNames = codeSignature.getParameterNames();
         Map<String, String> params = new HashMap<>();
-        int i = 0;
-        for (var paramName : codeSignature.getParameterNames()) {
-            params.put(paramName, deNull(joinPoint.getArgs()[i++]));
+        for (int i = 0; i < paramNames.length; i++) {
+            params.put(paramNames[i], payloadLogFormatter.abbreviate(args[i]));
         }
         return params;
     }
@@ -133,7 +137,8 @@ public class LoggingAspect {
         MDC.put(STATUS, "OK");
         MDC.put(CODE, String.valueOf(httpResponse.getStatus()));
         MDC.put(RESPONSE_TIME, getExecutionTime());
-        log.info("Successful API operation {} - result: {}", joinPoint.getSignature().getName(), result);
+        log.info("Successful API operation {} - result: {}", joinPoint.getSignature().getName(),
+                payloadLogFormatter.format(result));
         MDC.remove(STATUS);
         MDC.remove(CODE);
         MDC.remove(RESPONSE_TIME);
@@ -154,10 +159,14 @@ public class LoggingAspect {
 
     @Around(value = "repository() || service()")
     public Object logTrace(ProceedingJoinPoint joinPoint) throws Throwable {
-        Map<String, String> params = getParams(joinPoint);
-        log.debug("Call method {} - args: {}", joinPoint.getSignature().toShortString(), params);
+        // arguments are captured only when the trace is written
+        if (!log.isDebugEnabled()) {
+            return joinPoint.proceed();
+        }
+        String method = joinPoint.getSignature().toShortString();
+        log.debug("Call method {} - args: {}", method, getParams(joinPoint));
         Object result = joinPoint.proceed();
-        log.debug("Return method {} - result: {}", joinPoint.getSignature().toShortString(), result);
+        log.debug("Return method {} - result: {}", method, payloadLogFormatter.format(result));
         return result;
     }
 }
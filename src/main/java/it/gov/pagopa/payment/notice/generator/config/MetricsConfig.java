@@ -0,0 +1,32 @@
+package it.gov.pagopa.payment.notice.generator.config;
+
+import io.micrometer.core.instrument.config.MeterFilter;
+import it.gov.pagopa.payment.notice.generator.util.NoticeGenerationMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * The template id of the generation metrics comes from the request: past the configured number of
+     * distinct values, new ones are not recorded to keep the number of series bounded
+     */
+    @Bean
+    public MeterFilter noticeGenerationTemplateIdFilter(
+            @Value("${metrics.generation.max-template-ids}") int maxTemplateIds) {
+        return MeterFilter.maximumAllowableTags(NoticeGenerationMetrics.TOTAL_TIMER,
+                NoticeGenerationMetrics.TAG_TEMPLATE_ID, maxTemplateIds, MeterFilter.deny());
+    }
+
+    /**
+     * The generation and stage observations are only needed for tracing, their durations are already
+     * recorded by the generation timers
+     */
+    @Bean
+    public MeterFilter noticeGenerationSpanFilter() {
+        return MeterFilter.denyNameStartsWith(NoticeGenerationMetrics.GENERATION_SPAN);
+    }
+
+}
@@ -0,0 +1,81 @@
+package it.gov.pagopa.payment.notice.generator.config;
+
+import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeGenerationRequest;
+import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeGenerationRequestError;
+import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeProcessedItem;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.CompoundIndexDefinition;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Creates the indexes the generator relies on. The automatic index creation of Spring Data is disabled,
+ * so the index annotations of the entities are not applied: the indexes are ensured at startup instead,
+ * which is a no-op when they already exist
+ */
+@Configuration
+@Slf4j
+public class MongoIndexConfig {
+
+    public static final String ERROR_FOLDER_ID_ERROR_ID_INDEX = "folderId_errorId";
+    public static final String OUTBOX_CREATED_AT_INDEX = "outbox_createdAt";
+    public static final String PROCESSED_ITEM_TTL_INDEX = "createdAt";
+
+    /**
+     * How long a stored notice is remembered, well beyond any redelivery of its generation message
+     */
+    public static final Duration PROCESSED_ITEM_TTL = Duration.ofDays(7);
+
+    private final MongoTemplate mongoTemplate;
+
+    public MongoIndexConfig(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @PostConstruct
+    public void ensureIndexes() {
+        // one error per item of a folder, the unreadable messages have no errorId and are left out
+        ensureIndex(PaymentNoticeGenerationRequestError.class,
+                new CompoundIndexDefinition(new Document("folderId", 1).append("errorId", 1))
+                        .named(ERROR_FOLDER_ID_ERROR_ID_INDEX)
+                        .unique()
+                        .partial(PartialIndexFilter.of(Criteria.where("errorId").exists(true))));
+
+        // pending events polled by the outbox relay: the filter matches the one of its query, so that only
+        // the documents with a queued event are indexed and the index is still used for the query
+        for (Class<?> type : List.of(PaymentNoticeGenerationRequest.class, PaymentNoticeGenerationRequestError.class)) {
+            ensureIndex(type, new Index("outbox.createdAt", Sort.Direction.ASC)
+                    .named(OUTBOX_CREATED_AT_INDEX)
+                    .partial(PartialIndexFilter.of(Criteria.where("outbox.eventId").exists(true))));
+        }
+
+        // the processed items are expired by Mongo, otherwise the collection would grow by one per notice
+        ensureIndex(PaymentNoticeProcessedItem.class, new Index("createdAt", Sort.Direction.ASC)
+                .named(PROCESSED_ITEM_TTL_INDEX)
+                .expire(PROCESSED_ITEM_TTL));
+    }
+
+    /**
+     * Ensures an index, logging the failure rather than preventing the startup: the generator still
+     * works without it, only slower or with weaker guarantees
+     */
+    private void ensureIndex(Class<?> type, IndexDefinition index) {
+        try {
+            mongoTemplate.indexOps(type).ensureIndex(index);
+        } catch (RuntimeException e) {
+            log.error("Unable to create the index {} on {}", index.getIndexOptions().get("name"),
+                    mongoTemplate.getCollectionName(type), e);
+        }
+    }
+
+}
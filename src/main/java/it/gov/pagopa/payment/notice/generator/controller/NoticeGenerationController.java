@@ -5,8 +5,10 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import it.gov.pagopa.payment.notice.generator.exception.AppError;
 import it.gov.pagopa.payment.notice.generator.exception.AppException;
 import it.gov.pagopa.payment.notice.generator.model.NoticeGenerationRequestItem;
+import it.gov.pagopa.payment.notice.generator.service.NoticeBatchGenerationService;
 import it.gov.pagopa.payment.notice.generator.service.NoticeGenerationService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.ByteArrayResource;
@@ -16,12 +18,12 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
-
-import static it.gov.pagopa.payment.notice.generator.util.WorkingDirectoryUtils.clearTempDirectory;
+import java.util.List;
 
 /**
  * Controller containing APIs to generate notice
@@ -35,8 +37,12 @@ public class NoticeGenerationController {
 
     private final NoticeGenerationService noticeGenerationService;
 
-    public NoticeGenerationController(NoticeGenerationService noticeGenerationService) {
+    private final NoticeBatchGenerationService noticeBatchGenerationService;
+
+    public NoticeGenerationController(NoticeGenerationService noticeGenerationService,
+                                      NoticeBatchGenerationService noticeBatchGenerationService) {
         this.noticeGenerationService = noticeGenerationService;
+        this.noticeBatchGenerationService = noticeBatchGenerationService;
     }
 
     /**
@@ -59,8 +65,23 @@ public class NoticeGenerationController {
         } catch (Exception e) {
             throw new AppException(AppError.INTERNAL_SERVER_ERROR, e);
         } finally {
-            if (file != null) clearTempDirectory(file.toPath().getParent());
+            if (file != null) noticeGenerationService.releaseNotice(file);
         }
     }
 
+    /**
+     * POST method to generate a batch of notices, streamed back as a zip as they are generated. The zip ends
+     * with a manifest reporting the outcome of each notice, the failed ones being left out of the zip
+     *
+     * @param noticeGenerationRequestItems data of the notices to generate
+     * @return zip of the generated pdfs
+     */
+    @PostMapping(value = "/generate/batch", produces = "application/zip")
+    public ResponseEntity<StreamingResponseBody> generateNotices(@Parameter(description = "notices to generate") @Valid @NotEmpty @RequestBody List<@Valid @NotNull NoticeGenerationRequestItem> noticeGenerationRequestItems) {
+        StreamingResponseBody body = noticeBatchGenerationService.generateNotices(noticeGenerationRequestItems);
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"notices.zip\"");
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/zip")).headers(headers).body(body);
+    }
+
 }
@@ -0,0 +1,12 @@
+package it.gov.pagopa.payment.notice.generator.entity;
+
+/**
+ * Documents that may carry a pending {@link OutboxEvent}
+ */
+public interface OutboxAware {
+
+    String getId();
+
+    OutboxEvent getOutbox();
+
+}
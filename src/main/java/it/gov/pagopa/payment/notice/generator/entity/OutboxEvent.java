@@ -0,0 +1,32 @@
+package it.gov.pagopa.payment.notice.generator.entity;
+
+import lombok.*;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Pending event embedded in the document whose state change produced it, written by the same
+ * update so that the state change and the event are persisted atomically
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class OutboxEvent {
+
+    private String eventId;
+
+    private Instant createdAt;
+
+    private String claimId;
+
+    private Instant lockedUntil;
+
+    /**
+     * Propagation headers of the trace that queued the event, restored when the event is sent
+     */
+    private Map<String, String> traceContext;
+
+}
@@ -1,6 +1,7 @@
 package it.gov.pagopa.payment.notice.generator.entity;
 
 import it.gov.pagopa.payment.notice.generator.model.enums.PaymentGenerationRequestStatus;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
@@ -17,7 +18,7 @@ import java.util.List;
 @EqualsAndHashCode(of = "id")
 @Document("payment_notice_generation_request")
 @ToString
-public class PaymentNoticeGenerationRequest {
+public class PaymentNoticeGenerationRequest implements OutboxAware {
 
     @Id
     private String id;
@@ -38,4 +39,7 @@ public class PaymentNoticeGenerationRequest {
 
     private Integer numberOfElementsTotal;
 
+    @JsonIgnore
+    private OutboxEvent outbox;
+
 }
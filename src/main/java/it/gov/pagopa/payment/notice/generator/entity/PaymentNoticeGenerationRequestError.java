@@ -1,5 +1,7 @@
 package it.gov.pagopa.payment.notice.generator.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import it.gov.pagopa.payment.notice.generator.model.enums.ErrorDataFormat;
 import lombok.*;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
@@ -15,12 +17,11 @@ import java.time.Instant;
 @EqualsAndHashCode(of = "errorId")
 @Document("payment_notice_generation_request_error")
 @ToString
-public class PaymentNoticeGenerationRequestError {
+public class PaymentNoticeGenerationRequestError implements OutboxAware {
 
     @Id
     private String id;
 
-    @Indexed()
     private String folderId;
 
     @Indexed()
@@ -35,8 +36,15 @@ public class PaymentNoticeGenerationRequestError {
 
     private String data;
 
+    private byte[] binaryData;
+
+    private ErrorDataFormat dataFormat;
+
     private Integer numberOfAttempts;
 
     private boolean compressionError;
 
+    @JsonIgnore
+    private OutboxEvent outbox;
+
 }
@@ -0,0 +1,32 @@
+package it.gov.pagopa.payment.notice.generator.entity;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Notice already generated and stored into a folder, used to discard redelivered generation messages.
+ * The id is the folderId and the itemId joined by a slash, so that marking an item twice is a no-op.
+ * The items expire through the TTL index on createdAt, created by MongoIndexConfig
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "id")
+@Document("payment_notice_processed_item")
+@ToString
+public class PaymentNoticeProcessedItem {
+
+    @Id
+    private String id;
+
+    private String folderId;
+
+    private String itemId;
+
+    private Instant createdAt;
+
+}
@@ -0,0 +1,71 @@
+package it.gov.pagopa.payment.notice.generator.events.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.avro.AvroMapper;
+import com.fasterxml.jackson.dataformat.avro.AvroSchema;
+import com.fasterxml.jackson.dataformat.avro.jsr310.AvroJavaTimeModule;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.MimeType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Codec for Avro binary payloads. The schema of each type is read from the local
+ * {@code avro/<SimpleClassName>.avsc} resource and used both as writer and reader schema,
+ * so producers and consumers have to share the same schema files.
+ */
+public class AvroNoticeEventCodec implements NoticeEventCodec {
+
+    public static final MimeType APPLICATION_AVRO = MimeType.valueOf("application/avro");
+
+    private static final String SCHEMA_LOCATION = "avro/%s.avsc";
+
+    private final AvroMapper avroMapper;
+
+    private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    public AvroNoticeEventCodec() {
+        this.avroMapper = AvroMapper.builder()
+                .addModule(new AvroJavaTimeModule())
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                // properties added to the model are skipped until the schema declares them
+                .enable(JsonGenerator.Feature.IGNORE_UNKNOWN)
+                .build();
+    }
+
+    @Override
+    public MimeType getContentType() {
+        return APPLICATION_AVRO;
+    }
+
+    @Override
+    public <T> T decode(byte[] payload, Class<T> type) throws IOException {
+        return readers.computeIfAbsent(type, key -> avroMapper.readerFor(key).with(getSchema(key)))
+                .readValue(payload);
+    }
+
+    @Override
+    public byte[] encode(Object value) throws IOException {
+        return writers.computeIfAbsent(value.getClass(), key -> avroMapper.writerFor(key).with(getSchema(key)))
+                .writeValueAsBytes(value);
+    }
+
+    private AvroSchema getSchema(Class<?> type) {
+        try (InputStream inputStream = new ClassPathResource(
+                String.format(SCHEMA_LOCATION, type.getSimpleName())).getInputStream()) {
+            return avroMapper.schemaFrom(inputStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Avro schema not available for %s", type.getName()), e);
+        }
+    }
+
+}
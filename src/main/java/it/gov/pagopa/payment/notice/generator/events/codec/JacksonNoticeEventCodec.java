@@ -0,0 +1,45 @@
+package it.gov.pagopa.payment.notice.generator.events.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.util.MimeType;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Codec for the formats handled by a Jackson {@link ObjectMapper} without a schema (JSON, Smile, CBOR)
+ */
+public class JacksonNoticeEventCodec implements NoticeEventCodec {
+
+    private final MimeType contentType;
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    public JacksonNoticeEventCodec(MimeType contentType, ObjectMapper objectMapper) {
+        this.contentType = contentType;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public MimeType getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public <T> T decode(byte[] payload, Class<T> type) throws IOException {
+        return readers.computeIfAbsent(type, objectMapper::readerFor).readValue(payload);
+    }
+
+    @Override
+    public byte[] encode(Object value) throws IOException {
+        return writers.computeIfAbsent(value.getClass(), objectMapper::writerFor).writeValueAsBytes(value);
+    }
+
+}
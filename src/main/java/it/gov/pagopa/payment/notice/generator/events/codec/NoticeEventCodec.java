@@ -0,0 +1,18 @@
+package it.gov.pagopa.payment.notice.generator.events.codec;
+
+import org.springframework.util.MimeType;
+
+import java.io.IOException;
+
+/**
+ * Encodes and decodes the payloads exchanged on the notice topics, for the content type it declares
+ */
+public interface NoticeEventCodec {
+
+    MimeType getContentType();
+
+    <T> T decode(byte[] payload, Class<T> type) throws IOException;
+
+    byte[] encode(Object value) throws IOException;
+
+}
@@ -0,0 +1,42 @@
+package it.gov.pagopa.payment.notice.generator.events.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Codecs available on the notice topics. The binary Jackson formats reuse the configuration
+ * of the application ObjectMapper
+ */
+@Configuration
+public class NoticeEventCodecConfig {
+
+    public static final MimeType APPLICATION_SMILE = MimeType.valueOf("application/x-jackson-smile");
+
+    public static final MimeType APPLICATION_CBOR = MimeType.valueOf("application/cbor");
+
+    @Bean
+    public NoticeEventCodec jsonNoticeEventCodec(ObjectMapper objectMapper) {
+        return new JacksonNoticeEventCodec(MimeTypeUtils.APPLICATION_JSON, objectMapper);
+    }
+
+    @Bean
+    public NoticeEventCodec smileNoticeEventCodec(ObjectMapper objectMapper) {
+        return new JacksonNoticeEventCodec(APPLICATION_SMILE, objectMapper.copyWith(new SmileFactory()));
+    }
+
+    @Bean
+    public NoticeEventCodec cborNoticeEventCodec(ObjectMapper objectMapper) {
+        return new JacksonNoticeEventCodec(APPLICATION_CBOR, objectMapper.copyWith(new CBORFactory()));
+    }
+
+    @Bean
+    public NoticeEventCodec avroNoticeEventCodec() {
+        return new AvroNoticeEventCodec();
+    }
+
+}
@@ -0,0 +1,43 @@
+package it.gov.pagopa.payment.notice.generator.events.codec;
+
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Selects the {@link NoticeEventCodec} matching the contentType header of a message.
+ * Messages without the header are handled as JSON, as they were before the codecs were introduced.
+ */
+@Component
+public class NoticeEventCodecRegistry {
+
+    private final List<NoticeEventCodec> codecs;
+
+    public NoticeEventCodecRegistry(List<NoticeEventCodec> codecs) {
+        this.codecs = codecs;
+    }
+
+    /**
+     * Retrieves the codec for the provided content type
+     *
+     * @param contentType value of the contentType header, either a {@link MimeType} or its string form
+     * @return the matching codec, empty if the content type is not supported
+     */
+    public Optional<NoticeEventCodec> getCodec(Object contentType) {
+        MimeType mimeType;
+        try {
+            mimeType = contentType == null || contentType.toString().isBlank() ?
+                    MimeTypeUtils.APPLICATION_JSON :
+                    contentType instanceof MimeType value ? value : MimeType.valueOf(contentType.toString());
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        return codecs.stream()
+                .filter(codec -> codec.getContentType().equalsTypeAndSubtype(mimeType))
+                .findFirst();
+    }
+
+}
@@ -1,17 +1,48 @@
 package it.gov.pagopa.payment.notice.generator.events.consumer;
 
 import it.gov.pagopa.payment.notice.generator.service.NoticeGenerationService;
+import it.gov.pagopa.payment.notice.generator.service.NoticePayloadService;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.stream.binder.kafka.support.ConsumerConfigCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
 
 import java.util.function.Consumer;
 
+import static it.gov.pagopa.payment.notice.generator.events.consumer.NoticePayloadPrefetchInterceptor.NOTICE_PAYLOAD_SERVICE_CONFIG;
+
 @Configuration
 @Slf4j
 public class NoticeGenerationConsumerConfig {
+
+    private static final String NOTICE_GENERATION_BINDING = "noticeGeneration-in-0";
+
+    @Bean
+    public Consumer<Message<byte[]>> noticeGeneration(NoticeGenerationService noticeGenerationService){
+        return message -> noticeGenerationService.processNoticeGenerationEH(
+                message.getPayload(), message.getHeaders().get(MessageHeaders.CONTENT_TYPE));
+    }
+
+    /**
+     * Registers the claim-check prefetch interceptor on the generation consumer, handing it the payload service
+     * through the consumer configuration
+     */
     @Bean
-    public Consumer<String> noticeGeneration(NoticeGenerationService noticeGenerationService){
-        return noticeGenerationService::processNoticeGenerationEH;
+    @ConditionalOnProperty(value = "payload.prefetch.enabled", havingValue = "true")
+    public ConsumerConfigCustomizer noticePayloadPrefetchCustomizer(NoticePayloadService noticePayloadService) {
+        return (configs, bindingName, destination) -> {
+            if (NOTICE_GENERATION_BINDING.equals(bindingName)) {
+                Object interceptors = configs.get(ConsumerConfig.INTERCEPTOR_CLASSES_CONFIG);
+                String prefetchInterceptor = NoticePayloadPrefetchInterceptor.class.getName();
+                configs.put(ConsumerConfig.INTERCEPTOR_CLASSES_CONFIG,
+                        interceptors == null || interceptors.toString().isBlank() ?
+                                prefetchInterceptor : interceptors + "," + prefetchInterceptor);
+                configs.put(NOTICE_PAYLOAD_SERVICE_CONFIG, noticePayloadService);
+            }
+        };
     }
 }
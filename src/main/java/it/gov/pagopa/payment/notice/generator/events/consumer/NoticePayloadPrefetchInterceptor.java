@@ -0,0 +1,62 @@
+package it.gov.pagopa.payment.notice.generator.events.consumer;
+
+import it.gov.pagopa.payment.notice.generator.service.NoticePayloadService;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.kafka.clients.consumer.ConsumerInterceptor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.springframework.messaging.MessageHeaders;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Kafka consumer interceptor that sees each polled batch before its records are handed to the listener
+ * one by one, and starts loading the claim-check payloads they reference
+ */
+public class NoticePayloadPrefetchInterceptor implements ConsumerInterceptor<Object, Object> {
+
+    public static final String NOTICE_PAYLOAD_SERVICE_CONFIG = "notice.payload.service";
+
+    private NoticePayloadService noticePayloadService;
+
+    @Override
+    public ConsumerRecords<Object, Object> onConsume(ConsumerRecords<Object, Object> records) {
+        if (noticePayloadService != null) {
+            for (ConsumerRecord<Object, Object> consumerRecord : records) {
+                if (consumerRecord.value() instanceof byte[] message) {
+                    noticePayloadService.prefetchNoticePayload(message, getContentType(consumerRecord));
+                }
+            }
+        }
+        return records;
+    }
+
+    private String getContentType(ConsumerRecord<Object, Object> consumerRecord) {
+        Header header = consumerRecord.headers().lastHeader(MessageHeaders.CONTENT_TYPE);
+        if (header == null || header.value() == null) {
+            return null;
+        }
+        // the binder may write the header value as a JSON string
+        return StringUtils.strip(new String(header.value(), StandardCharsets.UTF_8), "\"");
+    }
+
+    @Override
+    public void onCommit(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        // nothing to do on commit
+    }
+
+    @Override
+    public void close() {
+        // the service lifecycle is handled by the application context
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        this.noticePayloadService = (NoticePayloadService) configs.get(NOTICE_PAYLOAD_SERVICE_CONFIG);
+    }
+
+}
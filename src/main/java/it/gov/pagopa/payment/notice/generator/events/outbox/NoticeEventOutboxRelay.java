@@ -0,0 +1,189 @@
+package it.gov.pagopa.payment.notice.generator.events.outbox;
+
+import it.gov.pagopa.payment.notice.generator.entity.OutboxAware;
+import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeGenerationRequest;
+import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeGenerationRequestError;
+import it.gov.pagopa.payment.notice.generator.events.producer.NoticeRequestCompleteProducer;
+import it.gov.pagopa.payment.notice.generator.events.producer.NoticeRequestErrorProducer;
+import it.gov.pagopa.payment.notice.generator.util.TraceContextUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Publishes the events queued in the outbox of the generation request and error documents.
+ * <p>
+ * Each run claims a batch of pending events with a lease, sends the whole batch asynchronously through
+ * the related producer, waits for the broker acknowledgements and clears the outbox entries that were
+ * acknowledged. Events whose send fails or is not acknowledged in time, or whose relay crashes before
+ * clearing them, are sent again once the lease expires: delivery is at-least-once and every
+ * message carries the eventId header to let consumers discard duplicates.
+ * <p>
+ * Each event is sent in the trace context saved when it was queued, so the message joins the trace of
+ * the generation that produced it.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(value = "outbox.relay.enabled", havingValue = "true")
+public class NoticeEventOutboxRelay {
+
+    private static final String OUTBOX_EVENT_ID = "outbox.eventId";
+    private static final String OUTBOX_CREATED_AT = "outbox.createdAt";
+    private static final String OUTBOX_CLAIM_ID = "outbox.claimId";
+    private static final String OUTBOX_LOCKED_UNTIL = "outbox.lockedUntil";
+
+    private final MongoTemplate mongoTemplate;
+
+    private final NoticeRequestCompleteProducer noticeRequestCompleteProducer;
+
+    private final NoticeRequestErrorProducer noticeRequestErrorProducer;
+
+    private final TraceContextUtils traceContextUtils;
+
+    private final int batchSize;
+
+    private final Duration lease;
+
+    private final Duration sendTimeout;
+
+    public NoticeEventOutboxRelay(
+            MongoTemplate mongoTemplate,
+            NoticeRequestCompleteProducer noticeRequestCompleteProducer,
+            NoticeRequestErrorProducer noticeRequestErrorProducer,
+            TraceContextUtils traceContextUtils,
+            @Value("${outbox.relay.batch-size}") int batchSize,
+            @Value("${outbox.relay.lease}") Duration lease,
+            @Value("${outbox.relay.send-timeout}") Duration sendTimeout) {
+        this.mongoTemplate = mongoTemplate;
+        this.noticeRequestCompleteProducer = noticeRequestCompleteProducer;
+        this.noticeRequestErrorProducer = noticeRequestErrorProducer;
+        this.traceContextUtils = traceContextUtils;
+        this.batchSize = batchSize;
+        this.lease = lease;
+        this.sendTimeout = sendTimeout;
+    }
+
+    /**
+     * Drains the pending complete and error events, batch by batch
+     */
+    @Scheduled(fixedDelayString = "${outbox.relay.fixed-delay}")
+    public void relay() {
+        try {
+            while (relayBatch(PaymentNoticeGenerationRequest.class, "complete",
+                    noticeRequestCompleteProducer::noticeComplete) == batchSize) {
+                log.debug("Relayed a full batch of complete events, draining the next one");
+            }
+            while (relayBatch(PaymentNoticeGenerationRequestError.class, "error",
+                    noticeRequestErrorProducer::noticeError) == batchSize) {
+                log.debug("Relayed a full batch of error events, draining the next one");
+            }
+        } catch (Exception e) {
+            log.error("Unable to relay outbox events", e);
+        }
+    }
+
+    /**
+     * Claims, sends and clears a batch of pending events of the provided document type
+     *
+     * @param type      document type carrying the outbox
+     * @param eventType type of the events, used to name their spans
+     * @param sender    producer used to send the claimed documents, completing once they are acknowledged
+     * @return number of pending events found, at most the batch size
+     */
+    <T extends OutboxAware> int relayBatch(Class<T> type, String eventType,
+                                           Function<T, CompletableFuture<Void>> sender) {
+        Instant now = Instant.now();
+
+        Query pendingQuery = new Query(claimable(now))
+                .with(Sort.by(OUTBOX_CREATED_AT))
+                .limit(batchSize);
+        pendingQuery.fields().include("_id");
+        List<String> pendingIds = mongoTemplate.find(pendingQuery, type).stream()
+                .map(OutboxAware::getId)
+                .toList();
+        if (pendingIds.isEmpty()) {
+            return 0;
+        }
+
+        String claimId = UUID.randomUUID().toString();
+        mongoTemplate.updateMulti(
+                new Query(new Criteria().andOperator(Criteria.where("_id").in(pendingIds), claimable(now))),
+                new Update().set(OUTBOX_CLAIM_ID, claimId).set(OUTBOX_LOCKED_UNTIL, now.plus(lease)),
+                type);
+        List<T> claimed = mongoTemplate.find(new Query(Criteria.where(OUTBOX_CLAIM_ID).is(claimId)), type);
+
+        List<CompletableFuture<Void>> sendResults = claimed.stream()
+                .map(document -> traceContextUtils.restore(document.getOutbox().getTraceContext(), eventType,
+                        () -> sender.apply(document)))
+                .toList();
+        awaitSendResults(sendResults);
+
+        BulkOperations sent = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type);
+        int sentCount = 0;
+        for (int i = 0; i < claimed.size(); i++) {
+            T document = claimed.get(i);
+            CompletableFuture<Void> sendResult = sendResults.get(i);
+            if (sendResult.isDone() && !sendResult.isCompletedExceptionally()) {
+                // cleared only if no newer event has been queued in the meantime
+                sent.updateOne(
+                        new Query(Criteria.where("_id").is(document.getId())
+                                .and(OUTBOX_EVENT_ID).is(document.getOutbox().getEventId())),
+                        new Update().unset("outbox"));
+                sentCount++;
+            } else {
+                // stops tracking a send still in flight, the event stays claimed until its lease expires
+                sendResult.cancel(false);
+                log.warn("Unable to relay outbox event {} of {} {}, it will be retried",
+                        document.getOutbox().getEventId(), type.getSimpleName(), document.getId());
+            }
+        }
+        if (sentCount > 0) {
+            sent.execute();
+        }
+
+        return pendingIds.size();
+    }
+
+    /**
+     * Waits for the results of the batch sends, at most for the send timeout. Failed sends are not
+     * reported here, they are left to the caller
+     */
+    private void awaitSendResults(List<CompletableFuture<Void>> sendResults) {
+        try {
+            CompletableFuture.allOf(sendResults.toArray(CompletableFuture[]::new))
+                    .get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            log.debug("Some outbox events were not sent", e);
+        } catch (TimeoutException e) {
+            log.warn("Outbox events not acknowledged within {}", sendTimeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Criteria claimable(Instant now) {
+        return Criteria.where(OUTBOX_EVENT_ID).exists(true)
+                .orOperator(
+                        Criteria.where(OUTBOX_LOCKED_UNTIL).exists(false),
+                        Criteria.where(OUTBOX_LOCKED_UNTIL).lt(now));
+    }
+
+}
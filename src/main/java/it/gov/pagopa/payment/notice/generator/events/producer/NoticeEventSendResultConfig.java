@@ -0,0 +1,92 @@
+package it.gov.pagopa.payment.notice.generator.events.producer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.integration.annotation.ServiceActivator;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.context.IntegrationContextUtils;
+import org.springframework.integration.kafka.support.KafkaSendFailureException;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+
+import java.time.Duration;
+
+import static it.gov.pagopa.payment.notice.generator.util.Constants.HEADER_EVENT_ID;
+
+/**
+ * Handles the results of the sends on the complete and error bindings, recording latency and failure
+ * metrics. Successful sends are routed here through the bindings' recordMetadataChannel, failed ones
+ * through the error channel. The sends are asynchronous: each result is also reported to the
+ * {@link NoticeEventSendTracker}, so that the outbox relay clears only the acknowledged events.
+ */
+@Configuration
+@Slf4j
+public class NoticeEventSendResultConfig {
+
+    public static final String SEND_RESULT_CHANNEL = "noticeEventSendResults";
+    public static final String SEND_TIMER = "notice.events.send";
+    public static final String SEND_FAILURES_COUNTER = "notice.events.send.failures";
+
+    private final MeterRegistry meterRegistry;
+
+    private final NoticeEventSendTracker noticeEventSendTracker;
+
+    public NoticeEventSendResultConfig(MeterRegistry meterRegistry, NoticeEventSendTracker noticeEventSendTracker) {
+        this.meterRegistry = meterRegistry;
+        this.noticeEventSendTracker = noticeEventSendTracker;
+    }
+
+    @Bean(SEND_RESULT_CHANNEL)
+    public MessageChannel noticeEventSendResults() {
+        return new DirectChannel();
+    }
+
+    /**
+     * Acknowledges the sent event and records the time elapsed from the creation of the record to its
+     * acknowledgement
+     *
+     * @param message sent message, carrying the eventId and record metadata headers
+     */
+    @ServiceActivator(inputChannel = SEND_RESULT_CHANNEL)
+    public void onSendSuccess(Message<?> message) {
+        String eventId = message.getHeaders().get(HEADER_EVENT_ID, String.class);
+        if (eventId != null) {
+            noticeEventSendTracker.acknowledged(eventId);
+        }
+        RecordMetadata recordMetadata = message.getHeaders().get(KafkaHeaders.RECORD_METADATA, RecordMetadata.class);
+        if (recordMetadata == null || !recordMetadata.hasTimestamp()) {
+            return;
+        }
+        Timer.builder(SEND_TIMER)
+                .description("Time from record creation to broker acknowledgement")
+                .tag("topic", recordMetadata.topic())
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(Duration.ofMillis(Math.max(0, System.currentTimeMillis() - recordMetadata.timestamp())));
+    }
+
+    /**
+     * Fails and counts the failed sends, ignoring any other error published on the error channel
+     *
+     * @param message error message
+     */
+    @ServiceActivator(inputChannel = IntegrationContextUtils.ERROR_CHANNEL_BEAN_NAME)
+    public void onSendFailure(Message<?> message) {
+        if (message.getPayload() instanceof KafkaSendFailureException sendFailure) {
+            String topic = sendFailure.getRecord().topic();
+            String eventId = sendFailure.getFailedMessage() != null ?
+                    sendFailure.getFailedMessage().getHeaders().get(HEADER_EVENT_ID, String.class) : null;
+            if (eventId != null) {
+                noticeEventSendTracker.failed(eventId, sendFailure);
+            }
+            meterRegistry.counter(SEND_FAILURES_COUNTER, "topic", topic).increment();
+            log.error("Unable to send event to topic {}", topic, sendFailure.getCause());
+        }
+    }
+
+}
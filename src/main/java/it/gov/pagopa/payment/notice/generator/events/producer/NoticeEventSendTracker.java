@@ -0,0 +1,56 @@
+package it.gov.pagopa.payment.notice.generator.events.producer;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Asynchronous sends of the complete and error events awaiting the broker, by eventId. The sends are
+ * completed by the results routed to {@link NoticeEventSendResultConfig}, so that the outbox relay
+ * clears an event only once it has been acknowledged
+ */
+@Component
+public class NoticeEventSendTracker {
+
+    private final Map<String, CompletableFuture<Void>> pendingSends = new ConcurrentHashMap<>();
+
+    /**
+     * Registers a send about to start, before the message is handed to the binder so that its result
+     * cannot be missed
+     *
+     * @param eventId id of the event, carried by the message header
+     * @return completed when the broker acknowledges the event, exceptionally if the send fails. Cancelling
+     * it stops the tracking
+     */
+    public CompletableFuture<Void> expect(String eventId) {
+        return pendingSends.computeIfAbsent(eventId, id -> {
+            CompletableFuture<Void> pendingSend = new CompletableFuture<>();
+            pendingSend.whenComplete((result, error) -> pendingSends.remove(id, pendingSend));
+            return pendingSend;
+        });
+    }
+
+    public void acknowledged(String eventId) {
+        CompletableFuture<Void> pendingSend = pendingSends.remove(eventId);
+        if (pendingSend != null) {
+            pendingSend.complete(null);
+        }
+    }
+
+    public void failed(String eventId, Throwable cause) {
+        CompletableFuture<Void> pendingSend = pendingSends.remove(eventId);
+        if (pendingSend != null) {
+            pendingSend.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * Forgets a send that never reached the binder
+     */
+    public void discard(String eventId) {
+        pendingSends.remove(eventId);
+    }
+
+}
@@ -1,37 +1,76 @@
 package it.gov.pagopa.payment.notice.generator.events.producer;
 
 import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeGenerationRequest;
+import it.gov.pagopa.payment.notice.generator.events.codec.NoticeEventCodec;
+import it.gov.pagopa.payment.notice.generator.events.codec.NoticeEventCodecRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.stream.function.StreamBridge;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
+import static it.gov.pagopa.payment.notice.generator.util.Constants.HEADER_EVENT_ID;
+
 @Service
 @Slf4j
 public class NoticeRequestCompleteProducerImpl implements NoticeRequestCompleteProducer {
 
     private final StreamBridge streamBridge;
 
-    public NoticeRequestCompleteProducerImpl(StreamBridge streamBridge) {
+    private final NoticeEventCodec noticeEventCodec;
+
+    private final NoticeEventSendTracker noticeEventSendTracker;
+
+    public NoticeRequestCompleteProducerImpl(
+            StreamBridge streamBridge,
+            NoticeEventCodecRegistry noticeEventCodecRegistry,
+            NoticeEventSendTracker noticeEventSendTracker,
+            @Value("${spring.cloud.stream.bindings.noticeComplete-out-0.content-type:application/json}") String contentType) {
         this.streamBridge = streamBridge;
+        this.noticeEventSendTracker = noticeEventSendTracker;
+        this.noticeEventCodec = noticeEventCodecRegistry.getCodec(contentType)
+                .orElseThrow(() -> new IllegalStateException(
+                        String.format("Unsupported content type for the complete events: %s", contentType)));
     }
 
-    public static Message<PaymentNoticeGenerationRequest> buildMessage(
-            PaymentNoticeGenerationRequest paymentNoticeGenerationRequest) {
-        return MessageBuilder.withPayload(paymentNoticeGenerationRequest).build();
+    public Message<byte[]> buildMessage(
+            PaymentNoticeGenerationRequest paymentNoticeGenerationRequest) throws IOException {
+        MessageBuilder<byte[]> messageBuilder =
+                MessageBuilder.withPayload(noticeEventCodec.encode(paymentNoticeGenerationRequest))
+                        .setHeader(MessageHeaders.CONTENT_TYPE, noticeEventCodec.getContentType().toString());
+        if(paymentNoticeGenerationRequest.getOutbox() != null) {
+            messageBuilder.setHeader(HEADER_EVENT_ID, paymentNoticeGenerationRequest.getOutbox().getEventId());
+        }
+        return messageBuilder.build();
     }
 
     @Override
-    public boolean noticeComplete(PaymentNoticeGenerationRequest paymentNoticeGenerationRequest) {
-        var res = streamBridge.send("noticeComplete-out-0",
-                buildMessage(paymentNoticeGenerationRequest));
+    public CompletableFuture<Void> noticeComplete(PaymentNoticeGenerationRequest paymentNoticeGenerationRequest) {
+        String eventId = paymentNoticeGenerationRequest.getOutbox() != null ?
+                paymentNoticeGenerationRequest.getOutbox().getEventId() : null;
+        CompletableFuture<Void> sendResult = eventId != null ?
+                noticeEventSendTracker.expect(eventId) : CompletableFuture.completedFuture(null);
+        try {
+            if (!streamBridge.send("noticeComplete-out-0", buildMessage(paymentNoticeGenerationRequest))) {
+                throw new IllegalStateException("The complete event was not accepted by the binder");
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Unable to send the complete event", e);
+            if (eventId != null) {
+                noticeEventSendTracker.discard(eventId);
+            }
+            return CompletableFuture.failedFuture(e);
+        }
 
         MDC.put("topic", "complete");
         MDC.put("action", "sent");
@@ -39,7 +78,7 @@ public class NoticeRequestCompleteProducerImpl implements NoticeRequestCompleteP
         MDC.remove("topic");
         MDC.remove("action");
 
-        return res;
+        return sendResult;
     }
 
     /**
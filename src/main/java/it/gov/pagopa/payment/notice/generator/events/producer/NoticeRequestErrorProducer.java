@@ -2,6 +2,8 @@ package it.gov.pagopa.payment.notice.generator.events.producer;
 
 import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeGenerationRequestError;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Interface to use when required to execute sending of a notice generation request through
  * the eventhub channel
@@ -12,8 +14,9 @@ public interface NoticeRequestErrorProducer {
      * Send notice generation errors through EH
      *
      * @param paymentNoticeGenerationRequestError data to send
-     * @return boolean referring if the insertion on the sending channel was successfully
+     * @return completed once the broker has acknowledged the event, exceptionally if the send failed.
+     * Events without an outbox entry are not tracked and complete as soon as the binder accepts them
      */
-    boolean noticeError(PaymentNoticeGenerationRequestError paymentNoticeGenerationRequestError);
+    CompletableFuture<Void> noticeError(PaymentNoticeGenerationRequestError paymentNoticeGenerationRequestError);
 
 }
@@ -1,37 +1,76 @@
 package it.gov.pagopa.payment.notice.generator.events.producer;
 
 import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeGenerationRequestError;
+import it.gov.pagopa.payment.notice.generator.events.codec.NoticeEventCodec;
+import it.gov.pagopa.payment.notice.generator.events.codec.NoticeEventCodecRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.stream.function.StreamBridge;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
+import static it.gov.pagopa.payment.notice.generator.util.Constants.HEADER_EVENT_ID;
+
 @Service
 @Slf4j
 public class NoticeRequestErrorProducerImpl implements NoticeRequestErrorProducer {
 
     private final StreamBridge streamBridge;
 
-    public NoticeRequestErrorProducerImpl(StreamBridge streamBridge) {
+    private final NoticeEventCodec noticeEventCodec;
+
+    private final NoticeEventSendTracker noticeEventSendTracker;
+
+    public NoticeRequestErrorProducerImpl(
+            StreamBridge streamBridge,
+            NoticeEventCodecRegistry noticeEventCodecRegistry,
+            NoticeEventSendTracker noticeEventSendTracker,
+            @Value("${spring.cloud.stream.bindings.noticeError-out-0.content-type:application/json}") String contentType) {
         this.streamBridge = streamBridge;
+        this.noticeEventSendTracker = noticeEventSendTracker;
+        this.noticeEventCodec = noticeEventCodecRegistry.getCodec(contentType)
+                .orElseThrow(() -> new IllegalStateException(
+                        String.format("Unsupported content type for the error events: %s", contentType)));
     }
 
-    public static Message<PaymentNoticeGenerationRequestError> buildMessage(
-            PaymentNoticeGenerationRequestError paymentNoticeGenerationRequestError) {
-        return MessageBuilder.withPayload(paymentNoticeGenerationRequestError).build();
+    public Message<byte[]> buildMessage(
+            PaymentNoticeGenerationRequestError paymentNoticeGenerationRequestError) throws IOException {
+        MessageBuilder<byte[]> messageBuilder =
+                MessageBuilder.withPayload(noticeEventCodec.encode(paymentNoticeGenerationRequestError))
+                        .setHeader(MessageHeaders.CONTENT_TYPE, noticeEventCodec.getContentType().toString());
+        if(paymentNoticeGenerationRequestError.getOutbox() != null) {
+            messageBuilder.setHeader(HEADER_EVENT_ID, paymentNoticeGenerationRequestError.getOutbox().getEventId());
+        }
+        return messageBuilder.build();
     }
 
     @Override
-    public boolean noticeError(PaymentNoticeGenerationRequestError paymentNoticeGenerationRequestError) {
-        var res = streamBridge.send("noticeError-out-0",
-                buildMessage(paymentNoticeGenerationRequestError));
+    public CompletableFuture<Void> noticeError(PaymentNoticeGenerationRequestError paymentNoticeGenerationRequestError) {
+        String eventId = paymentNoticeGenerationRequestError.getOutbox() != null ?
+                paymentNoticeGenerationRequestError.getOutbox().getEventId() : null;
+        CompletableFuture<Void> sendResult = eventId != null ?
+                noticeEventSendTracker.expect(eventId) : CompletableFuture.completedFuture(null);
+        try {
+            if (!streamBridge.send("noticeError-out-0", buildMessage(paymentNoticeGenerationRequestError))) {
+                throw new IllegalStateException("The error event was not accepted by the binder");
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Unable to send the error event", e);
+            if (eventId != null) {
+                noticeEventSendTracker.discard(eventId);
+            }
+            return CompletableFuture.failedFuture(e);
+        }
 
         MDC.put("topic", "error");
         MDC.put("action", "sent");
@@ -39,7 +78,7 @@ public class NoticeRequestErrorProducerImpl implements NoticeRequestErrorProduce
         MDC.remove("topic");
         MDC.remove("action");
 
-        return res;
+        return sendResult;
     }
 
     /**
@@ -28,6 +28,13 @@ public enum AppError {
     INSTITUTION_PARSING_ERROR(HttpStatus.INTERNAL_SERVER_ERROR, "Parsing Error for Institution Data",
             "Exception thrown while parsing institution data retrieve from storage"),
 
+    PAYLOAD_CLIENT_UNAVAILABLE(HttpStatus.SERVICE_UNAVAILABLE,
+            "Payload Storage Not Available",
+            "Payload Storage client temporarily not available"),
+
+    PAYLOAD_NOT_FOUND(HttpStatus.NOT_FOUND, "Payload Not Found",
+            "Referenced notice payload has not been found on the storage"),
+
     MESSAGE_VALIDATION_ERROR(HttpStatus.BAD_REQUEST, "Message Validation Error" , "EH Message content is not valid, with errors: %s"),
 
     PDF_ENGINE_ERROR(HttpStatus.INTERNAL_SERVER_ERROR, "PDF Engine Error", "Encountered an error calling the PDF Engine"),
@@ -0,0 +1,14 @@
+package it.gov.pagopa.payment.notice.generator.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name(BlobUploadEvent.NAME)
+@Label("Blob Upload")
+@Description("Upload of a rendered notice to the blob storage, bytes are the uploaded ones")
+public class BlobUploadEvent extends NoticeStageEvent {
+
+    public static final String NAME = "it.gov.pagopa.notice.BlobUpload";
+
+}
@@ -0,0 +1,14 @@
+package it.gov.pagopa.payment.notice.generator.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name(InstitutionFetchEvent.NAME)
+@Label("Institution Fetch")
+@Description("Download of the creditor institution data, bytes are the size of the downloaded JSON")
+public class InstitutionFetchEvent extends NoticeStageEvent {
+
+    public static final String NAME = "it.gov.pagopa.notice.InstitutionFetch";
+
+}
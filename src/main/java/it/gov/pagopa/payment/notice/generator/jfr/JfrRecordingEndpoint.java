@@ -0,0 +1,219 @@
+package it.gov.pagopa.payment.notice.generator.jfr;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint controlling a flight recording of the service, which includes the notice
+ * generation events:
+ * <ul>
+ *     <li>{@code GET /actuator/jfr} returns the state of the recording</li>
+ *     <li>{@code POST /actuator/jfr/start} starts a new recording, optionally with the given settings
+ *     ({@code default} or {@code profile})</li>
+ *     <li>{@code POST /actuator/jfr/stop} stops the recording, keeping its data for a dump</li>
+ *     <li>{@code GET /actuator/jfr/dump} downloads the data recorded so far</li>
+ * </ul>
+ * With jfr.recording.enabled the recording is also started with the application, to run continuously
+ * with the low overhead default settings, keeping the last jfr.recording.max-age of data.
+ */
+@Component
+@Endpoint(id = "jfr", enableByDefault = false)
+@Slf4j
+public class JfrRecordingEndpoint {
+
+    private static final String RECORDING_NAME = "notice-generator";
+
+    private final boolean recordingEnabled;
+
+    private final String defaultSettings;
+
+    private final Duration maxAge;
+
+    private final DataSize maxSize;
+
+    private Recording recording;
+
+    private String recordingSettings;
+
+    public JfrRecordingEndpoint(
+            @Value("${jfr.recording.enabled}") boolean recordingEnabled,
+            @Value("${jfr.recording.settings}") String defaultSettings,
+            @Value("${jfr.recording.max-age}") Duration maxAge,
+            @Value("${jfr.recording.max-size}") DataSize maxSize) {
+        this.recordingEnabled = recordingEnabled;
+        this.defaultSettings = defaultSettings;
+        this.maxAge = maxAge;
+        this.maxSize = maxSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startContinuousRecording() {
+        if (recordingEnabled) {
+            log.info("Starting the continuous flight recording: {}", start(defaultSettings));
+        }
+    }
+
+    /**
+     * Retrieves the state of the recording
+     *
+     * @return name, state, settings, start time and size of the recording, or only its state if no
+     * recording has been started
+     */
+    @ReadOperation
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        if (recording == null) {
+            status.put("state", "NONE");
+            return status;
+        }
+        status.put("name", recording.getName());
+        status.put("state", recording.getState());
+        status.put("settings", recordingSettings);
+        status.put("startTime", recording.getStartTime());
+        status.put("stopTime", recording.getStopTime());
+        status.put("maxAge", recording.getMaxAge());
+        status.put("size", recording.getSize());
+        return status;
+    }
+
+    /**
+     * Starts or stops the recording
+     *
+     * @param action   start or stop
+     * @param settings settings of the recording to start, default if missing
+     * @return state of the recording after the action
+     */
+    @WriteOperation
+    public Map<String, Object> control(@Selector String action, @Nullable String settings) {
+        return switch (action) {
+            case "start" -> start(settings != null ? settings : defaultSettings);
+            case "stop" -> stop();
+            default -> throw new InvalidEndpointRequestException(
+                    String.format("Unsupported action %s, expected start or stop", action),
+                    "Unsupported action");
+        };
+    }
+
+    /**
+     * Dumps the data recorded so far
+     *
+     * @param dump literal dump
+     * @return the recording file, deleted once downloaded, or null if no recording has been started
+     */
+    @ReadOperation(produces = "application/octet-stream")
+    public synchronized Resource dump(@Selector String dump) {
+        if (!"dump".equals(dump)) {
+            throw new InvalidEndpointRequestException(
+                    String.format("Unsupported operation %s, expected dump", dump), "Unsupported operation");
+        }
+        if (recording == null || recording.getState() == RecordingState.NEW) {
+            return null;
+        }
+        try {
+            Path file = Files.createTempFile(RECORDING_NAME + "-", ".jfr");
+            recording.dump(file);
+            return new TemporaryFileSystemResource(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to dump the flight recording", e);
+        }
+    }
+
+    synchronized Map<String, Object> start(String settings) {
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settings);
+        } catch (IOException | ParseException e) {
+            throw new InvalidEndpointRequestException(
+                    String.format("Unknown recording settings %s: %s", settings, e.getMessage()),
+                    "Unknown recording settings");
+        }
+        if (recording != null) {
+            recording.close();
+        }
+        recording = new Recording(configuration);
+        recording.setName(RECORDING_NAME);
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        recording.setMaxSize(maxSize.toBytes());
+        recording.start();
+        recordingSettings = configuration.getName();
+        return status();
+    }
+
+    synchronized Map<String, Object> stop() {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+        }
+        return status();
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    /**
+     * Recording file deleted once its content has been read
+     */
+    private static class TemporaryFileSystemResource extends FileSystemResource {
+
+        private final Path file;
+
+        TemporaryFileSystemResource(Path file) {
+            super(file);
+            this.file = file;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new FilterInputStream(super.getInputStream()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public boolean isFile() {
+            // the content is streamed, so that the file is deleted once sent
+            return false;
+        }
+
+    }
+
+}
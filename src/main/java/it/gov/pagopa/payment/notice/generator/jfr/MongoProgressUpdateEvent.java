@@ -0,0 +1,14 @@
+package it.gov.pagopa.payment.notice.generator.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name(MongoProgressUpdateEvent.NAME)
+@Label("Mongo Progress Update")
+@Description("Update of the folder progress and of the processed items after a notice has been stored")
+public class MongoProgressUpdateEvent extends NoticeStageEvent {
+
+    public static final String NAME = "it.gov.pagopa.notice.MongoProgressUpdate";
+
+}
@@ -0,0 +1,14 @@
+package it.gov.pagopa.payment.notice.generator.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name(NoticeRenderEvent.NAME)
+@Label("Notice Render")
+@Description("PDF engine rendering of a notice, bytes are the size of the rendered PDF")
+public class NoticeRenderEvent extends NoticeStageEvent {
+
+    public static final String NAME = "it.gov.pagopa.notice.NoticeRender";
+
+}
@@ -0,0 +1,29 @@
+package it.gov.pagopa.payment.notice.generator.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Base of the flight recorder events of the notice generation stages. The duration is the one of
+ * the event, the fields not known by the emitting component are left empty.
+ * <p>
+ * Stack traces are not recorded, to keep the events cheap enough for a continuous recording.
+ */
+@Category({"PagoPA", "Notice Generation"})
+@StackTrace(false)
+public abstract class NoticeStageEvent extends Event {
+
+    @Label("Folder Id")
+    public String folderId;
+
+    @Label("Template Id")
+    public String templateId;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+}
@@ -0,0 +1,14 @@
+package it.gov.pagopa.payment.notice.generator.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name(TemplateFetchEvent.NAME)
+@Label("Template Fetch")
+@Description("Retrieval of a template, from the local copy or the blob storage, bytes are the size of the template")
+public class TemplateFetchEvent extends NoticeStageEvent {
+
+    public static final String NAME = "it.gov.pagopa.notice.TemplateFetch";
+
+}
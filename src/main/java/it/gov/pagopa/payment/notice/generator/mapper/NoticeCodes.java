@@ -0,0 +1,167 @@
+package it.gov.pagopa.payment.notice.generator.mapper;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+/**
+ * Builds the codes of a notice and its installments. The parts depending only on the creditor
+ * institution and the debtor are padded once, while the variable ones are appended to a builder
+ * reused across the installments
+ */
+final class NoticeCodes {
+
+    static final String POSTE_DOCUMENT_TYPE_CODE = "896";
+
+    private static final String QR_CODE_PREFIX = "PAGOPA|002|";
+    private static final String DATA_MATRIX_PREFIX = "codfase=NBPA;18";
+    private static final int NOTICE_CODE_LENGTH = 18;
+    private static final int AMOUNT_LENGTH = 10;
+
+    private final String qrCodeTaxCode;
+    private final String dataMatrixAccount;
+    private final String dataMatrixSuffix;
+    private final StringBuilder builder;
+    private char[] buffer;
+
+    NoticeCodes(String ciTaxCode, String debtorTaxCode, String fullName, String subject,
+                String posteAccountNumber, boolean withDataMatrix) {
+        StringBuilder constant = new StringBuilder(200);
+        this.qrCodeTaxCode = leftPad(constant, ciTaxCode, 11, '0').toString();
+        if (withDataMatrix) {
+            constant.setLength(0);
+            constant.append("12");
+            this.dataMatrixAccount = leftPad(constant, posteAccountNumber, 12, '0').append("10").toString();
+            constant.setLength(0);
+            constant.append('3').append(POSTE_DOCUMENT_TYPE_CODE).append("1P1");
+            rightPad(constant, ciTaxCode, 11, ' ');
+            rightPad(constant, debtorTaxCode, 16, ' ');
+            rightPad(constant, fullName, 40, ' ');
+            rightPad(constant, subject, 110, ' ');
+            rightPad(constant, "", 12, ' ');
+            this.dataMatrixSuffix = constant.append('A').toString();
+        } else {
+            this.dataMatrixAccount = null;
+            this.dataMatrixSuffix = null;
+        }
+        this.builder = new StringBuilder(DATA_MATRIX_PREFIX.length() + NOTICE_CODE_LENGTH
+                + (dataMatrixAccount != null ? dataMatrixAccount.length() + dataMatrixSuffix.length() : 0)
+                + AMOUNT_LENGTH);
+    }
+
+    /**
+     * PAGOPA|002|noticeCode|ciTaxCode|amount, with the codes zero-padded
+     */
+    String qrCode(String code, long amount) {
+        return buildQrCode(code, amount).toString();
+    }
+
+    String posteDataMatrix(String code, Long amount) {
+        return buildPosteDataMatrix(code, amount).toString();
+    }
+
+    /**
+     * Writes the QR code as a string field, without creating the intermediate String
+     */
+    void writeQrCode(JsonGenerator generator, String fieldName, String code, long amount) throws IOException {
+        write(generator, fieldName, buildQrCode(code, amount));
+    }
+
+    /**
+     * Writes the Poste data matrix as a string field, without creating the intermediate String
+     */
+    void writePosteDataMatrix(JsonGenerator generator, String fieldName, String code, Long amount)
+            throws IOException {
+        write(generator, fieldName, buildPosteDataMatrix(code, amount));
+    }
+
+    /**
+     * Writes the formatted amount as a string field, without creating the intermediate String
+     */
+    void writeCurrency(JsonGenerator generator, String fieldName, long cents) throws IOException {
+        write(generator, fieldName, buildCurrency(cents));
+    }
+
+    private StringBuilder buildQrCode(String code, long amount) {
+        builder.setLength(0);
+        builder.append(QR_CODE_PREFIX);
+        leftPad(builder, code, NOTICE_CODE_LENGTH, '0').append('|').append(qrCodeTaxCode).append('|');
+        return builder.append(amount);
+    }
+
+    private StringBuilder buildPosteDataMatrix(String code, Long amount) {
+        builder.setLength(0);
+        builder.append(DATA_MATRIX_PREFIX);
+        leftPad(builder, code, NOTICE_CODE_LENGTH, '0').append(dataMatrixAccount);
+        leftPad(builder, amount != null ? Long.toString(amount) : null, AMOUNT_LENGTH, '0');
+        return builder.append(dataMatrixSuffix);
+    }
+
+    /**
+     * Formats an amount in cents with the Italian grouping, e.g. 123456 as 1.234,56
+     */
+    String currencyFormat(long cents) {
+        return buildCurrency(cents).toString();
+    }
+
+    private StringBuilder buildCurrency(long cents) {
+        builder.setLength(0);
+        if (cents < 0) {
+            builder.append('-');
+        }
+        String digits = Long.toString(cents);
+        int start = cents < 0 ? 1 : 0;
+        int length = digits.length() - start;
+        if (length < 3) {
+            builder.append('0').append(',');
+            for (int i = length; i < 2; i++) {
+                builder.append('0');
+            }
+            return builder.append(digits, start, digits.length());
+        }
+        int integerDigits = length - 2;
+        for (int i = 0; i < integerDigits; i++) {
+            if (i > 0 && (integerDigits - i) % 3 == 0) {
+                builder.append('.');
+            }
+            builder.append(digits.charAt(start + i));
+        }
+        return builder.append(',').append(digits, start + integerDigits, digits.length());
+    }
+
+    private void write(JsonGenerator generator, String fieldName, StringBuilder value) throws IOException {
+        int length = value.length();
+        if (buffer == null || buffer.length < length) {
+            buffer = new char[Math.max(length, builder.capacity())];
+        }
+        value.getChars(0, length, buffer, 0);
+        generator.writeFieldName(fieldName);
+        generator.writeString(buffer, 0, length);
+    }
+
+    /**
+     * Appends the value padded on the left to the given size, null is appended as "null"
+     */
+    private static StringBuilder leftPad(StringBuilder builder, String value, int size, char padChar) {
+        if (value != null) {
+            for (int i = value.length(); i < size; i++) {
+                builder.append(padChar);
+            }
+        }
+        return builder.append(value);
+    }
+
+    /**
+     * Appends the value padded on the right to the given size, null is appended as "null"
+     */
+    private static StringBuilder rightPad(StringBuilder builder, String value, int size, char padChar) {
+        builder.append(value);
+        if (value != null) {
+            for (int i = value.length(); i < size; i++) {
+                builder.append(padChar);
+            }
+        }
+        return builder;
+    }
+
+}
@@ -3,13 +3,10 @@ package it.gov.pagopa.payment.notice.generator.mapper;
 import it.gov.pagopa.payment.notice.generator.model.notice.InstallmentData;
 import it.gov.pagopa.payment.notice.generator.model.notice.NoticeRequestData;
 import it.gov.pagopa.payment.notice.generator.model.pdf.notice.*;
-import org.apache.commons.lang3.StringUtils;
-
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.text.NumberFormat;
+import it.gov.pagopa.payment.notice.generator.util.BarcodeRenderer;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Locale;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -17,7 +14,7 @@ import java.util.Objects;
  */
 public class TemplateDataMapper {
 
-    private static final String POSTE_DOCUMENT_TYPE_CODE = "896";
+    private static final String POSTE_DOCUMENT_TYPE_CODE = NoticeCodes.POSTE_DOCUMENT_TYPE_CODE;
 
     /**
      * Map notice generation dat
@@ -26,20 +23,50 @@ public class TemplateDataMapper {
      * @return mapped notice data
      */
     public static PaymentNotice mapTemplate(NoticeRequestData noticeRequestData) {
+        return mapTemplate(noticeRequestData, null);
+    }
+
+    /**
+     * Map the notice data into the template data, with the images of the barcodes
+     *
+     * @param noticeRequestData request data
+     * @param barcodeRenderer   renderer of the barcode images, null to only map their content
+     * @return mapped notice data
+     */
+    public static PaymentNotice mapTemplate(NoticeRequestData noticeRequestData, BarcodeRenderer barcodeRenderer) {
 
         String noticeCode = noticeRequestData.getNotice().getCode();
         String cbill = noticeRequestData.getCreditorInstitution().getCbill();
         String ciTaxCode = noticeRequestData.getCreditorInstitution().getTaxCode();
-        String noticeAmount = noticeRequestData.getNotice().getPaymentAmount() != null ?
-                String.valueOf(noticeRequestData.getNotice().getPaymentAmount()) : null;
+        Long paymentAmount = noticeRequestData.getNotice().getPaymentAmount();
         InstallmentData reduced = noticeRequestData.getNotice().getReduced();
         InstallmentData discounted = noticeRequestData.getNotice().getDiscounted();
-        String debtorTaxCode = noticeRequestData.getDebtor().getTaxCode();
-        String fullName = noticeRequestData.getDebtor().getFullName();
-        String subject = noticeRequestData.getNotice().getSubject();
+        List<InstallmentData> installments = noticeRequestData.getNotice().getInstallments();
         String posteAuthCode = noticeRequestData.getCreditorInstitution().getPosteAuth();
         String posteAccountNumber = noticeRequestData.getCreditorInstitution().getPosteAccountNumber();
 
+        // fields depending only on the creditor institution and debtor are built once for all the installments
+        NoticeCodes codes = new NoticeCodes(
+                ciTaxCode,
+                noticeRequestData.getDebtor().getTaxCode(),
+                noticeRequestData.getDebtor().getFullName(),
+                noticeRequestData.getNotice().getSubject(),
+                posteAccountNumber,
+                posteAuthCode != null);
+
+        List<Installment> items;
+        if (installments != null) {
+            items = new ArrayList<>(installments.size());
+            for (InstallmentData item : installments) {
+                items.add(mapInstallment(cbill, posteAuthCode, codes, barcodeRenderer, item));
+            }
+            items = Collections.unmodifiableList(items);
+        } else {
+            items = Collections.emptyList();
+        }
+
+        String qrCode = paymentAmount != null ? codes.qrCode(noticeCode, paymentAmount) : null;
+        String posteDataMatrix = posteAuthCode != null ? codes.posteDataMatrix(noticeCode, paymentAmount) : null;
 
         return PaymentNotice.builder()
                 .payee(Payee.builder()
@@ -67,150 +94,52 @@ public class TemplateDataMapper {
                         .city(noticeRequestData.getDebtor().getCity())
                         .postalCode(noticeRequestData.getDebtor().getPostalCode())
                         .address(noticeRequestData.getDebtor().getAddress())
-                        .fullName(fullName)
-                        .taxCode(debtorTaxCode)
+                        .fullName(noticeRequestData.getDebtor().getFullName())
+                        .taxCode(noticeRequestData.getDebtor().getTaxCode())
                         .build()
                 )
                 .notice(Notice.builder()
                         .refNumber(noticeCode)
                         .cbillCode(cbill)
-                        .qrCode(noticeAmount != null ?
-                                generateQrCode(noticeCode,
-                                        ciTaxCode,
-                                        noticeAmount) : null
-                        )
+                        .qrCode(qrCode)
+                        .qrCodeImage(qrCode != null && barcodeRenderer != null ? barcodeRenderer.qrCodeImage(qrCode) : null)
                         .subject(noticeRequestData.getNotice().getSubject())
-                        .amount(noticeAmount != null ? currencyFormat(noticeAmount) : null)
+                        .amount(paymentAmount != null ? codes.currencyFormat(paymentAmount) : null)
                         .posteAuth(posteAuthCode)
                         .posteAccountNumber(posteAccountNumber)
                         .posteDocumentType(POSTE_DOCUMENT_TYPE_CODE)
                         .expiryDate(noticeRequestData.getNotice().getDueDate())
-                        .posteDataMatrix(posteAuthCode != null ?
-                                generatePosteDataMatrix(
-                                        ciTaxCode,
-                                        debtorTaxCode,
-                                        fullName,
-                                        subject,
-                                        posteAccountNumber,
-                                        noticeAmount,
-                                        POSTE_DOCUMENT_TYPE_CODE,
-                                        noticeCode
-                                ) : null)
+                        .posteDataMatrix(posteDataMatrix)
+                        .posteDataMatrixImage(posteDataMatrix != null && barcodeRenderer != null ?
+                                barcodeRenderer.dataMatrixImage(posteDataMatrix) : null)
                         .instalments(Installments.builder()
-                                .reduced(
-                                        reduced != null ? mapInstallment(
-                                                cbill,
-                                                ciTaxCode,
-                                                debtorTaxCode,
-                                                fullName,
-                                                subject,
-                                                posteAccountNumber,
-                                                posteAuthCode,
-                                                reduced
-                                        ) : null
-                                )
-                                .discounted(
-                                        discounted != null ? mapInstallment(
-                                                cbill,
-                                                ciTaxCode,
-                                                debtorTaxCode,
-                                                fullName,
-                                                subject,
-                                                posteAccountNumber,
-                                                posteAuthCode,
-                                                discounted
-                                        ) : null
-                                )
-                                .items(noticeRequestData.getNotice().getInstallments() != null ?
-                                        noticeRequestData.getNotice().getInstallments().stream().map(item ->
-                                                mapInstallment(
-                                                        cbill,
-                                                        ciTaxCode,
-                                                        debtorTaxCode,
-                                                        fullName,
-                                                        subject,
-                                                        posteAccountNumber,
-                                                        posteAuthCode,
-                                                        item
-                                                )).toList() :
-                                        Collections.emptyList()).build())
+                                .reduced(reduced != null ? mapInstallment(cbill, posteAuthCode, codes, barcodeRenderer, reduced) : null)
+                                .discounted(discounted != null ?
+                                        mapInstallment(cbill, posteAuthCode, codes, barcodeRenderer, discounted) : null)
+                                .items(items)
+                                .build())
                         .build())
                 .build();
     }
 
-    private static String generatePosteDataMatrix(
-            String ciTaxCode, String debtorTaxCode, String fullName, String subject,
-            String posteAccountNumber, String amount, String posteTypeCode, String noticeCode
-    ) {
-        return String.join("",
-                "codfase=NBPA;",
-                generateCodeline(noticeCode, posteAccountNumber, amount, posteTypeCode),
-                "1P1",
-                StringUtils.rightPad(ciTaxCode, 11, " "),
-                StringUtils.rightPad(debtorTaxCode, 16, " "),
-                StringUtils.rightPad(fullName, 40, " "),
-                StringUtils.rightPad(subject, 110, " "),
-                StringUtils.rightPad("", 12, " "),
-                "A");
-    }
-
-    private static String generateCodeline(String noticeCode, String posteAccountNumber,
-                                           String amount, String posteTypeCode) {
-        return String.join("", "18",
-                StringUtils.leftPad(noticeCode, 18, "0"),
-                "12",
-                StringUtils.leftPad(posteAccountNumber, 12, "0"),
-                "10",
-                StringUtils.leftPad(amount, 10, "0"), "3",
-                posteTypeCode);
-    }
-
-    private static String generateQrCode(String code, String taxCode, String amount) {
-        return String.join("|",
-                "PAGOPA", "002",
-                StringUtils.leftPad(code, 18, "0"),
-                StringUtils.leftPad(taxCode, 11, "0"),
-                amount
-        );
-    }
-
-    private static Installment mapInstallment(
-            String cbill, String ciTaxCode, String debtorTaxCode,
-            String fullname, String subject, String accountNumber,
-            String posteAuth, InstallmentData installmentData) {
-        String amount = String.valueOf(installmentData.getAmount());
+    private static Installment mapInstallment(String cbill, String posteAuth, NoticeCodes codes,
+                                              BarcodeRenderer barcodeRenderer, InstallmentData installmentData) {
+        long amount = installmentData.getAmount();
+        String qrCode = codes.qrCode(installmentData.getCode(), amount);
+        String posteDataMatrix = posteAuth != null ? codes.posteDataMatrix(installmentData.getCode(), amount) : null;
         return Installment.builder()
                 .refNumber(installmentData.getCode())
                 .cbillCode(cbill)
-                .qrCode(generateQrCode(installmentData.getCode(), ciTaxCode, amount))
-                .amount(currencyFormat(amount))
+                .qrCode(qrCode)
+                .qrCodeImage(barcodeRenderer != null ? barcodeRenderer.qrCodeImage(qrCode) : null)
+                .amount(codes.currencyFormat(amount))
                 .expiryDate(installmentData.getDueDate())
                 .posteDocumentType(POSTE_DOCUMENT_TYPE_CODE)
                 .posteAuth(posteAuth)
-                .posteDataMatrix(posteAuth != null ?
-                        generatePosteDataMatrix(
-                                ciTaxCode,
-                                debtorTaxCode,
-                                fullname,
-                                subject,
-                                accountNumber,
-                                String.valueOf(installmentData.getAmount()),
-                                POSTE_DOCUMENT_TYPE_CODE,
-                                installmentData.getCode()
-                        ) :
-                        null
-                )
+                .posteDataMatrix(posteDataMatrix)
+                .posteDataMatrixImage(posteDataMatrix != null && barcodeRenderer != null ?
+                        barcodeRenderer.dataMatrixImage(posteDataMatrix) : null)
                 .build();
     }
 
-    private static String currencyFormat(String value) {
-        BigDecimal amount = new BigDecimal(value);
-        BigDecimal divider = new BigDecimal(100);
-        BigDecimal valueToFormat = amount.divide(divider, 2, RoundingMode.UNNECESSARY);
-        NumberFormat numberFormat = NumberFormat.getInstance(Locale.ITALY);
-        numberFormat.setMaximumFractionDigits(2);
-        numberFormat.setMinimumFractionDigits(2);
-        return numberFormat.format(valueToFormat);
-    }
-
 }
@@ -0,0 +1,216 @@
+package it.gov.pagopa.payment.notice.generator.mapper;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SegmentedStringWriter;
+import it.gov.pagopa.payment.notice.generator.model.notice.CreditorInstitution;
+import it.gov.pagopa.payment.notice.generator.model.notice.Debtor;
+import it.gov.pagopa.payment.notice.generator.model.notice.InstallmentData;
+import it.gov.pagopa.payment.notice.generator.model.notice.Notice;
+import it.gov.pagopa.payment.notice.generator.model.notice.NoticeRequestData;
+import it.gov.pagopa.payment.notice.generator.util.BarcodeRenderer;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Writes the template data of a notice straight to a {@link JsonGenerator}, without building the
+ * {@link it.gov.pagopa.payment.notice.generator.model.pdf.notice.PaymentNotice} tree. The output is the
+ * same produced by serializing {@link TemplateDataMapper#mapTemplate(NoticeRequestData, BarcodeRenderer)} with null
+ * fields excluded, with the properties in declaration order
+ */
+public class TemplateDataWriter {
+
+    private static final String POSTE_DOCUMENT_TYPE_CODE = NoticeCodes.POSTE_DOCUMENT_TYPE_CODE;
+
+    private TemplateDataWriter() {
+    }
+
+    /**
+     * Write the notice template data as a JSON string
+     *
+     * @param noticeRequestData request data
+     * @param jsonFactory       factory of the generator
+     * @return template data JSON
+     * @throws IOException if the data can't be written
+     */
+    public static String writeTemplateAsString(NoticeRequestData noticeRequestData, JsonFactory jsonFactory)
+            throws IOException {
+        return writeTemplateAsString(noticeRequestData, jsonFactory, null);
+    }
+
+    /**
+     * Write the notice template data, with the images of the barcodes, as a JSON string
+     *
+     * @param noticeRequestData request data
+     * @param jsonFactory       factory of the generator
+     * @param barcodeRenderer   renderer of the barcode images, null to only write their content
+     * @return template data JSON
+     * @throws IOException if the data can't be written
+     */
+    public static String writeTemplateAsString(NoticeRequestData noticeRequestData, JsonFactory jsonFactory,
+                                               BarcodeRenderer barcodeRenderer) throws IOException {
+        SegmentedStringWriter writer = new SegmentedStringWriter(jsonFactory._getBufferRecycler());
+        try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+            writeTemplate(noticeRequestData, generator, barcodeRenderer);
+        }
+        return writer.getAndClear();
+    }
+
+    /**
+     * Write the notice template data to the given generator
+     *
+     * @param noticeRequestData request data
+     * @param generator         generator to write to
+     * @throws IOException if the data can't be written
+     */
+    public static void writeTemplate(NoticeRequestData noticeRequestData, JsonGenerator generator)
+            throws IOException {
+        writeTemplate(noticeRequestData, generator, null);
+    }
+
+    /**
+     * Write the notice template data, with the images of the barcodes, to the given generator
+     *
+     * @param noticeRequestData request data
+     * @param generator         generator to write to
+     * @param barcodeRenderer   renderer of the barcode images, null to only write their content
+     * @throws IOException if the data can't be written
+     */
+    public static void writeTemplate(NoticeRequestData noticeRequestData, JsonGenerator generator,
+                                     BarcodeRenderer barcodeRenderer) throws IOException {
+        Notice notice = noticeRequestData.getNotice();
+        CreditorInstitution creditorInstitution = noticeRequestData.getCreditorInstitution();
+        Debtor debtor = noticeRequestData.getDebtor();
+        String cbill = creditorInstitution.getCbill();
+        String posteAuthCode = creditorInstitution.getPosteAuth();
+        Long paymentAmount = notice.getPaymentAmount();
+
+        NoticeCodes codes = new NoticeCodes(
+                creditorInstitution.getTaxCode(),
+                debtor.getTaxCode(),
+                debtor.getFullName(),
+                notice.getSubject(),
+                creditorInstitution.getPosteAccountNumber(),
+                posteAuthCode != null);
+
+        generator.writeStartObject();
+
+        generator.writeObjectFieldStart("debtor");
+        writeString(generator, "fullName", debtor.getFullName());
+        writeString(generator, "taxCode", debtor.getTaxCode());
+        writeString(generator, "address", debtor.getAddress());
+        writeString(generator, "buildingNumber", debtor.getBuildingNumber());
+        writeString(generator, "postalCode", debtor.getPostalCode());
+        writeString(generator, "city", debtor.getCity());
+        writeString(generator, "province", debtor.getProvince());
+        generator.writeEndObject();
+
+        generator.writeObjectFieldStart("payee");
+        writeString(generator, "logo", creditorInstitution.getLogo());
+        writeString(generator, "name", creditorInstitution.getFullName());
+        writeString(generator, "taxCode", creditorInstitution.getTaxCode());
+        writeString(generator, "sector", creditorInstitution.getOrganization());
+        writeString(generator, "additionalInfo", creditorInstitution.getInfo());
+        generator.writeObjectFieldStart("channel");
+        generator.writeObjectFieldStart("online");
+        generator.writeBooleanField("website", Objects.requireNonNullElse(creditorInstitution.getWebChannel(), false));
+        generator.writeBooleanField("app", Objects.requireNonNullElse(creditorInstitution.getAppChannel(), false));
+        generator.writeEndObject();
+        generator.writeObjectFieldStart("physical");
+        writeString(generator, "data", creditorInstitution.getPhysicalChannel());
+        generator.writeEndObject();
+        generator.writeEndObject();
+        generator.writeEndObject();
+
+        generator.writeObjectFieldStart("notice");
+        writeString(generator, "subject", notice.getSubject());
+        if (paymentAmount != null) {
+            codes.writeCurrency(generator, "amount", paymentAmount);
+        }
+        writeString(generator, "expiryDate", notice.getDueDate());
+        if (paymentAmount != null) {
+            writeQrCode(generator, codes, barcodeRenderer, notice.getCode(), paymentAmount);
+        }
+        writeString(generator, "refNumber", notice.getCode());
+        writeString(generator, "cbillCode", cbill);
+        writeString(generator, "posteAccountNumber", creditorInstitution.getPosteAccountNumber());
+        writeString(generator, "posteAuth", posteAuthCode);
+        writeString(generator, "posteDocumentType", POSTE_DOCUMENT_TYPE_CODE);
+        if (posteAuthCode != null) {
+            writePosteDataMatrix(generator, codes, barcodeRenderer, notice.getCode(), paymentAmount);
+        }
+
+        generator.writeObjectFieldStart("instalments");
+        generator.writeArrayFieldStart("items");
+        List<InstallmentData> installments = notice.getInstallments();
+        if (installments != null) {
+            for (InstallmentData item : installments) {
+                writeInstallment(generator, cbill, posteAuthCode, codes, barcodeRenderer, item);
+            }
+        }
+        generator.writeEndArray();
+        if (notice.getDiscounted() != null) {
+            generator.writeFieldName("discounted");
+            writeInstallment(generator, cbill, posteAuthCode, codes, barcodeRenderer, notice.getDiscounted());
+        }
+        if (notice.getReduced() != null) {
+            generator.writeFieldName("reduced");
+            writeInstallment(generator, cbill, posteAuthCode, codes, barcodeRenderer, notice.getReduced());
+        }
+        generator.writeEndObject();
+
+        generator.writeEndObject();
+
+        generator.writeEndObject();
+    }
+
+    private static void writeInstallment(JsonGenerator generator, String cbill, String posteAuth, NoticeCodes codes,
+                                         BarcodeRenderer barcodeRenderer, InstallmentData installmentData)
+            throws IOException {
+        long amount = installmentData.getAmount();
+        generator.writeStartObject();
+        writeString(generator, "refNumber", installmentData.getCode());
+        codes.writeCurrency(generator, "amount", amount);
+        writeString(generator, "expiryDate", installmentData.getDueDate());
+        writeString(generator, "cbillCode", cbill);
+        writeQrCode(generator, codes, barcodeRenderer, installmentData.getCode(), amount);
+        writeString(generator, "posteAuth", posteAuth);
+        if (posteAuth != null) {
+            writePosteDataMatrix(generator, codes, barcodeRenderer, installmentData.getCode(), amount);
+        }
+        writeString(generator, "posteDocumentType", POSTE_DOCUMENT_TYPE_CODE);
+        generator.writeEndObject();
+    }
+
+    private static void writeQrCode(JsonGenerator generator, NoticeCodes codes, BarcodeRenderer barcodeRenderer,
+                                    String code, long amount) throws IOException {
+        if (barcodeRenderer == null) {
+            codes.writeQrCode(generator, "qrCode", code, amount);
+            return;
+        }
+        String qrCode = codes.qrCode(code, amount);
+        generator.writeStringField("qrCode", qrCode);
+        generator.writeStringField("qrCodeImage", barcodeRenderer.qrCodeImage(qrCode));
+    }
+
+    private static void writePosteDataMatrix(JsonGenerator generator, NoticeCodes codes,
+                                             BarcodeRenderer barcodeRenderer, String code, Long amount)
+            throws IOException {
+        if (barcodeRenderer == null) {
+            codes.writePosteDataMatrix(generator, "posteDataMatrix", code, amount);
+            return;
+        }
+        String posteDataMatrix = codes.posteDataMatrix(code, amount);
+        generator.writeStringField("posteDataMatrix", posteDataMatrix);
+        generator.writeStringField("posteDataMatrixImage", barcodeRenderer.dataMatrixImage(posteDataMatrix));
+    }
+
+    private static void writeString(JsonGenerator generator, String name, String value) throws IOException {
+        if (value != null) {
+            generator.writeStringField(name, value);
+        }
+    }
+
+}
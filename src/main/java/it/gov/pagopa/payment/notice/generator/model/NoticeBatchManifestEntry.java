@@ -0,0 +1,35 @@
+package it.gov.pagopa.payment.notice.generator.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of an item of a batch generation, listed in the manifest of the returned zip
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class NoticeBatchManifestEntry {
+
+    /**
+     * Position of the item in the request
+     */
+    private int index;
+    private String itemId;
+    /**
+     * Name of the PDF in the zip, null if the generation failed
+     */
+    private String fileName;
+    /**
+     * HTTP status the single generation would have returned
+     */
+    private int status;
+    private String title;
+    private String detail;
+
+}
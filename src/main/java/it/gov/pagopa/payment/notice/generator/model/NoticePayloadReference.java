@@ -0,0 +1,24 @@
+package it.gov.pagopa.payment.notice.generator.model;
+
+import it.gov.pagopa.payment.notice.generator.model.enums.PayloadCompression;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Claim-check reference to a {@link NoticeGenerationRequestItem} stored on the payload blob storage
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class NoticePayloadReference {
+
+    @NotNull
+    private String blobName;
+    @Builder.Default
+    private PayloadCompression compression = PayloadCompression.NONE;
+
+}
@@ -1,5 +1,6 @@
 package it.gov.pagopa.payment.notice.generator.model;
 
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -15,6 +16,8 @@ public class NoticeRequestEH {
     @NotNull
     private String folderId;
     private NoticeGenerationRequestItem noticeData;
+    @Valid
+    private NoticePayloadReference payloadReference;
     private String errorId;
 
 }
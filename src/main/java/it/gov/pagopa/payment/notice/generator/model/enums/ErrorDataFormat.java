@@ -0,0 +1,23 @@
+package it.gov.pagopa.payment.notice.generator.model.enums;
+
+/**
+ * Enum containing the formats of the request data stored with the generation errors.
+ * Errors saved without a format use {@link #AES_BASE64}, which is also the default format written:
+ * the compressed formats are opt-in, once all the readers of the error data support them
+ */
+public enum ErrorDataFormat {
+
+    /**
+     * Base64 of the encrypted content, stored in data
+     */
+    AES_BASE64,
+    /**
+     * Base64 of the encrypted zstd-compressed content, stored in data
+     */
+    ZSTD_AES_BASE64,
+    /**
+     * Encrypted zstd-compressed content, stored as binary in binaryData
+     */
+    ZSTD_AES_BINARY
+
+}
@@ -0,0 +1,11 @@
+package it.gov.pagopa.payment.notice.generator.model.enums;
+
+/**
+ * Enum containing the entry points of the notice generation
+ */
+public enum GenerationEntryPoint {
+
+    REST,
+    KAFKA
+
+}
@@ -0,0 +1,10 @@
+package it.gov.pagopa.payment.notice.generator.model.enums;
+
+/**
+ * Kinds of the fields stamped on a pre-rendered notice background
+ */
+public enum OverlayFieldType {
+    TEXT,
+    QR_CODE,
+    DATA_MATRIX
+}
@@ -0,0 +1,12 @@
+package it.gov.pagopa.payment.notice.generator.model.enums;
+
+/**
+ * Enum containing the compression formats supported for claim-check payloads
+ */
+public enum PayloadCompression {
+
+    NONE,
+    GZIP,
+    ZSTD
+
+}
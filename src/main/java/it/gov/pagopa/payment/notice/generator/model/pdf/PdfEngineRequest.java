@@ -17,4 +17,9 @@ public class PdfEngineRequest {
     URL template;
     String data;
     boolean applySignature;
+
+    /**
+     * Id of the template, used to route and cache locally: it is not sent to the remote engine
+     */
+    String templateId;
 }
@@ -0,0 +1,51 @@
+package it.gov.pagopa.payment.notice.generator.model.pdf;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Objects;
+
+/**
+ * Settings of the optimization of the PDFs before their upload. The settings of a template only need
+ * the values overriding the defaults, the others being null
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PdfOptimizationSettings {
+
+    private Boolean enabled;
+    /**
+     * Largest width or height of the images, in pixels, beyond which they are downsampled; 0 to keep them
+     */
+    private Integer imageMaxSize;
+    /**
+     * Quality of the downsampled JPEG images, from 0 to 1
+     */
+    private Float imageQuality;
+    /**
+     * Whether to compress the streams left uncompressed
+     */
+    private Boolean compressStreams;
+
+    /**
+     * @param overrides settings to apply, may be null
+     * @return these settings with the non-null values of the overrides in place
+     */
+    public PdfOptimizationSettings overriddenBy(PdfOptimizationSettings overrides) {
+        if (overrides == null) {
+            return this;
+        }
+        return new PdfOptimizationSettings(
+                Objects.requireNonNullElse(overrides.enabled, enabled),
+                Objects.requireNonNullElse(overrides.imageMaxSize, imageMaxSize),
+                Objects.requireNonNullElse(overrides.imageQuality, imageQuality),
+                Objects.requireNonNullElse(overrides.compressStreams, compressStreams));
+    }
+
+}
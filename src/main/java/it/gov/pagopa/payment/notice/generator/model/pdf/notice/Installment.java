@@ -16,8 +16,10 @@ public class Installment {
     private String expiryDate;
     private String cbillCode;
     private String qrCode;
+    private String qrCodeImage;
     private String posteAuth;
     private String posteDataMatrix;
+    private String posteDataMatrixImage;
     private String posteDocumentType;
 
 }
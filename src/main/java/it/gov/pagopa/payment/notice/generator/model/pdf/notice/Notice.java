@@ -15,12 +15,14 @@ public class Notice {
     private String amount;
     private String expiryDate;
     private String qrCode;
+    private String qrCodeImage;
     private String refNumber;
     private String cbillCode;
     private String posteAccountNumber;
     private String posteAuth;
     private String posteDocumentType;
     private String posteDataMatrix;
+    private String posteDataMatrixImage;
     private Installments instalments;
 
 }
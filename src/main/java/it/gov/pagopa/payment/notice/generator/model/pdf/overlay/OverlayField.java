@@ -0,0 +1,45 @@
+package it.gov.pagopa.payment.notice.generator.model.pdf.overlay;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import it.gov.pagopa.payment.notice.generator.model.enums.OverlayFieldType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Variable field of a notice, stamped on the background at a fixed position. Coordinates and sizes are in
+ * PDF points, from the top left corner of the page; the y of a text is its baseline
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class OverlayField {
+
+    /**
+     * JSON pointer of the value in the template data, e.g. {@code /notice/code}
+     */
+    private String value;
+    @Builder.Default
+    private OverlayFieldType type = OverlayFieldType.TEXT;
+    private int page;
+    private float x;
+    private float y;
+    private float width;
+    private float height;
+    /**
+     * Font file of the template zip, or name of a standard PDF font
+     */
+    @Builder.Default
+    private String font = "Helvetica";
+    @Builder.Default
+    private float fontSize = 10;
+    /**
+     * Alignment of a text within its width: left, center or right
+     */
+    @Builder.Default
+    private String align = "left";
+
+}
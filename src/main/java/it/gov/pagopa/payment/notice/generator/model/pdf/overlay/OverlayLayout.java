@@ -0,0 +1,24 @@
+package it.gov.pagopa.payment.notice.generator.model.pdf.overlay;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Layout of the variable fields of a template, read from the {@code overlay.json} entry of its zip.
+ * The values of the fields are blanked in the data of the background, rendered once and stamped over it
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class OverlayLayout {
+
+    private List<OverlayField> fields;
+
+}
@@ -4,13 +4,10 @@ import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeGenerationRequ
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
-import java.util.Optional;
-
 @Repository
 public interface PaymentGenerationRequestErrorRepository
-        extends MongoRepository<PaymentNoticeGenerationRequestError, String> {
+        extends MongoRepository<PaymentNoticeGenerationRequestError, String>,
+        PaymentGenerationRequestErrorRepositoryCustom {
 
     void deleteByErrorIdAndFolderId(String errorId, String folderId);
-
-    Optional<PaymentNoticeGenerationRequestError> findByErrorIdAndFolderId(String errorId, String folderId);
 }
@@ -0,0 +1,23 @@
+package it.gov.pagopa.payment.notice.generator.repository;
+
+import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeGenerationRequestError;
+
+/**
+ * Custom operations on the error collection, not expressible through derived or annotated queries
+ */
+public interface PaymentGenerationRequestErrorRepositoryCustom {
+
+    /**
+     * Atomically upserts the error identified by errorId and folderId: if missing it is created with
+     * the content of the provided error, otherwise its description is updated. In both cases the
+     * number of attempts is incremented by one and a new error event is queued in the outbox, with the
+     * trace context of the outbox of the provided error if present. The unique folderId and errorId index
+     * makes only one of concurrent upserts of the same error create it, the others update it
+     *
+     * @param paymentNoticeGenerationRequestError error to insert, its errorId and folderId are used as key
+     * @return the error as it was before the upsert, null if it has been created
+     */
+    PaymentNoticeGenerationRequestError findAndUpsertByErrorIdAndFolderId(
+            PaymentNoticeGenerationRequestError paymentNoticeGenerationRequestError);
+
+}
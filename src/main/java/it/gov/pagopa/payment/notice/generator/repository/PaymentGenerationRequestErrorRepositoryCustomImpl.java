@@ -0,0 +1,60 @@
+package it.gov.pagopa.payment.notice.generator.repository;
+
+import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeGenerationRequestError;
+import org.bson.types.ObjectId;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.UUID;
+
+public class PaymentGenerationRequestErrorRepositoryCustomImpl implements PaymentGenerationRequestErrorRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    public PaymentGenerationRequestErrorRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public PaymentNoticeGenerationRequestError findAndUpsertByErrorIdAndFolderId(
+            PaymentNoticeGenerationRequestError paymentNoticeGenerationRequestError) {
+
+        Query query = new Query(Criteria
+                .where("folderId").is(paymentNoticeGenerationRequestError.getFolderId())
+                .and("errorId").is(paymentNoticeGenerationRequestError.getErrorId()));
+
+        // folderId and errorId are copied from the query equality on insert
+        Update update = new Update()
+                .setOnInsert("_id", new ObjectId(paymentNoticeGenerationRequestError.getId()))
+                .setOnInsert("createdAt", paymentNoticeGenerationRequestError.getCreatedAt())
+                .setOnInsert("data", paymentNoticeGenerationRequestError.getData())
+                .setOnInsert("binaryData", paymentNoticeGenerationRequestError.getBinaryData())
+                .setOnInsert("dataFormat", paymentNoticeGenerationRequestError.getDataFormat())
+                .setOnInsert("compressionError", paymentNoticeGenerationRequestError.isCompressionError())
+                .set("errorDescription", paymentNoticeGenerationRequestError.getErrorDescription())
+                .inc("numberOfAttempts", 1)
+                .set("outbox.eventId", UUID.randomUUID().toString())
+                .currentDate("outbox.createdAt")
+                .unset("outbox.claimId")
+                .unset("outbox.lockedUntil");
+        if (paymentNoticeGenerationRequestError.getOutbox() != null &&
+                paymentNoticeGenerationRequestError.getOutbox().getTraceContext() != null) {
+            update.set("outbox.traceContext", paymentNoticeGenerationRequestError.getOutbox().getTraceContext());
+        } else {
+            update.unset("outbox.traceContext");
+        }
+
+        FindAndModifyOptions options = FindAndModifyOptions.options().upsert(true).returnNew(false);
+        try {
+            return mongoTemplate.findAndModify(query, update, options, PaymentNoticeGenerationRequestError.class);
+        } catch (DuplicateKeyException e) {
+            // a concurrent upsert inserted the same error first: retried, this one now updates it
+            return mongoTemplate.findAndModify(query, update, options, PaymentNoticeGenerationRequestError.class);
+        }
+    }
+
+}
@@ -6,6 +6,8 @@ import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.mongodb.repository.Update;
 import org.springframework.stereotype.Repository;
 
+import java.util.Map;
+
 @Repository
 public interface PaymentGenerationRequestRepository extends MongoRepository<PaymentNoticeGenerationRequest, String> {
 
@@ -15,8 +17,9 @@ public interface PaymentGenerationRequestRepository extends MongoRepository<Paym
     long findAndAddItemById(String folderId, String noticeId);
 
     @Query("{'id' : ?0, 'status' : 'PROCESSING' }")
-    @Update("{ '$set': { 'status' : 'COMPLETING' } }")
-    long findAndSetToComplete(String folderId);
+    @Update("{ '$set': { 'status' : 'COMPLETING', 'outbox.eventId' : ?1, 'outbox.traceContext' : ?2 }, " +
+            "'$currentDate' : { 'outbox.createdAt' : true } }")
+    long findAndSetToComplete(String folderId, String eventId, Map<String, String> traceContext);
 
     @Update("{ '$inc' : { 'numberOfElementsFailed' : 1 } }")
     long findAndIncrementNumberOfElementsFailedById(String folderId);
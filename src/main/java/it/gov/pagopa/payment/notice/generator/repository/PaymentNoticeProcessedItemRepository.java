@@ -0,0 +1,24 @@
+package it.gov.pagopa.payment.notice.generator.repository;
+
+import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeProcessedItem;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.stream.Stream;
+
+@Repository
+public interface PaymentNoticeProcessedItemRepository extends MongoRepository<PaymentNoticeProcessedItem, String> {
+
+    /**
+     * Streams the ids of the items recorded since the provided instant, without loading the rest of
+     * the documents
+     *
+     * @param createdAt lower bound, inclusive, of the creation instant
+     * @return items carrying only their id
+     */
+    @Query(value = "{ 'createdAt': { $gte: ?0 } }", fields = "{ '_id': 1 }")
+    Stream<PaymentNoticeProcessedItem> findIdsByCreatedAtGreaterThanEqual(Instant createdAt);
+
+}
@@ -0,0 +1,12 @@
+package it.gov.pagopa.payment.notice.generator.service;
+
+import it.gov.pagopa.payment.notice.generator.model.NoticeGenerationRequestItem;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+
+public interface NoticeBatchGenerationService {
+
+    StreamingResponseBody generateNotices(List<NoticeGenerationRequestItem> noticeGenerationRequestItems);
+
+}
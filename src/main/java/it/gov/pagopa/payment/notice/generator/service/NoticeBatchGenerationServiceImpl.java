@@ -0,0 +1,233 @@
+package it.gov.pagopa.payment.notice.generator.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import it.gov.pagopa.payment.notice.generator.exception.AppError;
+import it.gov.pagopa.payment.notice.generator.exception.AppException;
+import it.gov.pagopa.payment.notice.generator.model.NoticeBatchManifestEntry;
+import it.gov.pagopa.payment.notice.generator.model.NoticeGenerationRequestItem;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Generates a batch of notices as a zip streamed to the caller. The notices of a batch are generated
+ * concurrently, at most the configured parallelism at a time, and each PDF is written to the zip as soon
+ * as it completes, so that only the PDFs in flight are kept, on disk. A {@value #MANIFEST_ENTRY} entry,
+ * written last, reports the outcome of each item.
+ */
+@Service
+@Slf4j
+public class NoticeBatchGenerationServiceImpl implements NoticeBatchGenerationService {
+
+    public static final String MANIFEST_ENTRY = "manifest.json";
+
+    private final NoticeGenerationService noticeGenerationService;
+
+    private final ObjectWriter manifestWriter;
+
+    private final ExecutorService batchExecutor;
+
+    private final int maxItems;
+
+    private final int parallelism;
+
+    @Autowired
+    public NoticeBatchGenerationServiceImpl(
+            NoticeGenerationService noticeGenerationService,
+            ObjectMapper objectMapper,
+            @Value("${notice.batch.threads}") int threads,
+            @Value("${notice.batch.max-items}") int maxItems,
+            @Value("${notice.batch.parallelism}") int parallelism) {
+        this(noticeGenerationService, objectMapper,
+                Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("notice-batch-")),
+                maxItems, parallelism);
+    }
+
+    NoticeBatchGenerationServiceImpl(
+            NoticeGenerationService noticeGenerationService,
+            ObjectMapper objectMapper,
+            ExecutorService batchExecutor,
+            int maxItems,
+            int parallelism) {
+        this.noticeGenerationService = noticeGenerationService;
+        this.manifestWriter = objectMapper.writerFor(NoticeBatchManifestEntry[].class);
+        this.batchExecutor = batchExecutor;
+        this.maxItems = maxItems;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Checks the size of the batch and returns the body generating it, run once the response is committed
+     *
+     * @param noticeGenerationRequestItems notices to generate
+     * @return body writing the zip of the notices
+     * @throws AppException if the batch is larger than allowed
+     */
+    @Override
+    public StreamingResponseBody generateNotices(List<NoticeGenerationRequestItem> noticeGenerationRequestItems) {
+        if (noticeGenerationRequestItems.size() > maxItems) {
+            throw new AppException(AppError.BAD_REQUEST, String.format("Batch of %d notices exceeds the limit of %d",
+                    noticeGenerationRequestItems.size(), maxItems));
+        }
+        List<NoticeGenerationRequestItem> items = List.copyOf(noticeGenerationRequestItems);
+        return outputStream -> writeNotices(items, outputStream);
+    }
+
+    void writeNotices(List<NoticeGenerationRequestItem> items, OutputStream outputStream) throws IOException {
+        CompletionService<GeneratedItem> completionService = new ExecutorCompletionService<>(batchExecutor);
+        Set<Future<GeneratedItem>> pending = new HashSet<>();
+        List<NoticeBatchManifestEntry> manifest = new ArrayList<>(items.size());
+        Set<String> fileNames = new HashSet<>();
+        AtomicBoolean aborted = new AtomicBoolean();
+        int next = 0;
+
+        ZipOutputStream zip = new ZipOutputStream(outputStream);
+        // the PDFs are already compressed, the zip only needs to be fast
+        zip.setLevel(Deflater.BEST_SPEED);
+        try {
+            while (next < items.size() && pending.size() < parallelism) {
+                pending.add(submit(completionService, items, next++, aborted));
+            }
+            while (!pending.isEmpty()) {
+                Future<GeneratedItem> generated = completionService.take();
+                pending.remove(generated);
+                if (next < items.size()) {
+                    pending.add(submit(completionService, items, next++, aborted));
+                }
+                manifest.add(writeNotice(zip, generated.get(), fileNames));
+            }
+
+            manifest.sort(Comparator.comparingInt(NoticeBatchManifestEntry::getIndex));
+            zip.putNextEntry(new ZipEntry(MANIFEST_ENTRY));
+            zip.write(manifestWriter.writeValueAsBytes(manifest.toArray(NoticeBatchManifestEntry[]::new)));
+            zip.closeEntry();
+            zip.finish();
+            zip.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort(pending, aborted);
+            throw new InterruptedIOException("Batch generation interrupted");
+        } catch (ExecutionException | IOException | RuntimeException e) {
+            // most likely the caller went away, the notices not yet written are discarded
+            abort(pending, aborted);
+            throw e instanceof IOException ioException ? ioException : new IOException(e);
+        }
+    }
+
+    private Future<GeneratedItem> submit(CompletionService<GeneratedItem> completionService,
+                                         List<NoticeGenerationRequestItem> items, int index, AtomicBoolean aborted) {
+        NoticeGenerationRequestItem item = items.get(index);
+        return completionService.submit(() -> {
+            if (aborted.get()) {
+                return new GeneratedItem(index, null, null, null);
+            }
+            String itemId = null;
+            try {
+                itemId = NoticeGenerationServiceImpl.buildItemId(item);
+                return new GeneratedItem(index, itemId, noticeGenerationService.generateNotice(item, null, null), null);
+            } catch (Exception e) {
+                // generateNotice may also throw checked exceptions, failing only this item
+                return new GeneratedItem(index, itemId, null, e);
+            }
+        });
+    }
+
+    private NoticeBatchManifestEntry writeNotice(ZipOutputStream zip, GeneratedItem generated, Set<String> fileNames)
+            throws IOException {
+        NoticeBatchManifestEntry.NoticeBatchManifestEntryBuilder entry = NoticeBatchManifestEntry.builder()
+                .index(generated.index())
+                .itemId(generated.itemId());
+        if (generated.notice() == null) {
+            AppException error = generated.error() instanceof AppException appException ?
+                    appException : new AppException(AppError.INTERNAL_SERVER_ERROR, generated.error());
+            return entry.status(error.getHttpStatus().value())
+                    .title(error.getTitle())
+                    .detail(error.getMessage())
+                    .build();
+        }
+
+        try {
+            String fileName = fileName(generated, fileNames);
+            zip.putNextEntry(new ZipEntry(fileName));
+            Files.copy(generated.notice().toPath(), zip);
+            zip.closeEntry();
+            return entry.fileName(fileName)
+                    .status(HttpStatus.OK.value())
+                    .build();
+        } finally {
+            noticeGenerationService.releaseNotice(generated.notice());
+        }
+    }
+
+    /**
+     * @return the item id as file name, made unique if the same notice is requested more than once
+     */
+    private String fileName(GeneratedItem generated, Set<String> fileNames) {
+        String fileName = generated.itemId() + ".pdf";
+        if (!fileNames.add(fileName)) {
+            fileName = String.format("%s-%d.pdf", generated.itemId(), generated.index());
+            fileNames.add(fileName);
+        }
+        return fileName;
+    }
+
+    /**
+     * Skips the generations not yet started and releases the notices of the others once done. The tasks
+     * are not cancelled, as a cancelled task still running would complete with a notice never released
+     */
+    private void abort(Set<Future<GeneratedItem>> pending, AtomicBoolean aborted) {
+        aborted.set(true);
+        for (Future<GeneratedItem> generating : pending) {
+            try {
+                GeneratedItem generated = generating.get();
+                if (generated.notice() != null) {
+                    noticeGenerationService.releaseNotice(generated.notice());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                log.warn("Unexpected failure of a batch generation", e);
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        batchExecutor.shutdown();
+    }
+
+    /**
+     * Notice of a batch, with the error of its generation if it failed
+     */
+    private record GeneratedItem(int index, String itemId, File notice, Exception error) {
+    }
+
+}
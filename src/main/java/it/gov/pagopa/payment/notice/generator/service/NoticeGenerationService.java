@@ -9,5 +9,7 @@ public interface NoticeGenerationService {
                         String folderId,
                         String errorId) ;
 
-    void processNoticeGenerationEH(String message);
+    void releaseNotice(File notice);
+
+    void processNoticeGenerationEH(byte[] message, Object contentType);
 }
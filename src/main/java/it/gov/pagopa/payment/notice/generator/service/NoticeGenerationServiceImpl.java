@@ -2,49 +2,77 @@ package it.gov.pagopa.payment.notice.generator.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.networknt.schema.*;
 import it.gov.pagopa.payment.notice.generator.client.PdfEngineClient;
+import it.gov.pagopa.payment.notice.generator.entity.OutboxEvent;
 import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeGenerationRequest;
 import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeGenerationRequestError;
-import it.gov.pagopa.payment.notice.generator.events.producer.NoticeRequestCompleteProducer;
-import it.gov.pagopa.payment.notice.generator.events.producer.NoticeRequestErrorProducer;
+import it.gov.pagopa.payment.notice.generator.exception.Aes256Exception;
 import it.gov.pagopa.payment.notice.generator.exception.AppError;
 import it.gov.pagopa.payment.notice.generator.exception.AppException;
+import it.gov.pagopa.payment.notice.generator.events.codec.NoticeEventCodec;
+import it.gov.pagopa.payment.notice.generator.events.codec.NoticeEventCodecRegistry;
+import it.gov.pagopa.payment.notice.generator.jfr.MongoProgressUpdateEvent;
+import it.gov.pagopa.payment.notice.generator.jfr.NoticeRenderEvent;
 import it.gov.pagopa.payment.notice.generator.mapper.TemplateDataMapper;
+import it.gov.pagopa.payment.notice.generator.mapper.TemplateDataWriter;
 import it.gov.pagopa.payment.notice.generator.model.NoticeGenerationRequestItem;
 import it.gov.pagopa.payment.notice.generator.model.NoticeRequestEH;
 import it.gov.pagopa.payment.notice.generator.model.TemplateResource;
+import it.gov.pagopa.payment.notice.generator.model.enums.GenerationEntryPoint;
 import it.gov.pagopa.payment.notice.generator.model.enums.PaymentGenerationRequestStatus;
 import it.gov.pagopa.payment.notice.generator.model.notice.CreditorInstitution;
 import it.gov.pagopa.payment.notice.generator.model.notice.Notice;
+import it.gov.pagopa.payment.notice.generator.model.notice.NoticeRequestData;
 import it.gov.pagopa.payment.notice.generator.model.pdf.PdfEngineRequest;
 import it.gov.pagopa.payment.notice.generator.model.pdf.PdfEngineResponse;
+import it.gov.pagopa.payment.notice.generator.model.pdf.notice.PaymentNotice;
 import it.gov.pagopa.payment.notice.generator.repository.PaymentGenerationRequestErrorRepository;
 import it.gov.pagopa.payment.notice.generator.repository.PaymentGenerationRequestRepository;
 import it.gov.pagopa.payment.notice.generator.storage.InstitutionsStorageClient;
 import it.gov.pagopa.payment.notice.generator.storage.NoticeStorageClient;
 import it.gov.pagopa.payment.notice.generator.storage.NoticeTemplateStorageClient;
-import it.gov.pagopa.payment.notice.generator.util.Aes256Utils;
+import it.gov.pagopa.payment.notice.generator.util.BarcodeRenderer;
+import it.gov.pagopa.payment.notice.generator.util.ErrorDataUtils;
+import it.gov.pagopa.payment.notice.generator.util.NoticeGenerationMetrics;
+import it.gov.pagopa.payment.notice.generator.util.PayloadLogFormatter;
+import it.gov.pagopa.payment.notice.generator.util.TraceContextUtils;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validator;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.http.HttpStatus;
+import org.bson.types.ObjectId;
 import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
 
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static it.gov.pagopa.payment.notice.generator.util.CommonUtility.getItemId;
+import static it.gov.pagopa.payment.notice.generator.util.WorkingDirectoryUtils.clearTempDirectory;
 import static it.gov.pagopa.payment.notice.generator.util.WorkingDirectoryUtils.createWorkingDirectory;
 
 /**
@@ -59,19 +87,54 @@ public class NoticeGenerationServiceImpl implements NoticeGenerationService {
 
     private final PdfEngineClient pdfEngineClient;
 
+    private final PdfOptimizationService pdfOptimizationService;
+
+    private final RenderedNoticeCacheService renderedNoticeCacheService;
+
     private final InstitutionsStorageClient institutionsStorageClient;
     private final NoticeStorageClient noticeStorageClient;
     private final NoticeTemplateStorageClient noticeTemplateStorageClient;
 
-    private final Aes256Utils aes256Utils;
+    private final NoticePayloadService noticePayloadService;
+
+    private final NoticeEventCodecRegistry noticeEventCodecRegistry;
+
+    private final NoticeProcessedItemService noticeProcessedItemService;
+
+    private final ErrorDataUtils errorDataUtils;
+
+    private final NoticeGenerationMetrics noticeGenerationMetrics;
+
+    private final PayloadLogFormatter payloadLogFormatter;
+
+    private final TraceContextUtils traceContextUtils;
 
     private final ObjectMapper objectMapper;
 
+    private final ObjectWriter paymentNoticeWriter;
+
+    private final ObjectWriter noticeRequestDataWriter;
+
+    private final ObjectWriter noticeGenerationRequestItemWriter;
+
     private final Validator validator;
 
-    private final NoticeRequestCompleteProducer noticeRequestCompleteProducer;
+    private final boolean templateDataStreamingEnabled;
+
+    /**
+     * Renderer of the barcode images added to the template data, null when disabled
+     */
+    private final BarcodeRenderer barcodeRenderer;
 
-    private final NoticeRequestErrorProducer noticeRequestErrorProducer;
+    /**
+     * Synchronous generations without folder in flight, by hash of the request
+     */
+    private final Map<String, SharedNotice> inFlightNotices = new ConcurrentHashMap<>();
+
+    /**
+     * Generated notices not yet released by all the requests sharing them, by path
+     */
+    private final Map<String, SharedNotice> sharedNotices = new ConcurrentHashMap<>();
 
     public NoticeGenerationServiceImpl(
             PaymentGenerationRequestRepository paymentGenerationRequestRepository,
@@ -80,20 +143,42 @@ public class NoticeGenerationServiceImpl implements NoticeGenerationService {
             NoticeStorageClient noticeStorageClient,
             NoticeTemplateStorageClient noticeTemplateStorageClient,
             PdfEngineClient pdfEngineClient,
-            Aes256Utils aes256Utils,
+            PdfOptimizationService pdfOptimizationService,
+            RenderedNoticeCacheService renderedNoticeCacheService,
+            NoticePayloadService noticePayloadService,
+            NoticeEventCodecRegistry noticeEventCodecRegistry,
+            NoticeProcessedItemService noticeProcessedItemService,
+            ErrorDataUtils errorDataUtils,
+            NoticeGenerationMetrics noticeGenerationMetrics,
+            PayloadLogFormatter payloadLogFormatter,
+            TraceContextUtils traceContextUtils,
+            BarcodeRenderer barcodeRenderer,
             ObjectMapper objectMapper,
-            Validator validator, NoticeRequestCompleteProducer noticeRequestCompleteProducer, NoticeRequestErrorProducer noticeRequestErrorProducer) {
+            Validator validator,
+            @Value("${template.data.streaming.enabled}") boolean templateDataStreamingEnabled,
+            @Value("${barcode.images.enabled}") boolean barcodeImagesEnabled) {
         this.paymentGenerationRequestRepository = paymentGenerationRequestRepository;
         this.paymentGenerationRequestErrorRepository = paymentGenerationRequestErrorRepository;
         this.institutionsStorageClient = institutionsStorageClient;
         this.noticeStorageClient = noticeStorageClient;
         this.noticeTemplateStorageClient = noticeTemplateStorageClient;
         this.pdfEngineClient = pdfEngineClient;
-        this.aes256Utils = aes256Utils;
+        this.pdfOptimizationService = pdfOptimizationService;
+        this.renderedNoticeCacheService = renderedNoticeCacheService;
+        this.noticePayloadService = noticePayloadService;
+        this.noticeEventCodecRegistry = noticeEventCodecRegistry;
+        this.noticeProcessedItemService = noticeProcessedItemService;
+        this.errorDataUtils = errorDataUtils;
+        this.noticeGenerationMetrics = noticeGenerationMetrics;
+        this.payloadLogFormatter = payloadLogFormatter;
+        this.traceContextUtils = traceContextUtils;
         this.objectMapper = objectMapper;
+        this.paymentNoticeWriter = objectMapper.writerFor(PaymentNotice.class);
+        this.noticeRequestDataWriter = objectMapper.writerFor(NoticeRequestData.class);
+        this.noticeGenerationRequestItemWriter = objectMapper.writerFor(NoticeGenerationRequestItem.class);
         this.validator = validator;
-        this.noticeRequestCompleteProducer = noticeRequestCompleteProducer;
-        this.noticeRequestErrorProducer = noticeRequestErrorProducer;
+        this.templateDataStreamingEnabled = templateDataStreamingEnabled;
+        this.barcodeRenderer = barcodeImagesEnabled ? barcodeRenderer : null;
     }
 
     /**
@@ -104,23 +189,96 @@ public class NoticeGenerationServiceImpl implements NoticeGenerationService {
      * @param folderId                    optional parameter to generate folderId
      * @return generated notice
      */
-    @SneakyThrows
     @Override
+    @SneakyThrows
     public File generateNotice(NoticeGenerationRequestItem noticeGenerationRequestItem,
                                String folderId,
                                String errorId) {
+        if (folderId != null) {
+            // a generation into a folder updates the folder and the error of the item: never shared
+            return generateNotice(noticeGenerationRequestItem, folderId, errorId, GenerationEntryPoint.REST);
+        }
+
+        // identical synchronous requests arriving while one is generated wait for it and share its notice
+        String key = sha256(noticeGenerationRequestItemWriter.writeValueAsBytes(noticeGenerationRequestItem));
+        SharedNotice sharedNotice = new SharedNotice();
+        SharedNotice inFlightNotice = inFlightNotices.compute(key, (k, current) -> {
+            if (current == null) {
+                return sharedNotice;
+            }
+            current.readers.incrementAndGet();
+            return current;
+        });
+        if (inFlightNotice != sharedNotice) {
+            noticeGenerationMetrics.coalesced(noticeGenerationRequestItem.getTemplateId());
+            try {
+                return inFlightNotice.notice.join();
+            } catch (CompletionException e) {
+                throw e.getCause();
+            }
+        }
+
+        try {
+            File notice = generateNotice(noticeGenerationRequestItem, folderId, errorId, GenerationEntryPoint.REST);
+            sharedNotices.put(notice.getAbsolutePath(), sharedNotice);
+            inFlightNotices.remove(key);
+            sharedNotice.notice.complete(notice);
+            return notice;
+        } catch (Exception e) {
+            inFlightNotices.remove(key);
+            sharedNotice.notice.completeExceptionally(e);
+            throw e;
+        }
+    }
 
+    /**
+     * Releases a notice returned by {@link #generateNotice(NoticeGenerationRequestItem, String, String)},
+     * clearing its working directory once released by all the requests sharing it
+     *
+     * @param notice generated notice
+     */
+    @Override
+    public void releaseNotice(File notice) {
+        SharedNotice sharedNotice = sharedNotices.get(notice.getAbsolutePath());
+        if (sharedNotice == null || sharedNotice.readers.decrementAndGet() == 0) {
+            sharedNotices.remove(notice.getAbsolutePath());
+            clearTempDirectory(notice.toPath().getParent());
+        }
+    }
+
+    /**
+     * Generate a notice recording the duration of each stage, tagged with the given entry point
+     */
+    private File generateNotice(NoticeGenerationRequestItem noticeGenerationRequestItem,
+                                String folderId,
+                                String errorId,
+                                GenerationEntryPoint entryPoint) {
+        NoticeGenerationMetrics.Stages stages = noticeGenerationMetrics.start(
+                noticeGenerationRequestItem.getTemplateId(), entryPoint);
+        try {
+            File notice = generateNotice(noticeGenerationRequestItem, folderId, errorId, stages);
+            stages.stop(true);
+            return notice;
+        } catch (Exception e) {
+            stages.stop(false);
+            throw e;
+        }
+    }
+
+    @SneakyThrows
+    private File generateNotice(NoticeGenerationRequestItem noticeGenerationRequestItem,
+                                String folderId,
+                                String errorId,
+                                NoticeGenerationMetrics.Stages stages) {
 
         if(folderId != null) {
+            stages.start(NoticeGenerationMetrics.STAGE_FOLDER_CHECK);
             findFolderIfExists(folderId);
         }
 
-        String itemId = String.format("%s-%s-%s-%s", "pagopa-avviso",
-                noticeGenerationRequestItem.getData().getCreditorInstitution().getTaxCode(),
-                getNoticeCode(noticeGenerationRequestItem),
-                noticeGenerationRequestItem.getTemplateId());
+        String itemId = buildItemId(noticeGenerationRequestItem);
         MDC.put("itemStatus", "PROCESSING");
-        log.info("Process a new Generation Event: {}", noticeGenerationRequestItem);
+        log.info("Process a new Generation Event: {}", payloadLogFormatter.format(noticeGenerationRequestItem));
         MDC.remove("itemStatus");
 
 
@@ -131,10 +289,12 @@ public class NoticeGenerationServiceImpl implements NoticeGenerationService {
                     .normalize()
                     .toAbsolutePath();
 
+            stages.start(NoticeGenerationMetrics.STAGE_INSTITUTION_FETCH);
             CreditorInstitution creditorInstitution = institutionsStorageClient.getInstitutionData(
                     noticeGenerationRequestItem.getData().getCreditorInstitution().getTaxCode());
             noticeGenerationRequestItem.getData().setCreditorInstitution(creditorInstitution);
 
+            stages.start(NoticeGenerationMetrics.STAGE_TEMPLATE_FETCH);
             File templateFile = noticeTemplateStorageClient.getTemplate(
                     noticeGenerationRequestItem.getTemplateId());
 
@@ -143,21 +303,26 @@ public class NoticeGenerationServiceImpl implements NoticeGenerationService {
                     .findFirst()
                     .orElse(null);
 
+            stages.start(NoticeGenerationMetrics.STAGE_SCHEMA_VALIDATION);
             validateTemplate(noticeGenerationRequestItem, templateResource);
 
-            String templateData = objectMapper.writeValueAsString(
-                    TemplateDataMapper.mapTemplate(noticeGenerationRequestItem.getData()));
+            stages.start(NoticeGenerationMetrics.STAGE_MAPPING);
+            String templateData = getTemplateData(noticeGenerationRequestItem.getData());
 
             //Build the request
             PdfEngineRequest request = new PdfEngineRequest();
             request.setTemplate(templateFile.toURI().toURL());
             request.setData(templateData);
             request.setApplySignature(false);
+            request.setTemplateId(noticeGenerationRequestItem.getTemplateId());
 
-            PdfEngineResponse pdfEngineResponse = callPdfEngine(request, tempDirectory);
+            PdfEngineResponse pdfEngineResponse = renderNotice(request, templateFile, tempDirectory,
+                    folderId, stages);
 
             if(folderId != null) {
-                addNoticeIntoFolder(itemId, folderId, pdfEngineResponse);
+                optimizePdf(pdfEngineResponse, noticeGenerationRequestItem.getTemplateId(), stages);
+                addNoticeIntoFolder(itemId, folderId, noticeGenerationRequestItem.getTemplateId(),
+                        pdfEngineResponse, stages);
                 if(errorId != null) {
                     paymentGenerationRequestErrorRepository.deleteByErrorIdAndFolderId(errorId, folderId);
                     paymentGenerationRequestRepository.findAndDecrementNumberOfElementsFailedById(folderId);
@@ -184,6 +349,19 @@ public class NoticeGenerationServiceImpl implements NoticeGenerationService {
     }
 
 
+    /**
+     * Builds the id of the notice inside its folder, used as name of the stored PDF
+     *
+     * @param noticeGenerationRequestItem the {@link NoticeGenerationRequestItem}
+     * @return the item id
+     */
+    public static String buildItemId(NoticeGenerationRequestItem noticeGenerationRequestItem) {
+        return String.format("%s-%s-%s-%s", "pagopa-avviso",
+                noticeGenerationRequestItem.getData().getCreditorInstitution().getTaxCode(),
+                getNoticeCode(noticeGenerationRequestItem),
+                noticeGenerationRequestItem.getTemplateId());
+    }
+
     /**
      * Retrieves the notice code, given a {@link NoticeGenerationRequestItem}.
      * If the notice has a code, it is returned. Otherwise, the code of the first
@@ -216,8 +394,47 @@ public class NoticeGenerationServiceImpl implements NoticeGenerationService {
     }
 
 
-    private PdfEngineResponse callPdfEngine(PdfEngineRequest request, Path tempDirectory) {
+    /**
+     * Renders the notice, serving it from the rendered notice cache when enabled and already rendered
+     */
+    private PdfEngineResponse renderNotice(PdfEngineRequest request, File templateFile, Path tempDirectory,
+                                           String folderId, NoticeGenerationMetrics.Stages stages) throws IOException {
+        String cacheKey = null;
+        if(renderedNoticeCacheService.isEnabled()) {
+            stages.start(NoticeGenerationMetrics.STAGE_CACHE_LOOKUP);
+            cacheKey = renderedNoticeCacheService.buildKey(request.getTemplateId(), templateFile, request.getData());
+            File cachedPdf = renderedNoticeCacheService.get(cacheKey, tempDirectory);
+            if(cachedPdf != null) {
+                PdfEngineResponse pdfEngineResponse = new PdfEngineResponse();
+                pdfEngineResponse.setTempPdfPath(cachedPdf.getAbsolutePath());
+                pdfEngineResponse.setStatusCode(HttpStatus.SC_OK);
+                return pdfEngineResponse;
+            }
+        }
+
+        stages.start(NoticeGenerationMetrics.STAGE_ENGINE_CALL);
+        PdfEngineResponse pdfEngineResponse = callPdfEngine(request, tempDirectory, folderId, request.getTemplateId());
+
+        if(cacheKey != null) {
+            stages.start(NoticeGenerationMetrics.STAGE_CACHE_STORE);
+            renderedNoticeCacheService.put(cacheKey, new File(pdfEngineResponse.getTempPdfPath()));
+        }
+        return pdfEngineResponse;
+    }
+
+    private PdfEngineResponse callPdfEngine(PdfEngineRequest request, Path tempDirectory,
+                                            String folderId, String templateId) {
+        NoticeRenderEvent event = new NoticeRenderEvent();
+        event.begin();
         PdfEngineResponse pdfEngineResponse = pdfEngineClient.generatePDF(request, tempDirectory);
+        event.end();
+        if(event.shouldCommit()) {
+            event.folderId = folderId;
+            event.templateId = templateId;
+            event.bytes = pdfEngineResponse.getTempPdfPath() != null ?
+                    new File(pdfEngineResponse.getTempPdfPath()).length() : 0;
+            event.commit();
+        }
 
         if(pdfEngineResponse.getStatusCode() != HttpStatus.SC_OK) {
             String errMsg = String.format("PDF-Engine response KO (%s): %s", pdfEngineResponse.getStatusCode(), pdfEngineResponse.getErrorMessage());
@@ -234,12 +451,12 @@ public class NoticeGenerationServiceImpl implements NoticeGenerationService {
      * @param templateResource            the json schema with the validation rules
      * @throws JsonProcessingException if template is not readable as json
      */
-    private void validateTemplate(NoticeGenerationRequestItem noticeGenerationRequestItem, TemplateResource templateResource) throws JsonProcessingException {
+    void validateTemplate(NoticeGenerationRequestItem noticeGenerationRequestItem, TemplateResource templateResource) throws JsonProcessingException {
         if(templateResource != null && templateResource.getTemplateValidationRules() != null) {
             JsonSchema jsonSchema = JsonSchemaFactory
                     .getInstance(SpecVersion.VersionFlag.V7)
                     .getSchema(templateResource.getTemplateValidationRules());
-            String jsonStringSchema = objectMapper.writeValueAsString(noticeGenerationRequestItem.getData());
+            String jsonStringSchema = noticeRequestDataWriter.writeValueAsString(noticeGenerationRequestItem.getData());
 
             Set<ValidationMessage> validationMessageSet = jsonSchema.validate(jsonStringSchema, InputFormat.JSON);
             // check if there are validation messages
@@ -253,33 +470,47 @@ public class NoticeGenerationServiceImpl implements NoticeGenerationService {
 
     }
 
-    private void addNoticeIntoFolder(String itemId, String folderId,
-                                     PdfEngineResponse pdfEngineResponse) {
+    /**
+     * Optimizes the PDF before its upload, if enabled for the template, replacing it in the response
+     */
+    private void optimizePdf(PdfEngineResponse pdfEngineResponse, String templateId,
+                             NoticeGenerationMetrics.Stages stages) {
+        if(pdfOptimizationService.isEnabled(templateId)) {
+            stages.start(NoticeGenerationMetrics.STAGE_PDF_OPTIMIZATION);
+            File optimizedPdf = pdfOptimizationService.optimize(new File(pdfEngineResponse.getTempPdfPath()), templateId);
+            pdfEngineResponse.setTempPdfPath(optimizedPdf.getAbsolutePath());
+        }
+    }
+
+    private void addNoticeIntoFolder(String itemId, String folderId, String templateId,
+                                     PdfEngineResponse pdfEngineResponse,
+                                     NoticeGenerationMetrics.Stages stages) {
         try (BufferedInputStream pdfStream = new BufferedInputStream(
                 new FileInputStream(pdfEngineResponse.getTempPdfPath()))) {
 
+            stages.start(NoticeGenerationMetrics.STAGE_BLOB_UPLOAD);
             if(!noticeStorageClient.savePdfToBlobStorage(pdfStream, folderId, itemId)) {
                 throw new RuntimeException("Encountered error during blob saving");
             }
 
+            stages.start(NoticeGenerationMetrics.STAGE_PROGRESS_UPDATE);
+            MongoProgressUpdateEvent event = new MongoProgressUpdateEvent();
+            event.begin();
             paymentGenerationRequestRepository.findAndAddItemById(folderId, itemId);
+            noticeProcessedItemService.markProcessed(folderId, itemId);
+            event.end();
+            if(event.shouldCommit()) {
+                event.folderId = folderId;
+                event.templateId = templateId;
+                event.commit();
+            }
             MDC.put("massiveStatus", "PROCESSING");
             log.info("Massive Request PROCESSING: {}", folderId);
             MDC.remove("massiveStatus");
 
-            var paymentNoticeGenerationRequest = paymentGenerationRequestRepository.findById(folderId)
-                    .orElseThrow();
-
-            if(paymentNoticeGenerationRequest.getStatus().equals(PaymentGenerationRequestStatus.PROCESSING)
-                    && paymentNoticeGenerationRequest.getNumberOfElementsTotal()
-                    <= paymentNoticeGenerationRequest.getItems().size() + paymentNoticeGenerationRequest.getNumberOfElementsFailed()
-                    && paymentGenerationRequestRepository.findAndSetToComplete(folderId) > 0) {
-                paymentNoticeGenerationRequest.setStatus(PaymentGenerationRequestStatus.COMPLETING);
-                noticeRequestCompleteProducer.noticeComplete(paymentNoticeGenerationRequest);
-                MDC.put("massiveStatus", "COMPLETING");
-                log.info("Massive Request COMPLETING: {}", folderId);
-                MDC.remove("massiveStatus");
-            }
+            // the complete event is queued through the outbox, its send is timed by the producer metrics
+            stages.start(NoticeGenerationMetrics.STAGE_EVENT_PUBLISH);
+            completeFolderIfDone(folderId);
 
         } catch (Exception e) {
             log.error(e.getMessage(), e);
@@ -287,13 +518,30 @@ public class NoticeGenerationServiceImpl implements NoticeGenerationService {
         }
     }
 
+    private void completeFolderIfDone(String folderId) {
+        var paymentNoticeGenerationRequest = paymentGenerationRequestRepository.findById(folderId)
+                .orElseThrow();
+
+        if(paymentNoticeGenerationRequest.getStatus().equals(PaymentGenerationRequestStatus.PROCESSING)
+                && paymentNoticeGenerationRequest.getNumberOfElementsTotal()
+                <= paymentNoticeGenerationRequest.getItems().size() + paymentNoticeGenerationRequest.getNumberOfElementsFailed()
+                && paymentGenerationRequestRepository.findAndSetToComplete(folderId, UUID.randomUUID().toString(),
+                traceContextUtils.capture("complete")) > 0) {
+            // the complete event is queued by the same update and published by the outbox relay
+            MDC.put("massiveStatus", "COMPLETING");
+            log.info("Massive Request COMPLETING: {}", folderId);
+            MDC.remove("massiveStatus");
+        }
+    }
+
     /**
      * Generate a notice provided as a EH message
      *
-     * @param message content to use for generation process
+     * @param message     content to use for generation process
+     * @param contentType value of the contentType header, selecting the codec of the content
      */
     @Override
-    public void processNoticeGenerationEH(String message) {
+    public void processNoticeGenerationEH(byte[] message, Object contentType) {
         MDC.clear();
 
 
@@ -304,7 +552,24 @@ public class NoticeGenerationServiceImpl implements NoticeGenerationService {
 
         try {
 
-            noticeRequestEH = objectMapper.readValue(message, NoticeRequestEH.class);
+            NoticeEventCodec noticeEventCodec = noticeEventCodecRegistry.getCodec(contentType)
+                    .orElseThrow(() -> new IOException(String.format("Unsupported content type: %s", contentType)));
+            noticeRequestEH = noticeEventCodec.decode(message, NoticeRequestEH.class);
+            if(noticeRequestEH.getNoticeData() == null && noticeRequestEH.getPayloadReference() != null) {
+                // claim-check message, the notice data is stored on the payload storage
+                try {
+                    noticeRequestEH.setNoticeData(
+                            noticePayloadService.getNoticePayload(noticeRequestEH.getPayloadReference()));
+                } catch (IOException | RuntimeException e) {
+                    if(noticeRequestEH.getFolderId() == null) {
+                        // no folder to report to, recorded as an unreadable message
+                        throw e instanceof IOException ioException ? ioException : new IOException(e);
+                    }
+                    // retrying would fail again: the item is failed in its folder and the message consumed
+                    savePayloadErrorEvent(noticeRequestEH, message, contentType, e);
+                    return;
+                }
+            }
             MDC.put("folderId", noticeRequestEH.getFolderId());
             MDC.put("topic", "generation");
             MDC.put("action", "received");
@@ -313,7 +578,7 @@ public class NoticeGenerationServiceImpl implements NoticeGenerationService {
             MDC.remove("topic");
             MDC.remove("action");
 
-            log.info("Pre-Process a new Generation Request Event: {}", noticeRequestEH);
+            log.info("Pre-Process a new Generation Request Event: {}", payloadLogFormatter.format(noticeRequestEH));
 
             Set<ConstraintViolation<NoticeRequestEH>> constraintValidators = validator.validate(noticeRequestEH);
             if(!constraintValidators.isEmpty()) {
@@ -328,17 +593,22 @@ public class NoticeGenerationServiceImpl implements NoticeGenerationService {
             noticeGenerationRequestItem = noticeRequestEH.getNoticeData();
             errorId = noticeRequestEH.getErrorId();
 
-        } catch (JsonProcessingException e) {
+        } catch (IOException e) {
             try {
-                paymentGenerationRequestErrorRepository.save(
-                        PaymentNoticeGenerationRequestError.builder()
-                                .errorDescription("Unable to read EH message content")
-                                .folderId("UNKNOWN")
-                                .data(message != null ? aes256Utils.encrypt(message) : "EMPTY")
-                                .createdAt(Instant.now())
-                                .numberOfAttempts(0)
-                                .compressionError(false)
-                                .build());
+                PaymentNoticeGenerationRequestError unreadable = PaymentNoticeGenerationRequestError.builder()
+                        .errorDescription("Unable to read EH message content")
+                        .folderId("UNKNOWN")
+                        .createdAt(Instant.now())
+                        .numberOfAttempts(0)
+                        .compressionError(false)
+                        .build();
+                if (message != null) {
+                    errorDataUtils.setData(unreadable,
+                            getMessageContent(message, contentType).getBytes(StandardCharsets.UTF_8));
+                } else {
+                    unreadable.setData("EMPTY");
+                }
+                paymentGenerationRequestErrorRepository.save(unreadable);
                 MDC.put("itemStatus", "FAILED");
                 log.info("Failed Generation Event: {}", e.getMessage(), e);
                 MDC.remove("itemStatus");
@@ -350,10 +620,17 @@ public class NoticeGenerationServiceImpl implements NoticeGenerationService {
         }
 
         try {
-            if(noticeGenerationRequestItem != null && folderId != null) {
-                generateNotice(noticeGenerationRequestItem, folderId, errorId);
+            if(noticeGenerationRequestItem != null && folderId != null && errorId == null
+                    && noticeProcessedItemService.isProcessed(folderId, buildItemId(noticeGenerationRequestItem))) {
+                // redelivered message: the notice is already stored, only the folder completion may be missing
+                completeFolderIfDone(folderId);
+                MDC.put("itemStatus", "SKIPPED");
+                log.info("Skipped Generation Event: notice already stored in folder {}", folderId);
+                MDC.remove("itemStatus");
+            } else if(noticeGenerationRequestItem != null && folderId != null) {
+                generateNotice(noticeGenerationRequestItem, folderId, errorId, GenerationEntryPoint.KAFKA);
                 MDC.put("itemStatus", "SUCCESS");
-                log.info("Success Generation Event: {}", noticeRequestEH);
+                log.info("Success Generation Event: {}", payloadLogFormatter.format(noticeRequestEH));
                 MDC.remove("itemStatus");
             }
         } catch (Exception e) {
@@ -365,37 +642,35 @@ public class NoticeGenerationServiceImpl implements NoticeGenerationService {
 
     }
 
+    /**
+     * Returns the template data JSON, written directly from the request data unless the streaming
+     * writer is disabled, with the images of the barcodes when enabled
+     */
+    private String getTemplateData(NoticeRequestData noticeRequestData) throws IOException {
+        if (templateDataStreamingEnabled) {
+            return TemplateDataWriter.writeTemplateAsString(noticeRequestData, objectMapper.getFactory(), barcodeRenderer);
+        }
+        return paymentNoticeWriter.writeValueAsString(TemplateDataMapper.mapTemplate(noticeRequestData, barcodeRenderer));
+    }
+
+    /**
+     * Returns the content of an unreadable message as text, encoding the binary formats as Base64
+     */
+    private String getMessageContent(byte[] message, Object contentType) {
+        return noticeEventCodecRegistry.getCodec(contentType)
+                .filter(codec -> MimeTypeUtils.APPLICATION_JSON.equalsTypeAndSubtype(codec.getContentType()))
+                .map(codec -> new String(message, StandardCharsets.UTF_8))
+                .orElseGet(() -> Base64.getEncoder().encodeToString(message));
+    }
+
     private void saveErrorEvent(
             String errorId, String itemId, String folderId,
             NoticeGenerationRequestItem noticeGenerationRequestItem,
             String error) {
 
         try {
-
-            PaymentNoticeGenerationRequestError toSave =
-                    paymentGenerationRequestErrorRepository.findByErrorIdAndFolderId(errorId != null ?
-                            errorId : itemId, folderId).orElse(null);
-
-            if(toSave == null) {
-                toSave = PaymentNoticeGenerationRequestError.builder()
-                        .errorId(itemId)
-                        .errorDescription(error)
-                        .folderId(folderId)
-                        .data(aes256Utils.encrypt(objectMapper
-                                .writeValueAsString(noticeGenerationRequestItem)))
-                        .createdAt(Instant.now())
-                        .numberOfAttempts(0)
-                        .compressionError(false)
-                        .build();
-                paymentGenerationRequestRepository.findAndIncrementNumberOfElementsFailedById(folderId);
-            }
-            toSave.setErrorDescription(error);
-            PaymentNoticeGenerationRequestError paymentNoticeGenerationRequestError =
-                    paymentGenerationRequestErrorRepository.save(toSave);
-            noticeRequestErrorProducer.noticeError(paymentNoticeGenerationRequestError);
-            MDC.put("itemStatus", "FAILED");
-            log.info("Failed Generation Event: {}", toSave);
-            MDC.remove("itemStatus");
+            saveErrorEvent(errorId != null ? errorId : itemId, folderId,
+                    noticeGenerationRequestItemWriter.writeValueAsBytes(noticeGenerationRequestItem), error);
         } catch (Exception e) {
             log.error("Unable to save notice data into error repository for notice with folder {} and noticeId {}",
                     folderId,
@@ -405,10 +680,79 @@ public class NoticeGenerationServiceImpl implements NoticeGenerationService {
         }
     }
 
+    /**
+     * Saves the error of a claim-check message whose payload cannot be fetched. The notice data is not
+     * available, so the message itself is stored as data, keyed by its errorId or else by the payload blob
+     */
+    private void savePayloadErrorEvent(
+            NoticeRequestEH noticeRequestEH, byte[] message, Object contentType, Exception error) {
+
+        String errorId = noticeRequestEH.getErrorId() != null ?
+                noticeRequestEH.getErrorId() : noticeRequestEH.getPayloadReference().getBlobName();
+        try {
+            saveErrorEvent(errorId, noticeRequestEH.getFolderId(),
+                    getMessageContent(message, contentType).getBytes(StandardCharsets.UTF_8),
+                    String.format("Unable to fetch the notice payload %s: %s",
+                            noticeRequestEH.getPayloadReference().getBlobName(), error.getMessage()));
+        } catch (Exception e) {
+            log.error("Unable to save message into error repository for notice with folder {} and payload {}",
+                    noticeRequestEH.getFolderId(),
+                    noticeRequestEH.getPayloadReference().getBlobName(),
+                    e
+            );
+        }
+    }
+
+    private void saveErrorEvent(String errorId, String folderId, byte[] data, String error)
+            throws Aes256Exception, IOException {
+
+        PaymentNoticeGenerationRequestError toSave = PaymentNoticeGenerationRequestError.builder()
+                .id(new ObjectId().toHexString())
+                .errorId(errorId)
+                .errorDescription(error)
+                .folderId(folderId)
+                .createdAt(Instant.now())
+                .numberOfAttempts(1)
+                .compressionError(false)
+                .outbox(OutboxEvent.builder().traceContext(traceContextUtils.capture("error")).build())
+                .build();
+        errorDataUtils.setData(toSave, data);
+
+        // the error event is queued by the same upsert and published by the outbox relay
+        PaymentNoticeGenerationRequestError previous =
+                paymentGenerationRequestErrorRepository.findAndUpsertByErrorIdAndFolderId(toSave);
+
+        if(previous == null) {
+            paymentGenerationRequestRepository.findAndIncrementNumberOfElementsFailedById(folderId);
+        }
+
+        MDC.put("itemStatus", "FAILED");
+        log.info("Failed Generation Event: {}", payloadLogFormatter.format(toSave));
+        MDC.remove("itemStatus");
+    }
+
     private void findFolderIfExists(String folderId) {
         PaymentNoticeGenerationRequest ignored =
                 paymentGenerationRequestRepository.findById(folderId)
                         .orElseThrow(() -> new AppException(AppError.FOLDER_NOT_AVAILABLE));
     }
 
+    private static String sha256(byte[] value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Notice generated once for identical concurrent requests, with the number of requests still reading it
+     */
+    private static class SharedNotice {
+
+        private final CompletableFuture<File> notice = new CompletableFuture<>();
+
+        private final AtomicInteger readers = new AtomicInteger(1);
+    }
+
 }
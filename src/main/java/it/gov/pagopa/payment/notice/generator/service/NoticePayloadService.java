@@ -0,0 +1,14 @@
+package it.gov.pagopa.payment.notice.generator.service;
+
+import it.gov.pagopa.payment.notice.generator.model.NoticeGenerationRequestItem;
+import it.gov.pagopa.payment.notice.generator.model.NoticePayloadReference;
+
+import java.io.IOException;
+
+public interface NoticePayloadService {
+
+    NoticeGenerationRequestItem getNoticePayload(NoticePayloadReference payloadReference) throws IOException;
+
+    void prefetchNoticePayload(byte[] message, Object contentType);
+
+}
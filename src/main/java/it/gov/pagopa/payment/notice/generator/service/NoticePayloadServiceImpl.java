@@ -0,0 +1,143 @@
+package it.gov.pagopa.payment.notice.generator.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import it.gov.pagopa.payment.notice.generator.events.codec.NoticeEventCodec;
+import it.gov.pagopa.payment.notice.generator.events.codec.NoticeEventCodecRegistry;
+import it.gov.pagopa.payment.notice.generator.model.NoticeGenerationRequestItem;
+import it.gov.pagopa.payment.notice.generator.model.NoticePayloadReference;
+import it.gov.pagopa.payment.notice.generator.model.NoticeRequestEH;
+import it.gov.pagopa.payment.notice.generator.storage.NoticePayloadStorageClient;
+import it.gov.pagopa.payment.notice.generator.util.CompressionUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Services regarding the claim-check payloads of the notice generation messages
+ */
+@Service
+@Slf4j
+public class NoticePayloadServiceImpl implements NoticePayloadService {
+
+    private final NoticePayloadStorageClient noticePayloadStorageClient;
+
+    private final NoticeEventCodecRegistry noticeEventCodecRegistry;
+
+    private final ObjectReader noticeGenerationRequestItemReader;
+
+    private final ExecutorService prefetchExecutor;
+
+    private final AsyncLoadingCache<NoticePayloadReference, byte[]> payloadCache;
+
+    private final int prefetchMaxMessageSize;
+
+    @Autowired
+    public NoticePayloadServiceImpl(
+            NoticePayloadStorageClient noticePayloadStorageClient,
+            NoticeEventCodecRegistry noticeEventCodecRegistry,
+            ObjectMapper objectMapper,
+            @Value("${payload.cache.max-size-bytes}") long cacheMaxSizeBytes,
+            @Value("${payload.cache.expire-after-write}") Duration cacheExpireAfterWrite,
+            @Value("${payload.prefetch.threads}") int prefetchThreads,
+            @Value("${payload.prefetch.max-message-size}") int prefetchMaxMessageSize) {
+        this(noticePayloadStorageClient, noticeEventCodecRegistry, objectMapper, cacheMaxSizeBytes,
+                cacheExpireAfterWrite, Executors.newFixedThreadPool(prefetchThreads), prefetchMaxMessageSize);
+    }
+
+    NoticePayloadServiceImpl(
+            NoticePayloadStorageClient noticePayloadStorageClient,
+            NoticeEventCodecRegistry noticeEventCodecRegistry,
+            ObjectMapper objectMapper,
+            long cacheMaxSizeBytes,
+            Duration cacheExpireAfterWrite,
+            ExecutorService prefetchExecutor,
+            int prefetchMaxMessageSize) {
+        this.noticePayloadStorageClient = noticePayloadStorageClient;
+        this.noticeEventCodecRegistry = noticeEventCodecRegistry;
+        this.noticeGenerationRequestItemReader = objectMapper.readerFor(NoticeGenerationRequestItem.class);
+        this.prefetchExecutor = prefetchExecutor;
+        this.prefetchMaxMessageSize = prefetchMaxMessageSize;
+        // the decompressed payload is cached, and parsed on each use since the generation mutates the item
+        this.payloadCache = Caffeine.newBuilder()
+                .maximumWeight(cacheMaxSizeBytes)
+                .<NoticePayloadReference, byte[]>weigher((reference, payload) -> payload.length)
+                .expireAfterWrite(cacheExpireAfterWrite)
+                .executor(prefetchExecutor)
+                .buildAsync(this::loadPayload);
+    }
+
+    /**
+     * Retrieves the notice data referenced by a claim-check message, waiting for a prefetch already
+     * in progress for the same reference
+     *
+     * @param payloadReference reference to the payload on the storage
+     * @return the notice data
+     * @throws IOException if the payload cannot be decompressed or parsed
+     */
+    @Override
+    public NoticeGenerationRequestItem getNoticePayload(NoticePayloadReference payloadReference) throws IOException {
+        byte[] payload;
+        try {
+            payload = payloadCache.get(payloadReference).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+        return noticeGenerationRequestItemReader.readValue(payload);
+    }
+
+    /**
+     * Starts loading the payload referenced by a message in background, so that it is already available when
+     * the message is processed. Inline messages, and messages larger than a claim-check envelope, are ignored
+     *
+     * @param message     content of the generation message
+     * @param contentType value of the contentType header of the message
+     */
+    @Override
+    public void prefetchNoticePayload(byte[] message, Object contentType) {
+        Optional<NoticeEventCodec> noticeEventCodec = noticeEventCodecRegistry.getCodec(contentType);
+        if (message == null || message.length > prefetchMaxMessageSize || noticeEventCodec.isEmpty()) {
+            return;
+        }
+        try {
+            NoticeRequestEH noticeRequestEH = noticeEventCodec.get().decode(message, NoticeRequestEH.class);
+            NoticePayloadReference payloadReference = noticeRequestEH.getPayloadReference();
+            if (noticeRequestEH.getNoticeData() == null && payloadReference != null
+                    && payloadReference.getBlobName() != null) {
+                payloadCache.get(payloadReference);
+            }
+        } catch (IOException e) {
+            // unreadable messages are reported by the consumer
+            log.debug("Skipped payload prefetch for unreadable message: {}", e.getMessage());
+        }
+    }
+
+    private byte[] loadPayload(NoticePayloadReference payloadReference) throws IOException {
+        return CompressionUtils.decompress(
+                noticePayloadStorageClient.getPayload(payloadReference.getBlobName()),
+                payloadReference.getCompression());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        prefetchExecutor.shutdown();
+    }
+
+}
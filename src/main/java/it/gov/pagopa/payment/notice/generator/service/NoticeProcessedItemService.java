@@ -0,0 +1,9 @@
+package it.gov.pagopa.payment.notice.generator.service;
+
+public interface NoticeProcessedItemService {
+
+    boolean isProcessed(String folderId, String itemId);
+
+    void markProcessed(String folderId, String itemId);
+
+}
@@ -0,0 +1,177 @@
+package it.gov.pagopa.payment.notice.generator.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeProcessedItem;
+import it.gov.pagopa.payment.notice.generator.repository.PaymentNoticeProcessedItemRepository;
+import it.gov.pagopa.payment.notice.generator.util.BloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import static it.gov.pagopa.payment.notice.generator.config.MongoIndexConfig.PROCESSED_ITEM_TTL;
+
+/**
+ * Keeps track of the notices already stored into their folder, so that a generation message redelivered
+ * after a rebalance or a crash does not render the same notice again.
+ * <p>
+ * The Mongo collection is shared by all the instances and expires its entries by TTL index. Items seen
+ * by this instance are also kept in a bounded in-memory cache, which only holds positive answers.
+ * <p>
+ * The negative answers, the common case on the first delivery, come from a bloom filter of the ids in
+ * the collection: it is seeded on the first refresh, then kept up to date with the items recorded by
+ * every instance, well within the consumer session timeout after which a crashed instance's messages
+ * are redelivered. Only the ids the filter might contain, and all of them before the first refresh, are
+ * checked against the collection. The filter is rebuilt once per TTL, so that expired ids do not pile
+ * up and raise its false positive rate.
+ */
+@Service
+@Slf4j
+public class NoticeProcessedItemServiceImpl implements NoticeProcessedItemService {
+
+    private static final Duration FILTER_REFRESH_OVERLAP = Duration.ofMinutes(1);
+
+    private final PaymentNoticeProcessedItemRepository paymentNoticeProcessedItemRepository;
+
+    private final Cache<String, Boolean> processedItems;
+
+    private final boolean enabled;
+
+    private final long filterExpectedItems;
+
+    private final double filterFalsePositiveProbability;
+
+    private volatile BloomFilter processedIds;
+
+    private Instant filterRebuiltAt;
+
+    private Instant filterRefreshedAt;
+
+    public NoticeProcessedItemServiceImpl(
+            PaymentNoticeProcessedItemRepository paymentNoticeProcessedItemRepository,
+            @Value("${processed.item.store.enabled}") boolean enabled,
+            @Value("${processed.item.cache.max-size}") long cacheMaxSize,
+            @Value("${processed.item.cache.expire-after-write}") Duration cacheExpireAfterWrite,
+            @Value("${processed.item.filter.expected-items}") long filterExpectedItems,
+            @Value("${processed.item.filter.false-positive-probability}") double filterFalsePositiveProbability) {
+        this.paymentNoticeProcessedItemRepository = paymentNoticeProcessedItemRepository;
+        this.enabled = enabled;
+        this.processedItems = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(cacheExpireAfterWrite)
+                .build();
+        this.filterExpectedItems = filterExpectedItems;
+        this.filterFalsePositiveProbability = filterFalsePositiveProbability;
+    }
+
+    /**
+     * Adds to the filter the items recorded since the previous refresh, by any instance. The first
+     * refresh, and the first one after a TTL, builds a new filter from the whole collection. The
+     * queries overlap by a margin, to cover the clock skew between the instances
+     */
+    @Scheduled(fixedDelayString = "${processed.item.filter.refresh-delay}")
+    public synchronized void refreshFilter() {
+        if (!enabled) {
+            return;
+        }
+        Instant now = Instant.now();
+        try {
+            if (processedIds == null || filterRebuiltAt.isBefore(now.minus(PROCESSED_ITEM_TTL))) {
+                BloomFilter rebuilt = new BloomFilter(filterExpectedItems, filterFalsePositiveProbability);
+                long count = addProcessedIds(rebuilt, now.minus(PROCESSED_ITEM_TTL));
+                // the items recorded by this instance during the rebuild are marked on the old filter
+                BloomFilter previous = processedIds;
+                processedIds = rebuilt;
+                if (previous != null) {
+                    addProcessedIds(rebuilt, filterRefreshedAt.minus(FILTER_REFRESH_OVERLAP));
+                }
+                filterRebuiltAt = now;
+                log.info("Processed item filter built with {} items", count);
+            } else {
+                addProcessedIds(processedIds, filterRefreshedAt.minus(FILTER_REFRESH_OVERLAP));
+            }
+            filterRefreshedAt = now;
+        } catch (Exception e) {
+            log.error("Unable to refresh the processed item filter", e);
+        }
+    }
+
+    private long addProcessedIds(BloomFilter filter, Instant since) {
+        try (Stream<PaymentNoticeProcessedItem> items =
+                     paymentNoticeProcessedItemRepository.findIdsByCreatedAtGreaterThanEqual(since)) {
+            long count = 0;
+            for (Iterator<PaymentNoticeProcessedItem> iterator = items.iterator(); iterator.hasNext(); count++) {
+                filter.put(iterator.next().getId());
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Checks if a notice has already been stored into the folder
+     *
+     * @param folderId folder of the notice
+     * @param itemId   computed id of the notice
+     * @return true if the notice is already stored
+     */
+    @Override
+    public boolean isProcessed(String folderId, String itemId) {
+        if (!enabled) {
+            return false;
+        }
+        String id = getId(folderId, itemId);
+        if (processedItems.getIfPresent(id) != null) {
+            return true;
+        }
+        BloomFilter filter = processedIds;
+        if (filter != null && !filter.mightContain(id)) {
+            return false;
+        }
+        boolean processed = paymentNoticeProcessedItemRepository.existsById(id);
+        if (processed) {
+            processedItems.put(id, Boolean.TRUE);
+        }
+        return processed;
+    }
+
+    /**
+     * Records a notice as stored into the folder. Failures are logged and ignored, since they only
+     * cost a new rendering on redelivery
+     *
+     * @param folderId folder of the notice
+     * @param itemId   computed id of the notice
+     */
+    @Override
+    public void markProcessed(String folderId, String itemId) {
+        if (!enabled) {
+            return;
+        }
+        String id = getId(folderId, itemId);
+        try {
+            paymentNoticeProcessedItemRepository.save(PaymentNoticeProcessedItem.builder()
+                    .id(id)
+                    .folderId(folderId)
+                    .itemId(itemId)
+                    .createdAt(Instant.now())
+                    .build());
+            processedItems.put(id, Boolean.TRUE);
+            BloomFilter filter = processedIds;
+            if (filter != null) {
+                filter.put(id);
+            }
+        } catch (Exception e) {
+            log.error("Unable to record the processed item {} of folder {}", itemId, folderId, e);
+        }
+    }
+
+    private String getId(String folderId, String itemId) {
+        return String.join("/", folderId, itemId);
+    }
+
+}
@@ -0,0 +1,11 @@
+package it.gov.pagopa.payment.notice.generator.service;
+
+import java.io.File;
+
+public interface PdfOptimizationService {
+
+    boolean isEnabled(String templateId);
+
+    File optimize(File pdf, String templateId);
+
+}
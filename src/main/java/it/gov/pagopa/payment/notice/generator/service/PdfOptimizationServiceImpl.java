@@ -0,0 +1,227 @@
+package it.gov.pagopa.payment.notice.generator.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import it.gov.pagopa.payment.notice.generator.model.pdf.PdfOptimizationSettings;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.graphics.PDXObject;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Optimizes the generated PDFs before their upload to the blob storage: the images larger than the
+ * configured size, mostly the logos of the creditor institutions, are downsampled and the streams left
+ * uncompressed by the engine are compressed. The defaults can be overridden by template.
+ * <p>
+ * The optimization is best effort: a PDF that fails to be optimized, or that would not get smaller,
+ * is uploaded as generated.
+ */
+@Service
+@Slf4j
+public class PdfOptimizationServiceImpl implements PdfOptimizationService {
+
+    public static final String INPUT_BYTES_COUNTER = "notice.pdf.optimization.input";
+    public static final String SAVED_BYTES_COUNTER = "notice.pdf.optimization.saved";
+
+    private static final Set<COSName> UNCOMPRESSED_TYPES = Set.of(COSName.XREF, COSName.OBJ_STM, COSName.METADATA);
+
+    private final MeterRegistry meterRegistry;
+
+    private final PdfOptimizationSettings defaultSettings;
+
+    private final Map<String, PdfOptimizationSettings> templateSettings;
+
+    @Autowired
+    public PdfOptimizationServiceImpl(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${pdf.optimization.enabled}") boolean enabled,
+            @Value("${pdf.optimization.image-max-size}") int imageMaxSize,
+            @Value("${pdf.optimization.image-quality}") float imageQuality,
+            @Value("${pdf.optimization.compress-streams}") boolean compressStreams,
+            @Value("${pdf.optimization.templates}") String templateSettings) throws JsonProcessingException {
+        this(meterRegistry, new PdfOptimizationSettings(enabled, imageMaxSize, imageQuality, compressStreams),
+                templateSettings.isBlank() ? Map.of() :
+                        objectMapper.readValue(templateSettings, new TypeReference<Map<String, PdfOptimizationSettings>>() {
+                        }));
+    }
+
+    PdfOptimizationServiceImpl(
+            MeterRegistry meterRegistry,
+            PdfOptimizationSettings defaultSettings,
+            Map<String, PdfOptimizationSettings> templateSettings) {
+        this.meterRegistry = meterRegistry;
+        this.defaultSettings = defaultSettings;
+        this.templateSettings = Map.copyOf(templateSettings);
+    }
+
+    @Override
+    public boolean isEnabled(String templateId) {
+        return Boolean.TRUE.equals(getSettings(templateId).getEnabled());
+    }
+
+    /**
+     * Optimizes the PDF with the settings of its template
+     *
+     * @param pdf        generated PDF
+     * @param templateId template of the notice
+     * @return the optimized PDF, in the same directory, or the given one if it could not be made smaller
+     */
+    @Override
+    public File optimize(File pdf, String templateId) {
+        PdfOptimizationSettings settings = getSettings(templateId);
+        long inputBytes = pdf.length();
+        File optimizedPdf = null;
+        try (PDDocument document = PDDocument.load(pdf)) {
+            int images = downsampleImages(document, settings);
+            int streams = Boolean.TRUE.equals(settings.getCompressStreams()) ? compressStreams(document) : 0;
+            optimizedPdf = File.createTempFile("optimized", ".pdf", pdf.getParentFile());
+            document.save(optimizedPdf);
+
+            long savedBytes = inputBytes - optimizedPdf.length();
+            meterRegistry.counter(INPUT_BYTES_COUNTER, "templateId", String.valueOf(templateId)).increment(inputBytes);
+            if (savedBytes <= 0) {
+                Files.delete(optimizedPdf.toPath());
+                return pdf;
+            }
+            meterRegistry.counter(SAVED_BYTES_COUNTER, "templateId", String.valueOf(templateId)).increment(savedBytes);
+            log.debug("Optimized PDF of template {}: {} images downsampled, {} streams compressed, {} bytes saved",
+                    templateId, images, streams, savedBytes);
+            Files.delete(pdf.toPath());
+            return optimizedPdf;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unable to optimize the PDF of template {}, keeping it as generated", templateId, e);
+            if (optimizedPdf != null) {
+                optimizedPdf.delete();
+            }
+            return pdf;
+        }
+    }
+
+    /**
+     * @return the default settings with the overrides of the template in place
+     */
+    PdfOptimizationSettings getSettings(String templateId) {
+        return defaultSettings.overriddenBy(templateId != null ? templateSettings.get(templateId) : null);
+    }
+
+    private int downsampleImages(PDDocument document, PdfOptimizationSettings settings) throws IOException {
+        if (settings.getImageMaxSize() == null || settings.getImageMaxSize() <= 0) {
+            return 0;
+        }
+        // images shared by more pages or forms are downsampled once and replaced everywhere
+        Map<COSStream, PDImageXObject> replacements = new IdentityHashMap<>();
+        Set<COSStream> visitedForms = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (PDPage page : document.getPages()) {
+            downsampleImages(document, page.getResources(), settings, replacements, visitedForms);
+        }
+        return (int) replacements.entrySet().stream()
+                .filter(replacement -> replacement.getKey() != replacement.getValue().getCOSObject())
+                .count();
+    }
+
+    private void downsampleImages(PDDocument document, PDResources resources, PdfOptimizationSettings settings,
+                                  Map<COSStream, PDImageXObject> replacements, Set<COSStream> visitedForms)
+            throws IOException {
+        if (resources == null) {
+            return;
+        }
+        for (COSName name : resources.getXObjectNames()) {
+            PDXObject xObject = resources.getXObject(name);
+            if (xObject instanceof PDFormXObject form && visitedForms.add(form.getCOSObject())) {
+                downsampleImages(document, form.getResources(), settings, replacements, visitedForms);
+            } else if (xObject instanceof PDImageXObject image) {
+                PDImageXObject replacement = replacements.get(image.getCOSObject());
+                if (replacement == null) {
+                    replacement = downsample(document, image, settings);
+                    replacements.put(image.getCOSObject(), replacement);
+                }
+                if (replacement != image) {
+                    resources.put(name, replacement);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the image scaled to the maximum size, keeping the JPEG encoding of the photos and a lossless
+     * one for the others, or the image itself if already small enough
+     */
+    private PDImageXObject downsample(PDDocument document, PDImageXObject image, PdfOptimizationSettings settings)
+            throws IOException {
+        int maxSize = settings.getImageMaxSize();
+        if (image.isStencil() || Math.max(image.getWidth(), image.getHeight()) <= maxSize) {
+            return image;
+        }
+        double scale = (double) maxSize / Math.max(image.getWidth(), image.getHeight());
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+
+        // the soft mask, if any, is applied to the image and encoded again by the factories
+        BufferedImage original = image.getImage();
+        BufferedImage scaled = new BufferedImage(width, height,
+                original.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.drawImage(original, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return "jpg".equals(image.getSuffix()) ?
+                JPEGFactory.createFromImage(document, scaled, settings.getImageQuality()) :
+                LosslessFactory.createFromImage(document, scaled);
+    }
+
+    /**
+     * Compresses with Flate the streams without filters, leaving out the ones that must stay readable
+     *
+     * @return the number of streams compressed
+     */
+    private int compressStreams(PDDocument document) throws IOException {
+        int compressed = 0;
+        for (COSObject object : document.getDocument().getObjects()) {
+            COSBase base = object.getObject();
+            if (base instanceof COSStream stream && stream.getFilters() == null
+                    && !UNCOMPRESSED_TYPES.contains(stream.getCOSName(COSName.TYPE))) {
+                byte[] data;
+                try (InputStream input = stream.createRawInputStream()) {
+                    data = input.readAllBytes();
+                }
+                try (OutputStream output = stream.createOutputStream(COSName.FLATE_DECODE)) {
+                    output.write(data);
+                }
+                compressed++;
+            }
+        }
+        return compressed;
+    }
+
+}
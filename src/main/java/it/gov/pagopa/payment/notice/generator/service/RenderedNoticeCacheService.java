@@ -0,0 +1,17 @@
+package it.gov.pagopa.payment.notice.generator.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+public interface RenderedNoticeCacheService {
+
+    boolean isEnabled();
+
+    String buildKey(String templateId, File templateFile, String templateData) throws IOException;
+
+    File get(String key, Path workingDirPath);
+
+    void put(String key, File pdf);
+
+}
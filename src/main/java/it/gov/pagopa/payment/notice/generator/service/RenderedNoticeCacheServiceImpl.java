@@ -0,0 +1,274 @@
+package it.gov.pagopa.payment.notice.generator.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import it.gov.pagopa.payment.notice.generator.storage.RenderedNoticeStorageClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Cache of the rendered notices, keyed by a hash of the template, its version and the template data, so that
+ * recovered errors, redelivered messages and regenerations of an unchanged notice are not rendered again.
+ * <p>
+ * The PDFs are kept on the local disk within a byte budget, the least used being evicted first, and
+ * optionally on the Blob Storage, shared by all the instances and looked up on a local miss.
+ * The cache is best effort: any error reading or writing a tier is logged and treated as a miss.
+ */
+@Service
+@Slf4j
+public class RenderedNoticeCacheServiceImpl implements RenderedNoticeCacheService {
+
+    public static final String HIT_COUNTER = "notice.pdf.cache.hit";
+    public static final String MISS_COUNTER = "notice.pdf.cache.miss";
+    public static final String SIZE_GAUGE = "notice.pdf.cache.size";
+
+    public static final String TIER_DISK = "disk";
+    public static final String TIER_BLOB = "blob";
+
+    private static final String PDF_SUFFIX = ".pdf";
+
+    private final RenderedNoticeStorageClient renderedNoticeStorageClient;
+
+    private final MeterRegistry meterRegistry;
+
+    private final boolean enabled;
+
+    private final Path directory;
+
+    /**
+     * Size of the PDFs on disk, by key
+     */
+    private final Cache<String, Long> diskCache;
+
+    /**
+     * Content hash of the template zips, by version of the local file
+     */
+    private final Cache<TemplateVersion, String> templateHashes;
+
+    @Autowired
+    public RenderedNoticeCacheServiceImpl(
+            RenderedNoticeStorageClient renderedNoticeStorageClient,
+            MeterRegistry meterRegistry,
+            @Value("${pdf.cache.enabled}") boolean enabled,
+            @Value("${pdf.cache.directory}") String directory,
+            @Value("${pdf.cache.max-size-bytes}") long maxSizeBytes) throws IOException {
+        this.renderedNoticeStorageClient = renderedNoticeStorageClient;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.directory = Path.of(directory).normalize().toAbsolutePath();
+        this.diskCache = Caffeine.newBuilder()
+                .maximumWeight(maxSizeBytes)
+                .<String, Long>weigher((key, size) -> (int) Math.min(size, Integer.MAX_VALUE))
+                .<String, Long>evictionListener((key, size, cause) -> deleteQuietly(pathOf(key)))
+                .build();
+        this.templateHashes = Caffeine.newBuilder()
+                .maximumSize(100)
+                .build();
+        if (enabled) {
+            Files.createDirectories(this.directory);
+            indexDirectory();
+            Gauge.builder(SIZE_GAUGE, diskCache, cache -> cache.policy().eviction()
+                            .map(eviction -> eviction.weightedSize().orElse(0))
+                            .orElse(0L))
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Builds the key of a rendered notice, stable across the instances and the restarts
+     *
+     * @param templateId   template of the notice
+     * @param templateFile local copy of the template zip
+     * @param templateData data the template is filled with
+     * @return hex SHA-256 of the template id, the content of the zip and the data
+     * @throws IOException if the template cannot be read
+     */
+    @Override
+    public String buildKey(String templateId, File templateFile, String templateData) throws IOException {
+        String templateHash;
+        try {
+            templateHash = templateHashes.get(new TemplateVersion(templateFile.getAbsolutePath(),
+                    templateFile.lastModified(), templateFile.length()), this::hashTemplate);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        MessageDigest digest = sha256();
+        digest.update(templateId.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(templateHash.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(templateData.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Looks up a rendered notice on disk and then on the Blob Storage, keeping on disk the ones found there
+     *
+     * @param key            key of the notice
+     * @param workingDirPath directory of the generation
+     * @return a copy of the PDF in the working directory, null on miss
+     */
+    @Override
+    public File get(String key, Path workingDirPath) {
+        try {
+            File target = File.createTempFile("tempFile", PDF_SUFFIX, workingDirPath.toFile());
+            if (diskCache.getIfPresent(key) != null) {
+                try {
+                    Files.copy(pathOf(key), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                    hit(TIER_DISK);
+                    return target;
+                } catch (NoSuchFileException e) {
+                    // evicted in the meantime
+                    diskCache.invalidate(key);
+                }
+            }
+            if (renderedNoticeStorageClient.isEnabled() && getFromBlob(key, target.toPath())) {
+                hit(TIER_BLOB);
+                store(key, target.toPath());
+                return target;
+            }
+            Files.delete(target.toPath());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unable to read rendered notice {} from the cache", key, e);
+        }
+        meterRegistry.counter(MISS_COUNTER).increment();
+        return null;
+    }
+
+    /**
+     * Stores a rendered notice on disk and on the Blob Storage, if enabled
+     *
+     * @param key key of the notice
+     * @param pdf rendered PDF, left in place
+     */
+    @Override
+    public void put(String key, File pdf) {
+        try {
+            if (diskCache.getIfPresent(key) == null) {
+                store(key, pdf.toPath());
+            }
+            if (renderedNoticeStorageClient.isEnabled()) {
+                renderedNoticeStorageClient.savePdf(key, pdf.toPath());
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unable to store rendered notice {} in the cache", key, e);
+        }
+    }
+
+    private boolean getFromBlob(String key, Path target) {
+        try {
+            return renderedNoticeStorageClient.getPdf(key, target);
+        } catch (RuntimeException e) {
+            log.warn("Unable to read rendered notice {} from the Blob Storage", key, e);
+            return false;
+        }
+    }
+
+    /**
+     * Copies the PDF into the cache directory, moving it under its key once complete so that a partial
+     * file is never served
+     */
+    private void store(String key, Path source) throws IOException {
+        Path partial = Files.createTempFile(directory, key, ".tmp");
+        try {
+            Files.copy(source, partial, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(partial, pathOf(key), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+        diskCache.put(key, Files.size(pathOf(key)));
+        // evicts right away, so that the disk usage never grows beyond the budget between maintenances
+        diskCache.cleanUp();
+    }
+
+    /**
+     * Indexes the PDFs left by a previous run, the most recent being the last evicted, and removes the
+     * partial ones
+     */
+    private void indexDirectory() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(Files::isRegularFile).toList();
+        }
+        files.stream()
+                .filter(file -> !file.getFileName().toString().endsWith(PDF_SUFFIX))
+                .forEach(RenderedNoticeCacheServiceImpl::deleteQuietly);
+        files.stream()
+                .filter(file -> file.getFileName().toString().endsWith(PDF_SUFFIX))
+                .sorted(Comparator.comparingLong(file -> file.toFile().lastModified()))
+                .forEach(file -> {
+                    String name = file.getFileName().toString();
+                    diskCache.put(name.substring(0, name.length() - PDF_SUFFIX.length()), file.toFile().length());
+                });
+        log.info("Indexed {} rendered notices in {}", diskCache.estimatedSize(), directory);
+    }
+
+    private String hashTemplate(TemplateVersion templateVersion) {
+        MessageDigest digest = sha256();
+        try (InputStream input = new DigestInputStream(Files.newInputStream(Path.of(templateVersion.path())), digest)) {
+            input.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void hit(String tier) {
+        meterRegistry.counter(HIT_COUNTER, "tier", tier).increment();
+    }
+
+    private Path pathOf(String key) {
+        return directory.resolve(key.concat(PDF_SUFFIX));
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Unable to delete {} from the rendered notice cache", path, e);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Local copy of a template zip, changing when the zip is downloaded again
+     */
+    private record TemplateVersion(String path, long lastModified, long length) {
+    }
+
+}
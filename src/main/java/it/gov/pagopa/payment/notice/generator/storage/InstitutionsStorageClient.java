@@ -11,6 +11,7 @@ import com.azure.storage.blob.options.BlobDownloadToFileOptions;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import it.gov.pagopa.payment.notice.generator.exception.AppError;
 import it.gov.pagopa.payment.notice.generator.exception.AppException;
+import it.gov.pagopa.payment.notice.generator.jfr.InstitutionFetchEvent;
 import it.gov.pagopa.payment.notice.generator.model.notice.CreditorInstitution;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -68,10 +69,14 @@ public class InstitutionsStorageClient {
         if (blobContainerClient == null) {
             throw new AppException(AppError.TEMPLATE_CLIENT_UNAVAILABLE);
         }
+        InstitutionFetchEvent event = new InstitutionFetchEvent();
+        event.begin();
         try {
             BinaryData jsonData = blobContainerClient.getBlobClient(institutionCode.concat("/data.json"))
                     .downloadContent();
-            return objectMapper.readValue(jsonData.toBytes(), CreditorInstitution.class);
+            byte[] json = jsonData.toBytes();
+            event.bytes = json.length;
+            return objectMapper.readValue(json, CreditorInstitution.class);
         } catch (BlobStorageException blobStorageException) {
             log.error(blobStorageException.getMessage(), blobStorageException);
             throw new AppException(AppError.INSTITUTION_NOT_FOUND, blobStorageException);
@@ -79,6 +84,8 @@ public class InstitutionsStorageClient {
             log.error(ioException.getMessage(), ioException);
             throw new AppException(AppError.INSTITUTION_PARSING_ERROR, ioException);
 
+        } finally {
+            event.commit();
         }
     }
 
@@ -0,0 +1,59 @@
+package it.gov.pagopa.payment.notice.generator.storage;
+
+import com.azure.storage.blob.BlobContainerClient;
+import com.azure.storage.blob.BlobServiceClient;
+import com.azure.storage.blob.BlobServiceClientBuilder;
+import com.azure.storage.blob.models.BlobStorageException;
+import it.gov.pagopa.payment.notice.generator.exception.AppError;
+import it.gov.pagopa.payment.notice.generator.exception.AppException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class NoticePayloadStorageClient {
+
+    private BlobContainerClient blobContainerClient;
+
+    @Autowired
+    public NoticePayloadStorageClient(
+            @Value("${spring.cloud.azure.storage.blob.payloads.enabled}") String enabled,
+            @Value("${spring.cloud.azure.storage.blob.payloads.connection_string}") String connectionString,
+            @Value("${spring.cloud.azure.storage.blob.payloads.containerName}") String containerName) {
+        if (Boolean.TRUE.toString().equals(enabled)) {
+            BlobServiceClient blobServiceClient = new BlobServiceClientBuilder()
+                    .connectionString(connectionString).buildClient();
+            blobContainerClient = blobServiceClient.getBlobContainerClient(containerName);
+        }
+    }
+
+    public NoticePayloadStorageClient(
+            Boolean enabled,
+            BlobContainerClient blobContainerClient) {
+        if (Boolean.TRUE.equals(enabled)) {
+            this.blobContainerClient = blobContainerClient;
+        }
+    }
+
+    /**
+     * Retrieve a claim-check payload from the Blob Storage, as stored by the producer
+     *
+     * @param blobName the name of the blob holding the payload
+     * @return the raw, possibly compressed, content of the blob
+     * @throws AppException thrown for error when retrieving the payload
+     */
+    public byte[] getPayload(String blobName) {
+        if (blobContainerClient == null) {
+            throw new AppException(AppError.PAYLOAD_CLIENT_UNAVAILABLE);
+        }
+        try {
+            return blobContainerClient.getBlobClient(blobName).downloadContent().toBytes();
+        } catch (BlobStorageException blobStorageException) {
+            log.error(blobStorageException.getMessage(), blobStorageException);
+            throw new AppException(AppError.PAYLOAD_NOT_FOUND, blobStorageException);
+        }
+    }
+
+}
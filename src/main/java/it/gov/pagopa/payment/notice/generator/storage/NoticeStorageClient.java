@@ -7,6 +7,8 @@ import com.azure.storage.blob.BlobServiceClient;
 import com.azure.storage.blob.BlobServiceClientBuilder;
 import com.azure.storage.blob.models.BlockBlobItem;
 import com.azure.storage.blob.options.BlobParallelUploadOptions;
+import it.gov.pagopa.payment.notice.generator.jfr.BlobUploadEvent;
+import org.apache.commons.io.input.CountingInputStream;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
@@ -47,20 +49,29 @@ public class NoticeStorageClient {
      */
     public boolean savePdfToBlobStorage(InputStream pdf, String folderId, String fileName) {
 
-        //Get a reference to a blob
-        BlobClient blobClient = blobContainerClient.getBlobClient(String.join("/", folderId,
-                fileName.concat(".pdf")));
+        BlobUploadEvent event = new BlobUploadEvent();
+        event.begin();
+        CountingInputStream countingPdf = new CountingInputStream(pdf);
+        try {
+            //Get a reference to a blob
+            BlobClient blobClient = blobContainerClient.getBlobClient(String.join("/", folderId,
+                    fileName.concat(".pdf")));
 
-        //Upload the blob
-        Response<BlockBlobItem> blockBlobItemResponse = blobClient.uploadWithResponse(
-                new BlobParallelUploadOptions(
-                        pdf
-                ), null, null);
+            //Upload the blob
+            Response<BlockBlobItem> blockBlobItemResponse = blobClient.uploadWithResponse(
+                    new BlobParallelUploadOptions(
+                            countingPdf
+                    ), null, null);
 
-        //Build response accordingly
-        int statusCode = blockBlobItemResponse.getStatusCode();
+            //Build response accordingly
+            int statusCode = blockBlobItemResponse.getStatusCode();
 
-        return statusCode == HttpStatus.CREATED.value();
+            return statusCode == HttpStatus.CREATED.value();
+        } finally {
+            event.folderId = folderId;
+            event.bytes = countingPdf.getByteCount();
+            event.commit();
+        }
 
     }
 
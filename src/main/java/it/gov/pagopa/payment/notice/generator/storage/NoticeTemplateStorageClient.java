@@ -12,6 +12,7 @@ import com.azure.storage.blob.models.DownloadRetryOptions;
 import com.azure.storage.blob.options.BlobDownloadToFileOptions;
 import it.gov.pagopa.payment.notice.generator.exception.AppError;
 import it.gov.pagopa.payment.notice.generator.exception.AppException;
+import it.gov.pagopa.payment.notice.generator.jfr.TemplateFetchEvent;
 import it.gov.pagopa.payment.notice.generator.model.TemplateResource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -87,6 +88,8 @@ public class NoticeTemplateStorageClient {
         if (blobContainerClient == null) {
             throw new AppException(AppError.TEMPLATE_CLIENT_UNAVAILABLE);
         }
+        TemplateFetchEvent event = new TemplateFetchEvent();
+        event.begin();
         String filePath = createTemplatesDirectory(templateId);
         try {
             if (!new File(filePath).exists()) {
@@ -96,9 +99,14 @@ public class NoticeTemplateStorageClient {
                                 Duration.ofSeconds(timeout),
                                 Context.NONE);
             }
-            return new File(filePath);
+            File template = new File(filePath);
+            event.bytes = template.length();
+            return template;
         } catch (BlobStorageException blobStorageException) {
             throw new AppException(AppError.TEMPLATE_NOT_FOUND, blobStorageException);
+        } finally {
+            event.templateId = templateId;
+            event.commit();
         }
     }
 
@@ -0,0 +1,76 @@
+package it.gov.pagopa.payment.notice.generator.storage;
+
+import com.azure.storage.blob.BlobContainerClient;
+import com.azure.storage.blob.BlobServiceClient;
+import com.azure.storage.blob.BlobServiceClientBuilder;
+import com.azure.storage.blob.models.BlobStorageException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+/**
+ * Shared tier of the rendered notice cache, holding the PDFs by content hash
+ */
+@Component
+public class RenderedNoticeStorageClient {
+
+    private BlobContainerClient blobContainerClient;
+
+    @Autowired
+    public RenderedNoticeStorageClient(
+            @Value("${spring.cloud.azure.storage.blob.rendered.enabled}") String enabled,
+            @Value("${spring.cloud.azure.storage.blob.rendered.connection_string}") String connectionString,
+            @Value("${spring.cloud.azure.storage.blob.rendered.containerName}") String containerName) {
+        if (Boolean.TRUE.toString().equals(enabled)) {
+            BlobServiceClient blobServiceClient = new BlobServiceClientBuilder()
+                    .connectionString(connectionString).buildClient();
+            blobContainerClient = blobServiceClient.getBlobContainerClient(containerName);
+        }
+    }
+
+    public RenderedNoticeStorageClient(
+            Boolean enabled,
+            BlobContainerClient blobContainerClient) {
+        if (Boolean.TRUE.equals(enabled)) {
+            this.blobContainerClient = blobContainerClient;
+        }
+    }
+
+    public boolean isEnabled() {
+        return blobContainerClient != null;
+    }
+
+    /**
+     * Downloads a rendered PDF from the Blob Storage
+     *
+     * @param key    content hash of the PDF
+     * @param target file to write the PDF to, overwritten
+     * @return false if there is no PDF with the given key
+     * @throws BlobStorageException thrown for any other error of the storage
+     */
+    public boolean getPdf(String key, Path target) {
+        try {
+            blobContainerClient.getBlobClient(key.concat(".pdf")).downloadToFile(target.toString(), true);
+            return true;
+        } catch (BlobStorageException blobStorageException) {
+            if (blobStorageException.getStatusCode() == HttpStatus.NOT_FOUND.value()) {
+                return false;
+            }
+            throw blobStorageException;
+        }
+    }
+
+    /**
+     * Uploads a rendered PDF to the Blob Storage, replacing the one with the same key if any
+     *
+     * @param key    content hash of the PDF
+     * @param source file of the PDF
+     */
+    public void savePdf(String key, Path source) {
+        blobContainerClient.getBlobClient(key.concat(".pdf")).uploadFromFile(source.toString(), true);
+    }
+
+}
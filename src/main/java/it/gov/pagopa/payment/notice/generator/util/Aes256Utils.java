@@ -11,20 +11,33 @@ import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.PBEKeySpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
 import java.security.spec.KeySpec;
+import java.util.ArrayList;
 import java.util.Base64;
-
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * AES-256 CBC encryption of the data stored with the generation errors, as Base64 of the IV followed
+ * by the ciphertext.
+ * <p>
+ * The keys are derived once, when the component is created, and each thread reuses its own
+ * {@link Cipher} instance. Data is always encrypted with the current key; decryption also accepts
+ * the previous key, if configured, so that records written before a key rotation stay readable.
+ */
 @Component
 public class Aes256Utils {
 
-    private String aesSecretKey;
-
-    private String aesSalt;
-
     private static final int KEY_LENGTH = 256;
     private static final int ITERATION_COUNT = 65536;
+    private static final int IV_LENGTH = 16;
     public static final String PBKDF_2_WITH_HMAC_SHA_256 = "PBKDF2WithHmacSHA256";
     public static final String AES_CBC_PKCS_5_PADDING = "AES/CBC/PKCS5Padding";
 
@@ -32,42 +45,157 @@ public class Aes256Utils {
 
     private static final int AES_UNEXPECTED_ERROR = 701;
 
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    //Padding vulnerability rule java:S5542 ignored because encryption is used inside application workflow
+    private static final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance(AES_CBC_PKCS_5_PADDING);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    /**
+     * Current key first, followed by the previous one if configured
+     */
+    private final List<SecretKeySpec> secretKeys;
+
+    public Aes256Utils(String aesSecretKey, String aesSalt) {
+        this(aesSecretKey, aesSalt, null, null);
+    }
+
     @Autowired
     public Aes256Utils(
             @Value("${aes.secret.key}") String aesSecretKey,
-            @Value("${aes.salt}") String aesSalt) {
-        this.aesSecretKey = aesSecretKey;
-        this.aesSalt = aesSalt;
+            @Value("${aes.salt}") String aesSalt,
+            @Value("${aes.previous.secret.key:}") String previousAesSecretKey,
+            @Value("${aes.previous.salt:}") String previousAesSalt) {
+        List<SecretKeySpec> keys = new ArrayList<>(2);
+        if (isConfigured(aesSecretKey, aesSalt)) {
+            keys.add(deriveKey(aesSecretKey, aesSalt));
+            if (isConfigured(previousAesSecretKey, previousAesSalt)) {
+                keys.add(deriveKey(previousAesSecretKey, previousAesSalt));
+            }
+        }
+        this.secretKeys = Collections.unmodifiableList(keys);
     }
 
     public String encrypt(String strToEncrypt) throws Aes256Exception {
+        return Base64.getEncoder().encodeToString(encrypt(strToEncrypt.getBytes(StandardCharsets.UTF_8)));
+    }
 
+    public String decrypt(String strToDecrypt) throws Aes256Exception {
+        byte[] encryptedData;
         try {
+            encryptedData = Base64.getDecoder().decode(strToDecrypt);
+        } catch (IllegalArgumentException e) {
+            throw new Aes256Exception("Unexpected error when decrypting the given string", AES_UNEXPECTED_ERROR, e);
+        }
+        return decodeUtf8(decrypt(encryptedData, Aes256Utils::isUtf8));
+    }
 
-            SecureRandom secureRandom = new SecureRandom();
-            byte[] iv = new byte[16];
-            secureRandom.nextBytes(iv);
-            IvParameterSpec ivspec = new IvParameterSpec(iv);
-
-            SecretKeyFactory factory = SecretKeyFactory.getInstance(PBKDF_2_WITH_HMAC_SHA_256);
-            KeySpec spec = new PBEKeySpec(aesSecretKey.toCharArray(), aesSalt.getBytes(), ITERATION_COUNT, KEY_LENGTH);
-            SecretKey tmp = factory.generateSecret(spec);
-            SecretKeySpec secretKeySpec = new SecretKeySpec(tmp.getEncoded(), ALGORITHM);
-
-            //Padding vulnerability rule java:S5542 ignored because encryption is used inside application workflow
-            Cipher cipher = Cipher.getInstance(AES_CBC_PKCS_5_PADDING);
-            cipher.init(Cipher.ENCRYPT_MODE, secretKeySpec, ivspec);
+    /**
+     * Encrypt the given content with the current key
+     *
+     * @param data content to encrypt
+     * @return the IV followed by the ciphertext
+     * @throws Aes256Exception if the key is not configured or the encryption fails
+     */
+    public byte[] encrypt(byte[] data) throws Aes256Exception {
+        if (secretKeys.isEmpty()) {
+            throw new Aes256Exception("Encryption key not configured", AES_UNEXPECTED_ERROR);
+        }
+        try {
+            byte[] iv = new byte[IV_LENGTH];
+            SECURE_RANDOM.nextBytes(iv);
 
-            byte[] cipherText = cipher.doFinal(strToEncrypt.getBytes(StandardCharsets.UTF_8));
-            byte[] encryptedData = new byte[iv.length + cipherText.length];
-            System.arraycopy(iv, 0, encryptedData, 0, iv.length);
-            System.arraycopy(cipherText, 0, encryptedData, iv.length, cipherText.length);
+            Cipher cipher = CIPHER.get();
+            cipher.init(Cipher.ENCRYPT_MODE, secretKeys.get(0), new IvParameterSpec(iv));
 
-            return Base64.getEncoder().encodeToString(encryptedData);
+            byte[] cipherText = cipher.doFinal(data);
+            byte[] encryptedData = new byte[IV_LENGTH + cipherText.length];
+            System.arraycopy(iv, 0, encryptedData, 0, IV_LENGTH);
+            System.arraycopy(cipherText, 0, encryptedData, IV_LENGTH, cipherText.length);
+            return encryptedData;
         } catch (Exception e) {
             throw new Aes256Exception("Unexpected error when encrypting the given string", AES_UNEXPECTED_ERROR, e);
         }
     }
 
-}
+    /**
+     * Decrypt the given content, trying the current key and then the previous one
+     *
+     * @param encryptedData  the IV followed by the ciphertext
+     * @param validPlaintext check on the decrypted content, used to discard a wrong key when more keys
+     *                       are configured
+     * @return decrypted content
+     * @throws Aes256Exception if no key is able to decrypt the content
+     */
+    public byte[] decrypt(byte[] encryptedData, Predicate<byte[]> validPlaintext) throws Aes256Exception {
+        if (secretKeys.isEmpty()) {
+            throw new Aes256Exception("Encryption key not configured", AES_UNEXPECTED_ERROR);
+        }
+        if (encryptedData.length <= IV_LENGTH) {
+            throw new Aes256Exception("Encrypted data is too short", AES_UNEXPECTED_ERROR);
+        }
+        IvParameterSpec ivspec = new IvParameterSpec(encryptedData, 0, IV_LENGTH);
+        Exception lastException = null;
+        for (SecretKeySpec secretKey : secretKeys) {
+            try {
+                Cipher cipher = CIPHER.get();
+                cipher.init(Cipher.DECRYPT_MODE, secretKey, ivspec);
+                byte[] data = cipher.doFinal(encryptedData, IV_LENGTH, encryptedData.length - IV_LENGTH);
+                if (secretKeys.size() == 1 || validPlaintext.test(data)) {
+                    return data;
+                }
+            } catch (GeneralSecurityException e) {
+                // a wrong key is reported as a padding error, try with the next one
+                lastException = e;
+            }
+        }
+        throw new Aes256Exception("Unexpected error when decrypting the given string", AES_UNEXPECTED_ERROR,
+                lastException);
+    }
 
+    /**
+     * A wrong key still yields a valid padding about once in 256 attempts: when more keys are available,
+     * the plaintext is also required to be valid UTF-8, which random bytes practically never are
+     */
+    private static boolean isUtf8(byte[] data) {
+        try {
+            decodeUtf8(data);
+            return true;
+        } catch (Aes256Exception e) {
+            return false;
+        }
+    }
+
+    private static String decodeUtf8(byte[] data) throws Aes256Exception {
+        try {
+            return StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(data))
+                    .toString();
+        } catch (CharacterCodingException e) {
+            throw new Aes256Exception("Decrypted data is not valid UTF-8", AES_UNEXPECTED_ERROR, e);
+        }
+    }
+
+    private static boolean isConfigured(String secretKey, String salt) {
+        return secretKey != null && !secretKey.isEmpty() && salt != null && !salt.isEmpty();
+    }
+
+    private static SecretKeySpec deriveKey(String secretKey, String salt) {
+        try {
+            SecretKeyFactory factory = SecretKeyFactory.getInstance(PBKDF_2_WITH_HMAC_SHA_256);
+            KeySpec spec = new PBEKeySpec(secretKey.toCharArray(), salt.getBytes(), ITERATION_COUNT, KEY_LENGTH);
+            SecretKey tmp = factory.generateSecret(spec);
+            return new SecretKeySpec(tmp.getEncoded(), ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to derive the encryption key", e);
+        }
+    }
+
+}
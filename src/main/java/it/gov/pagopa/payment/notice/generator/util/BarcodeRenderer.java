@@ -0,0 +1,167 @@
+package it.gov.pagopa.payment.notice.generator.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.datamatrix.DataMatrixWriter;
+import com.google.zxing.datamatrix.encoder.SymbolShapeHint;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Renders the QR codes and the Poste DataMatrix of the notices in process, as modules for the overlays
+ * or as images to embed in the template data. Both are cached by content, since the same codes recur
+ * across the reduced and discounted variants and the regenerations of a notice
+ */
+@Component
+public class BarcodeRenderer {
+
+    public static final String SVG_FORMAT = "svg";
+    public static final String PNG_FORMAT = "png";
+
+    private static final Map<EncodeHintType, Object> QR_CODE_HINTS = Map.of(
+            EncodeHintType.MARGIN, 0,
+            EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.M);
+
+    private static final Map<EncodeHintType, Object> DATA_MATRIX_HINTS = Map.of(
+            EncodeHintType.DATA_MATRIX_SHAPE, SymbolShapeHint.FORCE_SQUARE);
+
+    private final String imageFormat;
+
+    private final int pngModuleSize;
+
+    private final Cache<Barcode, BitMatrix> matrixCache;
+
+    private final Cache<Barcode, String> imageCache;
+
+    @Autowired
+    public BarcodeRenderer(
+            @Value("${barcode.images.format}") String imageFormat,
+            @Value("${barcode.images.png-module-size}") int pngModuleSize,
+            @Value("${barcode.cache.max-size}") long cacheMaxSize) {
+        if (!SVG_FORMAT.equals(imageFormat) && !PNG_FORMAT.equals(imageFormat)) {
+            throw new IllegalArgumentException(String.format("Unknown barcode image format %s", imageFormat));
+        }
+        this.imageFormat = imageFormat;
+        this.pngModuleSize = pngModuleSize;
+        this.matrixCache = Caffeine.newBuilder().maximumSize(cacheMaxSize).build();
+        this.imageCache = Caffeine.newBuilder().maximumSize(cacheMaxSize).build();
+    }
+
+    /**
+     * @param contents content of the QR code
+     * @return the modules of the QR code, without quiet zone
+     * @throws IllegalArgumentException if the content cannot be encoded
+     */
+    public BitMatrix encodeQrCode(String contents) {
+        return matrixCache.get(new Barcode(BarcodeFormat.QR_CODE, contents), this::encode);
+    }
+
+    /**
+     * @param contents content of the DataMatrix
+     * @return the modules of the square DataMatrix
+     * @throws IllegalArgumentException if the content cannot be encoded
+     */
+    public BitMatrix encodeDataMatrix(String contents) {
+        return matrixCache.get(new Barcode(BarcodeFormat.DATA_MATRIX, contents), this::encode);
+    }
+
+    /**
+     * @param contents content of the QR code
+     * @return the QR code as a data URI, in the configured image format
+     */
+    public String qrCodeImage(String contents) {
+        return imageCache.get(new Barcode(BarcodeFormat.QR_CODE, contents), this::toImage);
+    }
+
+    /**
+     * @param contents content of the DataMatrix
+     * @return the DataMatrix as a data URI, in the configured image format
+     */
+    public String dataMatrixImage(String contents) {
+        return imageCache.get(new Barcode(BarcodeFormat.DATA_MATRIX, contents), this::toImage);
+    }
+
+    private BitMatrix encode(Barcode barcode) {
+        try {
+            // with no size the matrix has a pixel for each module
+            return barcode.format() == BarcodeFormat.QR_CODE ?
+                    new QRCodeWriter().encode(barcode.contents(), BarcodeFormat.QR_CODE, 0, 0, QR_CODE_HINTS) :
+                    new DataMatrixWriter().encode(barcode.contents(), BarcodeFormat.DATA_MATRIX, 0, 0, DATA_MATRIX_HINTS);
+        } catch (WriterException e) {
+            throw new IllegalArgumentException(String.format("Unable to encode %s %s", barcode.format(), barcode.contents()), e);
+        }
+    }
+
+    private String toImage(Barcode barcode) {
+        BitMatrix matrix = matrixCache.get(barcode, this::encode);
+        return PNG_FORMAT.equals(imageFormat) ?
+                "data:image/png;base64," + Base64.getEncoder().encodeToString(toPng(matrix)) :
+                "data:image/svg+xml;base64," + Base64.getEncoder().encodeToString(
+                        toSvg(matrix).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * One path for the whole symbol, with a subpath for each run of dark modules of a row
+     */
+    String toSvg(BitMatrix matrix) {
+        StringBuilder svg = new StringBuilder(256 + matrix.getWidth() * matrix.getHeight())
+                .append("<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"0 0 ")
+                .append(matrix.getWidth()).append(' ').append(matrix.getHeight())
+                .append("\" shape-rendering=\"crispEdges\"><path d=\"");
+        for (int row = 0; row < matrix.getHeight(); row++) {
+            int column = 0;
+            while (column < matrix.getWidth()) {
+                if (!matrix.get(column, row)) {
+                    column++;
+                    continue;
+                }
+                int start = column;
+                while (column < matrix.getWidth() && matrix.get(column, row)) {
+                    column++;
+                }
+                svg.append('M').append(start).append(' ').append(row)
+                        .append('h').append(column - start).append("v1h-").append(column - start).append('z');
+            }
+        }
+        return svg.append("\"/></svg>").toString();
+    }
+
+    /**
+     * A 1-bit image, with the configured pixels per module
+     */
+    private byte[] toPng(BitMatrix matrix) {
+        BufferedImage image = new BufferedImage(matrix.getWidth() * pngModuleSize,
+                matrix.getHeight() * pngModuleSize, BufferedImage.TYPE_BYTE_BINARY);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, matrix.get(x / pngModuleSize, y / pngModuleSize) ? 0xFF000000 : 0xFFFFFFFF);
+            }
+        }
+        try (ByteArrayOutputStream output = new ByteArrayOutputStream()) {
+            ImageIO.write(image, PNG_FORMAT, output);
+            return output.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record Barcode(BarcodeFormat format, String contents) {
+    }
+
+}
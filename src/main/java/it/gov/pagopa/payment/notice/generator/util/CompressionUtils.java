@@ -0,0 +1,117 @@
+package it.gov.pagopa.payment.notice.generator.util;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdInputStream;
+import it.gov.pagopa.payment.notice.generator.model.enums.PayloadCompression;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Utility methods to encode and decode compressed payloads
+ */
+public class CompressionUtils {
+
+    private static final int ZSTD_LEVEL = 3;
+
+    private static final byte[] GZIP_MAGIC = {(byte) 0x1f, (byte) 0x8b};
+    private static final byte[] ZSTD_MAGIC = {(byte) 0x28, (byte) 0xb5, (byte) 0x2f, (byte) 0xfd};
+
+    private CompressionUtils() {
+    }
+
+    /**
+     * Compress the given content with the provided format
+     *
+     * @param content     content to compress
+     * @param compression format to use
+     * @return compressed content
+     * @throws IOException if the content can't be compressed
+     */
+    public static byte[] compress(byte[] content, PayloadCompression compression) throws IOException {
+        if (compression == null) {
+            return content;
+        }
+        return switch (compression) {
+            case NONE -> content;
+            case GZIP -> gzip(content);
+            case ZSTD -> Zstd.compress(content, ZSTD_LEVEL);
+        };
+    }
+
+    /**
+     * Check if the given content starts with the magic number of the provided format
+     *
+     * @param content     content to check
+     * @param compression expected format
+     * @return true if the content header matches the format
+     */
+    public static boolean isCompressed(byte[] content, PayloadCompression compression) {
+        if (compression == null) {
+            return false;
+        }
+        return switch (compression) {
+            case NONE -> false;
+            case GZIP -> startsWith(content, GZIP_MAGIC);
+            case ZSTD -> startsWith(content, ZSTD_MAGIC);
+        };
+    }
+
+    /**
+     * Decompress the given content with the provided format
+     *
+     * @param content     compressed content
+     * @param compression format used to compress the content
+     * @return decompressed content
+     * @throws IOException if the content is not valid for the given format
+     */
+    public static byte[] decompress(byte[] content, PayloadCompression compression) throws IOException {
+        if (compression == null) {
+            return content;
+        }
+        return switch (compression) {
+            case NONE -> content;
+            case GZIP -> gunzip(content);
+            case ZSTD -> unzstd(content);
+        };
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(content.length / 4 + 64);
+        try (OutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            gzipOutputStream.write(content);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] content) throws IOException {
+        try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(content))) {
+            return inputStream.readAllBytes();
+        }
+    }
+
+    private static byte[] unzstd(byte[] content) throws IOException {
+        // the stream also accepts frames written without the content size in the header
+        try (InputStream inputStream = new ZstdInputStream(new ByteArrayInputStream(content))) {
+            return inputStream.readAllBytes();
+        }
+    }
+
+    private static boolean startsWith(byte[] content, byte[] prefix) {
+        if (content == null || content.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (content[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -8,4 +8,6 @@ public class Constants {
 
   public static final String HEADER_REQUEST_ID = "X-Request-Id";
 
+  public static final String HEADER_EVENT_ID = "eventId";
+
 }
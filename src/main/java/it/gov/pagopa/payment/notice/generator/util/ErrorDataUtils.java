@@ -0,0 +1,90 @@
+package it.gov.pagopa.payment.notice.generator.util;
+
+import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeGenerationRequestError;
+import it.gov.pagopa.payment.notice.generator.exception.Aes256Exception;
+import it.gov.pagopa.payment.notice.generator.model.enums.ErrorDataFormat;
+import it.gov.pagopa.payment.notice.generator.model.enums.PayloadCompression;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes the request data stored with the generation errors, compressing it before the encryption
+ * according to the configured {@link ErrorDataFormat}. The format is saved on the error, so records
+ * written with a previous format stay readable
+ */
+@Component
+public class ErrorDataUtils {
+
+    private final Aes256Utils aes256Utils;
+
+    private final ErrorDataFormat errorDataFormat;
+
+    public ErrorDataUtils(
+            Aes256Utils aes256Utils,
+            @Value("${error.data.format}") ErrorDataFormat errorDataFormat) {
+        this.aes256Utils = aes256Utils;
+        this.errorDataFormat = errorDataFormat;
+    }
+
+    /**
+     * Encrypt the given content and set it on the error, together with the used format
+     *
+     * @param error   error to update
+     * @param content content to store
+     * @throws Aes256Exception if the encryption fails
+     * @throws IOException     if the compression fails
+     */
+    public void setData(PaymentNoticeGenerationRequestError error, byte[] content)
+            throws Aes256Exception, IOException {
+        switch (errorDataFormat) {
+            case AES_BASE64 -> error.setData(Base64.getEncoder().encodeToString(aes256Utils.encrypt(content)));
+            case ZSTD_AES_BASE64 -> error.setData(Base64.getEncoder().encodeToString(
+                    aes256Utils.encrypt(CompressionUtils.compress(content, PayloadCompression.ZSTD))));
+            case ZSTD_AES_BINARY -> error.setBinaryData(
+                    aes256Utils.encrypt(CompressionUtils.compress(content, PayloadCompression.ZSTD)));
+        }
+        error.setDataFormat(errorDataFormat);
+    }
+
+    /**
+     * Read the content stored on the error, with the format it has been saved with
+     *
+     * @param error error to read
+     * @return decrypted content
+     * @throws Aes256Exception if the decryption fails
+     * @throws IOException     if the content is not valid for the format of the error
+     */
+    public byte[] getData(PaymentNoticeGenerationRequestError error) throws Aes256Exception, IOException {
+        ErrorDataFormat format = error.getDataFormat() != null ? error.getDataFormat() : ErrorDataFormat.AES_BASE64;
+        return switch (format) {
+            case AES_BASE64 -> aes256Utils.decrypt(error.getData()).getBytes(StandardCharsets.UTF_8);
+            case ZSTD_AES_BASE64 -> decompress(decodeBase64(error.getData()));
+            case ZSTD_AES_BINARY -> decompress(error.getBinaryData());
+        };
+    }
+
+    private byte[] decompress(byte[] encryptedData) throws Aes256Exception, IOException {
+        if (encryptedData == null) {
+            throw new IOException("Missing error data");
+        }
+        byte[] compressed = aes256Utils.decrypt(encryptedData,
+                data -> CompressionUtils.isCompressed(data, PayloadCompression.ZSTD));
+        return CompressionUtils.decompress(compressed, PayloadCompression.ZSTD);
+    }
+
+    private static byte[] decodeBase64(String data) throws IOException {
+        if (data == null) {
+            throw new IOException("Missing error data");
+        }
+        try {
+            return Base64.getDecoder().decode(data);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Error data is not valid Base64", e);
+        }
+    }
+
+}
@@ -0,0 +1,172 @@
+package it.gov.pagopa.payment.notice.generator.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import it.gov.pagopa.payment.notice.generator.model.enums.GenerationEntryPoint;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the duration of each stage of a notice generation, tagged by template and entry point.
+ * <p>
+ * The generation and each of its stages are also observed, so that they are traced as spans nested
+ * in the REST or Kafka span of the request: the calls made during a stage (Mongo commands, PDF engine
+ * requests, Kafka sends) become its children.
+ */
+@Component
+public class NoticeGenerationMetrics {
+
+    public static final String STAGE_TIMER = "notice.generation.stage";
+    public static final String TOTAL_TIMER = "notice.generation";
+    public static final String COALESCED_COUNTER = "notice.generation.coalesced";
+
+    public static final String STAGE_FOLDER_CHECK = "folder_check";
+    public static final String STAGE_INSTITUTION_FETCH = "institution_fetch";
+    public static final String STAGE_TEMPLATE_FETCH = "template_fetch";
+    public static final String STAGE_SCHEMA_VALIDATION = "schema_validation";
+    public static final String STAGE_MAPPING = "mapping";
+    public static final String STAGE_CACHE_LOOKUP = "cache_lookup";
+    public static final String STAGE_ENGINE_CALL = "engine_call";
+    public static final String STAGE_CACHE_STORE = "cache_store";
+    public static final String STAGE_PDF_OPTIMIZATION = "pdf_optimization";
+    public static final String STAGE_BLOB_UPLOAD = "blob_upload";
+    public static final String STAGE_PROGRESS_UPDATE = "progress_update";
+    public static final String STAGE_EVENT_PUBLISH = "event_publish";
+
+    public static final String TAG_TEMPLATE_ID = "templateId";
+
+    /**
+     * Name of the generation and stage observations, their meters are denied as the durations are
+     * already recorded by the timers above
+     */
+    public static final String GENERATION_SPAN = "notice.generation.span";
+    public static final String STAGE_SPAN = "notice.generation.span.stage";
+
+    private final MeterRegistry meterRegistry;
+
+    private final ObservationRegistry observationRegistry;
+
+    @Autowired
+    public NoticeGenerationMetrics(MeterRegistry meterRegistry, ObservationRegistry observationRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.observationRegistry = observationRegistry;
+    }
+
+    public NoticeGenerationMetrics(MeterRegistry meterRegistry) {
+        this(meterRegistry, ObservationRegistry.NOOP);
+    }
+
+    /**
+     * Starts timing a notice generation
+     *
+     * @param templateId template of the notice
+     * @param entryPoint entry point of the request
+     * @return stages of the generation
+     */
+    public Stages start(String templateId, GenerationEntryPoint entryPoint) {
+        return new Stages(String.valueOf(templateId), entryPoint.name());
+    }
+
+    /**
+     * Counts a generation served by an identical one already in flight
+     *
+     * @param templateId template of the notice
+     */
+    public void coalesced(String templateId) {
+        meterRegistry.counter(COALESCED_COUNTER, TAG_TEMPLATE_ID, String.valueOf(templateId)).increment();
+    }
+
+    /**
+     * Stages of a single generation: starting a stage ends the current one, {@link #stop(boolean)}
+     * ends the last stage and records the total duration.
+     * <p>
+     * The observations are bound to the calling thread while open, the stages must then be started
+     * and stopped by the thread that started the generation.
+     */
+    public class Stages {
+
+        private final String templateId;
+        private final String entryPoint;
+        private final long startTime;
+        private final Observation observation;
+        private final Observation.Scope scope;
+        private String stage;
+        private long stageStartTime;
+        private Observation stageObservation;
+        private Observation.Scope stageScope;
+
+        private Stages(String templateId, String entryPoint) {
+            this.templateId = templateId;
+            this.entryPoint = entryPoint;
+            this.startTime = meterRegistry.config().clock().monotonicTime();
+            this.observation = Observation.createNotStarted(GENERATION_SPAN, observationRegistry)
+                    .contextualName("generate notice")
+                    .lowCardinalityKeyValue(TAG_TEMPLATE_ID, templateId)
+                    .lowCardinalityKeyValue("entryPoint", entryPoint)
+                    .start();
+            this.scope = observation.openScope();
+        }
+
+        /**
+         * Ends the current stage, as successful, and starts the given one
+         *
+         * @param nextStage stage to start
+         */
+        public void start(String nextStage) {
+            long now = meterRegistry.config().clock().monotonicTime();
+            record(now, true);
+            this.stage = nextStage;
+            this.stageStartTime = now;
+            this.stageObservation = Observation.createNotStarted(STAGE_SPAN, observationRegistry)
+                    .contextualName(nextStage)
+                    .parentObservation(observation)
+                    .lowCardinalityKeyValue("stage", nextStage)
+                    .start();
+            this.stageScope = stageObservation.openScope();
+        }
+
+        /**
+         * Ends the current stage and the generation
+         *
+         * @param success outcome of the generation, also applied to the current stage
+         */
+        public void stop(boolean success) {
+            long now = meterRegistry.config().clock().monotonicTime();
+            record(now, success);
+            this.stage = null;
+            Timer.builder(TOTAL_TIMER)
+                    .description("Duration of a notice generation")
+                    .tags(TAG_TEMPLATE_ID, templateId, "entryPoint", entryPoint, "outcome", outcome(success))
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(now - startTime, TimeUnit.NANOSECONDS);
+            scope.close();
+            observation.lowCardinalityKeyValue("outcome", outcome(success)).stop();
+        }
+
+        private void record(long now, boolean success) {
+            if (stage == null) {
+                return;
+            }
+            stageScope.close();
+            stageObservation.lowCardinalityKeyValue("outcome", outcome(success)).stop();
+            Timer.builder(STAGE_TIMER)
+                    .description("Duration of a stage of a notice generation")
+                    .tags("stage", stage, TAG_TEMPLATE_ID, templateId, "entryPoint", entryPoint,
+                            "outcome", outcome(success))
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(now - stageStartTime, TimeUnit.NANOSECONDS);
+        }
+
+        private String outcome(boolean success) {
+            return success ? "SUCCESS" : "FAILURE";
+        }
+
+    }
+
+}
@@ -0,0 +1,151 @@
+package it.gov.pagopa.payment.notice.generator.util;
+
+import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeGenerationRequest;
+import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeGenerationRequestError;
+import it.gov.pagopa.payment.notice.generator.model.NoticeGenerationRequestItem;
+import it.gov.pagopa.payment.notice.generator.model.NoticeRequestEH;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Formats the payloads written to the logs. The returned values are rendered only when the log
+ * statement is enabled, abbreviated to the configured length; only the configured fraction of the
+ * messages is rendered at all, the others are logged as omitted.
+ * <p>
+ * The generation payloads are rendered as a summary of their ids, and collections and arrays as their
+ * size, so that the cost of a log statement does not depend on the size of the payload
+ */
+@Component
+public class PayloadLogFormatter {
+
+    private static final Object OMITTED = new Object() {
+        @Override
+        public String toString() {
+            return "[omitted]";
+        }
+    };
+
+    private static final int SAMPLE_RANGE = 1 << 16;
+
+    private final int maxLength;
+
+    private final int sampleThreshold;
+
+    public PayloadLogFormatter(
+            @Value("${logging.payload.max-length}") int maxLength,
+            @Value("${logging.payload.sample-rate}") double sampleRate) {
+        this.maxLength = maxLength;
+        this.sampleThreshold = (int) Math.round(Math.max(0, Math.min(1, sampleRate)) * SAMPLE_RANGE);
+    }
+
+    /**
+     * Wraps the payload to be rendered lazily by the logger. The sampling depends on the message being
+     * processed, identified by the folderId and itemId of a generation message or by the requestId of
+     * an API call, so all the log statements of the same message are either rendered or omitted
+     *
+     * @param payload payload to log
+     * @return value to pass as log argument
+     */
+    public Object format(Object payload) {
+        if (payload == null || sampleThreshold >= SAMPLE_RANGE) {
+            return new LazyPayload(payload);
+        }
+        return isSampled(getSampleKey(payload)) ? new LazyPayload(payload) : OMITTED;
+    }
+
+    /**
+     * Renders the value abbreviated to the configured length, a negative length disables the abbreviation
+     *
+     * @param value value to render
+     * @return rendered value, empty if null
+     */
+    public String abbreviate(Object value) {
+        CharSequence text = summarize(value);
+        if (maxLength < 0 || text.length() <= maxLength) {
+            return text.toString();
+        }
+        return text.subSequence(0, maxLength) + "...[" + text.length() + " chars]";
+    }
+
+    private boolean isSampled(int key) {
+        int hash = key * 0x9e3779b9;
+        hash ^= hash >>> 16;
+        return (hash & (SAMPLE_RANGE - 1)) < sampleThreshold;
+    }
+
+    private static int getSampleKey(Object payload) {
+        String itemId = MDC.get("itemId");
+        if (itemId != null) {
+            return (MDC.get("folderId") + "/" + itemId).hashCode();
+        }
+        String requestId = MDC.get("requestId");
+        return requestId != null ? requestId.hashCode() : System.identityHashCode(payload);
+    }
+
+    private static CharSequence summarize(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof CharSequence text) {
+            return text;
+        }
+        if (value instanceof NoticeRequestEH noticeRequestEH) {
+            return String.format("NoticeRequestEH(folderId=%s, errorId=%s, noticeData=%s, payloadReference=%s)",
+                    noticeRequestEH.getFolderId(), noticeRequestEH.getErrorId(),
+                    summarize(noticeRequestEH.getNoticeData()),
+                    noticeRequestEH.getPayloadReference() != null ?
+                            noticeRequestEH.getPayloadReference().getBlobName() : null);
+        }
+        if (value instanceof NoticeGenerationRequestItem item) {
+            boolean hasData = item.getData() != null;
+            return String.format("NoticeGenerationRequestItem(templateId=%s, creditorInstitution=%s, notice=%s)",
+                    item.getTemplateId(),
+                    hasData && item.getData().getCreditorInstitution() != null ?
+                            item.getData().getCreditorInstitution().getTaxCode() : null,
+                    hasData && item.getData().getNotice() != null ? item.getData().getNotice().getCode() : null);
+        }
+        if (value instanceof PaymentNoticeGenerationRequestError error) {
+            return String.format("PaymentNoticeGenerationRequestError(folderId=%s, errorId=%s, errorCode=%s, " +
+                            "errorDescription=%s, numberOfAttempts=%s)",
+                    error.getFolderId(), error.getErrorId(), error.getErrorCode(), error.getErrorDescription(),
+                    error.getNumberOfAttempts());
+        }
+        if (value instanceof PaymentNoticeGenerationRequest request) {
+            return String.format("PaymentNoticeGenerationRequest(id=%s, status=%s, numberOfElementsTotal=%s, " +
+                            "numberOfElementsFailed=%s, items=%s)",
+                    request.getId(), request.getStatus(), request.getNumberOfElementsTotal(),
+                    request.getNumberOfElementsFailed(), request.getItems() != null ? request.getItems().size() : 0);
+        }
+        if (value instanceof Collection<?> collection) {
+            return value.getClass().getSimpleName() + "[size=" + collection.size() + "]";
+        }
+        if (value instanceof Map<?, ?> map) {
+            return value.getClass().getSimpleName() + "[size=" + map.size() + "]";
+        }
+        if (value.getClass().isArray()) {
+            return value.getClass().getComponentType().getSimpleName() + "[" + Array.getLength(value) + "]";
+        }
+        return value.toString();
+    }
+
+    private final class LazyPayload {
+
+        private final Object payload;
+
+        private LazyPayload(Object payload) {
+            this.payload = payload;
+        }
+
+        @Override
+        public String toString() {
+            return abbreviate(payload);
+        }
+
+    }
+
+}
@@ -0,0 +1,71 @@
+package it.gov.pagopa.payment.notice.generator.util;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.transport.Kind;
+import io.micrometer.observation.transport.ReceiverContext;
+import io.micrometer.observation.transport.SenderContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Carries the trace context across the outbox: the events are published by the relay on its own
+ * thread, so the context of the generation that queued an event is saved with it and restored
+ * when the event is sent, keeping the Kafka message in the trace of the generation
+ */
+@Component
+public class TraceContextUtils {
+
+    public static final String OUTBOX_ENQUEUE_SPAN = "notice.generation.span.outbox";
+    public static final String OUTBOX_RELAY_SPAN = "notice.outbox.relay";
+
+    private final ObservationRegistry observationRegistry;
+
+    @Autowired
+    public TraceContextUtils(ObservationRegistry observationRegistry) {
+        this.observationRegistry = observationRegistry;
+    }
+
+    public TraceContextUtils() {
+        this(ObservationRegistry.NOOP);
+    }
+
+    /**
+     * Capture the current trace context, to be saved with a queued event
+     *
+     * @param eventType type of the queued event
+     * @return the propagation headers of the current context, empty if tracing is disabled
+     */
+    public Map<String, String> capture(String eventType) {
+        SenderContext<Map<String, String>> context = new SenderContext<>(Map::put, Kind.PRODUCER);
+        context.setCarrier(new HashMap<>());
+        Observation.createNotStarted(OUTBOX_ENQUEUE_SPAN, () -> context, observationRegistry)
+                .contextualName(eventType + " enqueue")
+                .lowCardinalityKeyValue("eventType", eventType)
+                .start()
+                .stop();
+        return context.getCarrier();
+    }
+
+    /**
+     * Run the send of a queued event in the trace context saved with it
+     *
+     * @param traceContext propagation headers saved with the event, a new trace is started if missing
+     * @param eventType    type of the event
+     * @param send         send of the event
+     * @return the result of the send
+     */
+    public <T> T restore(Map<String, String> traceContext, String eventType, Supplier<T> send) {
+        ReceiverContext<Map<String, String>> context = new ReceiverContext<>(Map::get, Kind.CONSUMER);
+        context.setCarrier(traceContext != null ? traceContext : Map.of());
+        return Observation.createNotStarted(OUTBOX_RELAY_SPAN, () -> context, observationRegistry)
+                .contextualName(eventType + " relay")
+                .lowCardinalityKeyValue("eventType", eventType)
+                .observe(send);
+    }
+
+}
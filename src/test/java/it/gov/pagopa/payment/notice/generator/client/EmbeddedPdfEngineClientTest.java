@@ -0,0 +1,167 @@
+package it.gov.pagopa.payment.notice.generator.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.gov.pagopa.payment.notice.generator.model.pdf.PdfEngineRequest;
+import it.gov.pagopa.payment.notice.generator.model.pdf.PdfEngineResponse;
+import org.apache.http.HttpStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmbeddedPdfEngineClientTest {
+
+    private static final String TEMPLATE_HTML =
+            "<html><head><link rel=\"stylesheet\" href=\"style.css\"/></head>" +
+                    "<body><p>{{notice.code}}</p></body></html>";
+
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    Path workingDirPath;
+
+    @BeforeEach
+    void init() throws IOException {
+        File tempDirectory = new File("temp");
+        if (!tempDirectory.exists()) {
+            Files.createDirectory(tempDirectory.toPath());
+        }
+        workingDirPath = Files.createTempDirectory(tempDirectory.toPath(), "embedded");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (var files = Files.walk(workingDirPath)) {
+            files.sorted((a, b) -> b.compareTo(a)).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    void generatePdfOk() throws IOException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        EmbeddedPdfEngineClient client = new EmbeddedPdfEngineClient(objectMapper, executor,
+                Duration.ofMinutes(1), 1024 * 1024);
+
+        PdfEngineResponse response = client.generatePDF(
+                request(zip(Map.of("template.html", TEMPLATE_HTML, "style.css", "p { color: red; }"))),
+                workingDirPath);
+
+        assertEquals(HttpStatus.SC_OK, response.getStatusCode());
+        byte[] pdf = Files.readAllBytes(Path.of(response.getTempPdfPath()));
+        assertEquals("%PDF", new String(pdf, 0, 4, StandardCharsets.US_ASCII));
+        client.shutdown();
+    }
+
+    @Test
+    void compiledTemplateIsCachedUntilTheZipChanges() throws IOException {
+        EmbeddedPdfEngineClient client = new EmbeddedPdfEngineClient(objectMapper, mock(ExecutorService.class),
+                Duration.ofMinutes(1), 1024 * 1024);
+        Path zip = zip(Map.of("template.html", TEMPLATE_HTML, "fonts/font.ttf", "font"));
+        PdfEngineRequest request = request(zip);
+
+        EmbeddedPdfEngineClient.CompiledTemplate compiledTemplate = client.getCompiledTemplate(request);
+        assertSame(compiledTemplate, client.getCompiledTemplate(request));
+        assertArrayEquals("font".getBytes(StandardCharsets.UTF_8), compiledTemplate.assets().get("fonts/font.ttf"));
+        assertNotNull(compiledTemplate.getUrl(compiledTemplate.baseUri() + "fonts/font.ttf").getStream());
+        assertNull(compiledTemplate.getUrl("file:/etc/passwd").getStream());
+
+        assertTrue(zip.toFile().setLastModified(zip.toFile().lastModified() - 60_000));
+        assertNotSame(compiledTemplate, client.getCompiledTemplate(request));
+    }
+
+    @Test
+    void templateWithoutHtmlIsRefused() throws IOException {
+        EmbeddedPdfEngineClient client = new EmbeddedPdfEngineClient(objectMapper, mock(ExecutorService.class),
+                Duration.ofMinutes(1), 1024 * 1024);
+        PdfEngineRequest request = request(zip(Map.of("style.css", "")));
+
+        assertThrows(IOException.class, () -> client.getCompiledTemplate(request));
+    }
+
+    @Test
+    void generatePdfKoSaturated() throws IOException {
+        ExecutorService executor = mock(ExecutorService.class);
+        when(executor.submit(any(Callable.class))).thenThrow(RejectedExecutionException.class);
+        EmbeddedPdfEngineClient client = new EmbeddedPdfEngineClient(objectMapper, executor,
+                Duration.ofMinutes(1), 1024 * 1024);
+
+        PdfEngineResponse response = client.generatePDF(request(zip(Map.of())), workingDirPath);
+
+        assertEquals(HttpStatus.SC_SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertNotNull(response.getErrorMessage());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void generatePdfKoTimeout() throws Exception {
+        ExecutorService executor = mock(ExecutorService.class);
+        Future<Object> rendering = mock(Future.class);
+        when(rendering.get(anyLong(), any())).thenThrow(TimeoutException.class);
+        when(executor.submit(any(Callable.class))).thenReturn(rendering);
+        EmbeddedPdfEngineClient client = new EmbeddedPdfEngineClient(objectMapper, executor,
+                Duration.ofSeconds(1), 1024 * 1024);
+
+        PdfEngineResponse response = client.generatePDF(request(zip(Map.of())), workingDirPath);
+
+        assertEquals(HttpStatus.SC_INTERNAL_SERVER_ERROR, response.getStatusCode());
+        verify(rendering).cancel(true);
+    }
+
+    @Test
+    void generatePdfKoInvalidData() throws IOException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        EmbeddedPdfEngineClient client = new EmbeddedPdfEngineClient(objectMapper, executor,
+                Duration.ofMinutes(1), 1024 * 1024);
+        PdfEngineRequest request = request(zip(Map.of("template.html", TEMPLATE_HTML)));
+        request.setData("not json");
+
+        PdfEngineResponse response = client.generatePDF(request, workingDirPath);
+
+        assertEquals(HttpStatus.SC_INTERNAL_SERVER_ERROR, response.getStatusCode());
+        assertNotNull(response.getErrorMessage());
+        client.shutdown();
+    }
+
+    private Path zip(Map<String, String> entries) throws IOException {
+        Path zip = Files.createTempFile(workingDirPath, "template", ".zip");
+        try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(zip))) {
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                output.putNextEntry(new ZipEntry(entry.getKey()));
+                output.write(entry.getValue().getBytes(StandardCharsets.UTF_8));
+                output.closeEntry();
+            }
+        }
+        return zip;
+    }
+
+    private PdfEngineRequest request(Path zip) throws IOException {
+        PdfEngineRequest request = new PdfEngineRequest();
+        request.setTemplate(zip.toUri().toURL());
+        request.setTemplateId("TemplateEMBEDDED");
+        request.setData("{\"notice\":{\"code\":\"301000000000000000\"}}");
+        return request;
+    }
+
+}
@@ -0,0 +1,208 @@
+package it.gov.pagopa.payment.notice.generator.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.gov.pagopa.payment.notice.generator.model.enums.OverlayFieldType;
+import it.gov.pagopa.payment.notice.generator.model.pdf.PdfEngineRequest;
+import it.gov.pagopa.payment.notice.generator.model.pdf.PdfEngineResponse;
+import it.gov.pagopa.payment.notice.generator.model.pdf.overlay.OverlayField;
+import it.gov.pagopa.payment.notice.generator.model.pdf.overlay.OverlayLayout;
+import org.apache.http.HttpStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OverlayPdfEngineClientTest {
+
+    private static final String TEMPLATE_ID = "TemplateOVERLAY";
+
+    private static final OverlayLayout LAYOUT = OverlayLayout.builder()
+            .fields(List.of(
+                    OverlayField.builder().value("/notice/code").x(40).y(700).build(),
+                    OverlayField.builder().value("/notice/qrCode").type(OverlayFieldType.QR_CODE)
+                            .x(40).y(600).width(80).height(80).build(),
+                    OverlayField.builder().value("/notice/installments/0/amount").x(40).y(500).build()))
+            .build();
+
+    @Mock
+    PdfEngineClient pdfEngineClient;
+
+    @Mock
+    PdfOverlayStamper pdfOverlayStamper;
+
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    Path workingDirPath;
+
+    OverlayPdfEngineClient client;
+
+    @BeforeEach
+    void init() throws IOException {
+        File tempDirectory = new File("temp");
+        if (!tempDirectory.exists()) {
+            Files.createDirectory(tempDirectory.toPath());
+        }
+        workingDirPath = Files.createTempDirectory(tempDirectory.toPath(), "overlay");
+        client = new OverlayPdfEngineClient(pdfEngineClient, pdfOverlayStamper, objectMapper,
+                Set.of(TEMPLATE_ID), 1024 * 1024, Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (var files = Files.walk(workingDirPath)) {
+            files.sorted((a, b) -> b.compareTo(a)).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    void templateNotEnabledIsRendered() throws IOException {
+        PdfEngineRequest request = request(zip(true), "OtherTemplate", "99999000013", "301");
+        PdfEngineResponse response = new PdfEngineResponse();
+        when(pdfEngineClient.generatePDF(request, workingDirPath)).thenReturn(response);
+
+        assertSame(response, client.generatePDF(request, workingDirPath));
+        verifyNoInteractions(pdfOverlayStamper);
+    }
+
+    @Test
+    void templateWithoutLayoutIsRendered() throws IOException {
+        PdfEngineRequest request = request(zip(false), TEMPLATE_ID, "99999000013", "301");
+        PdfEngineResponse response = new PdfEngineResponse();
+        when(pdfEngineClient.generatePDF(request, workingDirPath)).thenReturn(response);
+
+        assertSame(response, client.generatePDF(request, workingDirPath));
+        verifyNoInteractions(pdfOverlayStamper);
+    }
+
+    @Test
+    void backgroundIsRenderedOncePerInstitution() throws IOException {
+        Path zip = zip(true);
+        when(pdfEngineClient.generatePDF(any(), eq(workingDirPath))).thenAnswer(invocation -> renderedBackground());
+
+        PdfEngineResponse first = client.generatePDF(request(zip, TEMPLATE_ID, "99999000013", "301"), workingDirPath);
+        PdfEngineResponse second = client.generatePDF(request(zip, TEMPLATE_ID, "99999000013", "302"), workingDirPath);
+        PdfEngineResponse other = client.generatePDF(request(zip, TEMPLATE_ID, "99999000014", "303"), workingDirPath);
+
+        assertEquals(HttpStatus.SC_OK, first.getStatusCode());
+        assertEquals(HttpStatus.SC_OK, second.getStatusCode());
+        assertEquals(HttpStatus.SC_OK, other.getStatusCode());
+        assertNotEquals(first.getTempPdfPath(), second.getTempPdfPath());
+        ArgumentCaptor<PdfEngineRequest> backgroundRequests = ArgumentCaptor.forClass(PdfEngineRequest.class);
+        verify(pdfEngineClient, times(2)).generatePDF(backgroundRequests.capture(), eq(workingDirPath));
+        JsonNode backgroundData = objectMapper.readTree(backgroundRequests.getAllValues().get(0).getData());
+        assertEquals("", backgroundData.at("/notice/code").asText());
+        assertEquals("99999000013", backgroundData.at("/creditorInstitution/taxCode").asText());
+
+        ArgumentCaptor<JsonNode> stampedData = ArgumentCaptor.forClass(JsonNode.class);
+        verify(pdfOverlayStamper, times(3)).stamp(any(), any(), stampedData.capture(), any(), any());
+        assertEquals("302", stampedData.getAllValues().get(1).at("/notice/code").asText());
+    }
+
+    @Test
+    void backgroundErrorIsReturnedAndNotCached() throws IOException {
+        Path zip = zip(true);
+        PdfEngineResponse error = new PdfEngineResponse();
+        error.setStatusCode(HttpStatus.SC_INTERNAL_SERVER_ERROR);
+        error.setErrorMessage("error");
+        when(pdfEngineClient.generatePDF(any(), eq(workingDirPath)))
+                .thenReturn(error)
+                .thenAnswer(invocation -> renderedBackground());
+
+        assertSame(error, client.generatePDF(request(zip, TEMPLATE_ID, "99999000013", "301"), workingDirPath));
+        PdfEngineResponse response = client.generatePDF(request(zip, TEMPLATE_ID, "99999000013", "301"), workingDirPath);
+
+        assertEquals(HttpStatus.SC_OK, response.getStatusCode());
+        verify(pdfEngineClient, times(2)).generatePDF(any(), eq(workingDirPath));
+        verify(pdfOverlayStamper).stamp(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void stampErrorIsReported() throws IOException {
+        when(pdfEngineClient.generatePDF(any(), eq(workingDirPath))).thenAnswer(invocation -> renderedBackground());
+        doThrow(new IOException("Unknown overlay font")).when(pdfOverlayStamper).stamp(any(), any(), any(), any(), any());
+
+        PdfEngineResponse response = client.generatePDF(
+                request(zip(true), TEMPLATE_ID, "99999000013", "301"), workingDirPath);
+
+        assertEquals(HttpStatus.SC_INTERNAL_SERVER_ERROR, response.getStatusCode());
+        assertNotNull(response.getErrorMessage());
+    }
+
+    @Test
+    void blankFields() throws IOException {
+        JsonNode data = objectMapper.readTree(data("99999000013", "301"));
+
+        JsonNode backgroundData = client.blankFields(data, LAYOUT);
+
+        assertEquals("", backgroundData.at("/notice/code").asText());
+        assertEquals("", backgroundData.at("/notice/qrCode").asText());
+        assertEquals("", backgroundData.at("/notice/installments/0/amount").asText());
+        assertEquals("Subject", backgroundData.at("/notice/subject").asText());
+        assertTrue(backgroundData.at("/notice/installments/1").isMissingNode());
+        assertEquals("301", data.at("/notice/code").asText());
+    }
+
+    private PdfEngineResponse renderedBackground() throws IOException {
+        PdfEngineResponse response = new PdfEngineResponse();
+        response.setStatusCode(HttpStatus.SC_OK);
+        Path background = Files.createTempFile(workingDirPath, "background", ".pdf");
+        Files.writeString(background, "%PDF-1.4");
+        response.setTempPdfPath(background.toString());
+        return response;
+    }
+
+    private String data(String taxCode, String code) {
+        return String.format("{\"notice\":{\"code\":\"%s\",\"subject\":\"Subject\",\"qrCode\":\"PAGOPA|002|%s|%s|1000\"," +
+                "\"installments\":[{\"amount\":\"10,00\"}]},\"creditorInstitution\":{\"taxCode\":\"%s\"}}",
+                code, code, taxCode, taxCode);
+    }
+
+    private PdfEngineRequest request(Path zip, String templateId, String taxCode, String code) throws IOException {
+        PdfEngineRequest request = new PdfEngineRequest();
+        request.setTemplate(zip.toUri().toURL());
+        request.setTemplateId(templateId);
+        request.setData(data(taxCode, code));
+        return request;
+    }
+
+    private Path zip(boolean withLayout) throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("template.html", "<html><body>{{notice.code}}</body></html>".getBytes(StandardCharsets.UTF_8));
+        if (withLayout) {
+            entries.put("overlay.json", objectMapper.writeValueAsBytes(LAYOUT));
+        }
+        Path zip = Files.createTempFile(workingDirPath, "template", ".zip");
+        try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(zip))) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                output.putNextEntry(new ZipEntry(entry.getKey()));
+                output.write(entry.getValue());
+                output.closeEntry();
+            }
+        }
+        return zip;
+    }
+
+}
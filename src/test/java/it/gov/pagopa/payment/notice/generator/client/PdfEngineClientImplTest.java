@@ -1,17 +1,23 @@
 package it.gov.pagopa.payment.notice.generator.client;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.transport.SenderContext;
 import it.gov.pagopa.payment.notice.generator.model.pdf.PdfEngineRequest;
 import it.gov.pagopa.payment.notice.generator.model.pdf.PdfEngineResponse;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpStatus;
 import org.apache.http.StatusLine;
 import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 
@@ -173,4 +179,62 @@ class PdfEngineClientImplTest {
         Assertions.assertEquals(ERROR_MESSAGE.replace("\"", ""), pdfEngineResponse.getErrorMessage());
 
     }
+
+    @Test
+    void runOkShouldPropagateTraceContext() throws Exception {
+
+        File tempDirectory = new File("temp");
+        if (!tempDirectory.exists()) {
+            Files.createDirectory(tempDirectory.toPath());
+        }
+
+        File targetFile = File.createTempFile("tempFile", ".txt", tempDirectory);
+        targetFile.deleteOnExit();
+        tempDirectory.deleteOnExit();
+
+        PdfEngineRequest pdfEngineRequest = new PdfEngineRequest();
+        pdfEngineRequest.setTemplate(targetFile.toURI().toURL());
+        pdfEngineRequest.setData("{}");
+
+        HttpClientBuilder mockBuilder = mock(HttpClientBuilder.class);
+        CloseableHttpClient mockClient = mock(CloseableHttpClient.class);
+
+        CloseableHttpResponse mockResponse = mock(CloseableHttpResponse.class);
+        StatusLine mockStatusLine = mock(StatusLine.class);
+        when(mockStatusLine.getStatusCode()).thenReturn(HttpStatus.SC_OK);
+        when(mockResponse.getStatusLine()).thenReturn(mockStatusLine);
+
+        HttpEntity mockEntity = mock(HttpEntity.class);
+        when(mockEntity.getContent()).thenReturn(InputStream.nullInputStream());
+        when(mockResponse.getEntity()).thenReturn(mockEntity);
+
+        when(mockClient.execute(any())).thenReturn(mockResponse);
+        when(mockBuilder.build()).thenReturn(mockClient);
+
+        // stand-in for the tracing handler, injecting a fixed trace context
+        ObservationRegistry observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new ObservationHandler<>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public void onStart(Observation.Context context) {
+                SenderContext<Object> senderContext = (SenderContext<Object>) context;
+                senderContext.getSetter().set(senderContext.getCarrier(), "traceparent", "00-trace-span-01");
+            }
+
+            @Override
+            public boolean supportsContext(Observation.Context context) {
+                return context instanceof SenderContext<?>;
+            }
+        });
+
+        PdfEngineClientImpl client = new PdfEngineClientImpl(
+                new ObjectMapper(), observationRegistry, mockBuilder, "test", "test");
+        PdfEngineResponse pdfEngineResponse = client.generatePDF(pdfEngineRequest, tempDirectory.toPath());
+
+        ArgumentCaptor<HttpPost> request = ArgumentCaptor.forClass(HttpPost.class);
+        verify(mockClient).execute(request.capture());
+        Assertions.assertEquals("00-trace-span-01", request.getValue().getFirstHeader("traceparent").getValue());
+        Assertions.assertTrue(new File(pdfEngineResponse.getTempPdfPath()).delete());
+        Assertions.assertEquals(HttpStatus.SC_OK, pdfEngineResponse.getStatusCode());
+    }
 }
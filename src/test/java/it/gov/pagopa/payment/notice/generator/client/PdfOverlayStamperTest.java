@@ -0,0 +1,86 @@
+package it.gov.pagopa.payment.notice.generator.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.gov.pagopa.payment.notice.generator.model.enums.OverlayFieldType;
+import it.gov.pagopa.payment.notice.generator.model.pdf.overlay.OverlayField;
+import it.gov.pagopa.payment.notice.generator.model.pdf.overlay.OverlayLayout;
+import it.gov.pagopa.payment.notice.generator.util.BarcodeRenderer;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PdfOverlayStamperTest {
+
+    PdfOverlayStamper pdfOverlayStamper = new PdfOverlayStamper(new BarcodeRenderer(BarcodeRenderer.SVG_FORMAT, 4, 100));
+
+    JsonNode data;
+
+    File target;
+
+    @BeforeEach
+    void init() throws IOException {
+        data = new ObjectMapper().readTree("{\"notice\":{\"code\":\"301000000000000000\"," +
+                "\"qrCode\":\"PAGOPA|002|301000000000000000|99999000013|1000\"," +
+                "\"posteDataMatrix\":\"codfase=NBPA;183010000000000000001234567890001000\"}}");
+        target = File.createTempFile("stamped", ".pdf");
+    }
+
+    @AfterEach
+    void tearDown() {
+        assertTrue(target.delete());
+    }
+
+    @Test
+    void stampTextAndBarcodes() throws IOException {
+        OverlayLayout layout = OverlayLayout.builder()
+                .fields(List.of(
+                        OverlayField.builder().value("/notice/code").x(40).y(100).width(200).align("right").build(),
+                        OverlayField.builder().value("/notice/qrCode").type(OverlayFieldType.QR_CODE)
+                                .x(40).y(200).width(80).height(80).build(),
+                        OverlayField.builder().value("/notice/posteDataMatrix").type(OverlayFieldType.DATA_MATRIX)
+                                .x(140).y(200).width(60).height(60).build(),
+                        OverlayField.builder().value("/notice/missing").x(40).y(300).build()))
+                .build();
+
+        pdfOverlayStamper.stamp(background(), layout, data, Map.of(), target);
+
+        try (PDDocument stamped = PDDocument.load(target)) {
+            assertEquals(1, stamped.getNumberOfPages());
+            assertTrue(new PDFTextStripper().getText(stamped).contains("301000000000000000"));
+        }
+    }
+
+    @Test
+    void stampUnknownFont() throws IOException {
+        OverlayLayout layout = OverlayLayout.builder()
+                .fields(List.of(OverlayField.builder().value("/notice/code").font("fonts/missing.ttf").build()))
+                .build();
+        byte[] background = background();
+
+        assertThrows(IOException.class,
+                () -> pdfOverlayStamper.stamp(background, layout, data, Map.of(), target));
+    }
+
+    private byte[] background() throws IOException {
+        try (PDDocument document = new PDDocument(); ByteArrayOutputStream output = new ByteArrayOutputStream()) {
+            document.addPage(new PDPage(PDRectangle.A4));
+            document.save(output);
+            return output.toByteArray();
+        }
+    }
+
+}
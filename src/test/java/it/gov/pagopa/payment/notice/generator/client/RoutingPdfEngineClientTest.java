@@ -0,0 +1,75 @@
+package it.gov.pagopa.payment.notice.generator.client;
+
+import it.gov.pagopa.payment.notice.generator.model.pdf.PdfEngineRequest;
+import it.gov.pagopa.payment.notice.generator.model.pdf.PdfEngineResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoutingPdfEngineClientTest {
+
+    @Mock
+    PdfEngineClient remotePdfEngineClient;
+
+    @Mock
+    PdfEngineClient embeddedPdfEngineClient;
+
+    Path workingDirPath = Path.of("temp");
+
+    @Test
+    void remoteBackendUsesRemoteEngine() {
+        PdfEngineResponse response = new PdfEngineResponse();
+        when(remotePdfEngineClient.generatePDF(any(), any())).thenReturn(response);
+        RoutingPdfEngineClient client = new RoutingPdfEngineClient(remotePdfEngineClient, embeddedPdfEngineClient,
+                "remote", Set.of("TemplateSET"));
+
+        assertSame(response, client.generatePDF(request("TemplateOTHER"), workingDirPath));
+        verifyNoInteractions(embeddedPdfEngineClient);
+    }
+
+    @Test
+    void remoteBackendUsesEmbeddedEngineForEnabledTemplates() {
+        PdfEngineResponse response = new PdfEngineResponse();
+        when(embeddedPdfEngineClient.generatePDF(any(), any())).thenReturn(response);
+        RoutingPdfEngineClient client = new RoutingPdfEngineClient(remotePdfEngineClient, embeddedPdfEngineClient,
+                "remote", Set.of("TemplateSET"));
+
+        assertSame(response, client.generatePDF(request("TemplateSET"), workingDirPath));
+        verifyNoInteractions(remotePdfEngineClient);
+    }
+
+    @Test
+    void embeddedBackendUsesEmbeddedEngine() {
+        PdfEngineResponse response = new PdfEngineResponse();
+        when(embeddedPdfEngineClient.generatePDF(any(), any())).thenReturn(response);
+        RoutingPdfEngineClient client = new RoutingPdfEngineClient(remotePdfEngineClient, embeddedPdfEngineClient,
+                "embedded", Set.of());
+
+        assertSame(response, client.generatePDF(request(null), workingDirPath));
+        verifyNoInteractions(remotePdfEngineClient);
+    }
+
+    @Test
+    void unknownBackendIsRefused() {
+        Set<String> templateIds = Set.of();
+        assertThrows(IllegalArgumentException.class, () -> new RoutingPdfEngineClient(
+                remotePdfEngineClient, embeddedPdfEngineClient, "chromium", templateIds));
+    }
+
+    private PdfEngineRequest request(String templateId) {
+        PdfEngineRequest request = new PdfEngineRequest();
+        request.setTemplateId(templateId);
+        return request;
+    }
+
+}
@@ -0,0 +1,105 @@
+package it.gov.pagopa.payment.notice.generator.config;
+
+import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeGenerationRequest;
+import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeGenerationRequestError;
+import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeProcessedItem;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.UncategorizedMongoDbException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MongoIndexConfigTest {
+
+    @Mock
+    MongoTemplate mongoTemplate;
+
+    @Mock
+    IndexOperations errorIndexOperations;
+
+    @Mock
+    IndexOperations requestIndexOperations;
+
+    @Mock
+    IndexOperations processedItemIndexOperations;
+
+    MongoIndexConfig mongoIndexConfig;
+
+    @BeforeEach
+    void init() {
+        lenient().doReturn(errorIndexOperations).when(mongoTemplate).indexOps(PaymentNoticeGenerationRequestError.class);
+        lenient().doReturn(requestIndexOperations).when(mongoTemplate).indexOps(PaymentNoticeGenerationRequest.class);
+        lenient().doReturn(processedItemIndexOperations).when(mongoTemplate).indexOps(PaymentNoticeProcessedItem.class);
+        mongoIndexConfig = new MongoIndexConfig(mongoTemplate);
+    }
+
+    @Test
+    void ensureIndexesCreatesUniqueErrorIndex() {
+        mongoIndexConfig.ensureIndexes();
+
+        Document index = index(errorIndexOperations, MongoIndexConfig.ERROR_FOLDER_ID_ERROR_ID_INDEX);
+        assertEquals(new Document("folderId", 1).append("errorId", 1), index.get("keys"));
+        assertEquals(true, index.get("unique"));
+        assertEquals(new Document("errorId", new Document("$exists", true)), index.get("partialFilterExpression"));
+    }
+
+    @Test
+    void ensureIndexesCreatesOutboxIndexes() {
+        mongoIndexConfig.ensureIndexes();
+
+        for (IndexOperations indexOperations : List.of(requestIndexOperations, errorIndexOperations)) {
+            Document index = index(indexOperations, MongoIndexConfig.OUTBOX_CREATED_AT_INDEX);
+            assertEquals(new Document("outbox.createdAt", 1), index.get("keys"));
+            assertEquals(new Document("outbox.eventId", new Document("$exists", true)),
+                    index.get("partialFilterExpression"));
+        }
+    }
+
+    @Test
+    void ensureIndexesCreatesProcessedItemTtlIndex() {
+        mongoIndexConfig.ensureIndexes();
+
+        Document index = index(processedItemIndexOperations, MongoIndexConfig.PROCESSED_ITEM_TTL_INDEX);
+        assertEquals(new Document("createdAt", 1), index.get("keys"));
+        assertEquals(Duration.ofDays(7).toSeconds(), index.get("expireAfterSeconds"));
+    }
+
+    @Test
+    void ensureIndexesIgnoresFailures() {
+        doThrow(new UncategorizedMongoDbException("duplicates", null))
+                .when(errorIndexOperations).ensureIndex(any());
+
+        assertDoesNotThrow(() -> mongoIndexConfig.ensureIndexes());
+        verify(requestIndexOperations).ensureIndex(any());
+        verify(processedItemIndexOperations).ensureIndex(any());
+    }
+
+    /**
+     * @return keys and options of the index with the provided name ensured on the collection
+     */
+    static Document index(IndexOperations indexOperations, String name) {
+        ArgumentCaptor<IndexDefinition> captor = ArgumentCaptor.forClass(IndexDefinition.class);
+        verify(indexOperations, atLeastOnce()).ensureIndex(captor.capture());
+        List<IndexDefinition> indexes = captor.getAllValues();
+        IndexDefinition index = indexes.stream()
+                .filter(definition -> name.equals(definition.getIndexOptions().get("name")))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Index " + name + " not ensured"));
+        return new Document(index.getIndexOptions()).append("keys", index.getIndexKeys());
+    }
+
+}
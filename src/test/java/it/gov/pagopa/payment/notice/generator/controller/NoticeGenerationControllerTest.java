@@ -14,18 +14,28 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import static junit.framework.TestCase.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -95,6 +105,51 @@ class NoticeGenerationControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_OCTET_STREAM));
         verify(noticeGenerationService).generateNotice(any(), any(), any());
+        verify(noticeGenerationService).releaseNotice(file);
+    }
+
+    @Test
+    void generateNoticesShouldStreamZipOnOk() throws Exception {
+        File tempDirectory = Files.createTempDirectory("test").toFile();
+        File file = Files.createTempFile(tempDirectory.toPath(), "test", ".pdf").toFile();
+        Files.writeString(file.toPath(), "pdf");
+        when(noticeGenerationService.generateNotice(any(), any(), any()))
+                .thenReturn(file);
+        String url = "/notices/generate/batch";
+        MvcResult mvcResult = mvc.perform(post(url)
+                        .content(objectMapper.writeValueAsString(
+                                List.of(getNoticeGenerationRequestItem(), getNoticeGenerationRequestItem())))
+                        .contentType(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvcResult = mvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/zip"))
+                .andReturn();
+
+        List<String> entries = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(
+                new ByteArrayInputStream(mvcResult.getResponse().getContentAsByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.add(entry.getName());
+            }
+        }
+        assertEquals(3, entries.size());
+        assertEquals("manifest.json", entries.get(2));
+        verify(noticeGenerationService, times(2)).generateNotice(any(), isNull(), isNull());
+        verify(noticeGenerationService, times(2)).releaseNotice(file);
+    }
+
+    @Test
+    void generateNoticesShouldReturnBadRequestOnEmptyBatch() throws Exception {
+        mvc.perform(post("/notices/generate/batch")
+                        .content("[]")
+                        .contentType(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isBadRequest());
+        verify(noticeGenerationService, never()).generateNotice(any(), any(), any());
     }
 
 
@@ -0,0 +1,160 @@
+package it.gov.pagopa.payment.notice.generator.events.codec;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeGenerationRequest;
+import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeGenerationRequestError;
+import it.gov.pagopa.payment.notice.generator.model.NoticeGenerationRequestItem;
+import it.gov.pagopa.payment.notice.generator.model.NoticePayloadReference;
+import it.gov.pagopa.payment.notice.generator.model.NoticeRequestEH;
+import it.gov.pagopa.payment.notice.generator.model.enums.PayloadCompression;
+import it.gov.pagopa.payment.notice.generator.model.enums.PaymentGenerationRequestStatus;
+import it.gov.pagopa.payment.notice.generator.model.notice.CreditorInstitution;
+import it.gov.pagopa.payment.notice.generator.model.notice.Debtor;
+import it.gov.pagopa.payment.notice.generator.model.notice.InstallmentData;
+import it.gov.pagopa.payment.notice.generator.model.notice.Notice;
+import it.gov.pagopa.payment.notice.generator.model.notice.NoticeRequestData;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NoticeEventCodecRegistryTest {
+
+    NoticeEventCodecRegistry noticeEventCodecRegistry;
+
+    @BeforeEach
+    public void init() {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        NoticeEventCodecConfig noticeEventCodecConfig = new NoticeEventCodecConfig();
+        noticeEventCodecRegistry = new NoticeEventCodecRegistry(List.of(
+                noticeEventCodecConfig.jsonNoticeEventCodec(objectMapper),
+                noticeEventCodecConfig.smileNoticeEventCodec(objectMapper),
+                noticeEventCodecConfig.cborNoticeEventCodec(objectMapper),
+                noticeEventCodecConfig.avroNoticeEventCodec()));
+    }
+
+    @Test
+    void getCodecShouldDefaultToJson() {
+        assertEquals(MimeTypeUtils.APPLICATION_JSON,
+                noticeEventCodecRegistry.getCodec(null).orElseThrow().getContentType());
+        assertEquals(MimeTypeUtils.APPLICATION_JSON,
+                noticeEventCodecRegistry.getCodec("application/json;charset=UTF-8").orElseThrow().getContentType());
+    }
+
+    @Test
+    void getCodecShouldReturnEmptyOnUnsupportedContentType() {
+        assertTrue(noticeEventCodecRegistry.getCodec("application/x-unknown").isEmpty());
+        assertTrue(noticeEventCodecRegistry.getCodec("not a mime type").isEmpty());
+    }
+
+    @SneakyThrows
+    @ParameterizedTest
+    @ValueSource(strings = {"application/json", "application/x-jackson-smile", "application/cbor", "application/avro"})
+    void codecShouldRoundTripGenerationMessage(String contentType) {
+        NoticeEventCodec noticeEventCodec = noticeEventCodecRegistry.getCodec(MimeType.valueOf(contentType))
+                .orElseThrow();
+        NoticeRequestEH noticeRequestEH = getNoticeRequestEH();
+
+        NoticeRequestEH result = noticeEventCodec.decode(noticeEventCodec.encode(noticeRequestEH), NoticeRequestEH.class);
+
+        assertEquals(noticeRequestEH, result);
+    }
+
+    @SneakyThrows
+    @ParameterizedTest
+    @ValueSource(strings = {"application/json", "application/x-jackson-smile", "application/cbor", "application/avro"})
+    void codecShouldRoundTripOutboundEvents(String contentType) {
+        NoticeEventCodec noticeEventCodec = noticeEventCodecRegistry.getCodec(contentType).orElseThrow();
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        PaymentNoticeGenerationRequest request = PaymentNoticeGenerationRequest.builder()
+                .id("folderId")
+                .userId("userId")
+                .createdAt(now)
+                .requestDate(now)
+                .status(PaymentGenerationRequestStatus.PROCESSED)
+                .items(Collections.singletonList("itemId"))
+                .numberOfElementsTotal(1)
+                .numberOfElementsFailed(0)
+                .build();
+        PaymentNoticeGenerationRequestError error = PaymentNoticeGenerationRequestError.builder()
+                .id("id")
+                .folderId("folderId")
+                .errorId("errorId")
+                .createdAt(now)
+                .errorDescription("error")
+                .data("data")
+                .numberOfAttempts(1)
+                .build();
+
+        PaymentNoticeGenerationRequest requestResult = noticeEventCodec.decode(
+                noticeEventCodec.encode(request), PaymentNoticeGenerationRequest.class);
+        PaymentNoticeGenerationRequestError errorResult = noticeEventCodec.decode(
+                noticeEventCodec.encode(error), PaymentNoticeGenerationRequestError.class);
+
+        assertEquals(request.getStatus(), requestResult.getStatus());
+        assertEquals(request.getItems(), requestResult.getItems());
+        assertEquals(now, requestResult.getRequestDate());
+        assertEquals(error.getErrorId(), errorResult.getErrorId());
+        assertEquals(error.getData(), errorResult.getData());
+        assertEquals(now, errorResult.getCreatedAt());
+    }
+
+    private NoticeRequestEH getNoticeRequestEH() {
+        return NoticeRequestEH.builder()
+                .folderId("folderId")
+                .errorId("errorId")
+                .payloadReference(NoticePayloadReference.builder()
+                        .blobName("folderId/payload")
+                        .compression(PayloadCompression.ZSTD)
+                        .build())
+                .noticeData(NoticeGenerationRequestItem.builder()
+                        .templateId("template")
+                        .data(NoticeRequestData.builder()
+                                .notice(Notice.builder()
+                                        .code("302000000000000001")
+                                        .subject("subject")
+                                        .paymentAmount(100L)
+                                        .dueDate("24/10/2024")
+                                        .discounted(InstallmentData.builder()
+                                                .code("302000000000000002")
+                                                .amount(90L)
+                                                .build())
+                                        .installments(List.of(InstallmentData.builder()
+                                                .code("302000000000000003")
+                                                .amount(50L)
+                                                .dueDate("24/11/2024")
+                                                .build()))
+                                        .build())
+                                .creditorInstitution(CreditorInstitution.builder()
+                                        .taxCode("99999000013")
+                                        .webChannel(true)
+                                        .build())
+                                .debtor(Debtor.builder()
+                                        .taxCode("taxCode")
+                                        .fullName("Test Name")
+                                        .address("address")
+                                        .buildingNumber("101")
+                                        .postalCode("00135")
+                                        .city("city")
+                                        .province("RM")
+                                        .build())
+                                .build())
+                        .build())
+                .build();
+    }
+
+}
@@ -0,0 +1,139 @@
+package it.gov.pagopa.payment.notice.generator.events.outbox;
+
+import it.gov.pagopa.payment.notice.generator.entity.OutboxEvent;
+import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeGenerationRequest;
+import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeGenerationRequestError;
+import it.gov.pagopa.payment.notice.generator.events.producer.NoticeRequestCompleteProducer;
+import it.gov.pagopa.payment.notice.generator.events.producer.NoticeRequestErrorProducer;
+import it.gov.pagopa.payment.notice.generator.util.TraceContextUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NoticeEventOutboxRelayTest {
+
+    @Mock
+    MongoTemplate mongoTemplate;
+
+    @Mock
+    BulkOperations bulkOperations;
+
+    @Mock
+    NoticeRequestCompleteProducer noticeRequestCompleteProducer;
+
+    @Mock
+    NoticeRequestErrorProducer noticeRequestErrorProducer;
+
+    NoticeEventOutboxRelay noticeEventOutboxRelay;
+
+    @BeforeEach
+    public void init() {
+        Mockito.reset(mongoTemplate, bulkOperations, noticeRequestCompleteProducer, noticeRequestErrorProducer);
+        noticeEventOutboxRelay = new NoticeEventOutboxRelay(mongoTemplate,
+                noticeRequestCompleteProducer, noticeRequestErrorProducer, new TraceContextUtils(),
+                10, Duration.ofMinutes(1), Duration.ofMillis(100));
+    }
+
+    @Test
+    void relayShouldSendAndClearPendingEvents() {
+        PaymentNoticeGenerationRequestError pending = PaymentNoticeGenerationRequestError.builder()
+                .id("errorDocumentId")
+                .outbox(OutboxEvent.builder().eventId("eventId").build())
+                .build();
+        doReturn(List.of(pending), List.of(pending))
+                .when(mongoTemplate).find(any(Query.class), eq(PaymentNoticeGenerationRequestError.class));
+        doReturn(bulkOperations).when(mongoTemplate)
+                .bulkOps(BulkOperations.BulkMode.UNORDERED, PaymentNoticeGenerationRequestError.class);
+        doReturn(CompletableFuture.completedFuture(null)).when(noticeRequestErrorProducer).noticeError(pending);
+
+        int relayed = noticeEventOutboxRelay.relayBatch(PaymentNoticeGenerationRequestError.class, "error",
+                noticeRequestErrorProducer::noticeError);
+
+        assertEquals(1, relayed);
+        verify(mongoTemplate).updateMulti(any(Query.class), any(Update.class),
+                eq(PaymentNoticeGenerationRequestError.class));
+        verify(noticeRequestErrorProducer).noticeError(pending);
+        verify(bulkOperations).updateOne(any(Query.class), any(Update.class));
+        verify(bulkOperations).execute();
+    }
+
+    @Test
+    void relayShouldKeepEventsNotSent() {
+        PaymentNoticeGenerationRequest pending = PaymentNoticeGenerationRequest.builder()
+                .id("folderId")
+                .outbox(OutboxEvent.builder().eventId("eventId").build())
+                .build();
+        doReturn(List.of(pending), List.of(pending))
+                .when(mongoTemplate).find(any(Query.class), eq(PaymentNoticeGenerationRequest.class));
+        doReturn(bulkOperations).when(mongoTemplate)
+                .bulkOps(BulkOperations.BulkMode.UNORDERED, PaymentNoticeGenerationRequest.class);
+        doReturn(CompletableFuture.failedFuture(new IllegalStateException("not accepted")))
+                .when(noticeRequestCompleteProducer).noticeComplete(pending);
+
+        int relayed = noticeEventOutboxRelay.relayBatch(PaymentNoticeGenerationRequest.class, "complete",
+                noticeRequestCompleteProducer::noticeComplete);
+
+        assertEquals(1, relayed);
+        verifyNoInteractions(bulkOperations);
+    }
+
+    @Test
+    void relayShouldClearOnlyAcknowledgedEvents() {
+        PaymentNoticeGenerationRequest acknowledged = PaymentNoticeGenerationRequest.builder()
+                .id("acknowledgedFolderId")
+                .outbox(OutboxEvent.builder().eventId("acknowledgedEventId").build())
+                .build();
+        PaymentNoticeGenerationRequest unacknowledged = PaymentNoticeGenerationRequest.builder()
+                .id("unacknowledgedFolderId")
+                .outbox(OutboxEvent.builder().eventId("unacknowledgedEventId").build())
+                .build();
+        doReturn(List.of(acknowledged, unacknowledged), List.of(acknowledged, unacknowledged))
+                .when(mongoTemplate).find(any(Query.class), eq(PaymentNoticeGenerationRequest.class));
+        doReturn(bulkOperations).when(mongoTemplate)
+                .bulkOps(BulkOperations.BulkMode.UNORDERED, PaymentNoticeGenerationRequest.class);
+        CompletableFuture<Void> pendingAcknowledgement = new CompletableFuture<>();
+        doReturn(CompletableFuture.completedFuture(null)).when(noticeRequestCompleteProducer).noticeComplete(acknowledged);
+        doReturn(pendingAcknowledgement).when(noticeRequestCompleteProducer).noticeComplete(unacknowledged);
+
+        int relayed = noticeEventOutboxRelay.relayBatch(PaymentNoticeGenerationRequest.class, "complete",
+                noticeRequestCompleteProducer::noticeComplete);
+
+        // both events are sent before waiting, the one not acknowledged within the timeout is kept
+        assertEquals(2, relayed);
+        verify(noticeRequestCompleteProducer).noticeComplete(acknowledged);
+        verify(noticeRequestCompleteProducer).noticeComplete(unacknowledged);
+        verify(bulkOperations, times(1)).updateOne(any(Query.class), any(Update.class));
+        verify(bulkOperations).execute();
+        assertTrue(pendingAcknowledgement.isCancelled());
+    }
+
+    @Test
+    void relayShouldDoNothingWithoutPendingEvents() {
+        doReturn(Collections.emptyList()).when(mongoTemplate).find(any(Query.class), any());
+
+        noticeEventOutboxRelay.relay();
+
+        verify(mongoTemplate, never()).updateMulti(any(Query.class), any(Update.class), any(Class.class));
+        verifyNoInteractions(noticeRequestCompleteProducer, noticeRequestErrorProducer);
+    }
+
+}
@@ -0,0 +1,69 @@
+package it.gov.pagopa.payment.notice.generator.events.producer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.integration.kafka.support.KafkaSendFailureException;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.support.ErrorMessage;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.concurrent.CompletableFuture;
+
+import static it.gov.pagopa.payment.notice.generator.util.Constants.HEADER_EVENT_ID;
+import static org.junit.jupiter.api.Assertions.*;
+
+class NoticeEventSendResultConfigTest {
+
+    MeterRegistry meterRegistry;
+
+    NoticeEventSendTracker noticeEventSendTracker;
+
+    NoticeEventSendResultConfig noticeEventSendResultConfig;
+
+    @BeforeEach
+    public void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        noticeEventSendTracker = new NoticeEventSendTracker();
+        noticeEventSendResultConfig = new NoticeEventSendResultConfig(meterRegistry, noticeEventSendTracker);
+    }
+
+    @Test
+    void onSendSuccessShouldRecordLatency() {
+        RecordMetadata recordMetadata = new RecordMetadata(new TopicPartition("complete", 0),
+                0, 0, System.currentTimeMillis(), 0, 0);
+        CompletableFuture<Void> sendResult = noticeEventSendTracker.expect("eventId");
+
+        noticeEventSendResultConfig.onSendSuccess(MessageBuilder.withPayload("payload")
+                .setHeader(HEADER_EVENT_ID, "eventId")
+                .setHeader(KafkaHeaders.RECORD_METADATA, recordMetadata).build());
+
+        assertTrue(sendResult.isDone());
+        assertFalse(sendResult.isCompletedExceptionally());
+
+        assertEquals(1, meterRegistry.get(NoticeEventSendResultConfig.SEND_TIMER)
+                .tag("topic", "complete").timer().count());
+    }
+
+    @Test
+    void onSendFailureShouldCountKafkaFailures() {
+        CompletableFuture<Void> sendResult = noticeEventSendTracker.expect("eventId");
+        KafkaSendFailureException failure = new KafkaSendFailureException(
+                MessageBuilder.withPayload("payload").setHeader(HEADER_EVENT_ID, "eventId").build(),
+                new ProducerRecord<>("error", "payload"),
+                new RuntimeException("timeout"));
+
+        noticeEventSendResultConfig.onSendFailure(new ErrorMessage(failure));
+        noticeEventSendResultConfig.onSendFailure(new ErrorMessage(new RuntimeException("other")));
+
+        assertEquals(1, meterRegistry.get(NoticeEventSendResultConfig.SEND_FAILURES_COUNTER)
+                .tag("topic", "error").counter().count());
+        assertNull(meterRegistry.find(NoticeEventSendResultConfig.SEND_TIMER).timer());
+        assertTrue(sendResult.isCompletedExceptionally());
+    }
+
+}
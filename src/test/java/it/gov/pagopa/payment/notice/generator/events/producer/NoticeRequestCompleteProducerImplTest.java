@@ -1,6 +1,10 @@
 package it.gov.pagopa.payment.notice.generator.events.producer;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.gov.pagopa.payment.notice.generator.entity.OutboxEvent;
 import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeGenerationRequest;
+import it.gov.pagopa.payment.notice.generator.events.codec.JacksonNoticeEventCodec;
+import it.gov.pagopa.payment.notice.generator.events.codec.NoticeEventCodecRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -8,6 +12,12 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.messaging.MessageHandlingException;
+import org.springframework.messaging.support.GenericMessage;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -19,12 +29,18 @@ class NoticeRequestCompleteProducerImplTest {
     @Mock
     StreamBridge streamBridge;
 
+    NoticeEventSendTracker noticeEventSendTracker;
+
     NoticeRequestCompleteProducer noticeRequestCompleteProducer;
 
     @BeforeEach
     public void init() {
         Mockito.reset(streamBridge);
-        noticeRequestCompleteProducer = new NoticeRequestCompleteProducerImpl(streamBridge);
+        noticeEventSendTracker = new NoticeEventSendTracker();
+        noticeRequestCompleteProducer = new NoticeRequestCompleteProducerImpl(streamBridge,
+                new NoticeEventCodecRegistry(List.of(
+                        new JacksonNoticeEventCodec(MimeTypeUtils.APPLICATION_JSON, new ObjectMapper()))),
+                noticeEventSendTracker, MimeTypeUtils.APPLICATION_JSON_VALUE);
     }
 
     @Test
@@ -33,4 +49,32 @@ class NoticeRequestCompleteProducerImplTest {
         verify(streamBridge).send(any(), any());
     }
 
+    @Test
+    void noticeCompleteCompletesOnceAcknowledged() {
+        Mockito.doReturn(true).when(streamBridge).send(any(), any());
+
+        CompletableFuture<Void> sendResult = noticeRequestCompleteProducer.noticeComplete(PaymentNoticeGenerationRequest.builder()
+                .outbox(OutboxEvent.builder().eventId("eventId").build())
+                .build());
+
+        assertFalse(sendResult.isDone());
+        noticeEventSendTracker.acknowledged("eventId");
+        assertTrue(sendResult.isDone());
+        assertFalse(sendResult.isCompletedExceptionally());
+    }
+
+    @Test
+    void noticeCompleteFailsOnSendFailure() {
+        Mockito.doThrow(new MessageHandlingException(new GenericMessage<>("event"), "timeout"))
+                .when(streamBridge).send(any(), any());
+
+        CompletableFuture<Void> sendResult = noticeRequestCompleteProducer.noticeComplete(PaymentNoticeGenerationRequest.builder()
+                .outbox(OutboxEvent.builder().eventId("eventId").build())
+                .build());
+
+        assertTrue(sendResult.isCompletedExceptionally());
+        // the failed send is no longer tracked, so a later acknowledgement of the same event is ignored
+        assertFalse(noticeEventSendTracker.expect("eventId").isDone());
+    }
+
 }
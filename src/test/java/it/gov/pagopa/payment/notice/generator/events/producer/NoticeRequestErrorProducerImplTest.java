@@ -1,7 +1,11 @@
 package it.gov.pagopa.payment.notice.generator.events.producer;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.gov.pagopa.payment.notice.generator.entity.OutboxEvent;
 import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeGenerationRequest;
 import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeGenerationRequestError;
+import it.gov.pagopa.payment.notice.generator.events.codec.JacksonNoticeEventCodec;
+import it.gov.pagopa.payment.notice.generator.events.codec.NoticeEventCodecRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -9,7 +13,15 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.messaging.MessageHandlingException;
+import org.springframework.messaging.support.GenericMessage;
+import org.springframework.util.MimeTypeUtils;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.verify;
 
@@ -19,12 +31,18 @@ class NoticeRequestErrorProducerImplTest {
     @Mock
     StreamBridge streamBridge;
 
+    NoticeEventSendTracker noticeEventSendTracker;
+
     NoticeRequestErrorProducer noticeRequestErrorProducer;
 
     @BeforeEach
     public void init() {
         Mockito.reset(streamBridge);
-        noticeRequestErrorProducer = new NoticeRequestErrorProducerImpl(streamBridge);
+        noticeEventSendTracker = new NoticeEventSendTracker();
+        noticeRequestErrorProducer = new NoticeRequestErrorProducerImpl(streamBridge,
+                new NoticeEventCodecRegistry(List.of(
+                        new JacksonNoticeEventCodec(MimeTypeUtils.APPLICATION_JSON, new ObjectMapper()))),
+                noticeEventSendTracker, MimeTypeUtils.APPLICATION_JSON_VALUE);
     }
 
     @Test
@@ -33,4 +51,32 @@ class NoticeRequestErrorProducerImplTest {
         verify(streamBridge).send(any(), any());
     }
 
+    @Test
+    void noticeErrorCompletesOnceAcknowledged() {
+        Mockito.doReturn(true).when(streamBridge).send(any(), any());
+
+        CompletableFuture<Void> sendResult = noticeRequestErrorProducer.noticeError(PaymentNoticeGenerationRequestError.builder()
+                .outbox(OutboxEvent.builder().eventId("eventId").build())
+                .build());
+
+        assertFalse(sendResult.isDone());
+        noticeEventSendTracker.acknowledged("eventId");
+        assertTrue(sendResult.isDone());
+        assertFalse(sendResult.isCompletedExceptionally());
+    }
+
+    @Test
+    void noticeErrorFailsOnSendFailure() {
+        Mockito.doThrow(new MessageHandlingException(new GenericMessage<>("event"), "timeout"))
+                .when(streamBridge).send(any(), any());
+
+        CompletableFuture<Void> sendResult = noticeRequestErrorProducer.noticeError(PaymentNoticeGenerationRequestError.builder()
+                .outbox(OutboxEvent.builder().eventId("eventId").build())
+                .build());
+
+        assertTrue(sendResult.isCompletedExceptionally());
+        // the failed send is no longer tracked, so a later acknowledgement of the same event is ignored
+        assertFalse(noticeEventSendTracker.expect("eventId").isDone());
+    }
+
 }
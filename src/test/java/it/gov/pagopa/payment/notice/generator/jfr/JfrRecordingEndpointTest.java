@@ -0,0 +1,88 @@
+package it.gov.pagopa.payment.notice.generator.jfr;
+
+import jdk.jfr.RecordingState;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.core.io.Resource;
+import org.springframework.util.unit.DataSize;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JfrRecordingEndpointTest {
+
+    JfrRecordingEndpoint jfrRecordingEndpoint;
+
+    @BeforeEach
+    void init() {
+        jfrRecordingEndpoint = new JfrRecordingEndpoint(
+                false, "default", Duration.ofMinutes(10), DataSize.ofMegabytes(10));
+    }
+
+    @AfterEach
+    void close() {
+        jfrRecordingEndpoint.close();
+    }
+
+    @Test
+    void dumpShouldContainNoticeEvents() throws Exception {
+        assertEquals(RecordingState.RUNNING, jfrRecordingEndpoint.control("start", null).get("state"));
+
+        NoticeRenderEvent event = new NoticeRenderEvent();
+        event.begin();
+        event.folderId = "folderId";
+        event.templateId = "templateId";
+        event.bytes = 1024;
+        event.commit();
+
+        Resource dump = jfrRecordingEndpoint.dump("dump");
+        Path file = Files.createTempFile("notice-generator-test", ".jfr");
+        try (InputStream inputStream = dump.getInputStream()) {
+            Files.copy(inputStream, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(recordedEvent -> recordedEvent.getEventType().getName().equals(NoticeRenderEvent.NAME))
+                .toList();
+        Files.delete(file);
+
+        assertEquals(1, events.size());
+        assertEquals("folderId", events.get(0).getString("folderId"));
+        assertEquals("templateId", events.get(0).getString("templateId"));
+        assertEquals(1024, events.get(0).getLong("bytes"));
+    }
+
+    @Test
+    void stopShouldKeepRecording() {
+        jfrRecordingEndpoint.control("start", "profile");
+
+        var status = jfrRecordingEndpoint.control("stop", null);
+
+        assertEquals(RecordingState.STOPPED, status.get("state"));
+        assertEquals("profile", status.get("settings"));
+    }
+
+    @Test
+    void statusShouldBeNoneBeforeStart() {
+        assertEquals("NONE", jfrRecordingEndpoint.status().get("state"));
+        assertNull(jfrRecordingEndpoint.dump("dump"));
+    }
+
+    @Test
+    void controlShouldRejectUnknownActionsAndSettings() {
+        assertThrows(InvalidEndpointRequestException.class, () -> jfrRecordingEndpoint.control("pause", null));
+        assertThrows(InvalidEndpointRequestException.class, () -> jfrRecordingEndpoint.control("start", "unknown"));
+    }
+
+}
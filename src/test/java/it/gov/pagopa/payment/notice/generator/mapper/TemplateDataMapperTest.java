@@ -0,0 +1,96 @@
+package it.gov.pagopa.payment.notice.generator.mapper;
+
+import it.gov.pagopa.payment.notice.generator.model.notice.CreditorInstitution;
+import it.gov.pagopa.payment.notice.generator.model.notice.Debtor;
+import it.gov.pagopa.payment.notice.generator.model.notice.InstallmentData;
+import it.gov.pagopa.payment.notice.generator.model.notice.Notice;
+import it.gov.pagopa.payment.notice.generator.model.notice.NoticeRequestData;
+import it.gov.pagopa.payment.notice.generator.model.pdf.notice.Installment;
+import it.gov.pagopa.payment.notice.generator.model.pdf.notice.PaymentNotice;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TemplateDataMapperTest {
+
+    @Test
+    void mapTemplateShouldBuildCodesForNoticeAndInstallments() {
+        PaymentNotice paymentNotice = TemplateDataMapper.mapTemplate(getNoticeRequestData("AUT/123", 123456L,
+                List.of(getInstallment("302000000000000002", 61728L), getInstallment("302000000000000003", 61728L))));
+
+        assertEquals("1.234,56", paymentNotice.getNotice().getAmount());
+        assertEquals("PAGOPA|002|302000000000000001|00099999001|123456", paymentNotice.getNotice().getQrCode());
+        assertEquals("codfase=NBPA;18302000000000000001120000123456781000001234563896" +
+                        "1P199999001   RSSMRA80A01H501UMario Rossi" + " ".repeat(29) +
+                        "TARI" + " ".repeat(106) + " ".repeat(12) + "A",
+                paymentNotice.getNotice().getPosteDataMatrix());
+
+        List<Installment> items = paymentNotice.getNotice().getInstalments().getItems();
+        assertEquals(2, items.size());
+        assertEquals("617,28", items.get(1).getAmount());
+        assertEquals("PAGOPA|002|302000000000000003|00099999001|61728", items.get(1).getQrCode());
+        assertTrue(items.get(1).getPosteDataMatrix()
+                .startsWith("codfase=NBPA;18302000000000000003120000123456781000000617283896"));
+        assertEquals("CBILL", items.get(1).getCbillCode());
+    }
+
+    @Test
+    void mapTemplateShouldSkipDataMatrixWithoutPosteAuth() {
+        PaymentNotice paymentNotice = TemplateDataMapper.mapTemplate(getNoticeRequestData(null, null, null));
+
+        assertNull(paymentNotice.getNotice().getAmount());
+        assertNull(paymentNotice.getNotice().getQrCode());
+        assertNull(paymentNotice.getNotice().getPosteDataMatrix());
+        assertTrue(paymentNotice.getNotice().getInstalments().getItems().isEmpty());
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "0, '0,00'",
+            "5, '0,05'",
+            "99, '0,99'",
+            "100, '1,00'",
+            "100000, '1.000,00'",
+            "123456789, '1.234.567,89'",
+            "-123456, '-1.234,56'"
+    })
+    void mapTemplateShouldFormatAmountsAsItalianCurrency(long amount, String expected) {
+        PaymentNotice paymentNotice = TemplateDataMapper.mapTemplate(getNoticeRequestData(null, amount, null));
+
+        assertEquals(expected, paymentNotice.getNotice().getAmount());
+    }
+
+    private static InstallmentData getInstallment(String code, long amount) {
+        return InstallmentData.builder().code(code).amount(amount).dueDate("24/10/2024").build();
+    }
+
+    private static NoticeRequestData getNoticeRequestData(String posteAuth, Long amount,
+                                                          List<InstallmentData> installments) {
+        return NoticeRequestData.builder()
+                .notice(Notice.builder()
+                        .code("302000000000000001")
+                        .subject("TARI")
+                        .dueDate("24/10/2024")
+                        .paymentAmount(amount)
+                        .installments(installments)
+                        .build())
+                .creditorInstitution(CreditorInstitution.builder()
+                        .taxCode("99999001")
+                        .cbill("CBILL")
+                        .webChannel(true)
+                        .appChannel(false)
+                        .posteAuth(posteAuth)
+                        .posteAccountNumber("12345678")
+                        .build())
+                .debtor(Debtor.builder()
+                        .taxCode("RSSMRA80A01H501U")
+                        .fullName("Mario Rossi")
+                        .build())
+                .build();
+    }
+
+}
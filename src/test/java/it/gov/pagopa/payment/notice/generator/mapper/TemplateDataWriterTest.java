@@ -0,0 +1,152 @@
+package it.gov.pagopa.payment.notice.generator.mapper;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.gov.pagopa.payment.notice.generator.model.notice.CreditorInstitution;
+import it.gov.pagopa.payment.notice.generator.model.notice.Debtor;
+import it.gov.pagopa.payment.notice.generator.model.notice.InstallmentData;
+import it.gov.pagopa.payment.notice.generator.model.notice.Notice;
+import it.gov.pagopa.payment.notice.generator.model.notice.NoticeRequestData;
+import it.gov.pagopa.payment.notice.generator.util.BarcodeRenderer;
+import lombok.SneakyThrows;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Checks the streaming writer and the serialized {@link TemplateDataMapper} output against the same
+ * golden files, in template-data/
+ */
+class TemplateDataWriterTest {
+
+    // same inclusion as the application ObjectMapper
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    static Stream<Arguments> templateData() {
+        return Stream.of(
+                Arguments.of("installments", getNoticeRequestData(true, 12)),
+                Arguments.of("single", getNoticeRequestData(false, 0)),
+                Arguments.of("minimal", NoticeRequestData.builder()
+                        .notice(Notice.builder()
+                                .code("302000000000000001")
+                                .subject("Contributo")
+                                .build())
+                        .creditorInstitution(CreditorInstitution.builder()
+                                .taxCode("99999000013")
+                                .build())
+                        .debtor(Debtor.builder()
+                                .taxCode("RSSMRA80A01H501U")
+                                .fullName("Mario Rossi")
+                                .build())
+                        .build())
+        );
+    }
+
+    @SneakyThrows
+    @ParameterizedTest
+    @MethodSource("templateData")
+    void writeTemplateShouldMatchMappedTemplate(String name, NoticeRequestData noticeRequestData) {
+        String golden = getGolden(name);
+
+        assertEquals(golden, objectMapper.writeValueAsString(TemplateDataMapper.mapTemplate(noticeRequestData)));
+        assertEquals(golden, TemplateDataWriter.writeTemplateAsString(noticeRequestData, objectMapper.getFactory()));
+    }
+
+    @SneakyThrows
+    @ParameterizedTest
+    @MethodSource("templateData")
+    void writeTemplateWithBarcodeImagesShouldMatchMappedTemplate(String name, NoticeRequestData noticeRequestData) {
+        BarcodeRenderer barcodeRenderer = mock(BarcodeRenderer.class);
+        lenient().when(barcodeRenderer.qrCodeImage(anyString())).thenAnswer(invocation -> "qr:" + invocation.getArgument(0));
+        lenient().when(barcodeRenderer.dataMatrixImage(anyString())).thenAnswer(invocation -> "dm:" + invocation.getArgument(0));
+
+        String mapped = objectMapper.writeValueAsString(TemplateDataMapper.mapTemplate(noticeRequestData, barcodeRenderer));
+
+        assertEquals(mapped, TemplateDataWriter.writeTemplateAsString(noticeRequestData, objectMapper.getFactory(), barcodeRenderer));
+        JsonNode notice = objectMapper.readTree(mapped).get("notice");
+        if (notice.has("qrCode")) {
+            assertEquals("qr:" + notice.get("qrCode").asText(), notice.get("qrCodeImage").asText());
+        }
+        if (notice.has("posteDataMatrix")) {
+            assertEquals("dm:" + notice.get("posteDataMatrix").asText(), notice.get("posteDataMatrixImage").asText());
+        }
+        for (JsonNode installment : notice.get("instalments").get("items")) {
+            assertEquals("qr:" + installment.get("qrCode").asText(), installment.get("qrCodeImage").asText());
+        }
+    }
+
+    @SneakyThrows
+    private static String getGolden(String name) {
+        try (InputStream inputStream = TemplateDataWriterTest.class.getClassLoader()
+                .getResourceAsStream("template-data/" + name + ".json")) {
+            assertNotNull(inputStream);
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8).strip();
+        }
+    }
+
+    private static NoticeRequestData getNoticeRequestData(boolean poste, int installments) {
+        List<InstallmentData> items = new ArrayList<>(installments);
+        for (int i = 0; i < installments; i++) {
+            items.add(InstallmentData.builder()
+                    .code(String.format("30200000000000%04d", i + 2))
+                    .amount(10000L + i * 1234567L)
+                    .dueDate(String.format("%02d/01/2025", i + 1))
+                    .build());
+        }
+        return NoticeRequestData.builder()
+                .notice(Notice.builder()
+                        .code("302000000000000001")
+                        .subject("TARI 2024 - \"saldo\" \u00e0\u00e8\u00ec\u00f2\u00f9")
+                        .dueDate("31/12/2024")
+                        .paymentAmount(123456789L)
+                        .installments(installments > 0 ? items : null)
+                        .reduced(InstallmentData.builder()
+                                .code("302000000000009998")
+                                .amount(99L)
+                                .dueDate("30/11/2024")
+                                .build())
+                        .discounted(poste ? InstallmentData.builder()
+                                .code("302000000000009999")
+                                .amount(-150L)
+                                .build() : null)
+                        .build())
+                .creditorInstitution(CreditorInstitution.builder()
+                        .taxCode("99999000013")
+                        .fullName("Comune di Roma")
+                        .organization("Settore Tributi")
+                        .info("Via del Campidoglio, 1\nRoma")
+                        .webChannel(true)
+                        .appChannel(poste ? null : true)
+                        .physicalChannel("Sportelli comunali")
+                        .cbill("AAAAA")
+                        .logo("https://example.org/logo.png")
+                        .posteAuth(poste ? "AUT/123456/2024" : null)
+                        .posteAccountNumber(poste ? "123456789012" : null)
+                        .build())
+                .debtor(Debtor.builder()
+                        .taxCode("RSSMRA80A01H501U")
+                        .fullName("Mario Rossi")
+                        .address("Via Roma")
+                        .buildingNumber("1")
+                        .postalCode("00100")
+                        .city("Roma")
+                        .province("RM")
+                        .build())
+                .build();
+    }
+
+}
@@ -0,0 +1,67 @@
+package it.gov.pagopa.payment.notice.generator.repository;
+
+import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeGenerationRequestError;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentGenerationRequestErrorRepositoryCustomImplTest {
+
+    @Mock
+    MongoTemplate mongoTemplate;
+
+    PaymentGenerationRequestErrorRepositoryCustomImpl repository;
+
+    @BeforeEach
+    void init() {
+        repository = new PaymentGenerationRequestErrorRepositoryCustomImpl(mongoTemplate);
+    }
+
+    @Test
+    void findAndUpsertReturnsPrevious() {
+        PaymentNoticeGenerationRequestError previous = new PaymentNoticeGenerationRequestError();
+        doReturn(previous).when(mongoTemplate).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(PaymentNoticeGenerationRequestError.class));
+
+        assertSame(previous, repository.findAndUpsertByErrorIdAndFolderId(error()));
+        verify(mongoTemplate).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(PaymentNoticeGenerationRequestError.class));
+    }
+
+    @Test
+    void findAndUpsertRetriesOnConcurrentInsert() {
+        PaymentNoticeGenerationRequestError previous = new PaymentNoticeGenerationRequestError();
+        doThrow(new DuplicateKeyException("folderId_errorId"))
+                .doReturn(previous)
+                .when(mongoTemplate).findAndModify(any(Query.class), any(Update.class),
+                        any(FindAndModifyOptions.class), eq(PaymentNoticeGenerationRequestError.class));
+
+        assertSame(previous, repository.findAndUpsertByErrorIdAndFolderId(error()));
+        verify(mongoTemplate, times(2)).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(PaymentNoticeGenerationRequestError.class));
+    }
+
+    private PaymentNoticeGenerationRequestError error() {
+        return PaymentNoticeGenerationRequestError.builder()
+                .id(new ObjectId().toHexString())
+                .folderId("folderId")
+                .errorId("errorId")
+                .errorDescription("error")
+                .build();
+    }
+
+}
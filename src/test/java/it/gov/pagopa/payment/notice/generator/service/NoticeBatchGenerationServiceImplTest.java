@@ -0,0 +1,206 @@
+package it.gov.pagopa.payment.notice.generator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.gov.pagopa.payment.notice.generator.exception.AppError;
+import it.gov.pagopa.payment.notice.generator.exception.AppException;
+import it.gov.pagopa.payment.notice.generator.model.NoticeGenerationRequestItem;
+import it.gov.pagopa.payment.notice.generator.model.notice.CreditorInstitution;
+import it.gov.pagopa.payment.notice.generator.model.notice.Notice;
+import it.gov.pagopa.payment.notice.generator.model.notice.NoticeRequestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NoticeBatchGenerationServiceImplTest {
+
+    @Mock
+    NoticeGenerationService noticeGenerationService;
+
+    @TempDir
+    Path workingDirectory;
+
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    ExecutorService batchExecutor;
+
+    NoticeBatchGenerationServiceImpl noticeBatchGenerationService;
+
+    @BeforeEach
+    void init() {
+        batchExecutor = Executors.newFixedThreadPool(4);
+        noticeBatchGenerationService = new NoticeBatchGenerationServiceImpl(noticeGenerationService, objectMapper,
+                batchExecutor, 10, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        noticeBatchGenerationService.shutdown();
+    }
+
+    @Test
+    void generateNoticesWritesPdfsAndManifest() throws IOException {
+        File notice = notice("pdf");
+        doReturn(notice).when(noticeGenerationService).generateNotice(argThat(item -> !"bad".equals(item.getTemplateId())),
+                isNull(), isNull());
+        doThrow(new AppException(AppError.TEMPLATE_NOT_FOUND)).when(noticeGenerationService)
+                .generateNotice(argThat(item -> "bad".equals(item.getTemplateId())), isNull(), isNull());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        noticeBatchGenerationService.generateNotices(List.of(item("template", "1"), item("bad", "2"),
+                item("template", "1"))).writeTo(output);
+
+        Map<String, byte[]> entries = unzip(output.toByteArray());
+        // the first duplicate to complete keeps the item id, the other one gets its index appended
+        assertEquals(3, entries.size());
+        assertTrue(entries.containsKey("pagopa-avviso-taxCode-1-template.pdf"));
+        assertTrue(entries.containsKey("pagopa-avviso-taxCode-1-template-0.pdf") ||
+                entries.containsKey("pagopa-avviso-taxCode-1-template-2.pdf"));
+        assertEquals(NoticeBatchGenerationServiceImpl.MANIFEST_ENTRY, List.copyOf(entries.keySet()).get(2));
+        assertArrayEquals("pdf".getBytes(StandardCharsets.UTF_8), entries.get("pagopa-avviso-taxCode-1-template.pdf"));
+
+        JsonNode manifest = objectMapper.readTree(entries.get(NoticeBatchGenerationServiceImpl.MANIFEST_ENTRY));
+        assertEquals(3, manifest.size());
+        assertEquals(200, manifest.get(0).get("status").asInt());
+        assertEquals(1, manifest.get(1).get("index").asInt());
+        assertEquals(AppError.TEMPLATE_NOT_FOUND.httpStatus.value(), manifest.get(1).get("status").asInt());
+        assertEquals(AppError.TEMPLATE_NOT_FOUND.title, manifest.get(1).get("title").asText());
+        assertFalse(manifest.get(1).has("fileName"));
+        verify(noticeGenerationService, times(2)).releaseNotice(notice);
+    }
+
+    @Test
+    void generateNoticesReportsCheckedException() throws IOException {
+        File notice = notice("pdf");
+        doReturn(notice).when(noticeGenerationService).generateNotice(argThat(item -> !"bad".equals(item.getTemplateId())),
+                isNull(), isNull());
+        // generateNotice is @SneakyThrows, checked exceptions reach the batch unwrapped
+        doAnswer(invocation -> {
+            throw new IOException("unexpected end of input");
+        }).when(noticeGenerationService).generateNotice(argThat(item -> "bad".equals(item.getTemplateId())),
+                isNull(), isNull());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        noticeBatchGenerationService.generateNotices(List.of(item("bad", "1"), item("template", "2")))
+                .writeTo(output);
+
+        Map<String, byte[]> entries = unzip(output.toByteArray());
+        assertEquals(Set.of("pagopa-avviso-taxCode-2-template.pdf", NoticeBatchGenerationServiceImpl.MANIFEST_ENTRY),
+                entries.keySet());
+        JsonNode manifest = objectMapper.readTree(entries.get(NoticeBatchGenerationServiceImpl.MANIFEST_ENTRY));
+        assertEquals(AppError.INTERNAL_SERVER_ERROR.httpStatus.value(), manifest.get(0).get("status").asInt());
+        assertEquals(200, manifest.get(1).get("status").asInt());
+    }
+
+    @Test
+    void generateNoticesWithinParallelism() throws IOException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        File notice = notice("pdf");
+        doAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            running.decrementAndGet();
+            return notice;
+        }).when(noticeGenerationService).generateNotice(any(), isNull(), isNull());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        noticeBatchGenerationService.generateNotices(IntStream.range(0, 8)
+                .mapToObj(i -> item("template", String.valueOf(i))).toList()).writeTo(output);
+
+        assertEquals(9, unzip(output.toByteArray()).size());
+        assertTrue(maxRunning.get() <= 2);
+        verify(noticeGenerationService, times(8)).releaseNotice(notice);
+    }
+
+    @Test
+    void generateNoticesReleasesOnBrokenOutput() throws IOException {
+        File notice = notice("pdf");
+        doReturn(notice).when(noticeGenerationService).generateNotice(any(), isNull(), isNull());
+        OutputStream brokenOutput = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("connection reset");
+            }
+        };
+
+        List<NoticeGenerationRequestItem> items = IntStream.range(0, 6)
+                .mapToObj(i -> item("template", String.valueOf(i))).toList();
+        assertThrows(IOException.class, () ->
+                noticeBatchGenerationService.generateNotices(items).writeTo(brokenOutput));
+
+        // every generated notice is released, the ones never started are not generated
+        int generated = mockingDetails(noticeGenerationService).getInvocations().stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("generateNotice"))
+                .mapToInt(invocation -> 1).sum();
+        verify(noticeGenerationService, times(generated)).releaseNotice(notice);
+        assertTrue(generated < items.size());
+    }
+
+    @Test
+    void generateNoticesRejectsLargeBatch() {
+        List<NoticeGenerationRequestItem> items = IntStream.range(0, 11)
+                .mapToObj(i -> item("template", String.valueOf(i))).toList();
+
+        AppException exception = assertThrows(AppException.class, () ->
+                noticeBatchGenerationService.generateNotices(items));
+        assertEquals(AppError.BAD_REQUEST.httpStatus, exception.getHttpStatus());
+        verifyNoInteractions(noticeGenerationService);
+    }
+
+    private NoticeGenerationRequestItem item(String templateId, String code) {
+        return NoticeGenerationRequestItem.builder()
+                .templateId(templateId)
+                .data(NoticeRequestData.builder()
+                        .notice(Notice.builder().code(code).build())
+                        .creditorInstitution(CreditorInstitution.builder().taxCode("taxCode").build())
+                        .build())
+                .build();
+    }
+
+    private File notice(String content) throws IOException {
+        return Files.writeString(Files.createTempFile(workingDirectory, "tempFile", ".pdf"), content).toFile();
+    }
+
+    private Map<String, byte[]> unzip(byte[] zip) throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        try (ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            ZipEntry entry;
+            while ((entry = zipInputStream.getNextEntry()) != null) {
+                entries.put(entry.getName(), zipInputStream.readAllBytes());
+            }
+        }
+        return entries;
+    }
+
+}
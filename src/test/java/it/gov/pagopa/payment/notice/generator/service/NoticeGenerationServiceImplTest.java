@@ -1,14 +1,21 @@
 package it.gov.pagopa.payment.notice.generator.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import it.gov.pagopa.payment.notice.generator.client.PdfEngineClient;
 import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeGenerationRequest;
-import it.gov.pagopa.payment.notice.generator.events.producer.NoticeRequestCompleteProducer;
-import it.gov.pagopa.payment.notice.generator.events.producer.NoticeRequestErrorProducer;
+import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeGenerationRequestError;
+import it.gov.pagopa.payment.notice.generator.events.codec.JacksonNoticeEventCodec;
+import it.gov.pagopa.payment.notice.generator.events.codec.NoticeEventCodecRegistry;
+import it.gov.pagopa.payment.notice.generator.exception.AppError;
 import it.gov.pagopa.payment.notice.generator.exception.AppException;
 import it.gov.pagopa.payment.notice.generator.model.NoticeGenerationRequestItem;
+import it.gov.pagopa.payment.notice.generator.model.NoticePayloadReference;
 import it.gov.pagopa.payment.notice.generator.model.NoticeRequestEH;
 import it.gov.pagopa.payment.notice.generator.model.TemplateResource;
+import it.gov.pagopa.payment.notice.generator.model.enums.ErrorDataFormat;
+import it.gov.pagopa.payment.notice.generator.model.enums.PayloadCompression;
 import it.gov.pagopa.payment.notice.generator.model.enums.PaymentGenerationRequestStatus;
 import it.gov.pagopa.payment.notice.generator.model.notice.*;
 import it.gov.pagopa.payment.notice.generator.model.pdf.PdfEngineResponse;
@@ -18,6 +25,10 @@ import it.gov.pagopa.payment.notice.generator.storage.InstitutionsStorageClient;
 import it.gov.pagopa.payment.notice.generator.storage.NoticeStorageClient;
 import it.gov.pagopa.payment.notice.generator.storage.NoticeTemplateStorageClient;
 import it.gov.pagopa.payment.notice.generator.util.Aes256Utils;
+import it.gov.pagopa.payment.notice.generator.util.ErrorDataUtils;
+import it.gov.pagopa.payment.notice.generator.util.NoticeGenerationMetrics;
+import it.gov.pagopa.payment.notice.generator.util.PayloadLogFormatter;
+import it.gov.pagopa.payment.notice.generator.util.TraceContextUtils;
 import jakarta.validation.Validation;
 import jakarta.validation.Validator;
 import jakarta.validation.ValidatorFactory;
@@ -27,16 +38,34 @@ import org.junit.Assert;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.MimeTypeUtils;
 
 import java.io.File;
 import java.nio.file.Files;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -61,13 +90,24 @@ class NoticeGenerationServiceImplTest {
     PdfEngineClient pdfEngineClient;
 
     @Mock
-    NoticeRequestCompleteProducer noticeRequestCompleteProducer;
+    PdfOptimizationService pdfOptimizationService;
 
     @Mock
-    NoticeRequestErrorProducer noticeRequestErrorProducer;
+    RenderedNoticeCacheService renderedNoticeCacheService;
+
+    @Mock
+    NoticePayloadService noticePayloadService;
+
+    @Mock
+    NoticeProcessedItemService noticeProcessedItemService;
 
     ObjectMapper objectMapper = new ObjectMapper();
 
+    MeterRegistry meterRegistry;
+
+    ErrorDataUtils errorDataUtils = new ErrorDataUtils(new Aes256Utils("test", "test"),
+            ErrorDataFormat.ZSTD_AES_BASE64);
+
     NoticeGenerationServiceImpl noticeGenerationService;
 
     File templateFile;
@@ -95,13 +135,22 @@ class NoticeGenerationServiceImplTest {
     @BeforeEach
     public void init() {
         Mockito.reset(paymentGenerationRequestErrorRepository, paymentGenerationRequestRepository,
-                institutionsStorageClient, noticeStorageClient, noticeTemplateStorageClient, pdfEngineClient);
+                institutionsStorageClient, noticeStorageClient, noticeTemplateStorageClient, pdfEngineClient,
+                pdfOptimizationService, renderedNoticeCacheService, noticePayloadService, noticeProcessedItemService);
         lenient().when(noticeTemplateStorageClient.getTemplates()).thenReturn(Collections.emptyList());
+        meterRegistry = new SimpleMeterRegistry();
         noticeGenerationService = new NoticeGenerationServiceImpl(
                 paymentGenerationRequestRepository, paymentGenerationRequestErrorRepository,
                 institutionsStorageClient, noticeStorageClient, noticeTemplateStorageClient,
-                pdfEngineClient, new Aes256Utils("test", "test"), objectMapper,
-                validator, noticeRequestCompleteProducer, noticeRequestErrorProducer);
+                pdfEngineClient, pdfOptimizationService, renderedNoticeCacheService, noticePayloadService,
+                new NoticeEventCodecRegistry(List.of(
+                        new JacksonNoticeEventCodec(MimeTypeUtils.APPLICATION_JSON, objectMapper))),
+                noticeProcessedItemService,
+                errorDataUtils, new NoticeGenerationMetrics(meterRegistry), new PayloadLogFormatter(500, 1),
+                new TraceContextUtils(),
+                null,
+                objectMapper,
+                validator, true, false);
     }
 
     @SneakyThrows
@@ -126,7 +175,7 @@ class NoticeGenerationServiceImplTest {
                 .numberOfElementsTotal(1).numberOfElementsFailed(0)
                 .items(Collections.singletonList("test")).build())).when(paymentGenerationRequestRepository)
                 .findById(any());
-        doReturn(1L).when(paymentGenerationRequestRepository).findAndSetToComplete(any());
+        doReturn(1L).when(paymentGenerationRequestRepository).findAndSetToComplete(any(), any(), any());
 
         NoticeRequestEH noticeRequestEH = NoticeRequestEH
                 .builder()
@@ -174,13 +223,434 @@ class NoticeGenerationServiceImplTest {
                                 .build())
                         .build())
                 .build();
-        noticeGenerationService.processNoticeGenerationEH(objectMapper.writeValueAsString(noticeRequestEH));
+        noticeGenerationService.processNoticeGenerationEH(
+                objectMapper.writeValueAsBytes(noticeRequestEH), MimeTypeUtils.APPLICATION_JSON);
         verify(paymentGenerationRequestRepository).findAndAddItemById(any(), any());
+        verify(paymentGenerationRequestRepository).findAndSetToComplete(any(), any(), any());
         verify(noticeStorageClient).savePdfToBlobStorage(any(), any(), any());
+        verify(noticeProcessedItemService).markProcessed(eq("test"), any());
         verify(institutionsStorageClient).getInstitutionData(any());
         verify(noticeTemplateStorageClient).getTemplate(any());
         verify(pdfEngineClient).generatePDF(any(), any());
         verifyNoInteractions(paymentGenerationRequestErrorRepository);
+        for (String stage : List.of(NoticeGenerationMetrics.STAGE_FOLDER_CHECK,
+                NoticeGenerationMetrics.STAGE_INSTITUTION_FETCH, NoticeGenerationMetrics.STAGE_TEMPLATE_FETCH,
+                NoticeGenerationMetrics.STAGE_SCHEMA_VALIDATION, NoticeGenerationMetrics.STAGE_MAPPING,
+                NoticeGenerationMetrics.STAGE_ENGINE_CALL, NoticeGenerationMetrics.STAGE_BLOB_UPLOAD,
+                NoticeGenerationMetrics.STAGE_PROGRESS_UPDATE, NoticeGenerationMetrics.STAGE_EVENT_PUBLISH)) {
+            assertEquals(1, meterRegistry.get(NoticeGenerationMetrics.STAGE_TIMER)
+                    .tags("stage", stage, "templateId", "template", "entryPoint", "KAFKA", "outcome", "SUCCESS")
+                    .timer().count());
+        }
+    }
+
+    @SneakyThrows
+    @Test
+    void processNoticeGenerationShouldUploadOptimizedPdf() {
+        File optimizedFile = File.createTempFile("optimized", ".pdf", new File("temp"));
+        doReturn(templateFile).when(noticeTemplateStorageClient).getTemplate(any());
+        doReturn(CreditorInstitution.builder()
+                .webChannel(true)
+                .physicalChannel("Test")
+                .fullName("Test")
+                .logo("logo")
+                .cbill("Cbill")
+                .organization("ORG")
+                .build()
+        ).when(institutionsStorageClient).getInstitutionData(any());
+        doReturn(getPdfEngineResponse(HttpStatus.SC_OK, noticeFile.getPath()))
+                .when(pdfEngineClient).generatePDF(any(), any());
+        doReturn(true).when(pdfOptimizationService).isEnabled("template");
+        doReturn(optimizedFile).when(pdfOptimizationService).optimize(any(), eq("template"));
+        doReturn(true).when(noticeStorageClient).savePdfToBlobStorage(any(), any(), any());
+        doReturn(1L).when(paymentGenerationRequestRepository).findAndAddItemById(any(), any());
+        doReturn(Optional.of(PaymentNoticeGenerationRequest.builder().status(PaymentGenerationRequestStatus.PROCESSING)
+                .numberOfElementsTotal(2).numberOfElementsFailed(0)
+                .items(Collections.singletonList("test")).build())).when(paymentGenerationRequestRepository)
+                .findById(any());
+
+        NoticeRequestEH noticeRequestEH = NoticeRequestEH
+                .builder()
+                .folderId("test")
+                .noticeData(NoticeGenerationRequestItem.builder()
+                        .templateId("template")
+                        .data(NoticeRequestData.builder()
+                                .notice(Notice.builder()
+                                        .code("code")
+                                        .dueDate("24/10/2024")
+                                        .subject("subject")
+                                        .paymentAmount(100L)
+                                        .build())
+                                .creditorInstitution(CreditorInstitution.builder()
+                                        .taxCode("taxCode")
+                                        .build())
+                                .debtor(Debtor.builder()
+                                        .taxCode("taxCode")
+                                        .address("address")
+                                        .city("city")
+                                        .buildingNumber("101")
+                                        .postalCode("00135")
+                                        .province("RM")
+                                        .fullName("Test Name")
+                                        .build())
+                                .build())
+                        .build())
+                .build();
+        noticeGenerationService.processNoticeGenerationEH(
+                objectMapper.writeValueAsBytes(noticeRequestEH), MimeTypeUtils.APPLICATION_JSON);
+        verify(pdfOptimizationService).optimize(eq(new File(noticeFile.getPath())), eq("template"));
+        verify(noticeStorageClient).savePdfToBlobStorage(any(), eq("test"), any());
+        assertEquals(1, meterRegistry.get(NoticeGenerationMetrics.STAGE_TIMER)
+                .tags("stage", NoticeGenerationMetrics.STAGE_PDF_OPTIMIZATION, "templateId", "template",
+                        "entryPoint", "KAFKA", "outcome", "SUCCESS")
+                .timer().count());
+    }
+
+    @SneakyThrows
+    @Test
+    void processNoticeGenerationShouldServeCachedPdf() {
+        File cachedFile = File.createTempFile("cached", ".pdf", new File("temp"));
+        doReturn(templateFile).when(noticeTemplateStorageClient).getTemplate(any());
+        doReturn(CreditorInstitution.builder()
+                .webChannel(true)
+                .physicalChannel("Test")
+                .fullName("Test")
+                .logo("logo")
+                .cbill("Cbill")
+                .organization("ORG")
+                .build()
+        ).when(institutionsStorageClient).getInstitutionData(any());
+        doReturn(true).when(renderedNoticeCacheService).isEnabled();
+        doReturn("key").when(renderedNoticeCacheService).buildKey(eq("template"), eq(templateFile), any());
+        doReturn(cachedFile).when(renderedNoticeCacheService).get(eq("key"), any());
+        doReturn(true).when(noticeStorageClient).savePdfToBlobStorage(any(), any(), any());
+        doReturn(1L).when(paymentGenerationRequestRepository).findAndAddItemById(any(), any());
+        doReturn(Optional.of(PaymentNoticeGenerationRequest.builder().status(PaymentGenerationRequestStatus.PROCESSING)
+                .numberOfElementsTotal(2).numberOfElementsFailed(0)
+                .items(Collections.singletonList("test")).build())).when(paymentGenerationRequestRepository)
+                .findById(any());
+
+        NoticeRequestEH noticeRequestEH = NoticeRequestEH
+                .builder()
+                .folderId("test")
+                .noticeData(NoticeGenerationRequestItem.builder()
+                        .templateId("template")
+                        .data(NoticeRequestData.builder()
+                                .notice(Notice.builder()
+                                        .code("code")
+                                        .dueDate("24/10/2024")
+                                        .subject("subject")
+                                        .paymentAmount(100L)
+                                        .build())
+                                .creditorInstitution(CreditorInstitution.builder()
+                                        .taxCode("taxCode")
+                                        .build())
+                                .debtor(Debtor.builder()
+                                        .taxCode("taxCode")
+                                        .address("address")
+                                        .city("city")
+                                        .buildingNumber("101")
+                                        .postalCode("00135")
+                                        .province("RM")
+                                        .fullName("Test Name")
+                                        .build())
+                                .build())
+                        .build())
+                .build();
+        noticeGenerationService.processNoticeGenerationEH(
+                objectMapper.writeValueAsBytes(noticeRequestEH), MimeTypeUtils.APPLICATION_JSON);
+        verifyNoInteractions(pdfEngineClient);
+        verify(renderedNoticeCacheService, never()).put(any(), any());
+        verify(noticeStorageClient).savePdfToBlobStorage(any(), eq("test"), any());
+        assertEquals(1, meterRegistry.get(NoticeGenerationMetrics.STAGE_TIMER)
+                .tags("stage", NoticeGenerationMetrics.STAGE_CACHE_LOOKUP, "templateId", "template",
+                        "entryPoint", "KAFKA", "outcome", "SUCCESS")
+                .timer().count());
+    }
+
+    @SneakyThrows
+    @ParameterizedTest
+    @ValueSource(strings = {"code", ""})
+    void generateNoticeShouldShareConcurrentIdenticalRender(String code) {
+        File renderDirectory = Files.createTempDirectory(new File("temp").toPath(), "coalesced").toFile();
+        File renderedFile = File.createTempFile("tempFile", ".pdf", renderDirectory);
+        doReturn(templateFile).when(noticeTemplateStorageClient).getTemplate(any());
+        doReturn(CreditorInstitution.builder()
+                .webChannel(true)
+                .physicalChannel("Test")
+                .fullName("Test")
+                .logo("logo")
+                .cbill("Cbill")
+                .organization("ORG")
+                .taxCode("taxCode")
+                .build()
+        ).when(institutionsStorageClient).getInstitutionData(any());
+        CountDownLatch rendering = new CountDownLatch(1);
+        CountDownLatch joined = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            rendering.countDown();
+            joined.await(10, TimeUnit.SECONDS);
+            return getPdfEngineResponse(HttpStatus.SC_OK, renderedFile.getPath());
+        }).when(pdfEngineClient).generatePDF(any(), any());
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // notices without a code are shared too, even though their item id is random
+            String noticeCode = code.isEmpty() ? null : code;
+            Future<File> first = executor.submit(() ->
+                    noticeGenerationService.generateNotice(noticeGenerationRequestItem(noticeCode), null, null));
+            assertTrue(rendering.await(10, TimeUnit.SECONDS));
+            Future<File> second = executor.submit(() ->
+                    noticeGenerationService.generateNotice(noticeGenerationRequestItem(noticeCode), null, null));
+            while (meterRegistry.find(NoticeGenerationMetrics.COALESCED_COUNTER).counter() == null) {
+                Thread.sleep(10);
+            }
+            joined.countDown();
+
+            File firstNotice = first.get(10, TimeUnit.SECONDS);
+            assertEquals(firstNotice, second.get(10, TimeUnit.SECONDS));
+            verify(pdfEngineClient).generatePDF(any(), any());
+
+            noticeGenerationService.releaseNotice(firstNotice);
+            assertTrue(renderedFile.exists());
+            noticeGenerationService.releaseNotice(firstNotice);
+            assertFalse(renderDirectory.exists());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @SneakyThrows
+    @Test
+    void generateNoticeShouldNotShareFolderGenerations() {
+        doReturn(Optional.of(PaymentNoticeGenerationRequest.builder().build()))
+                .when(paymentGenerationRequestRepository).findById(any());
+        doReturn(templateFile).when(noticeTemplateStorageClient).getTemplate(any());
+        doReturn(CreditorInstitution.builder()
+                .taxCode("taxCode")
+                .build()
+        ).when(institutionsStorageClient).getInstitutionData(any());
+        CountDownLatch rendering = new CountDownLatch(2);
+        doAnswer(invocation -> {
+            rendering.countDown();
+            rendering.await(10, TimeUnit.SECONDS);
+            return getPdfEngineResponse(HttpStatus.SC_INTERNAL_SERVER_ERROR, noticeFile.getPath());
+        }).when(pdfEngineClient).generatePDF(any(), any());
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // the recovery of an error must not join the generation of another one
+            Future<File> first = executor.submit(() ->
+                    noticeGenerationService.generateNotice(noticeGenerationRequestItem(), "folderId", "errorA"));
+            Future<File> second = executor.submit(() ->
+                    noticeGenerationService.generateNotice(noticeGenerationRequestItem(), "folderId", "errorB"));
+
+            assertTrue(rendering.await(10, TimeUnit.SECONDS));
+            assertThrows(ExecutionException.class, () -> first.get(10, TimeUnit.SECONDS));
+            assertThrows(ExecutionException.class, () -> second.get(10, TimeUnit.SECONDS));
+            verify(pdfEngineClient, times(2)).generatePDF(any(), any());
+            assertNull(meterRegistry.find(NoticeGenerationMetrics.COALESCED_COUNTER).counter());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @SneakyThrows
+    @Test
+    void generateNoticeShouldRenderAgainOnceCompleted() {
+        doReturn(templateFile).when(noticeTemplateStorageClient).getTemplate(any());
+        doReturn(CreditorInstitution.builder()
+                .taxCode("taxCode")
+                .build()
+        ).when(institutionsStorageClient).getInstitutionData(any());
+        doReturn(getPdfEngineResponse(HttpStatus.SC_INTERNAL_SERVER_ERROR, noticeFile.getPath()))
+                .when(pdfEngineClient).generatePDF(any(), any());
+
+        assertThrows(AppException.class, () ->
+                noticeGenerationService.generateNotice(noticeGenerationRequestItem(), null, null));
+        assertThrows(AppException.class, () ->
+                noticeGenerationService.generateNotice(noticeGenerationRequestItem(), null, null));
+        verify(pdfEngineClient, times(2)).generatePDF(any(), any());
+        assertNull(meterRegistry.find(NoticeGenerationMetrics.COALESCED_COUNTER).counter());
+    }
+
+    @SneakyThrows
+    @Test
+    void processNoticeGenerationShouldReturnOkOnClaimCheckData() {
+
+        doReturn(templateFile).when(noticeTemplateStorageClient).getTemplate(any());
+        doReturn(CreditorInstitution.builder()
+                .webChannel(true)
+                .physicalChannel("Test")
+                .fullName("Test")
+                .logo("logo")
+                .cbill("Cbill")
+                .organization("ORG")
+                .build()
+        ).when(institutionsStorageClient).getInstitutionData(any());
+        doReturn(getPdfEngineResponse(HttpStatus.SC_OK, noticeFile.getPath()))
+                .when(pdfEngineClient).generatePDF(any(), any());
+        doReturn(true).when(noticeStorageClient).savePdfToBlobStorage(any(), any(), any());
+        doReturn(1L).when(paymentGenerationRequestRepository).findAndAddItemById(any(), any());
+        doReturn(Optional.of(PaymentNoticeGenerationRequest.builder().status(PaymentGenerationRequestStatus.PROCESSING)
+                .numberOfElementsTotal(1).numberOfElementsFailed(0)
+                .items(Collections.singletonList("test")).build())).when(paymentGenerationRequestRepository)
+                .findById(any());
+        doReturn(1L).when(paymentGenerationRequestRepository).findAndSetToComplete(any(), any(), any());
+
+        NoticeGenerationRequestItem noticeGenerationRequestItem = NoticeGenerationRequestItem.builder()
+                .templateId("template")
+                .data(NoticeRequestData.builder()
+                        .notice(Notice.builder()
+                                .code("code")
+                                .dueDate("24/10/2024")
+                                .subject("subject")
+                                .paymentAmount(100L)
+                                .reduced(
+                                        InstallmentData.builder()
+                                                .amount(100L)
+                                                .code("codeRate")
+                                                .dueDate("24/10/2024")
+                                                .build())
+                                .discounted(
+                                        InstallmentData.builder()
+                                                .amount(100L)
+                                                .code("codeRate")
+                                                .dueDate("24/10/2024")
+                                                .build())
+                                .installments(Collections.singletonList(
+                                        InstallmentData.builder()
+                                                .amount(100L)
+                                                .code("codeRate")
+                                                .dueDate("24/10/2024")
+                                                .build()
+                                ))
+                                .build())
+                        .creditorInstitution(CreditorInstitution.builder()
+                                .taxCode("taxCode")
+                                .build())
+                        .debtor(Debtor.builder()
+                                .taxCode("taxCode")
+                                .address("address")
+                                .city("city")
+                                .buildingNumber("101")
+                                .postalCode("00135")
+                                .province("RM")
+                                .fullName("Test Name")
+                                .build())
+                        .build())
+                .build();
+        doReturn(noticeGenerationRequestItem).when(noticePayloadService).getNoticePayload(any());
+
+        NoticeRequestEH noticeRequestEH = NoticeRequestEH
+                .builder()
+                .folderId("test")
+                .payloadReference(NoticePayloadReference.builder()
+                        .blobName("test/payload.json.gz")
+                        .compression(PayloadCompression.GZIP)
+                        .build())
+                .build();
+        noticeGenerationService.processNoticeGenerationEH(
+                objectMapper.writeValueAsBytes(noticeRequestEH), MimeTypeUtils.APPLICATION_JSON);
+        verify(paymentGenerationRequestRepository).findAndAddItemById(any(), any());
+        verify(paymentGenerationRequestRepository).findAndSetToComplete(any(), any(), any());
+        verify(noticeStorageClient).savePdfToBlobStorage(any(), any(), any());
+        verify(institutionsStorageClient).getInstitutionData(any());
+        verify(noticeTemplateStorageClient).getTemplate(any());
+        verify(pdfEngineClient).generatePDF(any(), any());
+        verify(noticePayloadService).getNoticePayload(argThat(reference ->
+                "test/payload.json.gz".equals(reference.getBlobName())));
+        verifyNoInteractions(paymentGenerationRequestErrorRepository);
+    }
+
+    @SneakyThrows
+    @Test
+    void processNoticeGenerationShouldSaveErrorOnMissingPayload() {
+        doThrow(new AppException(AppError.PAYLOAD_NOT_FOUND)).when(noticePayloadService).getNoticePayload(any());
+
+        NoticeRequestEH noticeRequestEH = NoticeRequestEH
+                .builder()
+                .folderId("test")
+                .payloadReference(NoticePayloadReference.builder()
+                        .blobName("test/payload.json.gz")
+                        .compression(PayloadCompression.GZIP)
+                        .build())
+                .build();
+        assertDoesNotThrow(() -> noticeGenerationService.processNoticeGenerationEH(
+                objectMapper.writeValueAsBytes(noticeRequestEH), MimeTypeUtils.APPLICATION_JSON));
+
+        verify(paymentGenerationRequestErrorRepository).findAndUpsertByErrorIdAndFolderId(argThat(error ->
+                "test".equals(error.getFolderId()) && "test/payload.json.gz".equals(error.getErrorId())));
+        verify(paymentGenerationRequestRepository).findAndIncrementNumberOfElementsFailedById("test");
+        verifyNoInteractions(institutionsStorageClient, noticeTemplateStorageClient, pdfEngineClient,
+                noticeStorageClient);
+    }
+
+    @SneakyThrows
+    @Test
+    void processNoticeGenerationShouldSaveUnreadableMessageOnMissingPayloadWithoutFolder() {
+        doThrow(new AppException(AppError.PAYLOAD_NOT_FOUND)).when(noticePayloadService).getNoticePayload(any());
+
+        NoticeRequestEH noticeRequestEH = NoticeRequestEH
+                .builder()
+                .payloadReference(NoticePayloadReference.builder()
+                        .blobName("test/payload.json.gz")
+                        .build())
+                .build();
+        noticeGenerationService.processNoticeGenerationEH(
+                objectMapper.writeValueAsBytes(noticeRequestEH), MimeTypeUtils.APPLICATION_JSON);
+
+        verify(paymentGenerationRequestErrorRepository).save(argThat(error ->
+                "UNKNOWN".equals(error.getFolderId())));
+        verify(paymentGenerationRequestErrorRepository, never()).findAndUpsertByErrorIdAndFolderId(any());
+    }
+
+    @SneakyThrows
+    @Test
+    void processNoticeGenerationShouldSkipAlreadyStoredNotice() {
+        doReturn(true).when(noticeProcessedItemService)
+                .isProcessed("test", "pagopa-avviso-taxCode-302000000000000001-template");
+        doReturn(Optional.of(PaymentNoticeGenerationRequest.builder().status(PaymentGenerationRequestStatus.PROCESSING)
+                .numberOfElementsTotal(1).numberOfElementsFailed(0)
+                .items(Collections.singletonList("pagopa-avviso-taxCode-302000000000000001-template")).build()))
+                .when(paymentGenerationRequestRepository).findById(any());
+        doReturn(1L).when(paymentGenerationRequestRepository).findAndSetToComplete(any(), any(), any());
+
+        NoticeRequestEH noticeRequestEH = NoticeRequestEH
+                .builder()
+                .folderId("test")
+                .noticeData(NoticeGenerationRequestItem.builder()
+                        .templateId("template")
+                        .data(NoticeRequestData.builder()
+                                .notice(Notice.builder()
+                                        .code("302000000000000001")
+                                        .subject("subject")
+                                        .paymentAmount(100L)
+                                        .build())
+                                .creditorInstitution(CreditorInstitution.builder()
+                                        .taxCode("taxCode")
+                                        .build())
+                                .build())
+                        .build())
+                .build();
+        noticeGenerationService.processNoticeGenerationEH(
+                objectMapper.writeValueAsBytes(noticeRequestEH), MimeTypeUtils.APPLICATION_JSON);
+
+        verify(paymentGenerationRequestRepository).findAndSetToComplete(any(), any(), any());
+        verify(paymentGenerationRequestRepository, never()).findAndAddItemById(any(), any());
+        verifyNoInteractions(institutionsStorageClient, noticeTemplateStorageClient, pdfEngineClient,
+                noticeStorageClient, paymentGenerationRequestErrorRepository);
+    }
+
+    @SneakyThrows
+    @Test
+    void processNoticeGenerationShouldSaveUnreadableMessageOnUnsupportedContentType() {
+        noticeGenerationService.processNoticeGenerationEH(
+                objectMapper.writeValueAsBytes(NoticeRequestEH.builder().folderId("test").build()),
+                "application/x-unknown");
+        verify(paymentGenerationRequestErrorRepository).save(argThat(error ->
+                "UNKNOWN".equals(error.getFolderId())));
+        verifyNoInteractions(institutionsStorageClient, noticeTemplateStorageClient, pdfEngineClient);
     }
 
     @SneakyThrows
@@ -240,12 +710,18 @@ class NoticeGenerationServiceImplTest {
                 .build();
         Assert.assertThrows(AppException.class, () ->
                 noticeGenerationService.processNoticeGenerationEH(
-                        objectMapper.writeValueAsString(noticeRequestEH)));
+                        objectMapper.writeValueAsBytes(noticeRequestEH), MimeTypeUtils.APPLICATION_JSON));
         verify(paymentGenerationRequestRepository).findById(any());
         verify(institutionsStorageClient).getInstitutionData(any());
         verify(noticeTemplateStorageClient).getTemplate(any());
         verify(pdfEngineClient).generatePDF(any(), any());
-        verify(paymentGenerationRequestErrorRepository).save(any());
+        assertEquals(1, meterRegistry.get(NoticeGenerationMetrics.STAGE_TIMER)
+                .tags("stage", NoticeGenerationMetrics.STAGE_ENGINE_CALL, "outcome", "FAILURE").timer().count());
+        assertEquals(1, meterRegistry.get(NoticeGenerationMetrics.TOTAL_TIMER)
+                .tags("entryPoint", "KAFKA", "outcome", "FAILURE").timer().count());
+        verify(paymentGenerationRequestErrorRepository).findAndUpsertByErrorIdAndFolderId(argThat(error ->
+                ErrorDataFormat.ZSTD_AES_BASE64.equals(error.getDataFormat()) &&
+                        "code".equals(readErrorData(error).getData().getNotice().getCode())));
         verify(paymentGenerationRequestRepository).findAndIncrementNumberOfElementsFailedById(any());
         verifyNoInteractions(noticeStorageClient);
     }
@@ -289,7 +765,7 @@ class NoticeGenerationServiceImplTest {
                 .build();
         Assert.assertThrows(AppException.class, () ->
                 noticeGenerationService.processNoticeGenerationEH(
-                        objectMapper.writeValueAsString(noticeRequestEH)));
+                        objectMapper.writeValueAsBytes(noticeRequestEH), MimeTypeUtils.APPLICATION_JSON));
     }
 
     @SneakyThrows
@@ -302,7 +778,6 @@ class NoticeGenerationServiceImplTest {
             throw new Exception("Could not increment data");
         }).when(paymentGenerationRequestRepository).findAndIncrementNumberOfElementsFailedById(any());
         doReturn(templateFile).when(noticeTemplateStorageClient).getTemplate(any());
-        doReturn(Optional.empty()).when(paymentGenerationRequestErrorRepository).findByErrorIdAndFolderId(any(), any());
         doReturn(CreditorInstitution.builder()
                 .webChannel(true)
                 .physicalChannel("Test")
@@ -353,13 +828,75 @@ class NoticeGenerationServiceImplTest {
                 .build();
         Assert.assertThrows(AppException.class, () ->
                 noticeGenerationService.processNoticeGenerationEH(
-                        objectMapper.writeValueAsString(noticeRequestEH)));
+                        objectMapper.writeValueAsBytes(noticeRequestEH), MimeTypeUtils.APPLICATION_JSON));
         verify(paymentGenerationRequestRepository).findById(any());
         verify(institutionsStorageClient).getInstitutionData(any());
         verify(noticeTemplateStorageClient).getTemplate(any());
         verify(pdfEngineClient).generatePDF(any(), any());
         verify(paymentGenerationRequestRepository).findAndIncrementNumberOfElementsFailedById(any());
-        verify(paymentGenerationRequestErrorRepository).findByErrorIdAndFolderId(any(), any());
+        verify(paymentGenerationRequestErrorRepository).findAndUpsertByErrorIdAndFolderId(any());
+        verifyNoInteractions(noticeStorageClient);
+    }
+
+    @SneakyThrows
+    @Test
+    void processNoticeGenerationShouldReturnKOAndUpdateExistingError() {
+
+        doReturn(Optional.of(PaymentNoticeGenerationRequest.builder().build()))
+                .when(paymentGenerationRequestRepository).findById(any());
+        doReturn(templateFile).when(noticeTemplateStorageClient).getTemplate(any());
+        doReturn(PaymentNoticeGenerationRequestError.builder()
+                .errorId("errorId")
+                .folderId("test")
+                .numberOfAttempts(1)
+                .build()
+        ).when(paymentGenerationRequestErrorRepository).findAndUpsertByErrorIdAndFolderId(any());
+        doReturn(CreditorInstitution.builder()
+                .webChannel(true)
+                .physicalChannel("Test")
+                .fullName("Test")
+                .logo("logo")
+                .cbill("Cbill")
+                .organization("ORG")
+                .build()
+        ).when(institutionsStorageClient).getInstitutionData(any());
+        doReturn(getPdfEngineResponse(HttpStatus.SC_INTERNAL_SERVER_ERROR, noticeFile.getPath()))
+                .when(pdfEngineClient).generatePDF(any(), any());
+
+        NoticeRequestEH noticeRequestEH = NoticeRequestEH
+                .builder()
+                .folderId("test")
+                .errorId("errorId")
+                .noticeData(NoticeGenerationRequestItem.builder()
+                        .templateId("template")
+                        .data(NoticeRequestData.builder()
+                                .notice(Notice.builder()
+                                        .code("code")
+                                        .dueDate("24/10/2024")
+                                        .subject("subject")
+                                        .paymentAmount(100L)
+                                        .build())
+                                .creditorInstitution(CreditorInstitution.builder()
+                                        .taxCode("taxCode")
+                                        .build())
+                                .debtor(Debtor.builder()
+                                        .taxCode("taxCode")
+                                        .address("address")
+                                        .city("city")
+                                        .buildingNumber("101")
+                                        .postalCode("00135")
+                                        .province("RM")
+                                        .fullName("Test Name")
+                                        .build())
+                                .build())
+                        .build())
+                .build();
+        Assert.assertThrows(AppException.class, () ->
+                noticeGenerationService.processNoticeGenerationEH(
+                        objectMapper.writeValueAsBytes(noticeRequestEH), MimeTypeUtils.APPLICATION_JSON));
+        verify(paymentGenerationRequestErrorRepository).findAndUpsertByErrorIdAndFolderId(argThat(error ->
+                "errorId".equals(error.getErrorId()) && "test".equals(error.getFolderId())));
+        verify(paymentGenerationRequestRepository, never()).findAndIncrementNumberOfElementsFailedById(any());
         verifyNoInteractions(noticeStorageClient);
     }
 
@@ -425,10 +962,10 @@ class NoticeGenerationServiceImplTest {
                 .build();
         Assert.assertThrows(AppException.class, () ->
                 noticeGenerationService.processNoticeGenerationEH(
-                        objectMapper.writeValueAsString(noticeRequestEH)));
+                        objectMapper.writeValueAsBytes(noticeRequestEH), MimeTypeUtils.APPLICATION_JSON));
         verify(paymentGenerationRequestRepository).findById(any());
         verify(institutionsStorageClient).getInstitutionData(any());
-        verify(paymentGenerationRequestErrorRepository).save(any());
+        verify(paymentGenerationRequestErrorRepository).findAndUpsertByErrorIdAndFolderId(any());
         verify(paymentGenerationRequestRepository).findAndIncrementNumberOfElementsFailedById(any());
         verifyNoInteractions(noticeStorageClient);
         verifyNoInteractions(pdfEngineClient);
@@ -464,7 +1001,7 @@ class NoticeGenerationServiceImplTest {
                 .numberOfElementsTotal(1).numberOfElementsFailed(0)
                 .items(Collections.singletonList("test")).build())).when(paymentGenerationRequestRepository)
                 .findById(any());
-        doReturn(1L).when(paymentGenerationRequestRepository).findAndSetToComplete(any());
+        doReturn(1L).when(paymentGenerationRequestRepository).findAndSetToComplete(any(), any(), any());
 
         NoticeRequestEH noticeRequestEH = NoticeRequestEH
                 .builder()
@@ -510,7 +1047,8 @@ class NoticeGenerationServiceImplTest {
                                 .build())
                         .build())
                 .build();
-        noticeGenerationService.processNoticeGenerationEH(objectMapper.writeValueAsString(noticeRequestEH));
+        noticeGenerationService.processNoticeGenerationEH(
+                objectMapper.writeValueAsBytes(noticeRequestEH), MimeTypeUtils.APPLICATION_JSON);
         verify(paymentGenerationRequestRepository).findAndAddItemById(any(), any());
         verify(noticeStorageClient).savePdfToBlobStorage(any(), any(), any());
         verify(institutionsStorageClient).getInstitutionData(any());
@@ -519,6 +1057,36 @@ class NoticeGenerationServiceImplTest {
         verifyNoInteractions(paymentGenerationRequestErrorRepository);
     }
 
+    private NoticeGenerationRequestItem noticeGenerationRequestItem() {
+        return noticeGenerationRequestItem("code");
+    }
+
+    private NoticeGenerationRequestItem noticeGenerationRequestItem(String code) {
+        return NoticeGenerationRequestItem.builder()
+                .templateId("template")
+                .data(NoticeRequestData.builder()
+                        .notice(Notice.builder()
+                                .code(code)
+                                .dueDate("24/10/2024")
+                                .subject("subject")
+                                .paymentAmount(100L)
+                                .build())
+                        .creditorInstitution(CreditorInstitution.builder()
+                                .taxCode("taxCode")
+                                .build())
+                        .debtor(Debtor.builder()
+                                .taxCode("taxCode")
+                                .address("address")
+                                .city("city")
+                                .buildingNumber("101")
+                                .postalCode("00135")
+                                .province("RM")
+                                .fullName("Test Name")
+                                .build())
+                        .build())
+                .build();
+    }
+
     private PdfEngineResponse getPdfEngineResponse(int status, String pdfPath) {
         PdfEngineResponse pdfEngineResponse = new PdfEngineResponse();
         pdfEngineResponse.setTempPdfPath(pdfPath);
@@ -529,4 +1097,9 @@ class NoticeGenerationServiceImplTest {
         return pdfEngineResponse;
     }
 
+    @SneakyThrows
+    private NoticeGenerationRequestItem readErrorData(PaymentNoticeGenerationRequestError error) {
+        return objectMapper.readValue(errorDataUtils.getData(error), NoticeGenerationRequestItem.class);
+    }
+
 }
@@ -0,0 +1,153 @@
+package it.gov.pagopa.payment.notice.generator.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.luben.zstd.Zstd;
+import it.gov.pagopa.payment.notice.generator.events.codec.JacksonNoticeEventCodec;
+import it.gov.pagopa.payment.notice.generator.events.codec.NoticeEventCodecRegistry;
+import it.gov.pagopa.payment.notice.generator.exception.AppError;
+import it.gov.pagopa.payment.notice.generator.exception.AppException;
+import it.gov.pagopa.payment.notice.generator.model.NoticeGenerationRequestItem;
+import it.gov.pagopa.payment.notice.generator.model.NoticePayloadReference;
+import it.gov.pagopa.payment.notice.generator.model.NoticeRequestEH;
+import it.gov.pagopa.payment.notice.generator.model.enums.PayloadCompression;
+import it.gov.pagopa.payment.notice.generator.storage.NoticePayloadStorageClient;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NoticePayloadServiceImplTest {
+
+    @Mock
+    NoticePayloadStorageClient noticePayloadStorageClient;
+
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    ExecutorService prefetchExecutor;
+
+    NoticePayloadServiceImpl noticePayloadService;
+
+    @BeforeEach
+    public void init() {
+        prefetchExecutor = Executors.newSingleThreadExecutor();
+        noticePayloadService = new NoticePayloadServiceImpl(noticePayloadStorageClient,
+                new NoticeEventCodecRegistry(List.of(
+                        new JacksonNoticeEventCodec(MimeTypeUtils.APPLICATION_JSON, objectMapper))),
+                objectMapper,
+                1024 * 1024, Duration.ofMinutes(1), prefetchExecutor, 2048);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        noticePayloadService.shutdown();
+    }
+
+    @SneakyThrows
+    @Test
+    void getNoticePayloadShouldReturnGzipPayloadAndCacheIt() {
+        doReturn(gzip(objectMapper.writeValueAsBytes(getNoticeGenerationRequestItem())))
+                .when(noticePayloadStorageClient).getPayload("folder/payload");
+        NoticePayloadReference payloadReference = NoticePayloadReference.builder()
+                .blobName("folder/payload").compression(PayloadCompression.GZIP).build();
+
+        assertEquals("template", noticePayloadService.getNoticePayload(payloadReference).getTemplateId());
+        assertEquals("template", noticePayloadService.getNoticePayload(payloadReference).getTemplateId());
+        verify(noticePayloadStorageClient).getPayload("folder/payload");
+    }
+
+    @SneakyThrows
+    @Test
+    void getNoticePayloadShouldReturnZstdPayload() {
+        doReturn(Zstd.compress(objectMapper.writeValueAsBytes(getNoticeGenerationRequestItem())))
+                .when(noticePayloadStorageClient).getPayload("folder/payload");
+
+        NoticeGenerationRequestItem result = noticePayloadService.getNoticePayload(NoticePayloadReference.builder()
+                .blobName("folder/payload").compression(PayloadCompression.ZSTD).build());
+
+        assertEquals("template", result.getTemplateId());
+    }
+
+    @Test
+    void getNoticePayloadShouldThrowIOExceptionOnCorruptedPayload() {
+        doReturn("not compressed".getBytes()).when(noticePayloadStorageClient).getPayload(any());
+
+        NoticePayloadReference payloadReference = NoticePayloadReference.builder()
+                .blobName("folder/payload").compression(PayloadCompression.GZIP).build();
+        assertThrows(IOException.class, () -> noticePayloadService.getNoticePayload(payloadReference));
+    }
+
+    @Test
+    void getNoticePayloadShouldThrowAppExceptionOnStorageError() {
+        doThrow(new AppException(AppError.PAYLOAD_NOT_FOUND)).when(noticePayloadStorageClient).getPayload(any());
+
+        NoticePayloadReference payloadReference = NoticePayloadReference.builder()
+                .blobName("folder/payload").build();
+        assertThrows(AppException.class, () -> noticePayloadService.getNoticePayload(payloadReference));
+    }
+
+    @SneakyThrows
+    @Test
+    void prefetchNoticePayloadShouldLoadReferencedPayload() {
+        doReturn(objectMapper.writeValueAsBytes(getNoticeGenerationRequestItem()))
+                .when(noticePayloadStorageClient).getPayload("folder/payload");
+        NoticePayloadReference payloadReference = NoticePayloadReference.builder()
+                .blobName("folder/payload").build();
+
+        noticePayloadService.prefetchNoticePayload(objectMapper.writeValueAsBytes(NoticeRequestEH.builder()
+                .folderId("folder")
+                .payloadReference(payloadReference)
+                .build()), MimeTypeUtils.APPLICATION_JSON);
+        noticePayloadService.getNoticePayload(payloadReference);
+
+        verify(noticePayloadStorageClient, times(1)).getPayload("folder/payload");
+    }
+
+    @SneakyThrows
+    @Test
+    void prefetchNoticePayloadShouldSkipInlineAndUnreadableMessages() {
+        noticePayloadService.prefetchNoticePayload(objectMapper.writeValueAsBytes(NoticeRequestEH.builder()
+                .folderId("folder")
+                .noticeData(getNoticeGenerationRequestItem())
+                .build()), null);
+        noticePayloadService.prefetchNoticePayload("not a message".getBytes(), null);
+        noticePayloadService.prefetchNoticePayload(new byte[4096], null);
+        noticePayloadService.prefetchNoticePayload(null, null);
+        noticePayloadService.prefetchNoticePayload(objectMapper.writeValueAsBytes(NoticeRequestEH.builder()
+                .folderId("folder")
+                .payloadReference(NoticePayloadReference.builder().blobName("folder/payload").build())
+                .build()), "application/x-unknown");
+
+        verifyNoInteractions(noticePayloadStorageClient);
+    }
+
+    private NoticeGenerationRequestItem getNoticeGenerationRequestItem() {
+        return NoticeGenerationRequestItem.builder().templateId("template").build();
+    }
+
+    private byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            gzipOutputStream.write(content);
+        }
+        return outputStream.toByteArray();
+    }
+
+}
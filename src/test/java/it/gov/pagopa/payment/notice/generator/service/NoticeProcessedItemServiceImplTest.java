@@ -0,0 +1,130 @@
+package it.gov.pagopa.payment.notice.generator.service;
+
+import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeProcessedItem;
+import it.gov.pagopa.payment.notice.generator.repository.PaymentNoticeProcessedItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NoticeProcessedItemServiceImplTest {
+
+    @Mock
+    PaymentNoticeProcessedItemRepository paymentNoticeProcessedItemRepository;
+
+    NoticeProcessedItemServiceImpl noticeProcessedItemService;
+
+    @BeforeEach
+    public void init() {
+        noticeProcessedItemService = new NoticeProcessedItemServiceImpl(
+                paymentNoticeProcessedItemRepository, true, 100, Duration.ofMinutes(1), 1000, 0.01);
+    }
+
+    @Test
+    void isProcessedShouldCacheStoredItems() {
+        doReturn(true).when(paymentNoticeProcessedItemRepository).existsById("folder/item");
+
+        assertTrue(noticeProcessedItemService.isProcessed("folder", "item"));
+        assertTrue(noticeProcessedItemService.isProcessed("folder", "item"));
+        verify(paymentNoticeProcessedItemRepository, times(1)).existsById("folder/item");
+    }
+
+    @Test
+    void isProcessedShouldNotCacheMissingItems() {
+        doReturn(false).when(paymentNoticeProcessedItemRepository).existsById("folder/item");
+
+        assertFalse(noticeProcessedItemService.isProcessed("folder", "item"));
+        assertFalse(noticeProcessedItemService.isProcessed("folder", "item"));
+        verify(paymentNoticeProcessedItemRepository, times(2)).existsById("folder/item");
+    }
+
+    @Test
+    void isProcessedShouldAnswerMissingItemsFromFilter() {
+        doReturn(Stream.of(PaymentNoticeProcessedItem.builder().id("folder/stored").build()))
+                .when(paymentNoticeProcessedItemRepository).findIdsByCreatedAtGreaterThanEqual(any());
+        doReturn(true).when(paymentNoticeProcessedItemRepository).existsById("folder/stored");
+
+        noticeProcessedItemService.refreshFilter();
+
+        assertFalse(noticeProcessedItemService.isProcessed("folder", "item"));
+        assertTrue(noticeProcessedItemService.isProcessed("folder", "stored"));
+        verify(paymentNoticeProcessedItemRepository, never()).existsById("folder/item");
+    }
+
+    @Test
+    void refreshFilterShouldAddItemsRecordedSinceLastRefresh() {
+        doReturn(Stream.empty(), Stream.of(PaymentNoticeProcessedItem.builder().id("folder/item").build()))
+                .when(paymentNoticeProcessedItemRepository).findIdsByCreatedAtGreaterThanEqual(any());
+        doReturn(true).when(paymentNoticeProcessedItemRepository).existsById("folder/item");
+
+        noticeProcessedItemService.refreshFilter();
+        assertFalse(noticeProcessedItemService.isProcessed("folder", "item"));
+        // recorded by another instance
+        noticeProcessedItemService.refreshFilter();
+
+        assertTrue(noticeProcessedItemService.isProcessed("folder", "item"));
+        // the first refresh loads the whole TTL, the second one only the recent items
+        verify(paymentNoticeProcessedItemRepository).findIdsByCreatedAtGreaterThanEqual(
+                argThat(createdAt -> createdAt.isBefore(Instant.now().minus(Duration.ofDays(1)))));
+        verify(paymentNoticeProcessedItemRepository).findIdsByCreatedAtGreaterThanEqual(
+                argThat(createdAt -> createdAt.isAfter(Instant.now().minus(Duration.ofDays(1)))));
+    }
+
+    @Test
+    void refreshFilterShouldFallBackToStoreOnErrors() {
+        doThrow(new RuntimeException("test")).when(paymentNoticeProcessedItemRepository)
+                .findIdsByCreatedAtGreaterThanEqual(any());
+        doReturn(false).when(paymentNoticeProcessedItemRepository).existsById("folder/item");
+
+        noticeProcessedItemService.refreshFilter();
+
+        assertFalse(noticeProcessedItemService.isProcessed("folder", "item"));
+        verify(paymentNoticeProcessedItemRepository).existsById("folder/item");
+    }
+
+    @Test
+    void markProcessedShouldStoreAndCacheItem() {
+        noticeProcessedItemService.markProcessed("folder", "item");
+
+        verify(paymentNoticeProcessedItemRepository).save(argThat(item ->
+                "folder/item".equals(item.getId()) && "item".equals(item.getItemId())
+                        && item.getCreatedAt() != null));
+        assertTrue(noticeProcessedItemService.isProcessed("folder", "item"));
+        verify(paymentNoticeProcessedItemRepository, never()).existsById(any());
+    }
+
+    @Test
+    void markProcessedShouldIgnoreStoreErrors() {
+        doThrow(new RuntimeException("test")).when(paymentNoticeProcessedItemRepository).save(any());
+
+        noticeProcessedItemService.markProcessed("folder", "item");
+
+        doReturn(false).when(paymentNoticeProcessedItemRepository).existsById("folder/item");
+        assertFalse(noticeProcessedItemService.isProcessed("folder", "item"));
+    }
+
+    @Test
+    void shouldBeNoOpWhenDisabled() {
+        NoticeProcessedItemServiceImpl disabled = new NoticeProcessedItemServiceImpl(
+                paymentNoticeProcessedItemRepository, false, 100, Duration.ofMinutes(1), 1000, 0.01);
+
+        disabled.refreshFilter();
+        disabled.markProcessed("folder", "item");
+
+        assertFalse(disabled.isProcessed("folder", "item"));
+        verifyNoInteractions(paymentNoticeProcessedItemRepository);
+    }
+
+}
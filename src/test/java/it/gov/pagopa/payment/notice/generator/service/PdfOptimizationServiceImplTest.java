@@ -0,0 +1,110 @@
+package it.gov.pagopa.payment.notice.generator.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.gov.pagopa.payment.notice.generator.model.pdf.PdfOptimizationSettings;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PdfOptimizationServiceImplTest {
+
+    MeterRegistry meterRegistry;
+
+    PdfOptimizationServiceImpl pdfOptimizationService;
+
+    @BeforeEach
+    void init() throws IOException {
+        meterRegistry = new SimpleMeterRegistry();
+        pdfOptimizationService = new PdfOptimizationServiceImpl(new ObjectMapper(), meterRegistry,
+                false, 300, 0.8f, true,
+                "{\"logos\":{\"enabled\":true},\"photos\":{\"enabled\":true,\"imageMaxSize\":0,\"unknown\":1}}");
+    }
+
+    @Test
+    void settingsOverriddenByTemplate() {
+        assertFalse(pdfOptimizationService.isEnabled("other"));
+        assertFalse(pdfOptimizationService.isEnabled(null));
+        assertTrue(pdfOptimizationService.isEnabled("logos"));
+        assertTrue(pdfOptimizationService.isEnabled("photos"));
+
+        assertEquals(new PdfOptimizationSettings(true, 300, 0.8f, true), pdfOptimizationService.getSettings("logos"));
+        assertEquals(new PdfOptimizationSettings(true, 0, 0.8f, true), pdfOptimizationService.getSettings("photos"));
+    }
+
+    @Test
+    void blankTemplateSettings() throws IOException {
+        pdfOptimizationService = new PdfOptimizationServiceImpl(new ObjectMapper(), meterRegistry,
+                true, 300, 0.8f, true, "");
+
+        assertTrue(pdfOptimizationService.isEnabled("other"));
+    }
+
+    @Test
+    void optimizeDownsamplesLargeImages() throws IOException {
+        File pdf = pdfWithImage(1200);
+        long inputBytes = pdf.length();
+
+        File optimizedPdf = pdfOptimizationService.optimize(pdf, "logos");
+
+        assertNotEquals(pdf, optimizedPdf);
+        assertFalse(pdf.exists());
+        assertTrue(optimizedPdf.length() < inputBytes);
+        try (PDDocument document = PDDocument.load(optimizedPdf)) {
+            PDPage page = document.getPage(0);
+            PDImageXObject image = (PDImageXObject) page.getResources()
+                    .getXObject(page.getResources().getXObjectNames().iterator().next());
+            assertEquals(300, image.getWidth());
+        }
+        assertEquals(inputBytes, meterRegistry.get(PdfOptimizationServiceImpl.INPUT_BYTES_COUNTER)
+                .tag("templateId", "logos").counter().count());
+        assertEquals(inputBytes - optimizedPdf.length(), meterRegistry.get(PdfOptimizationServiceImpl.SAVED_BYTES_COUNTER)
+                .tag("templateId", "logos").counter().count());
+        Files.delete(optimizedPdf.toPath());
+    }
+
+    @Test
+    void optimizeKeepsUnreadablePdf() throws IOException {
+        File pdf = File.createTempFile("tempFile", ".pdf");
+        Files.writeString(pdf.toPath(), "not a pdf");
+
+        assertEquals(pdf, pdfOptimizationService.optimize(pdf, "logos"));
+        assertEquals("not a pdf", Files.readString(pdf.toPath()));
+        Files.delete(pdf.toPath());
+    }
+
+    private File pdfWithImage(int size) throws IOException {
+        BufferedImage noise = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                noise.setRGB(x, y, random.nextInt(0xFFFFFF));
+            }
+        }
+        File pdf = File.createTempFile("tempFile", ".pdf");
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage();
+            document.addPage(page);
+            PDImageXObject image = LosslessFactory.createFromImage(document, noise);
+            try (PDPageContentStream contentStream = new PDPageContentStream(document, page)) {
+                contentStream.drawImage(image, 50, 50, 200, 200);
+            }
+            document.save(pdf);
+        }
+        return pdf;
+    }
+
+}
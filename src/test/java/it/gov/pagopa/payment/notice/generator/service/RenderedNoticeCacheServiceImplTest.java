@@ -0,0 +1,167 @@
+package it.gov.pagopa.payment.notice.generator.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.gov.pagopa.payment.notice.generator.storage.RenderedNoticeStorageClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RenderedNoticeCacheServiceImplTest {
+
+    @Mock
+    RenderedNoticeStorageClient renderedNoticeStorageClient;
+
+    @TempDir
+    Path cacheDirectory;
+
+    @TempDir
+    Path workingDirectory;
+
+    MeterRegistry meterRegistry;
+
+    RenderedNoticeCacheServiceImpl renderedNoticeCacheService;
+
+    @BeforeEach
+    void init() throws IOException {
+        meterRegistry = new SimpleMeterRegistry();
+        renderedNoticeCacheService = new RenderedNoticeCacheServiceImpl(renderedNoticeStorageClient, meterRegistry,
+                true, cacheDirectory.toString(), 1024);
+    }
+
+    @Test
+    void buildKeyDependsOnTemplateAndData() throws IOException {
+        File template = Files.writeString(workingDirectory.resolve("template.zip"), "template").toFile();
+        String key = renderedNoticeCacheService.buildKey("template", template, "{\"a\":1}");
+
+        assertEquals(64, key.length());
+        assertEquals(key, renderedNoticeCacheService.buildKey("template", template, "{\"a\":1}"));
+        assertNotEquals(key, renderedNoticeCacheService.buildKey("other", template, "{\"a\":1}"));
+        assertNotEquals(key, renderedNoticeCacheService.buildKey("template", template, "{\"a\":2}"));
+
+        Files.writeString(template.toPath(), "new version of the template");
+        assertNotEquals(key, renderedNoticeCacheService.buildKey("template", template, "{\"a\":1}"));
+    }
+
+    @Test
+    void getFromDisk() throws IOException {
+        renderedNoticeCacheService.put("key", pdf("content"));
+
+        File cached = renderedNoticeCacheService.get("key", workingDirectory);
+
+        assertEquals("content", Files.readString(cached.toPath()));
+        assertEquals(workingDirectory, cached.toPath().getParent());
+        assertEquals(1, meterRegistry.get(RenderedNoticeCacheServiceImpl.HIT_COUNTER)
+                .tag("tier", RenderedNoticeCacheServiceImpl.TIER_DISK).counter().count());
+        verify(renderedNoticeStorageClient, never()).getPdf(any(), any());
+    }
+
+    @Test
+    void getFromBlobKeepsOnDisk() throws IOException {
+        doReturn(true).when(renderedNoticeStorageClient).isEnabled();
+        doAnswer(invocation -> {
+            Files.writeString(invocation.getArgument(1), "content");
+            return true;
+        }).when(renderedNoticeStorageClient).getPdf(eq("key"), any());
+
+        assertEquals("content", Files.readString(renderedNoticeCacheService.get("key", workingDirectory).toPath()));
+        assertEquals("content", Files.readString(renderedNoticeCacheService.get("key", workingDirectory).toPath()));
+
+        verify(renderedNoticeStorageClient).getPdf(eq("key"), any());
+        assertEquals(1, meterRegistry.get(RenderedNoticeCacheServiceImpl.HIT_COUNTER)
+                .tag("tier", RenderedNoticeCacheServiceImpl.TIER_BLOB).counter().count());
+        assertEquals(1, meterRegistry.get(RenderedNoticeCacheServiceImpl.HIT_COUNTER)
+                .tag("tier", RenderedNoticeCacheServiceImpl.TIER_DISK).counter().count());
+    }
+
+    @Test
+    void getMissCleansWorkingDirectory() throws IOException {
+        doReturn(true).when(renderedNoticeStorageClient).isEnabled();
+        doReturn(false).when(renderedNoticeStorageClient).getPdf(eq("key"), any());
+
+        assertNull(renderedNoticeCacheService.get("key", workingDirectory));
+
+        assertEquals(1, meterRegistry.get(RenderedNoticeCacheServiceImpl.MISS_COUNTER).counter().count());
+        try (var files = Files.list(workingDirectory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void getMissOnBlobError() {
+        doReturn(true).when(renderedNoticeStorageClient).isEnabled();
+        doThrow(new IllegalStateException("unavailable")).when(renderedNoticeStorageClient).getPdf(eq("key"), any());
+
+        assertNull(renderedNoticeCacheService.get("key", workingDirectory));
+        assertEquals(1, meterRegistry.get(RenderedNoticeCacheServiceImpl.MISS_COUNTER).counter().count());
+    }
+
+    @Test
+    void putUploadsToBlob() throws IOException {
+        doReturn(true).when(renderedNoticeStorageClient).isEnabled();
+        File pdf = pdf("content");
+
+        renderedNoticeCacheService.put("key", pdf);
+
+        verify(renderedNoticeStorageClient).savePdf("key", pdf.toPath());
+        assertTrue(pdf.exists());
+        assertEquals("content", Files.readString(cacheDirectory.resolve("key.pdf")));
+    }
+
+    @Test
+    void putIgnoresBlobError() throws IOException {
+        doReturn(true).when(renderedNoticeStorageClient).isEnabled();
+        doThrow(new IllegalStateException("unavailable")).when(renderedNoticeStorageClient).savePdf(any(), any());
+
+        renderedNoticeCacheService.put("key", pdf("content"));
+
+        assertNotNull(renderedNoticeCacheService.get("key", workingDirectory));
+    }
+
+    @Test
+    void evictsBeyondBudget() throws IOException {
+        for (int i = 0; i < 10; i++) {
+            renderedNoticeCacheService.put("key" + i, pdf("x".repeat(300)));
+        }
+
+        long cachedBytes;
+        try (var files = Files.list(cacheDirectory)) {
+            cachedBytes = files.mapToLong(file -> file.toFile().length()).sum();
+        }
+        assertTrue(cachedBytes <= 1024);
+        assertTrue(meterRegistry.get(RenderedNoticeCacheServiceImpl.SIZE_GAUGE).gauge().value() <= 1024);
+    }
+
+    @Test
+    void indexesPreviousRun() throws IOException {
+        Files.writeString(cacheDirectory.resolve("previous.pdf"), "content");
+        Files.writeString(cacheDirectory.resolve("partial123.tmp"), "cont");
+
+        renderedNoticeCacheService = new RenderedNoticeCacheServiceImpl(renderedNoticeStorageClient,
+                new SimpleMeterRegistry(), true, cacheDirectory.toString(), 1024);
+
+        assertNotNull(renderedNoticeCacheService.get("previous", workingDirectory));
+        assertFalse(Files.exists(cacheDirectory.resolve("partial123.tmp")));
+    }
+
+    private File pdf(String content) throws IOException {
+        File pdf = File.createTempFile("tempFile", ".pdf", workingDirectory.toFile());
+        Files.writeString(pdf.toPath(), content);
+        return pdf;
+    }
+
+}
@@ -0,0 +1,58 @@
+package it.gov.pagopa.payment.notice.generator.storage;
+
+import com.azure.core.util.BinaryData;
+import com.azure.storage.blob.BlobClient;
+import com.azure.storage.blob.BlobContainerClient;
+import com.azure.storage.blob.models.BlobStorageException;
+import it.gov.pagopa.payment.notice.generator.exception.AppError;
+import it.gov.pagopa.payment.notice.generator.exception.AppException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NoticePayloadStorageClientTest {
+
+    private BlobContainerClient blobContainerClient;
+
+    private BlobClient blobClientMock;
+
+    private NoticePayloadStorageClient noticePayloadStorageClient;
+
+    @BeforeEach
+    public void init() {
+        blobContainerClient = mock(BlobContainerClient.class);
+        noticePayloadStorageClient = new NoticePayloadStorageClient(true, blobContainerClient);
+        blobClientMock = mock(BlobClient.class);
+        lenient().doReturn(blobClientMock).when(blobContainerClient).getBlobClient(anyString());
+    }
+
+    @Test
+    void shouldReturnPayload() {
+        doReturn(BinaryData.fromBytes("payload".getBytes())).when(blobClientMock).downloadContent();
+        assertArrayEquals("payload".getBytes(), noticePayloadStorageClient.getPayload("folder/payload"));
+        verify(blobContainerClient).getBlobClient("folder/payload");
+    }
+
+    @Test
+    void shouldReturnExceptionOnMissingPayload() {
+        doThrow(new BlobStorageException("test", null, null)).when(blobClientMock).downloadContent();
+        AppException exception = assertThrows(AppException.class, () ->
+                noticePayloadStorageClient.getPayload("folder/payload"));
+        assertEquals(AppError.PAYLOAD_NOT_FOUND.title, exception.getTitle());
+    }
+
+    @Test
+    void shouldReturnExceptionOnMissingClient() {
+        assertThrows(AppException.class, () ->
+                new NoticePayloadStorageClient(false, null).getPayload("folder/payload"));
+    }
+
+}
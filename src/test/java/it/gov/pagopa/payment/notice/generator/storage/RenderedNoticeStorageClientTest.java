@@ -0,0 +1,71 @@
+package it.gov.pagopa.payment.notice.generator.storage;
+
+import com.azure.storage.blob.BlobClient;
+import com.azure.storage.blob.BlobContainerClient;
+import com.azure.storage.blob.models.BlobStorageException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RenderedNoticeStorageClientTest {
+
+    private BlobContainerClient blobContainerClient;
+
+    private BlobClient blobClientMock;
+
+    private RenderedNoticeStorageClient renderedNoticeStorageClient;
+
+    @BeforeEach
+    public void init() {
+        blobContainerClient = mock(BlobContainerClient.class);
+        renderedNoticeStorageClient = new RenderedNoticeStorageClient(true, blobContainerClient);
+        blobClientMock = mock(BlobClient.class);
+        lenient().doReturn(blobClientMock).when(blobContainerClient).getBlobClient(anyString());
+    }
+
+    @Test
+    void shouldDownloadPdf() {
+        assertTrue(renderedNoticeStorageClient.getPdf("key", Path.of("target.pdf")));
+        verify(blobContainerClient).getBlobClient("key.pdf");
+        verify(blobClientMock).downloadToFile("target.pdf", true);
+    }
+
+    @Test
+    void shouldReturnFalseOnMissingPdf() {
+        BlobStorageException notFound = mock(BlobStorageException.class);
+        doReturn(404).when(notFound).getStatusCode();
+        doThrow(notFound).when(blobClientMock).downloadToFile(anyString(), anyBoolean());
+        assertFalse(renderedNoticeStorageClient.getPdf("key", Path.of("target.pdf")));
+    }
+
+    @Test
+    void shouldThrowOnStorageError() {
+        BlobStorageException unavailable = mock(BlobStorageException.class);
+        doReturn(503).when(unavailable).getStatusCode();
+        doThrow(unavailable).when(blobClientMock).downloadToFile(anyString(), anyBoolean());
+        assertThrows(BlobStorageException.class, () ->
+                renderedNoticeStorageClient.getPdf("key", Path.of("target.pdf")));
+    }
+
+    @Test
+    void shouldUploadPdf() {
+        renderedNoticeStorageClient.savePdf("key", Path.of("source.pdf"));
+        verify(blobContainerClient).getBlobClient("key.pdf");
+        verify(blobClientMock).uploadFromFile("source.pdf", true);
+    }
+
+    @Test
+    void shouldBeDisabledWithoutClient() {
+        assertFalse(new RenderedNoticeStorageClient(false, null).isEnabled());
+        assertTrue(renderedNoticeStorageClient.isEnabled());
+    }
+
+}
@@ -0,0 +1,77 @@
+package it.gov.pagopa.payment.notice.generator.util;
+
+import it.gov.pagopa.payment.notice.generator.exception.Aes256Exception;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Aes256UtilsTest {
+
+    private static final String DATA = "{\"templateId\":\"template\",\"data\":{\"notice\":{\"code\":\"302000000000000001\"}}}";
+
+    @SneakyThrows
+    @Test
+    void encryptShouldBeDecryptable() {
+        Aes256Utils aes256Utils = new Aes256Utils("key", "salt");
+
+        String encrypted = aes256Utils.encrypt(DATA);
+
+        assertNotEquals(encrypted, aes256Utils.encrypt(DATA));
+        assertEquals(DATA, aes256Utils.decrypt(encrypted));
+    }
+
+    @SneakyThrows
+    @Test
+    void encryptShouldKeepLegacyFormat() {
+        String encrypted = new Aes256Utils("key", "salt").encrypt(DATA);
+
+        // IV followed by the ciphertext, with the key derived as by the former implementation
+        byte[] encryptedData = Base64.getDecoder().decode(encrypted);
+        SecretKeySpec secretKeySpec = new SecretKeySpec(SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256")
+                .generateSecret(new PBEKeySpec("key".toCharArray(), "salt".getBytes(), 65536, 256))
+                .getEncoded(), "AES");
+        Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+        cipher.init(Cipher.DECRYPT_MODE, secretKeySpec, new IvParameterSpec(Arrays.copyOf(encryptedData, 16)));
+
+        assertEquals(DATA, new String(cipher.doFinal(encryptedData, 16, encryptedData.length - 16),
+                StandardCharsets.UTF_8));
+    }
+
+    @SneakyThrows
+    @Test
+    void decryptShouldAcceptPreviousKey() {
+        String encrypted = new Aes256Utils("old-key", "old-salt").encrypt(DATA);
+        Aes256Utils rotated = new Aes256Utils("new-key", "new-salt", "old-key", "old-salt");
+
+        assertEquals(DATA, rotated.decrypt(encrypted));
+        assertEquals(DATA, rotated.decrypt(rotated.encrypt(DATA)));
+        assertThrows(Aes256Exception.class, () -> new Aes256Utils("new-key", "new-salt").decrypt(encrypted));
+    }
+
+    @Test
+    void shouldThrowOnMissingKey() {
+        Aes256Utils aes256Utils = new Aes256Utils("", "");
+
+        assertThrows(Aes256Exception.class, () -> aes256Utils.encrypt(DATA));
+        assertThrows(Aes256Exception.class, () -> aes256Utils.decrypt("data"));
+    }
+
+    @Test
+    void decryptShouldThrowOnInvalidData() {
+        Aes256Utils aes256Utils = new Aes256Utils("key", "salt");
+
+        assertThrows(Aes256Exception.class, () -> aes256Utils.decrypt("not base64!"));
+        assertThrows(Aes256Exception.class, () -> aes256Utils.decrypt(Base64.getEncoder().encodeToString(new byte[8])));
+    }
+
+}
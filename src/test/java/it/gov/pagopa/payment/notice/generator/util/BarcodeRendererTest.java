@@ -0,0 +1,75 @@
+package it.gov.pagopa.payment.notice.generator.util;
+
+import com.google.zxing.common.BitMatrix;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BarcodeRendererTest {
+
+    private static final String QR_CODE = "PAGOPA|002|302000000000000001|99999000013|123456789";
+    private static final String DATA_MATRIX = "codfase=NBPA;18302000000000000001";
+
+    @Test
+    void encodeQrCodeIsCached() {
+        BarcodeRenderer barcodeRenderer = new BarcodeRenderer(BarcodeRenderer.SVG_FORMAT, 4, 100);
+
+        BitMatrix matrix = barcodeRenderer.encodeQrCode(QR_CODE);
+
+        assertEquals(matrix.getWidth(), matrix.getHeight());
+        // version 3 at least, without quiet zone
+        assertTrue(matrix.getWidth() >= 29);
+        assertTrue(matrix.get(0, 0));
+        assertSame(matrix, barcodeRenderer.encodeQrCode(QR_CODE));
+    }
+
+    @Test
+    void encodeDataMatrixIsSquare() {
+        BarcodeRenderer barcodeRenderer = new BarcodeRenderer(BarcodeRenderer.SVG_FORMAT, 4, 100);
+
+        BitMatrix matrix = barcodeRenderer.encodeDataMatrix(DATA_MATRIX);
+
+        assertEquals(matrix.getWidth(), matrix.getHeight());
+    }
+
+    @Test
+    void svgImage() {
+        BarcodeRenderer barcodeRenderer = new BarcodeRenderer(BarcodeRenderer.SVG_FORMAT, 4, 100);
+        BitMatrix matrix = barcodeRenderer.encodeQrCode(QR_CODE);
+
+        String image = barcodeRenderer.qrCodeImage(QR_CODE);
+
+        assertTrue(image.startsWith("data:image/svg+xml;base64,"));
+        String svg = new String(Base64.getDecoder().decode(image.substring(image.indexOf(',') + 1)),
+                StandardCharsets.UTF_8);
+        assertTrue(svg.contains(String.format("viewBox=\"0 0 %d %d\"", matrix.getWidth(), matrix.getHeight())));
+        assertSame(image, barcodeRenderer.qrCodeImage(QR_CODE));
+    }
+
+    @Test
+    void pngImage() throws IOException {
+        BarcodeRenderer barcodeRenderer = new BarcodeRenderer(BarcodeRenderer.PNG_FORMAT, 4, 100);
+        BitMatrix matrix = barcodeRenderer.encodeDataMatrix(DATA_MATRIX);
+
+        String image = barcodeRenderer.dataMatrixImage(DATA_MATRIX);
+
+        assertTrue(image.startsWith("data:image/png;base64,"));
+        BufferedImage png = ImageIO.read(new ByteArrayInputStream(
+                Base64.getDecoder().decode(image.substring(image.indexOf(',') + 1))));
+        assertEquals(matrix.getWidth() * 4, png.getWidth());
+        assertEquals(matrix.get(0, 0), (png.getRGB(0, 0) & 0xFFFFFF) == 0);
+    }
+
+    @Test
+    void unknownFormat() {
+        assertThrows(IllegalArgumentException.class, () -> new BarcodeRenderer("gif", 4, 100));
+    }
+
+}
@@ -0,0 +1,38 @@
+package it.gov.pagopa.payment.notice.generator.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    @Test
+    void mightContainShouldFindEveryPutValue() {
+        BloomFilter bloomFilter = new BloomFilter(1000, 0.01);
+
+        IntStream.range(0, 1000).forEach(i -> bloomFilter.put("folder/item" + i));
+
+        assertTrue(IntStream.range(0, 1000).allMatch(i -> bloomFilter.mightContain("folder/item" + i)));
+    }
+
+    @Test
+    void mightContainShouldRejectMostMissingValues() {
+        BloomFilter bloomFilter = new BloomFilter(1000, 0.01);
+        IntStream.range(0, 1000).forEach(i -> bloomFilter.put("folder/item" + i));
+
+        long falsePositives = IntStream.range(0, 10000)
+                .filter(i -> bloomFilter.mightContain("folder/missing" + i))
+                .count();
+
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void mightContainShouldBeFalseWhenEmpty() {
+        assertFalse(new BloomFilter(10, 0.01).mightContain("folder/item"));
+    }
+
+}
@@ -0,0 +1,86 @@
+package it.gov.pagopa.payment.notice.generator.util;
+
+import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeGenerationRequestError;
+import it.gov.pagopa.payment.notice.generator.model.enums.ErrorDataFormat;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ErrorDataUtilsTest {
+
+    private static final String DATA = "{\"templateId\":\"template\",\"data\":{\"notice\":{\"code\":\"302000000000000001\"," +
+            "\"installments\":[{\"code\":\"302000000000000002\",\"amount\":100,\"dueDate\":\"24/10/2024\"}," +
+            "{\"code\":\"302000000000000003\",\"amount\":100,\"dueDate\":\"24/11/2024\"}," +
+            "{\"code\":\"302000000000000004\",\"amount\":100,\"dueDate\":\"24/12/2024\"}]}}}";
+
+    private final Aes256Utils aes256Utils = new Aes256Utils("key", "salt");
+
+    @SneakyThrows
+    @ParameterizedTest
+    @EnumSource(ErrorDataFormat.class)
+    void setDataShouldBeReadableWithEachFormat(ErrorDataFormat format) {
+        ErrorDataUtils errorDataUtils = new ErrorDataUtils(aes256Utils, format);
+        PaymentNoticeGenerationRequestError error = new PaymentNoticeGenerationRequestError();
+
+        errorDataUtils.setData(error, DATA.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(format, error.getDataFormat());
+        assertEquals(format == ErrorDataFormat.ZSTD_AES_BINARY, error.getBinaryData() != null);
+        assertEquals(format != ErrorDataFormat.ZSTD_AES_BINARY, error.getData() != null);
+        // readable regardless of the format currently configured
+        assertEquals(DATA, new String(new ErrorDataUtils(aes256Utils, ErrorDataFormat.AES_BASE64).getData(error),
+                StandardCharsets.UTF_8));
+    }
+
+    @SneakyThrows
+    @Test
+    void setDataShouldCompressBeforeEncryption() {
+        PaymentNoticeGenerationRequestError legacy = new PaymentNoticeGenerationRequestError();
+        new ErrorDataUtils(aes256Utils, ErrorDataFormat.AES_BASE64).setData(legacy, DATA.getBytes(StandardCharsets.UTF_8));
+        PaymentNoticeGenerationRequestError compressed = new PaymentNoticeGenerationRequestError();
+        new ErrorDataUtils(aes256Utils, ErrorDataFormat.ZSTD_AES_BASE64).setData(compressed, DATA.getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(compressed.getData().length() < legacy.getData().length());
+    }
+
+    @SneakyThrows
+    @Test
+    void getDataShouldReadErrorsWithoutFormat() {
+        PaymentNoticeGenerationRequestError error = PaymentNoticeGenerationRequestError.builder()
+                .data(aes256Utils.encrypt(DATA))
+                .build();
+
+        byte[] data = new ErrorDataUtils(aes256Utils, ErrorDataFormat.ZSTD_AES_BINARY).getData(error);
+
+        assertEquals(DATA, new String(data, StandardCharsets.UTF_8));
+    }
+
+    @SneakyThrows
+    @Test
+    void getDataShouldReadErrorsEncryptedWithPreviousKey() {
+        PaymentNoticeGenerationRequestError error = new PaymentNoticeGenerationRequestError();
+        new ErrorDataUtils(aes256Utils, ErrorDataFormat.ZSTD_AES_BINARY).setData(error, DATA.getBytes(StandardCharsets.UTF_8));
+
+        ErrorDataUtils rotated = new ErrorDataUtils(new Aes256Utils("newKey", "newSalt", "key", "salt"),
+                ErrorDataFormat.ZSTD_AES_BINARY);
+
+        assertEquals(DATA, new String(rotated.getData(error), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void getDataShouldFailOnMissingData() {
+        ErrorDataUtils errorDataUtils = new ErrorDataUtils(aes256Utils, ErrorDataFormat.ZSTD_AES_BINARY);
+        PaymentNoticeGenerationRequestError error = PaymentNoticeGenerationRequestError.builder()
+                .dataFormat(ErrorDataFormat.ZSTD_AES_BINARY)
+                .build();
+
+        assertThrows(IOException.class, () -> errorDataUtils.getData(error));
+    }
+
+}
@@ -0,0 +1,108 @@
+package it.gov.pagopa.payment.notice.generator.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import it.gov.pagopa.payment.notice.generator.model.enums.GenerationEntryPoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class NoticeGenerationMetricsTest {
+
+    MockClock clock;
+
+    MeterRegistry meterRegistry;
+
+    NoticeGenerationMetrics noticeGenerationMetrics;
+
+    @BeforeEach
+    void init() {
+        clock = new MockClock();
+        meterRegistry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+        noticeGenerationMetrics = new NoticeGenerationMetrics(meterRegistry);
+    }
+
+    @Test
+    void stagesShouldRecordEachStageUntilTheNextOne() {
+        NoticeGenerationMetrics.Stages stages = noticeGenerationMetrics.start("template", GenerationEntryPoint.REST);
+        stages.start(NoticeGenerationMetrics.STAGE_INSTITUTION_FETCH);
+        clock.add(Duration.ofMillis(20));
+        stages.start(NoticeGenerationMetrics.STAGE_ENGINE_CALL);
+        clock.add(Duration.ofMillis(300));
+        stages.stop(true);
+
+        assertEquals(20, getStageTimeMillis(NoticeGenerationMetrics.STAGE_INSTITUTION_FETCH, "SUCCESS"));
+        assertEquals(300, getStageTimeMillis(NoticeGenerationMetrics.STAGE_ENGINE_CALL, "SUCCESS"));
+        assertEquals(320, meterRegistry.get(NoticeGenerationMetrics.TOTAL_TIMER)
+                .tags("templateId", "template", "entryPoint", "REST", "outcome", "SUCCESS")
+                .timer().totalTime(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void stopShouldMarkCurrentStageAsFailed() {
+        NoticeGenerationMetrics.Stages stages = noticeGenerationMetrics.start("template", GenerationEntryPoint.KAFKA);
+        stages.start(NoticeGenerationMetrics.STAGE_BLOB_UPLOAD);
+        clock.add(Duration.ofMillis(50));
+        stages.stop(false);
+
+        assertEquals(50, getStageTimeMillis(NoticeGenerationMetrics.STAGE_BLOB_UPLOAD, "FAILURE"));
+        assertNull(meterRegistry.find(NoticeGenerationMetrics.STAGE_TIMER).tag("outcome", "SUCCESS").timer());
+    }
+
+    @Test
+    void stagesShouldBeObservedInsideTheGeneration() {
+        List<Observation.Context> stopped = new ArrayList<>();
+        ObservationRegistry observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new ObservationHandler<>() {
+            @Override
+            public void onStop(Observation.Context context) {
+                stopped.add(context);
+            }
+
+            @Override
+            public boolean supportsContext(Observation.Context context) {
+                return true;
+            }
+        });
+        noticeGenerationMetrics = new NoticeGenerationMetrics(meterRegistry, observationRegistry);
+
+        NoticeGenerationMetrics.Stages stages = noticeGenerationMetrics.start("template", GenerationEntryPoint.REST);
+        stages.start(NoticeGenerationMetrics.STAGE_TEMPLATE_FETCH);
+        Observation templateFetch = observationRegistry.getCurrentObservation();
+        stages.start(NoticeGenerationMetrics.STAGE_ENGINE_CALL);
+        stages.stop(false);
+
+        assertNull(observationRegistry.getCurrentObservation());
+        assertEquals(3, stopped.size());
+        Observation.Context generation = stopped.get(2);
+        assertEquals(NoticeGenerationMetrics.GENERATION_SPAN, generation.getName());
+        assertEquals("FAILURE", generation.getLowCardinalityKeyValue("outcome").getValue());
+        assertSame(templateFetch.getContext(), stopped.get(0));
+        assertEquals(NoticeGenerationMetrics.STAGE_TEMPLATE_FETCH, stopped.get(0).getContextualName());
+        assertEquals("SUCCESS", stopped.get(0).getLowCardinalityKeyValue("outcome").getValue());
+        assertEquals(NoticeGenerationMetrics.STAGE_ENGINE_CALL, stopped.get(1).getContextualName());
+        assertEquals("FAILURE", stopped.get(1).getLowCardinalityKeyValue("outcome").getValue());
+        assertSame(generation, stopped.get(0).getParentObservation().getContextView());
+        assertSame(generation, stopped.get(1).getParentObservation().getContextView());
+    }
+
+    private double getStageTimeMillis(String stage, String outcome) {
+        return meterRegistry.get(NoticeGenerationMetrics.STAGE_TIMER)
+                .tags("stage", stage, "outcome", outcome)
+                .timer().totalTime(TimeUnit.MILLISECONDS);
+    }
+
+}
@@ -0,0 +1,112 @@
+package it.gov.pagopa.payment.notice.generator.util;
+
+import it.gov.pagopa.payment.notice.generator.entity.PaymentNoticeGenerationRequestError;
+import it.gov.pagopa.payment.notice.generator.model.NoticeGenerationRequestItem;
+import it.gov.pagopa.payment.notice.generator.model.NoticeRequestEH;
+import it.gov.pagopa.payment.notice.generator.model.notice.CreditorInstitution;
+import it.gov.pagopa.payment.notice.generator.model.notice.Notice;
+import it.gov.pagopa.payment.notice.generator.model.notice.NoticeRequestData;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PayloadLogFormatterTest {
+
+    private static final Object PAYLOAD = new Object() {
+        @Override
+        public String toString() {
+            return "NoticeRequestEH(folderId=folder, noticeData=NoticeGenerationRequestItem(templateId=template))";
+        }
+    };
+
+    @Test
+    void formatShouldAbbreviatePayload() {
+        PayloadLogFormatter payloadLogFormatter = new PayloadLogFormatter(15, 1);
+
+        assertEquals("NoticeRequestEH...[93 chars]", payloadLogFormatter.format(PAYLOAD).toString());
+        assertEquals("short", payloadLogFormatter.format("short").toString());
+        assertEquals("", payloadLogFormatter.format(null).toString());
+    }
+
+    @Test
+    void formatShouldKeepFullPayloadWithNegativeLength() {
+        PayloadLogFormatter payloadLogFormatter = new PayloadLogFormatter(-1, 1);
+
+        assertEquals(PAYLOAD.toString(), payloadLogFormatter.format(PAYLOAD).toString());
+    }
+
+    @Test
+    void formatShouldRenderLazily() {
+        int[] renderings = {0};
+        Object payload = new Object() {
+            @Override
+            public String toString() {
+                renderings[0]++;
+                return "payload";
+            }
+        };
+
+        Object formatted = new PayloadLogFormatter(100, 1).format(payload);
+
+        assertEquals(0, renderings[0]);
+        assertEquals("payload", formatted.toString());
+        assertEquals(1, renderings[0]);
+    }
+
+    @Test
+    void formatShouldSummarizeGenerationPayloads() {
+        PayloadLogFormatter payloadLogFormatter = new PayloadLogFormatter(-1, 1);
+        NoticeRequestEH noticeRequestEH = NoticeRequestEH.builder()
+                .folderId("folder")
+                .noticeData(NoticeGenerationRequestItem.builder()
+                        .templateId("template")
+                        .data(NoticeRequestData.builder()
+                                .notice(Notice.builder().code("code").subject("a".repeat(10000)).build())
+                                .creditorInstitution(CreditorInstitution.builder().taxCode("taxCode").build())
+                                .build())
+                        .build())
+                .build();
+        PaymentNoticeGenerationRequestError error = PaymentNoticeGenerationRequestError.builder()
+                .folderId("folder")
+                .errorId("errorId")
+                .errorCode("500")
+                .data("a".repeat(10000))
+                .build();
+
+        assertEquals("NoticeRequestEH(folderId=folder, errorId=null, noticeData=NoticeGenerationRequestItem(" +
+                        "templateId=template, creditorInstitution=taxCode, notice=code), payloadReference=null)",
+                payloadLogFormatter.format(noticeRequestEH).toString());
+        assertFalse(payloadLogFormatter.format(error).toString().contains("aaa"));
+        assertEquals("ArrayList[size=2]", payloadLogFormatter.format(new ArrayList<>(List.of(1, 2))).toString());
+        assertEquals("byte[3]", payloadLogFormatter.format(new byte[3]).toString());
+    }
+
+    @Test
+    void formatShouldSamplePerMessage() {
+        PayloadLogFormatter none = new PayloadLogFormatter(100, 0);
+        PayloadLogFormatter half = new PayloadLogFormatter(100, 0.5);
+
+        assertEquals("[omitted]", none.format(PAYLOAD).toString());
+        try {
+            long rendered = IntStream.range(0, 10000)
+                    .filter(i -> {
+                        MDC.put("folderId", "folder");
+                        MDC.put("itemId", "item" + i);
+                        // every log statement of the same message takes the same decision
+                        boolean sampled = !"[omitted]".equals(half.format(new Object()).toString());
+                        assertEquals(sampled, !"[omitted]".equals(half.format(PAYLOAD).toString()));
+                        return sampled;
+                    })
+                    .count();
+            assertTrue(rendered > 4000 && rendered < 6000);
+        } finally {
+            MDC.clear();
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+package it.gov.pagopa.payment.notice.generator.util;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.transport.ReceiverContext;
+import io.micrometer.observation.transport.SenderContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TraceContextUtilsTest {
+
+    private static final String TRACE_PARENT = "traceparent";
+
+    List<String> restoredContexts;
+
+    TraceContextUtils traceContextUtils;
+
+    @BeforeEach
+    void init() {
+        restoredContexts = new ArrayList<>();
+        ObservationRegistry observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new PropagatingHandler());
+        traceContextUtils = new TraceContextUtils(observationRegistry);
+    }
+
+    @Test
+    void restoreShouldRunInTheCapturedContext() {
+        Map<String, String> traceContext = traceContextUtils.capture("complete");
+
+        boolean sent = traceContextUtils.restore(traceContext, "complete", () -> true);
+
+        assertTrue(sent);
+        assertEquals(Map.of(TRACE_PARENT, "00-trace-span-01"), traceContext);
+        assertEquals(List.of("00-trace-span-01"), restoredContexts);
+    }
+
+    @Test
+    void restoreShouldStartNewTraceWithoutContext() {
+        boolean sent = traceContextUtils.restore(null, "error", () -> true);
+
+        assertTrue(sent);
+        assertEquals(List.of("none"), restoredContexts);
+    }
+
+    @Test
+    void captureShouldBeEmptyWithoutTracing() {
+        TraceContextUtils noopTraceContextUtils = new TraceContextUtils();
+
+        assertTrue(noopTraceContextUtils.capture("complete").isEmpty());
+        assertTrue(noopTraceContextUtils.restore(Map.of(), "complete", () -> true));
+    }
+
+    /**
+     * Stand-in for the tracing handlers, injecting and extracting a fixed trace context
+     */
+    private class PropagatingHandler implements ObservationHandler<Observation.Context> {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void onStart(Observation.Context context) {
+            if (context instanceof SenderContext<?> senderContext) {
+                ((SenderContext<Object>) senderContext).getSetter()
+                        .set(senderContext.getCarrier(), TRACE_PARENT, "00-trace-span-01");
+            } else if (context instanceof ReceiverContext<?> receiverContext) {
+                String traceParent = ((ReceiverContext<Object>) receiverContext).getGetter()
+                        .get(receiverContext.getCarrier(), TRACE_PARENT);
+                restoredContexts.add(traceParent != null ? traceParent : "none");
+            }
+        }
+
+        @Override
+        public boolean supportsContext(Observation.Context context) {
+            return true;
+        }
+
+    }
+
+}